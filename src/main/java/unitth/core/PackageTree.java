@@ -0,0 +1,174 @@
+/*
+ *    This file is part of UnitTH
+ *
+ *   UnitTH is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   UnitTH is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with UnitTH if not, see <http://www.gnu.org/licenses/>.
+ *
+ * =======================================================================
+ * $Id$
+ * -----------------------------------------------------------------------
+ *
+ * =======================================================================
+ */
+package unitth.core;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+
+/**
+ * Test packages are stored flat, this class arranges a set of package names
+ * as a tree so that the statistics of each package can be rolled up into its
+ * parent package. The parent of a package is the package with the name
+ * trimmed by one level, compared ignoring case. A package whose parent is not
+ * in the set is not rolled up any further.
+ * <p>
+ * The tree is built with one look up per package instead of comparing every
+ * package with every other package. Children are added to a parent in the
+ * order of the <code>CustomStringLengthComparator</code>, longest name first,
+ * and always after their own children have been added to them.
+ *
+ * @author andnyb
+ */
+public class PackageTree {
+
+	/**
+	 * Call back used for adding the statistics of a package to its parent.
+	 */
+	public interface RollUp {
+		/**
+		 * @param parentName
+		 *            The package to add to.
+		 * @param childName
+		 *            The package to add from.
+		 */
+		void addFrom(String parentName, String childName);
+	}
+
+	/*
+	 * One node per package name ignoring case. Package names only differing
+	 * in case end up in the same node.
+	 */
+	private static class Node {
+		private ArrayList<String> names = new ArrayList<String>();
+		private ArrayList<String> childNames = new ArrayList<String>();
+		private ArrayList<Node> children = new ArrayList<Node>();
+		private Node parent = null;
+	}
+
+	private HashMap<String, Node> nodes = new HashMap<String, Node>();
+	private ArrayList<Node> roots = new ArrayList<Node>();
+
+	/**
+	 * CTOR, builds the tree.
+	 *
+	 * @param packageNames
+	 *            The names of all packages.
+	 */
+	public PackageTree(Collection<String> packageNames) {
+		String[] sortedNames = packageNames.toArray(new String[0]);
+		Arrays.sort(sortedNames, new CustomStringLengthComparator());
+
+		for (String name : sortedNames) {
+			Node node = nodes.get(getKey(name));
+			if (null == node) {
+				node = new Node();
+				nodes.put(getKey(name), node);
+			}
+			node.names.add(name);
+		}
+
+		for (String name : sortedNames) {
+			Node node = nodes.get(getKey(name));
+			Node parent = null;
+			int liof = name.lastIndexOf(".");
+			if (-1 != liof) {
+				parent = nodes.get(getKey(name.substring(0, liof)));
+			}
+			boolean firstName = node.names.get(0).equals(name);
+			if (null == parent) {
+				if (firstName) {
+					roots.add(node);
+				}
+				continue;
+			}
+			if (firstName) {
+				node.parent = parent;
+				parent.children.add(node);
+			}
+			parent.childNames.add(name);
+		}
+	}
+
+	/**
+	 * Rolls up all packages, the deepest packages first.
+	 *
+	 * @param rollUp
+	 *            The call back doing the actual adding.
+	 */
+	public void rollUp(RollUp rollUp) {
+		for (Node root : roots) {
+			rollUp(root, null, rollUp);
+		}
+	}
+
+	/**
+	 * Rolls up the given packages and all their parent packages. All children
+	 * of the rolled up parents are added again, so adding a package more than
+	 * once must not change the parent.
+	 *
+	 * @param changedNames
+	 *            The names of the packages that have changed.
+	 * @param rollUp
+	 *            The call back doing the actual adding.
+	 */
+	public void rollUp(Collection<String> changedNames, RollUp rollUp) {
+		HashSet<Node> changed = new HashSet<Node>();
+		for (String name : changedNames) {
+			Node node = nodes.get(getKey(name));
+			while (null != node && changed.add(node)) {
+				node = node.parent;
+			}
+		}
+		for (Node root : roots) {
+			if (changed.contains(root)) {
+				rollUp(root, changed, rollUp);
+			}
+		}
+	}
+
+	/*
+	 * Adds the children to the node after they have got their own children
+	 * added. If a set of changed nodes is given only those are visited.
+	 */
+	private void rollUp(Node node, HashSet<Node> changed, RollUp rollUp) {
+		for (Node child : node.children) {
+			if (null == changed || changed.contains(child)) {
+				rollUp(child, changed, rollUp);
+			}
+		}
+		for (String parentName : node.names) {
+			for (String childName : node.childNames) {
+				rollUp.addFrom(parentName, childName);
+			}
+		}
+	}
+
+	private String getKey(String name) {
+		return name.toLowerCase();
+	}
+}
+
+/* eof */
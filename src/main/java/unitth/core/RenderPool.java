@@ -0,0 +1,129 @@
+/*
+ *    This file is part of UnitTH
+ *
+ *   UnitTH is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   UnitTH is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with UnitTH if not, see <http://www.gnu.org/licenses/>.
+ *
+ * =======================================================================
+ * $Id$
+ * -----------------------------------------------------------------------
+ *
+ * =======================================================================
+ */
+package unitth.core;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs a list of independent rendering tasks, like report pages or graphs,
+ * that only read the calculated history. With more than one render thread the
+ * tasks are run by a work stealing pool. The list is split in halves until
+ * single tasks remain, idle threads steal the halves not yet started, so a few
+ * tasks that take long do not keep the rest of the tasks waiting behind them.
+ * <p>
+ * A task that fails is reported and does not stop the remaining tasks.
+ *
+ * @author andnyb
+ */
+public class RenderPool {
+
+	private int noThreads = 1;
+	private String what = "";
+	private AtomicInteger noFailed = new AtomicInteger();
+
+	/**
+	 * CTOR
+	 *
+	 * @param noThreads
+	 *            The number of threads to render with.
+	 * @param what
+	 *            What the tasks render, used in error messages.
+	 */
+	public RenderPool(int noThreads, String what) {
+		this.noThreads = noThreads;
+		this.what = what;
+	}
+
+	/**
+	 * Runs all tasks and returns when they are done.
+	 *
+	 * @param tasks
+	 *            The tasks to run.
+	 * @return The number of tasks that failed.
+	 */
+	public int run(List<? extends Runnable> tasks) {
+		noFailed.set(0);
+		if (noThreads < 2 || tasks.size() < 2) {
+			for (Runnable task : tasks) {
+				runTask(task);
+			}
+		} else {
+			ForkJoinPool pool = new ForkJoinPool(Math.min(noThreads,
+					tasks.size()));
+			try {
+				pool.invoke(new Split(tasks, 0, tasks.size()));
+			} finally {
+				pool.shutdown();
+			}
+		}
+		return noFailed.get();
+	}
+
+	/*
+	 * Runs a single task, isolating the other tasks from its failure.
+	 */
+	private void runTask(Runnable task) {
+		try {
+			task.run();
+		} catch (Throwable t) {
+			noFailed.incrementAndGet();
+			System.err.println("Failed to render " + what + "... "
+					+ t.getMessage());
+			t.printStackTrace();
+		}
+	}
+
+	/*
+	 * Runs the tasks in a range of the task list, splits the range while
+	 * there is more than one task in it.
+	 */
+	private class Split extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private List<? extends Runnable> tasks = null;
+		private int from = 0;
+		private int to = 0;
+
+		private Split(List<? extends Runnable> tasks, int from, int to) {
+			this.tasks = tasks;
+			this.from = from;
+			this.to = to;
+		}
+
+		protected void compute() {
+			if (1 == to - from) {
+				runTask(tasks.get(from));
+			} else {
+				int middle = (from + to) >>> 1;
+				invokeAll(new Split(tasks, from, middle), new Split(tasks,
+						middle, to));
+			}
+		}
+	}
+}
+
+/* eof */
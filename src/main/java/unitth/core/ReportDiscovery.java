@@ -0,0 +1,249 @@
+/*
+ *    This file is part of UnitTH
+ *
+ *   UnitTH is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   UnitTH is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with UnitTH if not, see <http://www.gnu.org/licenses/>.
+ *
+ * =======================================================================
+ * $Id$
+ * -----------------------------------------------------------------------
+ *
+ * =======================================================================
+ */
+package unitth.core;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileVisitOption;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * This class finds the report files of the runs given as input. Every run
+ * folder is walked with <code>Files.walkFileTree</code>, the attributes of
+ * each entry come with the directory walk so the file name filter is matched
+ * on the name alone and no file is looked up a second time to check that it
+ * is a file. With recursion turned on, all matching files below a run folder
+ * belong to the run, so that the surefire-reports folders of every module in
+ * a Maven multi-module build are found in one pass.
+ * <p>
+ * With more than one thread the run folders are walked in parallel. The
+ * files are handed out in the order the runs were given.
+ *
+ * @author andnyb
+ */
+public class ReportDiscovery {
+
+	private int noThreads = 1;
+	private boolean recursive = false;
+	private String prefix = "";
+	private long discoveryNanos = 0;
+
+	/**
+	 * CTOR
+	 *
+	 * @param noThreads
+	 *            The number of threads to walk the run folders with.
+	 * @param recursive
+	 *            True to search all sub folders of the run folders.
+	 * @param prefix
+	 *            The start of the names of the report files, the
+	 *            <code>unitth.xml.report.filter</code>.
+	 */
+	public ReportDiscovery(int noThreads, boolean recursive, String prefix) {
+		this.noThreads = noThreads;
+		this.recursive = recursive;
+		this.prefix = prefix;
+	}
+
+	/**
+	 * Checks if a file name is the name of a report file.
+	 *
+	 * @param name
+	 *            The file name.
+	 * @return True for XML files starting with the report file filter.
+	 */
+	public boolean accept(String name) {
+		return (name.endsWith(".xml") || name.endsWith(".XML"))
+				&& name.startsWith(prefix);
+	}
+
+	/**
+	 * Finds the report files of a number of run folders.
+	 *
+	 * @param runDirs
+	 *            The run folders.
+	 * @return The report files of each run folder, in the same order as the
+	 *         run folders. The entry is null for a run folder that is not a
+	 *         folder.
+	 * @throws UnitTHException
+	 *             If one of the run folders does not exist.
+	 */
+	public ArrayList<ArrayList<File>> findReports(String[] runDirs)
+			throws UnitTHException {
+		long start = System.nanoTime();
+		ArrayList<ArrayList<File>> reports = new ArrayList<ArrayList<File>>();
+		try {
+			if (noThreads < 2 || runDirs.length < 2) {
+				for (String runDir : runDirs) {
+					reports.add(findReports(runDir));
+				}
+			} else {
+				findReportsInParallel(runDirs, reports);
+			}
+		} finally {
+			discoveryNanos += System.nanoTime() - start;
+		}
+		return reports;
+	}
+
+	/**
+	 * Finds the folders directly below a folder.
+	 *
+	 * @param dir
+	 *            The folder to look in.
+	 * @return The absolute paths of the folders, empty if the folder does not
+	 *         exist.
+	 */
+	public ArrayList<String> findFolders(File dir) {
+		long start = System.nanoTime();
+		final ArrayList<String> folders = new ArrayList<String>();
+		try {
+			Files.walkFileTree(dir.toPath(), EnumSet.noneOf(FileVisitOption.class),
+					1, new SimpleFileVisitor<Path>() {
+						public FileVisitResult visitFile(Path path,
+								BasicFileAttributes attrs) {
+							if (attrs.isDirectory()
+									|| (attrs.isSymbolicLink() && Files
+											.isDirectory(path))) {
+								folders.add(path.toAbsolutePath().toString());
+							}
+							return FileVisitResult.CONTINUE;
+						}
+
+						public FileVisitResult visitFileFailed(Path path,
+								IOException ioe) {
+							return FileVisitResult.CONTINUE;
+						}
+					});
+		} catch (IOException ioe) {
+			System.err.println("Could not list the folder '"
+					+ dir.getAbsolutePath() + "', " + ioe.getMessage());
+		} finally {
+			discoveryNanos += System.nanoTime() - start;
+		}
+		return folders;
+	}
+
+	/**
+	 * @return The time spent finding files and folders in milliseconds.
+	 */
+	public long getDiscoveryTime() {
+		return discoveryNanos / 1000000;
+	}
+
+	/*
+	 * Walks one run folder.
+	 */
+	private ArrayList<File> findReports(String runDir) throws UnitTHException {
+		Path root = new File(runDir).toPath();
+		try {
+			if (!Files.readAttributes(root, BasicFileAttributes.class)
+					.isDirectory()) {
+				return null;
+			}
+		} catch (NoSuchFileException nsfe) {
+			throw new UnitTHException("Folder '"
+					+ root.toAbsolutePath() + "' given as input argument does not exist.");
+		} catch (IOException ioe) {
+			throw new UnitTHException("Folder '"
+					+ root.toAbsolutePath() + "' given as input argument could not be read, "
+					+ ioe.getMessage());
+		}
+
+		final ArrayList<File> files = new ArrayList<File>();
+		try {
+			Files.walkFileTree(root, EnumSet.noneOf(FileVisitOption.class),
+					recursive ? Integer.MAX_VALUE : 1,
+					new SimpleFileVisitor<Path>() {
+						public FileVisitResult visitFile(Path path,
+								BasicFileAttributes attrs) {
+							if (accept(path.getFileName().toString())
+									&& (attrs.isRegularFile() || (attrs
+											.isSymbolicLink() && Files
+											.isRegularFile(path)))) {
+								files.add(path.toFile());
+							}
+							return FileVisitResult.CONTINUE;
+						}
+
+						public FileVisitResult visitFileFailed(Path path,
+								IOException ioe) {
+							System.err.println("Could not read '" + path
+									+ "', " + ioe.getMessage());
+							return FileVisitResult.CONTINUE;
+						}
+					});
+		} catch (IOException ioe) {
+			throw new UnitTHException("Folder '"
+					+ root.toAbsolutePath() + "' given as input argument could not be read, "
+					+ ioe.getMessage());
+		}
+		return files;
+	}
+
+	private void findReportsInParallel(String[] runDirs,
+			ArrayList<ArrayList<File>> reports) throws UnitTHException {
+		ExecutorService executor = Executors.newFixedThreadPool(Math.min(
+				noThreads, runDirs.length));
+		try {
+			ArrayList<Future<ArrayList<File>>> found = new ArrayList<Future<ArrayList<File>>>();
+			for (final String runDir : runDirs) {
+				found.add(executor.submit(new Callable<ArrayList<File>>() {
+					public ArrayList<File> call() throws UnitTHException {
+						return findReports(runDir);
+					}
+				}));
+			}
+			for (Future<ArrayList<File>> f : found) {
+				try {
+					reports.add(f.get());
+				} catch (ExecutionException ee) {
+					if (ee.getCause() instanceof UnitTHException) {
+						throw (UnitTHException) ee.getCause();
+					}
+					throw new UnitTHException("Failed to find the report files... "
+							+ ee.getCause().getMessage());
+				}
+			}
+		} catch (InterruptedException ie) {
+			Thread.currentThread().interrupt();
+			throw new UnitTHException("Interrupted while finding the report files.");
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+}
+
+/* eof */
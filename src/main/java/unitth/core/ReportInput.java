@@ -0,0 +1,320 @@
+/*
+ *    This file is part of UnitTH
+ *
+ *   UnitTH is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   UnitTH is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with UnitTH if not, see <http://www.gnu.org/licenses/>.
+ *
+ * =======================================================================
+ * $Id$
+ * -----------------------------------------------------------------------
+ *
+ * =======================================================================
+ */
+package unitth.core;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayDeque;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.xml.sax.InputSource;
+
+/**
+ * This class is the input layer all report files are read through. A file is
+ * read through its <code>FileChannel</code>, files at or above the map
+ * threshold, <code>unitth.map.threshold</code>, are memory mapped and smaller
+ * files are read into a direct buffer taken from a pool, so that every file is
+ * read with a few large reads instead of many small ones.
+ * <p>
+ * The number of files, bytes read and the time spent reading are counted for
+ * all files opened, from all threads.
+ *
+ * @author andnyb
+ */
+public class ReportInput {
+
+	private final static int c_BUFFER_SIZE = 64 * 1024;
+	private final static int c_MAX_POOLED_BUFFERS = 16;
+
+	private static ArrayDeque<ByteBuffer> bufferPool = new ArrayDeque<ByteBuffer>();
+
+	private static AtomicLong noFiles = new AtomicLong();
+	private static AtomicLong noMappedFiles = new AtomicLong();
+	private static AtomicLong bytesRead = new AtomicLong();
+	private static AtomicLong readNanos = new AtomicLong();
+
+	/**
+	 * Opens a report file.
+	 *
+	 * @param file
+	 *            The file to open.
+	 * @return A stream reading the file, must be closed by the caller.
+	 * @throws IOException
+	 */
+	public static InputStream open(File file) throws IOException {
+		long start = System.nanoTime();
+		FileInputStream fis = new FileInputStream(file);
+		try {
+			FileChannel channel = fis.getChannel();
+			long size = channel.size();
+			noFiles.incrementAndGet();
+			if (0 <= UnitTH.mapThreshold && UnitTH.mapThreshold <= size
+					&& size <= Integer.MAX_VALUE) {
+				MappedByteBuffer buffer = channel.map(
+						FileChannel.MapMode.READ_ONLY, 0, size);
+				// The mapping stays valid after the channel is closed
+				noMappedFiles.incrementAndGet();
+				return new MappedInputStream(buffer);
+			}
+			ChannelInputStream in = new ChannelInputStream(fis, channel);
+			fis = null;
+			return in;
+		} finally {
+			if (null != fis) {
+				fis.close();
+			}
+			readNanos.addAndGet(System.nanoTime() - start);
+		}
+	}
+
+	/**
+	 * Opens a report file as a SAX input source, the system id is set to the
+	 * file so that relative references in the file can be resolved.
+	 *
+	 * @param file
+	 *            The file to open.
+	 * @return The input source, its byte stream must be closed by the caller.
+	 * @throws IOException
+	 */
+	public static InputSource openSource(File file) throws IOException {
+		InputSource source = new InputSource(open(file));
+		source.setSystemId(file.toURI().toString());
+		return source;
+	}
+
+	/**
+	 * Closes a stream opened by this class, exceptions are ignored.
+	 *
+	 * @param in
+	 *            The stream to close, may be null.
+	 */
+	public static void close(InputStream in) {
+		try {
+			if (null != in) {
+				in.close();
+			}
+		} catch (IOException ioe) {
+			// void
+		}
+	}
+
+	/**
+	 * @return The number of files opened.
+	 */
+	public static long getNoFiles() {
+		return noFiles.get();
+	}
+
+	/**
+	 * @return The number of files opened that were memory mapped.
+	 */
+	public static long getNoMappedFiles() {
+		return noMappedFiles.get();
+	}
+
+	/**
+	 * @return The number of bytes read from all files.
+	 */
+	public static long getBytesRead() {
+		return bytesRead.get();
+	}
+
+	/**
+	 * @return The time spent opening and reading files in milliseconds,
+	 *         summed over all threads.
+	 */
+	public static long getReadTime() {
+		return readNanos.get() / 1000000;
+	}
+
+	/**
+	 * Sets all counters to zero.
+	 */
+	public static void resetCounters() {
+		noFiles.set(0);
+		noMappedFiles.set(0);
+		bytesRead.set(0);
+		readNanos.set(0);
+	}
+
+	private static ByteBuffer takeBuffer() {
+		synchronized (bufferPool) {
+			ByteBuffer buffer = bufferPool.poll();
+			if (null != buffer) {
+				buffer.clear();
+				return buffer;
+			}
+		}
+		return ByteBuffer.allocateDirect(c_BUFFER_SIZE);
+	}
+
+	private static void returnBuffer(ByteBuffer buffer) {
+		synchronized (bufferPool) {
+			if (bufferPool.size() < c_MAX_POOLED_BUFFERS) {
+				bufferPool.push(buffer);
+			}
+		}
+	}
+
+	/*
+	 * Reads a memory mapped file. The pages are read in when they are first
+	 * touched, so the copying out of the buffer is counted as read time.
+	 */
+	private static class MappedInputStream extends InputStream {
+
+		private ByteBuffer buffer = null;
+
+		private MappedInputStream(ByteBuffer buffer) {
+			this.buffer = buffer;
+		}
+
+		public int read() throws IOException {
+			if (null == buffer || !buffer.hasRemaining()) {
+				return -1;
+			}
+			bytesRead.incrementAndGet();
+			return buffer.get() & 0xff;
+		}
+
+		public int read(byte[] b, int off, int len) throws IOException {
+			if (0 == len) {
+				return 0;
+			}
+			if (null == buffer || !buffer.hasRemaining()) {
+				return -1;
+			}
+			long start = System.nanoTime();
+			int n = Math.min(len, buffer.remaining());
+			buffer.get(b, off, n);
+			readNanos.addAndGet(System.nanoTime() - start);
+			bytesRead.addAndGet(n);
+			return n;
+		}
+
+		public long skip(long n) throws IOException {
+			if (null == buffer || n <= 0) {
+				return 0;
+			}
+			int skipped = (int) Math.min(n, buffer.remaining());
+			buffer.position(buffer.position() + skipped);
+			return skipped;
+		}
+
+		public int available() throws IOException {
+			return null == buffer ? 0 : buffer.remaining();
+		}
+
+		public void close() throws IOException {
+			buffer = null;
+		}
+	}
+
+	/*
+	 * Reads a file through its channel into a pooled direct buffer, the
+	 * buffer is handed back to the pool when the stream is closed.
+	 */
+	private static class ChannelInputStream extends InputStream {
+
+		private FileInputStream fis = null;
+		private FileChannel channel = null;
+		private ByteBuffer buffer = null;
+		private boolean eof = false;
+
+		private ChannelInputStream(FileInputStream fis, FileChannel channel) {
+			this.fis = fis;
+			this.channel = channel;
+			buffer = takeBuffer();
+			buffer.limit(0);
+		}
+
+		/*
+		 * Refills the buffer when it is empty.
+		 *
+		 * @return False at the end of the file.
+		 */
+		private boolean fill() throws IOException {
+			if (null == buffer) {
+				throw new IOException("Stream closed");
+			}
+			while (!buffer.hasRemaining()) {
+				if (eof) {
+					return false;
+				}
+				buffer.clear();
+				long start = System.nanoTime();
+				int n = channel.read(buffer);
+				readNanos.addAndGet(System.nanoTime() - start);
+				buffer.flip();
+				if (n < 0) {
+					eof = true;
+				} else {
+					bytesRead.addAndGet(n);
+				}
+			}
+			return true;
+		}
+
+		public int read() throws IOException {
+			if (!fill()) {
+				return -1;
+			}
+			return buffer.get() & 0xff;
+		}
+
+		public int read(byte[] b, int off, int len) throws IOException {
+			if (0 == len) {
+				return 0;
+			}
+			if (!fill()) {
+				return -1;
+			}
+			int n = Math.min(len, buffer.remaining());
+			buffer.get(b, off, n);
+			return n;
+		}
+
+		public int available() throws IOException {
+			if (null == buffer) {
+				return 0;
+			}
+			return buffer.remaining()
+					+ (int) Math.min(Integer.MAX_VALUE - buffer.remaining(),
+							Math.max(0, channel.size() - channel.position()));
+		}
+
+		public void close() throws IOException {
+			if (null != buffer) {
+				returnBuffer(buffer);
+				buffer = null;
+				fis.close();
+			}
+		}
+	}
+}
+
+/* eof */
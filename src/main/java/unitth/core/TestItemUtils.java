@@ -30,6 +30,7 @@ import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.Date;
 import java.util.Locale;
+import java.util.TimeZone;
 
 /**
  * Contains core functionality that can be applied to most of the test item
@@ -40,6 +41,31 @@ import java.util.Locale;
  */
 public class TestItemUtils {
 
+	/** The time stamp of a test item that has not been given one. */
+	public static final long NO_TIME_STAMP = Long.MIN_VALUE;
+	/**
+	 * The time stamp of a test item from a broken run without time stamps,
+	 * ordered after all proper time stamps.
+	 */
+	public static final long UNKNOWN_TIME_STAMP = Long.MAX_VALUE;
+
+	private static final String c_UNKNOWN_TIME_STAMP = "unknown, broken run";
+	private static final int c_HOUR = 60 * 60 * 1000;
+
+	/*
+	 * Time stamps are parsed and formatted as wall clock time, in UTC, the
+	 * zone offset is kept apart. One formatter per thread since the parsers
+	 * may run in several threads.
+	 */
+	private static final ThreadLocal<SimpleDateFormat> c_WALL_CLOCK_FORMAT = new ThreadLocal<SimpleDateFormat>() {
+		protected SimpleDateFormat initialValue() {
+			SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss",
+					Locale.US);
+			sdf.setTimeZone(TimeZone.getTimeZone("UTC"));
+			return sdf;
+		}
+	};
+
 	/**
 	 * This method converts the execution times for any of the test objects
 	 * <code>TestCase TestModule TestRun</code>. If the execution time is larger
@@ -142,6 +168,82 @@ public class TestItemUtils {
 		return fixDateFormat(sdf.format(new Date(timeStamp)));
 	}
 
+	/**
+	 * Parses a time stamp from a report, like "2008-11-12T22:30:17" or
+	 * "2008-11-12 22:30:17 CET", to the wall clock time it shows. Anything
+	 * after the seconds, apart from the CET and CEST zones, is ignored.
+	 * 
+	 * @param timeStamp
+	 *            The time stamp to parse.
+	 * @return The wall clock time as milliseconds in UTC or
+	 *         <code>NO_TIME_STAMP</code> if it could not be parsed.
+	 */
+	public static long parseWallClock(String timeStamp) {
+		if (null == timeStamp) {
+			return NO_TIME_STAMP;
+		}
+		String ts = timeStamp.replace("&nbsp;", " ").trim();
+		if (10 < ts.length() && 'T' == ts.charAt(10)) {
+			ts = ts.substring(0, 10) + " " + ts.substring(11);
+		}
+		try {
+			return c_WALL_CLOCK_FORMAT.get().parse(ts).getTime();
+		} catch (ParseException pe) {
+			return NO_TIME_STAMP;
+		}
+	}
+
+	/**
+	 * Returns the zone offset of a time stamp from a report. Time stamps in
+	 * CET or CEST have the offset of that zone, all others are taken as local
+	 * time.
+	 * 
+	 * @param timeStamp
+	 *            The time stamp as given in the report.
+	 * @param wallClock
+	 *            The wall clock time of the time stamp as milliseconds in UTC.
+	 * @return The zone offset in milliseconds.
+	 */
+	public static int getZoneOffset(String timeStamp, long wallClock) {
+		if (timeStamp.endsWith(" CEST")) {
+			return 2 * c_HOUR;
+		} else if (timeStamp.endsWith(" CET")) {
+			return 1 * c_HOUR;
+		}
+		TimeZone tz = TimeZone.getDefault();
+		return tz.getOffset(wallClock - tz.getRawOffset());
+	}
+
+	/**
+	 * Returns the zone offset of the local time zone at a point in time.
+	 * 
+	 * @param time
+	 *            The time in milliseconds.
+	 * @return The zone offset in milliseconds.
+	 */
+	public static int getZoneOffset(long time) {
+		return TimeZone.getDefault().getOffset(time);
+	}
+
+	/**
+	 * Formats a time stamp the same way for all reports, like
+	 * "2009-01-28 22:55:51".
+	 * 
+	 * @param time
+	 *            The time in milliseconds.
+	 * @param zoneOffset
+	 *            The zone offset in milliseconds to show the time in.
+	 * @return The formatted time stamp, empty for <code>NO_TIME_STAMP</code>.
+	 */
+	public static String timeStampToString(long time, int zoneOffset) {
+		if (NO_TIME_STAMP == time) {
+			return "";
+		} else if (UNKNOWN_TIME_STAMP == time) {
+			return c_UNKNOWN_TIME_STAMP;
+		}
+		return c_WALL_CLOCK_FORMAT.get().format(new Date(time + zoneOffset));
+	}
+
 	/**
 	 * Converts a <code>String</code> object run date to a long value.
 	 * 
@@ -0,0 +1,199 @@
+/*
+ *    This file is part of UnitTH
+ *
+ *   UnitTH is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   UnitTH is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with UnitTH if not, see <http://www.gnu.org/licenses/>.
+ *
+ * =======================================================================
+ * $Id$
+ * -----------------------------------------------------------------------
+ *
+ * =======================================================================
+ */
+package unitth.core;
+
+/**
+ * A reusable buffer for the text of the element being parsed. A SAX parser
+ * may hand over the text of one element in several chunks, the chunks are
+ * appended here and the text is converted once the element ends. Numbers are
+ * read straight from the buffered characters, strings are only created for
+ * the text that is kept.
+ * <p>
+ * Leading and trailing white space is ignored the same way as by
+ * <code>String.trim</code>.
+ *
+ * @author andnyb
+ */
+public class TextAccumulator {
+
+	/* Powers of ten that are exact as doubles. */
+	private final static double[] c_POW10 = { 1e0, 1e1, 1e2, 1e3, 1e4, 1e5,
+			1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12, 1e13, 1e14, 1e15, 1e16,
+			1e17, 1e18, 1e19, 1e20, 1e21, 1e22 };
+	/* Any integer with this many digits is exact as a double. */
+	private final static int c_MAX_EXACT_DIGITS = 15;
+
+	private char[] chars = new char[256];
+	private int length = 0;
+
+	/**
+	 * Empties the buffer, the allocated space is kept.
+	 */
+	public void clear() {
+		length = 0;
+	}
+
+	/**
+	 * Appends a chunk of text.
+	 *
+	 * @param ch
+	 *            The characters as handed over by the parser.
+	 * @param start
+	 *            The start of the chunk.
+	 * @param len
+	 *            The length of the chunk.
+	 */
+	public void append(char[] ch, int start, int len) {
+		if (length + len > chars.length) {
+			char[] newChars = new char[Math.max(length + len, chars.length * 2)];
+			System.arraycopy(chars, 0, newChars, 0, length);
+			chars = newChars;
+		}
+		System.arraycopy(ch, start, chars, length, len);
+		length += len;
+	}
+
+	/**
+	 * @return The text without leading and trailing white space.
+	 */
+	public String toTrimmedString() {
+		int from = getTrimmedStart();
+		return new String(chars, from, getTrimmedEnd(from) - from);
+	}
+
+	/**
+	 * Compares the text without leading and trailing white space to a string.
+	 *
+	 * @param s
+	 *            The string to compare with.
+	 * @return True if equal.
+	 */
+	public boolean trimmedEquals(String s) {
+		int from = getTrimmedStart();
+		int to = getTrimmedEnd(from);
+		if (to - from != s.length()) {
+			return false;
+		}
+		for (int i = from; i < to; i++) {
+			if (chars[i] != s.charAt(i - from)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Reads the text as an int, with the same result as
+	 * <code>Integer.parseInt</code>.
+	 *
+	 * @return The parsed value.
+	 * @throws NumberFormatException
+	 *             If the text is not an int.
+	 */
+	public int toInt() throws NumberFormatException {
+		int from = getTrimmedStart();
+		int to = getTrimmedEnd(from);
+		int i = from;
+		boolean negative = false;
+		if (i < to && ('-' == chars[i] || '+' == chars[i])) {
+			negative = '-' == chars[i];
+			i++;
+		}
+		// Nine digits never overflow an int
+		if (i == to || to - i > 9) {
+			return Integer.parseInt(new String(chars, from, to - from));
+		}
+		int value = 0;
+		for (; i < to; i++) {
+			char c = chars[i];
+			if (c < '0' || '9' < c) {
+				return Integer.parseInt(new String(chars, from, to - from));
+			}
+			value = value * 10 + (c - '0');
+		}
+		return negative ? -value : value;
+	}
+
+	/**
+	 * Reads the text as a double, with the same result as
+	 * <code>Double.parseDouble</code>. Plain decimals short enough to be
+	 * converted exactly are read directly, any other text is handed over to
+	 * <code>Double.parseDouble</code>.
+	 *
+	 * @return The parsed value.
+	 * @throws NumberFormatException
+	 *             If the text is not a number.
+	 */
+	public double toDouble() throws NumberFormatException {
+		int from = getTrimmedStart();
+		int to = getTrimmedEnd(from);
+		int i = from;
+		boolean negative = false;
+		if (i < to && ('-' == chars[i] || '+' == chars[i])) {
+			negative = '-' == chars[i];
+			i++;
+		}
+		long mantissa = 0;
+		int noDigits = 0;
+		int scale = -1;
+		for (; i < to; i++) {
+			char c = chars[i];
+			if ('0' <= c && c <= '9') {
+				mantissa = mantissa * 10 + (c - '0');
+				noDigits++;
+				if (0 <= scale) {
+					scale++;
+				}
+			} else if ('.' == c && scale < 0) {
+				scale = 0;
+			} else {
+				break;
+			}
+		}
+		if (i < to || 0 == noDigits || noDigits > c_MAX_EXACT_DIGITS
+				|| scale >= c_POW10.length) {
+			return Double.parseDouble(new String(chars, from, to - from));
+		}
+		// Both operands are exact, so the division is correctly rounded
+		double value = scale > 0 ? mantissa / c_POW10[scale] : mantissa;
+		return negative ? -value : value;
+	}
+
+	private int getTrimmedStart() {
+		int from = 0;
+		while (from < length && chars[from] <= ' ') {
+			from++;
+		}
+		return from;
+	}
+
+	private int getTrimmedEnd(int from) {
+		int to = length;
+		while (to > from && chars[to - 1] <= ' ') {
+			to--;
+		}
+		return to;
+	}
+}
+
+/* eof */
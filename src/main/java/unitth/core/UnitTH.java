@@ -96,6 +96,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.Locale;
@@ -114,9 +115,12 @@ import unitth.html.junit.HtmlModuleGen;
 import unitth.html.junit.HtmlPackageGen;
 import unitth.jenkins.JenkinsReportParser;
 import unitth.junit.JUnitReportParser;
+import unitth.junit.JUnitStaxReportParser;
 import unitth.junit.TestHistory;
+import unitth.junit.TestHistoryStore;
 import unitth.junit.TestModuleSummary;
 import unitth.junit.TestPackageSummary;
+import unitth.junit.TestRun;
 
 /**
  * Main class responsible for reading/parsing the files that compromise the
@@ -138,6 +142,17 @@ public class UnitTH {
 	private final static String PROP_REPORT_DIR = "unitth.report.dir";
 	private final static String PROP_HTML_REPORT_PATH = "unitth.html.report.path";
 	private final static String PROP_GEN_EXECTIMEGRAPHS = "unitth.generate.exectimegraphs";
+	private final static String PROP_PARSER_THREADS = "unitth.parser.threads";
+	private final static String PROP_XML_PARSER = "unitth.xml.parser";
+	private final static String PROP_PARSE_CACHE = "unitth.parse.cache";
+	private final static String PROP_INCREMENTAL = "unitth.incremental";
+	private final static String PROP_RENDER_THREADS = "unitth.render.threads";
+	private final static String PROP_STREAMING = "unitth.streaming";
+	private final static String PROP_MAP_THRESHOLD = "unitth.map.threshold";
+	private final static String PROP_RECURSIVE = "unitth.recursive";
+	private final static String PROP_SPREAD_MODE = "unitth.spread.mode";
+	private final static String PROP_TABLE_MODE = "unitth.table.mode";
+	private final static String PROP_PAGE_ROWS = "unitth.page.rows";
 	
 	public final static String NOT_IN_PACKAGE = "not-in-package";
 
@@ -235,6 +250,17 @@ public class UnitTH {
 	public static boolean generateExecTimeGraphs = false;
 	public static boolean useAbsPaths = false;
 	public static String xmlReportFilter = "TEST-";
+	public static int parserThreads = 1;
+	public static String xmlParser = "sax";
+	public static boolean useParseCache = false;
+	public static boolean incremental = false;
+	public static int renderThreads = 1;
+	public static boolean streaming = false;
+	public static long mapThreshold = 1024 * 1024;
+	public static boolean recursive = false;
+	public static String spreadMode = "table";
+	public static String tableMode = "html";
+	public static int pageRows = 0;
 
 	public static final String IMAGE_DIR = "images";
 	public static final String CSS_DIR = "css";
@@ -253,6 +279,8 @@ public class UnitTH {
 	public static final String CSS_FILE = "style.css";
 	public static final String JS_DIR = "js";
 	public static final String SORT_SCRIPT = "tablesort.js";
+	public static final String DATA_TABLE_SCRIPT = "datatable.js";
+	public static final String DATA_DIR = "data";
 	public static final String c_FITNESSE_TESTHISTORY_PATH = "FitNesseRoot"+File.separator+"files"+File.separator+"testResults";
 	
 	/* Container for all run folders to be parsed. */
@@ -269,6 +297,9 @@ public class UnitTH {
 	/* Only to allow XML files. */
 	private FilenameFilter filter = null;
 
+	/* Finds the report files of the JUnit and Jenkins runs. */
+	private ReportDiscovery discovery = null;
+
 	/** The data structure that holds all test runs. */
 	protected RunHistory theHistory = null;
 
@@ -331,14 +362,12 @@ public class UnitTH {
 		};
 	}
 
-	private void createJUnitXMLFilter() {
-		// Set up a filter that only picks XML files.
-		filter = new FilenameFilter() {
-			public boolean accept(File dir, String name) {
-				return (name.endsWith(".xml") || name.endsWith(".XML")) 
-						&& name.startsWith(xmlReportFilter);
-			}
-		};
+	private ReportDiscovery getDiscovery() {
+		if (null == discovery) {
+			discovery = new ReportDiscovery(parserThreads, recursive,
+					xmlReportFilter);
+		}
+		return discovery;
 	}
 
 	/**
@@ -383,6 +412,7 @@ public class UnitTH {
 			}
 			unpackAndGenerateFNR();
 			drawGraphs(true); // FitNesse reports
+			printInputStats();
 			long diff = System.currentTimeMillis() - timeStamp;
 			System.out.println("\nA test history report has been generated in "
 					+ diff + " ms at '" + rootFolder + "'.");
@@ -401,15 +431,9 @@ public class UnitTH {
 			// Jenkins build root given. Now we need all the folders in here.
 			//
 			File jenkinsBuildDir = new File(args[c_FILE_START_IDX+1]);
-			File[] builds;
 			ArrayList<String> buildFolders = new ArrayList<String>();
 			if (jenkinsBuildDir.exists()) {
-				builds = jenkinsBuildDir.listFiles();
-				for (int i=0; i<builds.length; i++) {
-					if (builds[i].isDirectory()) {
-						buildFolders.add(builds[i].getAbsolutePath());
-					}
-				}
+				buildFolders = getDiscovery().findFolders(jenkinsBuildDir);
 			} else {
 				System.err.println("Jenkins build reports folder '"+jenkinsBuildDir.getAbsolutePath()+"' does not exists, please check the input arguments '-j <folder path>'.");
 			}
@@ -417,6 +441,7 @@ public class UnitTH {
 			if (parseAndCalculate(buildFolders.toArray(new String[0]))) {
 				unpackAndGenerate();
 				drawGraphs(false); // JUnit reports
+				printInputStats();
 				long diff = System.currentTimeMillis() - timeStamp;
 				System.out
 						.println("\nA test history report has been generated in "
@@ -424,7 +449,7 @@ public class UnitTH {
 			}
 		}
 		else {
-			parser = new JUnitReportParser();
+			parser = createJUnitReportParser();
 			if (parseAndCalculate(args)) {
 				unpackAndGenerate();
 				
@@ -435,6 +460,7 @@ public class UnitTH {
 				}
 				
 				drawGraphs(false); // JUnit reports
+				printInputStats();
 				long diff = System.currentTimeMillis() - timeStamp;
 				System.out
 						.println("\nA test history report has been generated in "
@@ -443,6 +469,17 @@ public class UnitTH {
 		}
 	}
 
+	/*
+	 * Creates the JUnit report parser selected by the properties.
+	 */
+	private ReportParser createJUnitReportParser() {
+		if (xmlParser.equalsIgnoreCase("stax")) {
+			return new JUnitStaxReportParser();
+		} else {
+			return new JUnitReportParser();
+		}
+	}
+
 	private void unpackAndGenerate() {
 
 		// First extract the css and image files to the correct locations.
@@ -450,6 +487,12 @@ public class UnitTH {
 			createDir(rootFolder);
 			createDir(rootFolder+File.separator+IMAGE_DIR);
 			extractFilesFromJar();
+			if (tableMode.equalsIgnoreCase("json")) {
+				createDir(rootFolder, DATA_DIR);
+				getFileFromJar("/javascript/" + DATA_TABLE_SCRIPT, rootFolder
+						+ File.separator + JS_DIR + File.separator
+						+ DATA_TABLE_SCRIPT, JS_DIR);
+			}
 		} catch (Exception e) {
 			e.printStackTrace();
 			return;
@@ -503,32 +546,21 @@ public class UnitTH {
 		testRuns = new ArrayList<ArrayList<File>>();
 
 		try {
-			for (int i = startIndex; i < args.length; i++) {
-
-				// Get directories and list files
-				File d = new File(args[i]);
-				if (!d.exists()) {
-					throw new UnitTHException("Folder '"+d.getAbsoluteFile()+"' given as input argument does not exist.");
-				}
-				
-				if (d.isDirectory()) {
-
-					ArrayList<File> testRunFiles = new ArrayList<File>();
-					createJUnitXMLFilter();
-					File[] ff = d.listFiles(filter);
-					for (File f : ff) {
-						if (fileSanityCheck(f)) {
-							testRunFiles.add(f);
-						}
-					}
-					if (testRunFiles.size() > 0) {
-						dirs.add(args[i]);
-						// All files in folder has been parsed.
-						// Now add the list to test run
-						testRuns.add(testRunFiles);
-					}
+			String[] runDirs = Arrays.copyOfRange(args, startIndex, args.length);
+			ArrayList<ArrayList<File>> reports = getDiscovery().findReports(runDirs);
+			int noFiles = 0;
+			for (int i = 0; i < runDirs.length; i++) {
+				ArrayList<File> testRunFiles = reports.get(i);
+				// Null if not a folder
+				if (null != testRunFiles && testRunFiles.size() > 0) {
+					dirs.add(runDirs[i]);
+					testRuns.add(testRunFiles);
+					noFiles += testRunFiles.size();
 				}
 			}
+			System.out.println("Found " + noFiles + " report file(s) in "
+					+ testRuns.size() + " run(s) in "
+					+ getDiscovery().getDiscoveryTime() + " ms.");
 		} catch (Exception e) {
 			e.printStackTrace();
 			throw e;
@@ -621,7 +653,7 @@ public class UnitTH {
 		if (fitNesseTestHistory.exists()) {
 			
 			if (c_DBG) {
-				System.out.println("Checking if file is valid FitNesse test suite history."); // Leave or remove?
+				System.out.println("Collecting FitNesse test suite history files."); // Leave or remove?
 			}
 			for (File f : fitNesseTestHistory.listFiles()) {
 				if (f.isDirectory()) {
@@ -634,11 +666,9 @@ public class UnitTH {
 							}
 							String fileName = files[i].getName();
 							if (fileName.endsWith(".xml") || fileName.endsWith(".XML")) {
-								// Check for presence of  
-								FileCheckingParser fcp = new FileCheckingParser();
-								if (fcp.parse(files[i]) == true) {
-									suiteFiles.add(files[i]);
-								}
+								// Checked while parsed, only the test suite
+								// history files are added.
+								suiteFiles.add(files[i]);
 							}
 						}
 					}
@@ -661,7 +691,11 @@ public class UnitTH {
 			System.exit(0);
 		}
 		if (0 < testRuns.size()) {
+			fitNesseParser.setCheckFiles(true);
 			theHistory = fitNesseParser.parseRuns(testRuns);
+		}
+		if (null != theHistory
+				&& !((unitth.fitnesse.TestHistory) theHistory).isEmpty()) {
 			theHistory.calcStats();
 		} else {
 			System.err.println("There are no files to parse!");
@@ -691,18 +725,33 @@ public class UnitTH {
 			return false;
 		}
 
-		if (0 < testRuns.size()) {
-			theHistory = parser.parseRuns(testRuns, dirs);
-		} else {
+		if (0 == testRuns.size()) {
 			System.err
 					.println("There are no files to parse! Check the input parameters and properties.");
 			System.out.println(c_USAGE_TEXT);
 			return false;
 		}
 
+		TestHistoryStore historyStore = null;
+		if (incremental && parser instanceof JUnitReportParser) {
+			historyStore = new TestHistoryStore(new File(rootFolder,
+					JUnitReportParser.c_CACHE_DIR));
+			if (appendToStoredHistory(historyStore)) {
+				return true;
+			}
+		}
+
+		if (streaming && parser instanceof JUnitReportParser) {
+			((JUnitReportParser) parser).setStreaming(true);
+		}
+		theHistory = parser.parseRuns(testRuns, dirs);
 		if (null != theHistory) {
 			// Major, calculation for all parsed runs.
 			theHistory.calcStats();
+			if (null != historyStore) {
+				((TestHistory) theHistory).releaseTestCases();
+				historyStore.store((TestHistory) theHistory, testRuns, dirs);
+			}
 
 			if (true == c_DBG && theHistory != null) {
 				System.out.println(theHistory.toString());
@@ -713,6 +762,77 @@ public class UnitTH {
 		}
 	}
 
+	/*
+	 * Loads the history stored by the last execution and appends the runs
+	 * that have been added since. Only the added runs are parsed. If they
+	 * cannot be appended, the stored runs are parsed again and the history is
+	 * calculated from scratch together with the already parsed added runs.
+	 * The history is only stored again if it has changed.
+	 * 
+	 * @return True if the history is up to date, false if there is no stored
+	 * history to use.
+	 */
+	private boolean appendToStoredHistory(TestHistoryStore historyStore) {
+		TestHistory storedHistory = historyStore.load(testRuns, dirs);
+		if (null == storedHistory) {
+			return false;
+		}
+
+		ArrayList<ArrayList<File>> newTestRuns = new ArrayList<ArrayList<File>>();
+		ArrayList<String> newDirs = new ArrayList<String>();
+		for (int i = 0; i < dirs.size(); i++) {
+			if (!historyStore.contains(dirs.get(i))) {
+				newTestRuns.add(testRuns.get(i));
+				newDirs.add(dirs.get(i));
+			}
+		}
+
+		ArrayList<TestRun> newRuns = new ArrayList<TestRun>();
+		if (0 < newTestRuns.size()) {
+			newRuns.addAll(parser.parseRuns(newTestRuns, newDirs).getRuns());
+		}
+		if (!storedHistory.appendTestRuns(newRuns)) {
+			System.out
+					.println("The added runs are older than the stored history, recalculating all runs.");
+			// The parser already holds the new runs, only the stored runs
+			// are parsed again before all runs are calculated together.
+			ArrayList<ArrayList<File>> storedTestRuns = new ArrayList<ArrayList<File>>();
+			ArrayList<String> storedDirs = new ArrayList<String>();
+			for (int i = 0; i < dirs.size(); i++) {
+				if (historyStore.contains(dirs.get(i))) {
+					storedTestRuns.add(testRuns.get(i));
+					storedDirs.add(dirs.get(i));
+				}
+			}
+			theHistory = parser.parseRuns(storedTestRuns, storedDirs);
+			theHistory.calcStats();
+			((TestHistory) theHistory).releaseTestCases();
+			historyStore.store((TestHistory) theHistory, testRuns, dirs);
+			return true;
+		}
+		System.out.println("Added " + newTestRuns.size()
+				+ " run(s) to the stored history of "
+				+ (storedHistory.getNoRuns() - newTestRuns.size()) + " run(s).");
+		theHistory = storedHistory;
+		if (0 < newTestRuns.size()) {
+			historyStore.store(storedHistory, testRuns, dirs);
+		}
+		return true;
+	}
+
+	/*
+	 * Prints how much was read from the report files and the time it took.
+	 */
+	private void printInputStats() {
+		if (0 < ReportInput.getNoFiles()) {
+			System.out.println("Read " + ReportInput.getBytesRead()
+					+ " bytes from " + ReportInput.getNoFiles()
+					+ " report file(s), " + ReportInput.getNoMappedFiles()
+					+ " memory mapped, in " + ReportInput.getReadTime()
+					+ " ms of I/O.");
+		}
+	}
+
 	/*
 	 * Creates a directory with the name given in the in-parameter dir.
 	 * 
@@ -832,23 +952,6 @@ public class UnitTH {
 		out.close();
 	}
 
-	/*
-	 * Checks whether the file is an existing file or not.
-	 * 
-	 * @param inFile The file objects to verify.
-	 * 
-	 * @return Returns true if inFile is a file.
-	 * 
-	 * @throws UnitTHException
-	 */
-	private boolean fileSanityCheck(File inFile) {
-
-		if (!inFile.isFile()) {
-			return false;
-		}
-		return true;
-	}
-
 	/**
 	 * Creates the CraphCreator object ant initiates the drawing of the pass
 	 * rate and test case execution graphs.
@@ -893,25 +996,39 @@ public class UnitTH {
 		} else {
 			//
 			// This section generates everything for the JUnit test reports.
-			// 
-			prGraphCreator.drawPassRates();
-			tcGraphCreator.drawNumbers();
-			fnGraphCreator.drawNumbers();
-			etGraphCreator.drawExecutionTimes(generateExecTimeGraphs);
-			
+			// The graph creators keep no state between the graphs so each
+			// item is drawn by a task of its own.
+			//
+			final PassRateGraphCreator pr = prGraphCreator;
+			final TestCaseNumberGraphCreator tc = tcGraphCreator;
+			final FailureNumberGraphCreator fn = fnGraphCreator;
+			final ExecutionTimeGraphCreator et = etGraphCreator;
+			ArrayList<Runnable> tasks = new ArrayList<Runnable>();
+			tasks.add(new Runnable() {
+				public void run() {
+					pr.drawPassRates();
+					tc.drawNumbers();
+					fn.drawNumbers();
+					et.drawExecutionTimes(generateExecTimeGraphs);
+				}
+			});
+
 			// For each unique package name, get a test package summary that
 			// can be used for creating the unique test module graphs.
 			Object[] uniquePackages = ((TestHistory) theHistory)
 					.getUniquePackages();
 			for (Object packageName : uniquePackages) {
-				TestPackageSummary tps = ((TestHistory) theHistory)
+				final TestPackageSummary tps = ((TestHistory) theHistory)
 						.getTestPackageSummary((String) packageName);
 				if (null != tps) {
-					prGraphCreator.drawPassRates(tps);
-					tcGraphCreator.drawNumbers(tps);
-					fnGraphCreator.drawNumbers(tps);
-					etGraphCreator.drawExecutionTimes(tps,
-							generateExecTimeGraphs);
+					tasks.add(new Runnable() {
+						public void run() {
+							pr.drawPassRates(tps);
+							tc.drawNumbers(tps);
+							fn.drawNumbers(tps);
+							et.drawExecutionTimes(tps, generateExecTimeGraphs);
+						}
+					});
 				}
 			}
 			
@@ -920,16 +1037,20 @@ public class UnitTH {
 			Object[] uniqueModules = ((TestHistory) theHistory)
 					.getUniqueModules();
 			for (Object moduleName : uniqueModules) {
-				TestModuleSummary tms = ((TestHistory) theHistory)
+				final TestModuleSummary tms = ((TestHistory) theHistory)
 						.getTestModuleSummary((String) moduleName);
 				if (null != tms) {
-					prGraphCreator.drawPassRates(tms);
-					tcGraphCreator.drawNumbers(tms);
-					fnGraphCreator.drawNumbers(tms);
-					etGraphCreator.drawExecutionTimes(tms,
-							generateExecTimeGraphs);
+					tasks.add(new Runnable() {
+						public void run() {
+							pr.drawPassRates(tms);
+							tc.drawNumbers(tms);
+							fn.drawNumbers(tms);
+							et.drawExecutionTimes(tms, generateExecTimeGraphs);
+						}
+					});
 				}
 			}
+			new RenderPool(renderThreads, "graphs").run(tasks);
 		}
 	}
 
@@ -1063,6 +1184,99 @@ public class UnitTH {
 		}
 	}
 
+	private void getXmlParserProp(File runProps, File homeProps) {
+		if (null != System.getProperty(PROP_XML_PARSER)) {
+			xmlParser = System.getProperty(PROP_XML_PARSER);
+			return;
+		}
+		try {// Check in the run folder
+			if (runProps.exists()) {
+				properties.load(new FileInputStream(runProps));
+				String propHolder = properties
+						.getProperty(PROP_XML_PARSER);
+				if (null != propHolder && !propHolder.equals("")) {
+					xmlParser = propHolder;
+				}
+				return;
+			}
+			// Check in the home folder
+			if (homeProps.exists()) {
+				properties.load(new FileInputStream(homeProps));
+				String propHolder = properties
+						.getProperty(PROP_XML_PARSER);
+				if (null != propHolder && !propHolder.equals("")) {
+					xmlParser = propHolder;
+				}
+				return;
+			}
+		} catch (IOException ioe) {
+			System.err
+					.println("Problems parsing the properties file... using default settings instead.");
+		}
+	}
+
+	private void getSpreadModeProp(File runProps, File homeProps) {
+		if (null != System.getProperty(PROP_SPREAD_MODE)) {
+			setSpreadMode(System.getProperty(PROP_SPREAD_MODE));
+			return;
+		}
+		try {// Check in the run folder
+			if (runProps.exists()) {
+				properties.load(new FileInputStream(runProps));
+				String propHolder = properties
+						.getProperty(PROP_SPREAD_MODE);
+				if (null != propHolder && !propHolder.equals("")) {
+					setSpreadMode(propHolder);
+				}
+				return;
+			}
+			// Check in the home folder
+			if (homeProps.exists()) {
+				properties.load(new FileInputStream(homeProps));
+				String propHolder = properties
+						.getProperty(PROP_SPREAD_MODE);
+				if (null != propHolder && !propHolder.equals("")) {
+					setSpreadMode(propHolder);
+				}
+				return;
+			}
+		} catch (IOException ioe) {
+			System.err
+					.println("Problems parsing the properties file... using default settings instead.");
+		}
+	}
+
+	private void getTableModeProp(File runProps, File homeProps) {
+		if (null != System.getProperty(PROP_TABLE_MODE)) {
+			setTableMode(System.getProperty(PROP_TABLE_MODE));
+			return;
+		}
+		try {// Check in the run folder
+			if (runProps.exists()) {
+				properties.load(new FileInputStream(runProps));
+				String propHolder = properties
+						.getProperty(PROP_TABLE_MODE);
+				if (null != propHolder && !propHolder.equals("")) {
+					setTableMode(propHolder);
+				}
+				return;
+			}
+			// Check in the home folder
+			if (homeProps.exists()) {
+				properties.load(new FileInputStream(homeProps));
+				String propHolder = properties
+						.getProperty(PROP_TABLE_MODE);
+				if (null != propHolder && !propHolder.equals("")) {
+					setTableMode(propHolder);
+				}
+				return;
+			}
+		} catch (IOException ioe) {
+			System.err
+					.println("Problems parsing the properties file... using default settings instead.");
+		}
+	}
+
 	private void getAbsPathsProp(File runProps, File homeProps) {
 		// First check if there is a system property
 		if (null != System.getProperty(PROP_USE_ABS_PATHS)) {
@@ -1096,6 +1310,270 @@ public class UnitTH {
 		}
 	}
 	
+	private void getParserThreadsProp(File runProps, File homeProps) {
+		// First check if there is a system property
+		if (null != System.getProperty(PROP_PARSER_THREADS)) {
+			setParserThreads(System.getProperty(PROP_PARSER_THREADS));
+			return;
+		}
+
+		try {
+			// Check in the run folder
+			if (runProps.exists()) {
+				properties.load(new FileInputStream(runProps));
+				if (null != properties
+						.getProperty(PROP_PARSER_THREADS)) {
+					setParserThreads(properties.getProperty(PROP_PARSER_THREADS));
+				}
+				return;
+			}
+
+			// Check in the home folder
+			if (homeProps.exists()) {
+				properties.load(new FileInputStream(homeProps));
+				if (null != properties
+						.getProperty(PROP_PARSER_THREADS)) {
+					setParserThreads(properties.getProperty(PROP_PARSER_THREADS));
+				}
+				return;
+			}
+		} catch (IOException ioe) {
+			System.err
+					.println("Problems parsing the properties file... using default settings instead.");
+		}
+	}
+
+	private void getRenderThreadsProp(File runProps, File homeProps) {
+		// First check if there is a system property
+		if (null != System.getProperty(PROP_RENDER_THREADS)) {
+			setRenderThreads(System.getProperty(PROP_RENDER_THREADS));
+			return;
+		}
+
+		try {
+			// Check in the run folder
+			if (runProps.exists()) {
+				properties.load(new FileInputStream(runProps));
+				if (null != properties
+						.getProperty(PROP_RENDER_THREADS)) {
+					setRenderThreads(properties.getProperty(PROP_RENDER_THREADS));
+				}
+				return;
+			}
+
+			// Check in the home folder
+			if (homeProps.exists()) {
+				properties.load(new FileInputStream(homeProps));
+				if (null != properties
+						.getProperty(PROP_RENDER_THREADS)) {
+					setRenderThreads(properties.getProperty(PROP_RENDER_THREADS));
+				}
+				return;
+			}
+		} catch (IOException ioe) {
+			System.err
+					.println("Problems parsing the properties file... using default settings instead.");
+		}
+	}
+
+	private void getPageRowsProp(File runProps, File homeProps) {
+		// First check if there is a system property
+		if (null != System.getProperty(PROP_PAGE_ROWS)) {
+			setPageRows(System.getProperty(PROP_PAGE_ROWS));
+			return;
+		}
+
+		try {
+			// Check in the run folder
+			if (runProps.exists()) {
+				properties.load(new FileInputStream(runProps));
+				if (null != properties
+						.getProperty(PROP_PAGE_ROWS)) {
+					setPageRows(properties.getProperty(PROP_PAGE_ROWS));
+				}
+				return;
+			}
+
+			// Check in the home folder
+			if (homeProps.exists()) {
+				properties.load(new FileInputStream(homeProps));
+				if (null != properties
+						.getProperty(PROP_PAGE_ROWS)) {
+					setPageRows(properties.getProperty(PROP_PAGE_ROWS));
+				}
+				return;
+			}
+		} catch (IOException ioe) {
+			System.err
+					.println("Problems parsing the properties file... using default settings instead.");
+		}
+	}
+
+	private void getParseCacheProp(File runProps, File homeProps) {
+		// First check if there is a system property
+		if (null != System.getProperty(PROP_PARSE_CACHE)) {
+			setUseParseCache(System.getProperty(PROP_PARSE_CACHE));
+			return;
+		}
+
+		try {
+			// Check in the run folder
+			if (runProps.exists()) {
+				properties.load(new FileInputStream(runProps));
+				if (null != properties
+						.getProperty(PROP_PARSE_CACHE)) {
+					setUseParseCache(properties.getProperty(PROP_PARSE_CACHE));
+				}
+				return;
+			}
+
+			// Check in the home folder
+			if (homeProps.exists()) {
+				properties.load(new FileInputStream(homeProps));
+				if (null != properties
+						.getProperty(PROP_PARSE_CACHE)) {
+					setUseParseCache(properties.getProperty(PROP_PARSE_CACHE));
+				}
+				return;
+			}
+		} catch (IOException ioe) {
+			System.err
+					.println("Problems parsing the properties file... using default settings instead.");
+		}
+	}
+
+	private void getIncrementalProp(File runProps, File homeProps) {
+		// First check if there is a system property
+		if (null != System.getProperty(PROP_INCREMENTAL)) {
+			setIncremental(System.getProperty(PROP_INCREMENTAL));
+			return;
+		}
+
+		try {
+			// Check in the run folder
+			if (runProps.exists()) {
+				properties.load(new FileInputStream(runProps));
+				if (null != properties
+						.getProperty(PROP_INCREMENTAL)) {
+					setIncremental(properties.getProperty(PROP_INCREMENTAL));
+				}
+				return;
+			}
+
+			// Check in the home folder
+			if (homeProps.exists()) {
+				properties.load(new FileInputStream(homeProps));
+				if (null != properties
+						.getProperty(PROP_INCREMENTAL)) {
+					setIncremental(properties.getProperty(PROP_INCREMENTAL));
+				}
+				return;
+			}
+		} catch (IOException ioe) {
+			System.err
+					.println("Problems parsing the properties file... using default settings instead.");
+		}
+	}
+
+	private void getStreamingProp(File runProps, File homeProps) {
+		// First check if there is a system property
+		if (null != System.getProperty(PROP_STREAMING)) {
+			setStreaming(System.getProperty(PROP_STREAMING));
+			return;
+		}
+
+		try {
+			// Check in the run folder
+			if (runProps.exists()) {
+				properties.load(new FileInputStream(runProps));
+				if (null != properties
+						.getProperty(PROP_STREAMING)) {
+					setStreaming(properties.getProperty(PROP_STREAMING));
+				}
+				return;
+			}
+
+			// Check in the home folder
+			if (homeProps.exists()) {
+				properties.load(new FileInputStream(homeProps));
+				if (null != properties
+						.getProperty(PROP_STREAMING)) {
+					setStreaming(properties.getProperty(PROP_STREAMING));
+				}
+				return;
+			}
+		} catch (IOException ioe) {
+			System.err
+					.println("Problems parsing the properties file... using default settings instead.");
+		}
+	}
+
+	private void getRecursiveProp(File runProps, File homeProps) {
+		// First check if there is a system property
+		if (null != System.getProperty(PROP_RECURSIVE)) {
+			setRecursive(System.getProperty(PROP_RECURSIVE));
+			return;
+		}
+
+		try {
+			// Check in the run folder
+			if (runProps.exists()) {
+				properties.load(new FileInputStream(runProps));
+				if (null != properties
+						.getProperty(PROP_RECURSIVE)) {
+					setRecursive(properties.getProperty(PROP_RECURSIVE));
+				}
+				return;
+			}
+
+			// Check in the home folder
+			if (homeProps.exists()) {
+				properties.load(new FileInputStream(homeProps));
+				if (null != properties
+						.getProperty(PROP_RECURSIVE)) {
+					setRecursive(properties.getProperty(PROP_RECURSIVE));
+				}
+				return;
+			}
+		} catch (IOException ioe) {
+			System.err
+					.println("Problems parsing the properties file... using default settings instead.");
+		}
+	}
+
+	private void getMapThresholdProp(File runProps, File homeProps) {
+		// First check if there is a system property
+		if (null != System.getProperty(PROP_MAP_THRESHOLD)) {
+			setMapThreshold(System.getProperty(PROP_MAP_THRESHOLD));
+			return;
+		}
+
+		try {
+			// Check in the run folder
+			if (runProps.exists()) {
+				properties.load(new FileInputStream(runProps));
+				if (null != properties
+						.getProperty(PROP_MAP_THRESHOLD)) {
+					setMapThreshold(properties.getProperty(PROP_MAP_THRESHOLD));
+				}
+				return;
+			}
+
+			// Check in the home folder
+			if (homeProps.exists()) {
+				properties.load(new FileInputStream(homeProps));
+				if (null != properties
+						.getProperty(PROP_MAP_THRESHOLD)) {
+					setMapThreshold(properties.getProperty(PROP_MAP_THRESHOLD));
+				}
+				return;
+			}
+		} catch (IOException ioe) {
+			System.err
+					.println("Problems parsing the properties file... using default settings instead.");
+		}
+	}
+
 	private void setUseAbsPaths(String value) {
 		if (value.equalsIgnoreCase("true")
 				|| value.equalsIgnoreCase("yes")) {
@@ -1105,6 +1583,42 @@ public class UnitTH {
 		}
 	}
 	
+	private void setUseParseCache(String value) {
+		if (value.equalsIgnoreCase("true")
+				|| value.equalsIgnoreCase("yes")) {
+			useParseCache = true;
+		} else {
+			useParseCache = false;
+		}
+	}
+
+	private void setIncremental(String value) {
+		if (value.equalsIgnoreCase("true")
+				|| value.equalsIgnoreCase("yes")) {
+			incremental = true;
+		} else {
+			incremental = false;
+		}
+	}
+
+	private void setStreaming(String value) {
+		if (value.equalsIgnoreCase("true")
+				|| value.equalsIgnoreCase("yes")) {
+			streaming = true;
+		} else {
+			streaming = false;
+		}
+	}
+
+	private void setRecursive(String value) {
+		if (value.equalsIgnoreCase("true")
+				|| value.equalsIgnoreCase("yes")) {
+			recursive = true;
+		} else {
+			recursive = false;
+		}
+	}
+
 	private void setGenerateExecTimeGraphs(String value) {
 		if (value.equalsIgnoreCase("true")
 				|| value.equalsIgnoreCase("yes")) {
@@ -1114,6 +1628,94 @@ public class UnitTH {
 		}
 	}
 	
+	/*
+	 * Sets the number of threads to parse the test runs with. Zero or less
+	 * means one thread per available processor.
+	 */
+	private void setParserThreads(String value) {
+		try {
+			parserThreads = Integer.parseInt(value.trim());
+		} catch (NumberFormatException nfe) {
+			System.err.println("The value '" + value + "' of property "
+					+ PROP_PARSER_THREADS + " is not a number, using "
+					+ parserThreads + " instead.");
+			return;
+		}
+		if (parserThreads < 1) {
+			parserThreads = Runtime.getRuntime().availableProcessors();
+		}
+	}
+
+	/*
+	 * Sets the size in bytes from which report files are memory mapped. A
+	 * negative size means that no files are mapped.
+	 */
+	private void setMapThreshold(String value) {
+		try {
+			mapThreshold = Long.parseLong(value.trim());
+		} catch (NumberFormatException nfe) {
+			System.err.println("The value '" + value + "' of property "
+					+ PROP_MAP_THRESHOLD + " is not a number, using "
+					+ mapThreshold + " instead.");
+		}
+	}
+
+	private void setRenderThreads(String value) {
+		try {
+			renderThreads = Integer.parseInt(value.trim());
+		} catch (NumberFormatException nfe) {
+			System.err.println("The value '" + value + "' of property "
+					+ PROP_RENDER_THREADS + " is not a number, using "
+					+ renderThreads + " instead.");
+			return;
+		}
+		if (renderThreads < 1) {
+			renderThreads = Runtime.getRuntime().availableProcessors();
+		}
+	}
+
+	/*
+	 * Sets the number of test cases listed on a module or package page, the
+	 * rest go to continuation pages. Zero or less means no limit.
+	 */
+	private void setPageRows(String value) {
+		try {
+			pageRows = Integer.parseInt(value.trim());
+		} catch (NumberFormatException nfe) {
+			System.err.println("The value '" + value + "' of property "
+					+ PROP_PAGE_ROWS + " is not a number, using "
+					+ pageRows + " instead.");
+		}
+	}
+
+	/*
+	 * Sets how the test case spreads are drawn, as table cells or as strips.
+	 */
+	private void setSpreadMode(String value) {
+		String mode = value.trim().toLowerCase();
+		if ("table".equals(mode) || "strip".equals(mode)) {
+			spreadMode = mode;
+		} else {
+			System.err.println("The value '" + value + "' of property "
+					+ PROP_SPREAD_MODE + " is not table or strip, using "
+					+ spreadMode + " instead.");
+		}
+	}
+
+	/*
+	 * Sets how the large tables are written, as HTML tables or as JSON data.
+	 */
+	private void setTableMode(String value) {
+		String mode = value.trim().toLowerCase();
+		if ("html".equals(mode) || "json".equals(mode)) {
+			tableMode = mode;
+		} else {
+			System.err.println("The value '" + value + "' of property "
+					+ PROP_TABLE_MODE + " is not html or json, using "
+					+ tableMode + " instead.");
+		}
+	}
+
 	/**
 	 * Reads properties one by one in the following order. 1) System properties,
 	 * ie -D flags 2) From the run folder unitth.properties file. 3) From the
@@ -1132,12 +1734,34 @@ public class UnitTH {
 		getReportDirProp(runPropertiesFile, homePropertiesFile);
 		getXmlFilterProp(runPropertiesFile, homePropertiesFile);
 		getAbsPathsProp(runPropertiesFile, homePropertiesFile);
+		getParserThreadsProp(runPropertiesFile, homePropertiesFile);
+		getXmlParserProp(runPropertiesFile, homePropertiesFile);
+		getParseCacheProp(runPropertiesFile, homePropertiesFile);
+		getIncrementalProp(runPropertiesFile, homePropertiesFile);
+		getRenderThreadsProp(runPropertiesFile, homePropertiesFile);
+		getStreamingProp(runPropertiesFile, homePropertiesFile);
+		getMapThresholdProp(runPropertiesFile, homePropertiesFile);
+		getRecursiveProp(runPropertiesFile, homePropertiesFile);
+		getSpreadModeProp(runPropertiesFile, homePropertiesFile);
+		getTableModeProp(runPropertiesFile, homePropertiesFile);
+		getPageRowsProp(runPropertiesFile, homePropertiesFile);
 		
 		properties.setProperty(PROP_HTML_REPORT_PATH, reportPath);
 		properties.setProperty(PROP_REPORT_DIR, rootFolder);
 		properties.setProperty(PROP_XML_REPORT_FILTER, xmlReportFilter);
 		properties.setProperty(PROP_GEN_EXECTIMEGRAPHS, Boolean.toString(generateExecTimeGraphs));
 		properties.setProperty(PROP_USE_ABS_PATHS, Boolean.toString(useAbsPaths));
+		properties.setProperty(PROP_PARSER_THREADS, Integer.toString(parserThreads));
+		properties.setProperty(PROP_XML_PARSER, xmlParser);
+		properties.setProperty(PROP_PARSE_CACHE, Boolean.toString(useParseCache));
+		properties.setProperty(PROP_INCREMENTAL, Boolean.toString(incremental));
+		properties.setProperty(PROP_RENDER_THREADS, Integer.toString(renderThreads));
+		properties.setProperty(PROP_STREAMING, Boolean.toString(streaming));
+		properties.setProperty(PROP_MAP_THRESHOLD, Long.toString(mapThreshold));
+		properties.setProperty(PROP_RECURSIVE, Boolean.toString(recursive));
+		properties.setProperty(PROP_SPREAD_MODE, spreadMode);
+		properties.setProperty(PROP_TABLE_MODE, tableMode);
+		properties.setProperty(PROP_PAGE_ROWS, Integer.toString(pageRows));
 		
 		System.out.println("Using the following properties");
 		System.out.println(" "+PROP_HTML_REPORT_PATH+" = " + reportPath);
@@ -1147,6 +1771,24 @@ public class UnitTH {
 				+ generateExecTimeGraphs);
 		System.out.println(" "+PROP_USE_ABS_PATHS+" = "
 				+ useAbsPaths);
+		System.out.println(" "+PROP_PARSER_THREADS+" = "
+				+ parserThreads);
+		System.out.println(" "+PROP_XML_PARSER+" = " + xmlParser);
+		System.out.println(" "+PROP_PARSE_CACHE+" = "
+				+ useParseCache);
+		System.out.println(" "+PROP_INCREMENTAL+" = "
+				+ incremental);
+		System.out.println(" "+PROP_RENDER_THREADS+" = "
+				+ renderThreads);
+		System.out.println(" "+PROP_STREAMING+" = "
+				+ streaming);
+		System.out.println(" "+PROP_MAP_THRESHOLD+" = "
+				+ mapThreshold);
+		System.out.println(" "+PROP_RECURSIVE+" = "
+				+ recursive);
+		System.out.println(" "+PROP_SPREAD_MODE+" = " + spreadMode);
+		System.out.println(" "+PROP_TABLE_MODE+" = " + tableMode);
+		System.out.println(" "+PROP_PAGE_ROWS+" = " + pageRows);
 	}
 	
 	private void wrongFitNesseRootInvocation() {
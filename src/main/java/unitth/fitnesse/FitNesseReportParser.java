@@ -24,19 +24,33 @@ package unitth.fitnesse;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.ArrayList;
 
 import javax.xml.parsers.SAXParser;
 import javax.xml.parsers.SAXParserFactory;
 
 import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
 import org.xml.sax.SAXException;
 import org.xml.sax.helpers.DefaultHandler;
 
+import unitth.core.ReportInput;
 import unitth.core.TestItemUtils;
+import unitth.core.TextAccumulator;
 import unitth.core.UnitTH;
 import unitth.core.UnitTHException;
 
+/**
+ * Parses FitNesse test suite history files. When the files to parse have not
+ * been checked in advance, see <code>setCheckFiles</code>, each file is
+ * checked while it is parsed: only files with a <code>suiteResults</code> root
+ * element and at least one <code>pageHistoryReference</code> are added to the
+ * history. Any other file is dropped, and parsing it stops as soon as its
+ * root element rules it out.
+ *
+ * @author andnyb
+ */
 public class FitNesseReportParser extends DefaultHandler {
 
 	private final String c_XML_TAG_TEST_REFERENCE = "pageHistoryReference";
@@ -49,12 +63,31 @@ public class FitNesseReportParser extends DefaultHandler {
 	private final String c_XML_TAG_TEST_EXCEPTIONS = "exceptions";
 	private final String c_XML_TAG_TEST_SUITE_END = "suiteResults";
 
+	/* Ids of the elements handled, set when the element starts. */
+	private final static int c_OTHER = 0;
+	private final static int c_TEST_REFERENCE = 1;
+	private final static int c_TEST_HISTORY = 2;
+	private final static int c_TEST_NAME = 3;
+	private final static int c_TEST_DATE = 4;
+	private final static int c_TEST_RIGHT = 5;
+	private final static int c_TEST_WRONG = 6;
+	private final static int c_TEST_IGNORES = 7;
+	private final static int c_TEST_EXCEPTIONS = 8;
+	private final static int c_TEST_SUITE_END = 9;
+
+	/* The element names, matched ignoring case, at the index of their id. */
+	private final String[] c_ELEMENT_NAMES = { null, c_XML_TAG_TEST_REFERENCE,
+			c_XML_TAG_TEST_HISTORY, c_XML_TAG_TEST_NAME, c_XML_TAG_TEST_DATE,
+			c_XML_TAG_TEST_RIGHT, c_XML_TAG_TEST_WRONG, c_XML_TAG_TEST_IGNORES,
+			c_XML_TAG_TEST_EXCEPTIONS, c_XML_TAG_TEST_SUITE_END };
+
 	/** The SAX parser factory used for reading in the order files. */
 	private static SAXParserFactory saxFactory = SAXParserFactory.newInstance();
 	/** The SAXParser instance used for all the parsing. */
 	private SAXParser saxp = null;
 
-	private String currentElement = "";
+	private int currentElement = c_OTHER;
+	private TextAccumulator text = new TextAccumulator();
 	private RootTestSuite currentTestSuite = null;
 	private TestRun currentTestRun = null;
 	private TestCase currentTestCase = null;
@@ -64,6 +97,25 @@ public class FitNesseReportParser extends DefaultHandler {
 	private File currentFile = null;
 	private boolean inTestCase = false;
 
+	/* Checking the parsed files, only valid files are added. */
+	private boolean checkFiles = false;
+	private boolean rootChecked = false;
+	private boolean testCasesExist = false;
+	/* The test case names of the current file, named after the check. */
+	private ArrayList<String> testCaseNames = new ArrayList<String>();
+
+	/*
+	 * Thrown to stop parsing a file as soon as it is known not to be a test
+	 * suite history file.
+	 */
+	private static class NotSuiteHistoryException extends SAXException {
+		private static final long serialVersionUID = 1L;
+
+		private NotSuiteHistoryException() {
+			super("Not a test suite history file");
+		}
+	}
+
 	public FitNesseReportParser() {
 		try {
 			saxp = saxFactory.newSAXParser();
@@ -82,96 +134,120 @@ public class FitNesseReportParser extends DefaultHandler {
 	public void startElement(String namespaceURI, String sName, String qName,
 			Attributes attrs) throws SAXException {
 
-		currentElement = sName; // element name
+		currentElement = getElementId(sName, qName);
+		text.clear();
 
-		// We do not know which name was used, simple or qualified
-		if ("".equals(currentElement)) {
-			currentElement = qName; // not namespace-aware
+		if (!rootChecked) {
+			rootChecked = true;
+			if (checkFiles && c_TEST_SUITE_END != currentElement) {
+				throw new NotSuiteHistoryException();
+			}
 		}
 
-		if (c_XML_TAG_TEST_NAME.equalsIgnoreCase(currentElement)) {
+		if (c_TEST_NAME == currentElement) {
 			currentTestCase = new TestCase();
-		} else if (c_XML_TAG_TEST_REFERENCE.equalsIgnoreCase(currentElement)) {
+		} else if (c_TEST_REFERENCE == currentElement) {
 			inTestCase = true;
+			testCasesExist = true;
 		}
 	}
 
+	/**
+	 * Collects the text of the handled elements, the text is used when the
+	 * element ends.
+	 * 
+	 * @see org.xml.sax.helpers.DefaultHandler#characters(char[], int, int)
+	 */
 	public void characters(char ch[], int start, int length)
 			throws SAXException {
-
-		// TODO, optimization lots of new String.
-		if (currentElement.equalsIgnoreCase(c_XML_TAG_TEST_NAME)) {
-			currentTestCase.setNameFromFullName(new String(ch, start, length));
-
-			// 1) Check if this is the first test in the file, then the test
-			// suite name needs to be set.
-			// 2) The root test suite name needs to be set to the shortest
-			// commonality from the last dot. If the test suite names differ
-			// we get the shortest match ending with a dot.
-			if (currentTestSuite.getName().equalsIgnoreCase("undef")) {
-				currentTestSuite.setNameFromTestCaseName(new String(ch, start,
-						length));
-			} else if (!currentTestSuite.getName().equalsIgnoreCase(
-					(TestItemUtils
-							.getFitNesseTestSuiteFromTestCaseName(new String(
-									ch, start, length))))) {
-				String newTestSuiteName = TestItemUtils.getShortestCommonality(
-						currentTestSuite.getName(), new String(ch, start,
-								length));
-				currentTestSuite.setName(newTestSuiteName);
-			}
-		} else if (currentElement.equalsIgnoreCase(c_XML_TAG_TEST_DATE)) {
-			currentTestCase.setRunDate(new String(ch, start, length));
-		} else if (currentElement.equalsIgnoreCase(c_XML_TAG_TEST_RIGHT)
-				&& inTestCase) {
-			currentTestCase.setRights(new String(ch, start, length));
-		} else if (currentElement.equalsIgnoreCase(c_XML_TAG_TEST_WRONG)
-				&& inTestCase) {
-			currentTestCase.setWrongs(new String(ch, start, length));
-		} else if (currentElement.equalsIgnoreCase(c_XML_TAG_TEST_IGNORES)
-				&& inTestCase) {
-			currentTestCase.setIgnores(new String(ch, start, length));
-		} else if (currentElement.equalsIgnoreCase(c_XML_TAG_TEST_EXCEPTIONS)
-				&& inTestCase) {
-			currentTestCase.setExceptions(new String(ch, start, length));
-		} else if (currentElement.equalsIgnoreCase(c_XML_TAG_TEST_HISTORY)
-				&& inTestCase) {
-			currentTestCase.setHistoryLink(new String(ch, start, length));
+		if (c_OTHER != currentElement) {
+			text.append(ch, start, length);
 		}
 	}
 
 	public void endElement(String namespaceURI, String sName, String qName)
 			throws SAXException {
-		String eName = sName; // element name
 
-		// We do not know which name was used, simple or qualified
-		if ("".equals(eName)) {
-			eName = qName; // not namespace-aware
-		}
+		int eId = getElementId(sName, qName);
+		// Resetting to avoid having to deal with white spaces
+		// elsewhere in the parsed file.
+		currentElement = c_OTHER;
 
-		// Test case name
-		if (c_XML_TAG_TEST_NAME.equalsIgnoreCase(eName)) {
+		switch (eId) {
+		case c_TEST_NAME:
 			if (null != currentTestCase) {
+				String testCaseName = text.toTrimmedString();
+				currentTestCase.setNameFromFullName(testCaseName);
+				// The root test suite is named when the file has been
+				// accepted
+				testCaseNames.add(testCaseName);
 				currentTestRun.addTestCase(currentTestCase);
 			}
-		} else if (c_XML_TAG_TEST_SUITE_END.equalsIgnoreCase(eName)) {
+			break;
+		case c_TEST_DATE:
+			if (null != currentTestCase) {
+				currentTestCase.setRunDate(text.toTrimmedString());
+			}
+			break;
+		case c_TEST_RIGHT:
+			if (inTestCase) {
+				currentTestCase.setRights(text.toInt());
+			}
+			break;
+		case c_TEST_WRONG:
+			if (inTestCase) {
+				currentTestCase.setWrongs(text.toInt());
+			}
+			break;
+		case c_TEST_IGNORES:
+			if (inTestCase) {
+				currentTestCase.setIgnores(text.toInt());
+			}
+			break;
+		case c_TEST_EXCEPTIONS:
+			if (inTestCase) {
+				currentTestCase.setExceptions(text.toInt());
+			}
+			break;
+		case c_TEST_HISTORY:
+			if (inTestCase) {
+				currentTestCase.setHistoryLink(text.toTrimmedString());
+			}
+			break;
+		case c_TEST_SUITE_END:
 			if (null != currentTestCase) {
 				previousTestCase = null;
 			}
-		} else if (c_XML_TAG_TEST_REFERENCE.equals(eName)) {
+			break;
+		case c_TEST_REFERENCE:
 			inTestCase = false;
 			previousTestCase = currentTestCase;
+			break;
 		}
-		// Resetting to avoid having to deal with white spaces
-		// elsewhere in the parsed file.
-		currentElement = "";
+	}
+
+	/*
+	 * Looks up the id of an element, we do not know which name was used,
+	 * simple or qualified.
+	 */
+	private int getElementId(String sName, String qName) {
+		String eName = "".equals(sName) ? qName : sName;
+		for (int id = 1; id < c_ELEMENT_NAMES.length; id++) {
+			if (c_ELEMENT_NAMES[id].equalsIgnoreCase(eName)) {
+				return id;
+			}
+		}
+		return c_OTHER;
 	}
 
 	public TestHistory parseRuns(ArrayList<ArrayList<File>> testRunFiles) {
 		currentRunIdx = 1; // Counter for the directories list.
 		for (ArrayList<File> files : testRunFiles) {
 			currentTestSuite = new RootTestSuite();
-			parseFiles(files);
+			if (!parseFiles(files)) {
+				currentTestSuite = null;
+				continue;
+			}
 			currentTestRun.setRunIndex(currentRunIdx);
 			currentRunIdx++;
 			history.addRootTestSuite(currentTestSuite);
@@ -180,48 +256,135 @@ public class FitNesseReportParser extends DefaultHandler {
 		return history;
 	}
 
-	private void parseFiles(ArrayList<File> files) {
+	/**
+	 * Sets whether the files to parse need to be checked. When checked, a
+	 * file that is not a test suite history file is dropped, and a folder
+	 * without any such files is not added as a run.
+	 *
+	 * @param checkFiles
+	 *            True if the files have not been checked in advance.
+	 */
+	public void setCheckFiles(boolean checkFiles) {
+		this.checkFiles = checkFiles;
+	}
+
+	/*
+	 * Parses the files of one run.
+	 *
+	 * @return True if any file was added to the run.
+	 */
+	private boolean parseFiles(ArrayList<File> files) {
+		TestRun lastTestRun = null;
 		for (File f : files) {
 			currentTestRun = new TestRun();
-			parseFile(f);
+			if (!parseFile(f)) {
+				continue;
+			}
 			try {
 				currentTestRun.setFileName(f.getCanonicalPath());
 			} catch (Exception e) {
 				e.printStackTrace();
 			}
 			currentTestSuite.addTestRun(currentTestRun);
+			lastTestRun = currentTestRun;
 		}
+		currentTestRun = lastTestRun;
+		return null != lastTestRun;
 	}
 
-	private void parseFile(File file) {
+	/*
+	 * Parses one file.
+	 *
+	 * @return False if the file was dropped by the check.
+	 */
+	private boolean parseFile(File file) {
 
 		if (UnitTH.c_DBG) {
 			System.out.println("Parsing file: " + file.getName());
 		}
+		rootChecked = false;
+		testCasesExist = false;
+		testCaseNames.clear();
 		try {
 			currentFile = file;
 			parse(file);
+		} catch (NotSuiteHistoryException nshe) {
+			return false;
 		} catch (UnitTHException jte) {
+			// Errors after the file has been found to be a test suite
+			// history file do not rule the file out
+			if (!isReported()) {
+				return false;
+			}
 			// If we end up here the test run will never be added
 			System.err
 					.println("Test run was never added to test run since the parsed file ("
 							+ file.getName() + ") contained errors.");
 		}
+		if (checkFiles && !testCasesExist) {
+			return false;
+		}
+		for (String testCaseName : testCaseNames) {
+			nameTestSuite(testCaseName);
+		}
+		return true;
+	}
+
+	/*
+	 * Errors are only reported for files that are parsed without a check or
+	 * that have been found to be test suite history files before the error.
+	 */
+	private boolean isReported() {
+		return !checkFiles || (rootChecked && testCasesExist);
+	}
+
+	/*
+	 * 1) Check if this is the first test in the run, then the test suite name
+	 * needs to be set. 2) The root test suite name needs to be set to the
+	 * shortest commonality from the last dot. If the test suite names differ
+	 * we get the shortest match ending with a dot. The test suite part of the
+	 * test case name, up to the last dot, is compared in place.
+	 */
+	private void nameTestSuite(String testCaseName) {
+		String suiteName = currentTestSuite.getName();
+		int liof = testCaseName.lastIndexOf(".");
+		if (suiteName.equalsIgnoreCase("undef")) {
+			currentTestSuite.setNameFromTestCaseName(testCaseName);
+		} else if (suiteName.length() != liof
+				|| !suiteName.regionMatches(true, 0, testCaseName, 0, liof)) {
+			String newTestSuiteName = TestItemUtils.getShortestCommonality(
+					currentTestSuite.getName(), testCaseName);
+			currentTestSuite.setName(newTestSuiteName);
+		}
 	}
 
-	private void parse(File file) throws UnitTHException {
+	private void parse(File file) throws UnitTHException,
+			NotSuiteHistoryException {
+		InputStream in = null;
 		try {
-			saxp.parse(file, this);
+			InputSource source = ReportInput.openSource(file);
+			in = source.getByteStream();
+			saxp.parse(source, this);
+		} catch (NotSuiteHistoryException nshe) {
+			throw nshe;
 		} catch (IOException ioe) {
-			System.err.println("IO errors occured...");
+			if (isReported()) {
+				System.err.println("IO errors occured...");
+			}
 			throw new UnitTHException("IO errors occured...");
 		} catch (SAXException saxe) {
-			System.err.println("SAX parsing errors... omitting test module");
+			if (isReported()) {
+				System.err.println("SAX parsing errors... omitting test module");
+			}
 			throw new UnitTHException("SAX parsing errors...");
 		} catch (Exception e) {
-			e.printStackTrace();
-			System.err.println("Unknown exception...");
+			if (isReported()) {
+				e.printStackTrace();
+				System.err.println("Unknown exception...");
+			}
 			throw new UnitTHException("Unknown exception...");
+		} finally {
+			ReportInput.close(in);
 		}
 	}
 }
@@ -46,6 +46,10 @@ public class TestCase extends TestItem {
 		this.noRights = Integer.parseInt(rights.trim());
 	}
 
+	public void setRights(int rights) {
+		this.noRights = rights;
+	}
+
 	public int getWrongs() {
 		return noWrongs;
 	}
@@ -54,6 +58,10 @@ public class TestCase extends TestItem {
 		this.noWrongs = Integer.parseInt(wrongs.trim());
 	}
 
+	public void setWrongs(int wrongs) {
+		this.noWrongs = wrongs;
+	}
+
 	public int getIgnores() {
 		return noIgnores;
 	}
@@ -62,6 +70,10 @@ public class TestCase extends TestItem {
 		this.noIgnores = Integer.parseInt(ignores.trim());
 	}
 
+	public void setIgnores(int ignores) {
+		this.noIgnores = ignores;
+	}
+
 	public int getExceptions() {
 		return noExceptions;
 	}
@@ -70,6 +82,10 @@ public class TestCase extends TestItem {
 		this.noExceptions = Integer.parseInt(exceptions.trim());
 	}
 
+	public void setExceptions(int exceptions) {
+		this.noExceptions = exceptions;
+	}
+
 	public String toString() {
 		return "+- TestCase -----------------------------+\n" 
 				+ "  Name: "+ testSuiteName+"."+name + "\n" 
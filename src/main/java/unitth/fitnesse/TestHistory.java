@@ -170,6 +170,10 @@ public class TestHistory extends RunHistory {
 		rootTestSuites.add(ts);
 	}
 
+	public boolean isEmpty() {
+		return rootTestSuites.isEmpty();
+	}
+
 	public String toString() {
 		String ret = "+- FitNesse TestHistory -----------------------------+\n"
 				+ "  No root test suites: " + rootTestSuites.size() + "\n";
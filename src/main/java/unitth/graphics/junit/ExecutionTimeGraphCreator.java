@@ -32,13 +32,11 @@ import java.awt.image.BufferedImage;
 import java.util.Locale;
 
 import unitth.core.TestItemUtils;
+import unitth.junit.RunSeries;
 import unitth.junit.TestHistory;
 import unitth.junit.TestItemSummary;
-import unitth.junit.TestModule;
 import unitth.junit.TestModuleSummary;
-import unitth.junit.TestPackage;
 import unitth.junit.TestPackageSummary;
-import unitth.junit.TestRun;
 
 /**
  * This class is responsible for creating graphs representing the execution
@@ -46,10 +44,8 @@ import unitth.junit.TestRun;
  */
 public class ExecutionTimeGraphCreator extends GraphCreator {
 
-	private static int ET_TRUE_WIDTH = TRUE_WIDTH;
 	private final static int ET_TRUE_HEIGHT = 160;
 	private final static int ET_LEFT_OFFSET = 50;
-	private static int ET_WIDTH = ET_TRUE_WIDTH + ET_LEFT_OFFSET;
 	private final static int ET_TOP_OFFSET = 10;
 	private final static int ET_BOTTOM_OFFSET = 5;
 	private final static int ET_HEIGHT = ET_TRUE_HEIGHT + ET_TOP_OFFSET
@@ -61,7 +57,9 @@ public class ExecutionTimeGraphCreator extends GraphCreator {
 	private static final String ET_PREFIX = "etg-";
 	private static final String MAIN_EXEC_TIME_IMAGE = "et.png";
 
-	private BufferedImage execTimesImg = null;
+	/* The graph width, depends on the number of runs. */
+	private final int etTrueWidth;
+	private final int etWidth;
 
 	/**
 	 * CTOR, sets the history and the initial dimensions of the graph to draw.
@@ -72,14 +70,16 @@ public class ExecutionTimeGraphCreator extends GraphCreator {
 		super(history);
 
 		// Make sure the image width is enough relative to the number of runs
+		int trueWidth = TRUE_WIDTH;
 		if (null != history) {
 			int minWidth = history.getNoRuns() * (ET_STEP_WIDTH)
 					+ ET_LEFT_OFFSET;
-			if (ET_TRUE_WIDTH < minWidth) {
-				ET_TRUE_WIDTH = minWidth + 100;
-				ET_WIDTH = ET_TRUE_WIDTH + ET_LEFT_OFFSET;
+			if (trueWidth < minWidth) {
+				trueWidth = minWidth + 100;
 			}
 		}
+		etTrueWidth = trueWidth;
+		etWidth = trueWidth + ET_LEFT_OFFSET;
 	}
 
 	/**
@@ -90,13 +90,12 @@ public class ExecutionTimeGraphCreator extends GraphCreator {
 	 */
 	public void drawExecutionTimes(boolean draw) {
 		if (draw) {
-			execTimesImg = new BufferedImage(ET_WIDTH, ET_HEIGHT,
+			BufferedImage execTimesImg = new BufferedImage(etWidth, ET_HEIGHT,
 					BufferedImage.TYPE_INT_BGR);
 			Graphics2D g2 = execTimesImg.createGraphics();
 			drawETDiagramBase(g2, null);
 			populateExecutionTimeGraph(g2);
 			saveResultToImage(MAIN_EXEC_TIME_IMAGE, execTimesImg);
-			execTimesImg = null;
 		}
 	}
 
@@ -108,15 +107,14 @@ public class ExecutionTimeGraphCreator extends GraphCreator {
 	 */
 	public void drawExecutionTimes(TestPackageSummary tps, boolean draw) {
 		if (draw) {
-			execTimesImg = new BufferedImage(ET_WIDTH, ET_HEIGHT,
+			BufferedImage execTimesImg = new BufferedImage(etWidth, ET_HEIGHT,
 					BufferedImage.TYPE_INT_BGR);
 			Graphics2D g2 = execTimesImg.createGraphics();
 			drawETDiagramBase(g2, tps);
-			populateExecutionTimeGraph(g2, "", tps.getName(), true,
+			populateExecutionTimeGraph(g2, tps.getRunSeries(),
 					(double) determineExecTimeGraphScale(tps) / 1000.0);
 			saveResultToImage(ET_PREFIX + tps.getName().replace('.', '-')
 					+ ".png", execTimesImg);
-			execTimesImg = null;
 		}
 	}
 
@@ -128,15 +126,14 @@ public class ExecutionTimeGraphCreator extends GraphCreator {
 	 */
 	public void drawExecutionTimes(TestModuleSummary tms, boolean draw) {
 		if (draw) {
-			execTimesImg = new BufferedImage(ET_WIDTH, ET_HEIGHT,
+			BufferedImage execTimesImg = new BufferedImage(etWidth, ET_HEIGHT,
 					BufferedImage.TYPE_INT_BGR);
 			Graphics2D g2 = execTimesImg.createGraphics();
 			drawETDiagramBase(g2, tms);
-			populateExecutionTimeGraph(g2, tms.getName(), tms.getPackageName(),
-					false, (double) determineExecTimeGraphScale(tms) / 1000.0);
+			populateExecutionTimeGraph(g2, tms.getRunSeries(),
+					(double) determineExecTimeGraphScale(tms) / 1000.0);
 			saveResultToImage(ET_PREFIX + tms.getName().replace('.', '-')
 					+ ".png", execTimesImg);
-			execTimesImg = null;
 		}
 	}
 
@@ -152,10 +149,10 @@ public class ExecutionTimeGraphCreator extends GraphCreator {
 	private void drawETDiagramBase(Graphics2D g2, TestItemSummary tps) {
 		// White background
 		g2.setPaint(Color.WHITE);
-		g2.fill(new Rectangle2D.Double(0, 0, ET_WIDTH, ET_HEIGHT));
+		g2.fill(new Rectangle2D.Double(0, 0, etWidth, ET_HEIGHT));
 
 		int xStartPoint = ET_LEFT_OFFSET - 2;
-		int xEndPoint = ET_TRUE_WIDTH + 2;
+		int xEndPoint = etTrueWidth + 2;
 		int yL50 = ET_XAXIS_LOCATION - (ET_TRUE_HEIGHT / 2);
 		int yL100 = ET_XAXIS_LOCATION - ET_TRUE_HEIGHT;
 		Line2D.Double tcsHalfLine = new Line2D.Double(xStartPoint, yL50,
@@ -176,7 +173,7 @@ public class ExecutionTimeGraphCreator extends GraphCreator {
 				ET_HEIGHT - 2));
 		// Place X-axis at the bottom offset, starting at the Y-axis -3pxs
 		g2.draw(new Line2D.Double(ET_YAXIS_LOCATION - 3, ET_XAXIS_LOCATION,
-				ET_TRUE_WIDTH + 3, ET_XAXIS_LOCATION));
+				etTrueWidth + 3, ET_XAXIS_LOCATION));
 
 		// Labels
 		int scale = determineExecTimeGraphScale(tps);
@@ -353,16 +350,14 @@ public class ExecutionTimeGraphCreator extends GraphCreator {
 		xCords[0] = ET_LEFT_OFFSET + YAXIS_WIDTH;
 		yCords[0] = ET_TRUE_HEIGHT + ET_TOP_OFFSET;
 
-		// We want the bars to be printed in reverse order so we create an
-		// array the Java 1.5 style.
-		TestRun[] testModules = history.getRuns().toArray(
-				new TestRun[history.getRuns().size()]);
+		RunSeries runs = history.getRunSeries();
 
-		// Loop through all the x-cords and spit out the line
+		// Loop through all the x-cords and spit out the line, oldest run
+		// first
 		int j = 1;
-		for (int i = testModules.length - 1; i >= 0; i--, j++) {
+		for (int r = 1; r <= history.getNoRuns(); r++, j++) {
 			yCords[j] = (ET_TRUE_HEIGHT
-					- (int) (((testModules[i].getExecutionTimeDouble() / scale)) * (double) ET_TRUE_HEIGHT) + ET_TOP_OFFSET);
+					- (int) (((runs.getExecutionTime(r) / scale)) * (double) ET_TRUE_HEIGHT) + ET_TOP_OFFSET);
 
 			// Compensate for any miss-calculations
 			int diff = yCords[j] - ET_XAXIS_LOCATION;
@@ -391,9 +386,13 @@ public class ExecutionTimeGraphCreator extends GraphCreator {
 	 * 
 	 * @param g2
 	 *            The test case graphics object to be populated.
+	 * @param series
+	 *            The run statistics of the module or package.
+	 * @param scale
+	 *            The Y-axis scale in seconds.
 	 */
-	private void populateExecutionTimeGraph(Graphics2D g2, String name,
-			String packageName, boolean isPackage, double scale) {
+	private void populateExecutionTimeGraph(Graphics2D g2, RunSeries series,
+			double scale) {
 
 		int[] xCords = new int[history.getNoRuns() + 3];
 		int[] yCords = new int[history.getNoRuns() + 3];
@@ -401,38 +400,13 @@ public class ExecutionTimeGraphCreator extends GraphCreator {
 		xCords[0] = ET_LEFT_OFFSET + XAXIS_WIDTH;
 		yCords[0] = ET_XAXIS_LOCATION - YAXIS_WIDTH;
 
-		// We want the bars to be printed in reverse order so we create an
-		// array the Java 1.5 style.
-		TestRun[] testRuns = history.getRuns().toArray(
-				new TestRun[history.getRuns().size()]);
-
-		// Loop through all the x-cords and spit out the line
+		// Loop through all the x-cords and spit out the line, oldest run
+		// first. The module might not be present in every run.
 		int j = 1;
-		for (int i = testRuns.length - 1; i >= 0; i--, j++) {
-
-			// Get the pass rate from the specific module. This needs a
-			// check first since the module might not be present in the run.
-			double executionTime = 0.0;
-			boolean notInRun = false;
-			if (true == isPackage) {
-				TestPackage tp = testRuns[i].getTestPackage(packageName);
-				if (null != tp) {
-					executionTime = tp.getExecutionTimeDouble();
-				} else {
-					notInRun = true;
-				}
-			} else {
-				TestModule tm = testRuns[i].getTestModule(packageName, name);
-				if (null != tm) {
-					executionTime = tm.getExecutionTimeDouble();
-				} else {
-					notInRun = true;
-				}
-			}
-
-			if (false == notInRun) {
+		for (int r = 1; r <= history.getNoRuns(); r++, j++) {
+			if (series.isInRun(r)) {
 				yCords[j] = (ET_TRUE_HEIGHT
-						- (int) (((executionTime / scale)) * (double) ET_TRUE_HEIGHT) + ET_TOP_OFFSET);
+						- (int) (((series.getExecutionTime(r) / scale)) * (double) ET_TRUE_HEIGHT) + ET_TOP_OFFSET);
 			} else {
 				yCords[j] = ET_XAXIS_LOCATION - YAXIS_WIDTH;
 			}
@@ -24,10 +24,8 @@ package unitth.graphics.junit;
 
 import java.awt.Color;
 
+import unitth.junit.RunSeries;
 import unitth.junit.TestHistory;
-import unitth.junit.TestModule;
-import unitth.junit.TestPackage;
-import unitth.junit.TestRun;
 
 public class FailureNumberGraphCreator extends NumberGraphCreator {
 
@@ -45,23 +43,9 @@ public class FailureNumberGraphCreator extends NumberGraphCreator {
 	}
 
 	/* (non-Javadoc)
-	 * @see unitth.graphics.NumberGraphCreator#getGraphNumbers(unitth.core.TestRun)
+	 * @see unitth.graphics.NumberGraphCreator#getGraphNumbers(unitth.junit.RunSeries, int)
 	 */
-	protected int getGraphNumbers(TestRun tr) {
-		return tr.getNoFailures()+tr.getNoErrors();
-	}
-
-	/* (non-Javadoc)
-	 * @see unitth.graphics.NumberGraphCreator#getGraphNumbers(unitth.core.TestModule)
-	 */
-	protected int getGraphNumbers(TestModule tm) {
-		return tm.getNoFailures()+tm.getNoErrors();
-	}
-
-	/* (non-Javadoc)
-	 * @see unitth.graphics.NumberGraphCreator#getGraphNumbers(unitth.core.TestModule)
-	 */
-	protected int getGraphNumbers(TestPackage tp) {
-		return tp.getNoFailures()+tp.getNoErrors();
+	protected int getGraphNumbers(RunSeries series, int runIdx) {
+		return series.getNoNonPass(runIdx);
 	}
 }
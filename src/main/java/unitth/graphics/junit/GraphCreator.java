@@ -51,7 +51,7 @@ import unitth.junit.TestHistory;
  */
 public class GraphCreator {
 
-	protected static int TRUE_WIDTH = 300;
+	protected final static int TRUE_WIDTH = 300;
 	protected TestHistory history = null;
 	protected int imgHeight = 160;
 	protected int imgWidth = 600;
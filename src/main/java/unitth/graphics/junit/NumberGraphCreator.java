@@ -32,19 +32,14 @@ import java.awt.geom.Rectangle2D;
 import java.awt.image.BufferedImage;
 
 import unitth.core.UnitTHException;
+import unitth.junit.RunSeries;
 import unitth.junit.TestHistory;
 import unitth.junit.TestItemSummary;
-import unitth.junit.TestModule;
-import unitth.junit.TestPackage;
-import unitth.junit.TestPackageSummary;
-import unitth.junit.TestRun;
 
 public abstract class NumberGraphCreator extends GraphCreator {
 
-	protected static int NG_TRUE_WIDTH = TRUE_WIDTH;
 	protected final static int NG_TRUE_HEIGHT = 80;
 	protected final static int NG_LEFT_OFFSET = 30;
-	protected static int NG_WIDTH = NG_TRUE_WIDTH + NG_LEFT_OFFSET;
 	protected final static int NG_TOP_OFFSET = 5;
 	protected final static int NG_BOTTOM_OFFSET = 5;
 	protected final static int NG_HEIGHT = NG_TRUE_HEIGHT + NG_TOP_OFFSET
@@ -53,7 +48,9 @@ public abstract class NumberGraphCreator extends GraphCreator {
 	protected final static int NG_XAXIS_LOCATION = NG_HEIGHT - NG_BOTTOM_OFFSET;
 	protected static final int NG_STEP_WIDTH = 4;
 
-	private BufferedImage testCaseImg = null;
+	/* The graph width, depends on the number of runs. */
+	protected final int ngTrueWidth;
+	protected final int ngWidth;
 
 	protected String mainImage = "";
 	protected String filePrefix = "";
@@ -63,14 +60,16 @@ public abstract class NumberGraphCreator extends GraphCreator {
 		super(history);
 
 		// Make sure the image width is enough relative to the number of runs
+		int trueWidth = TRUE_WIDTH;
 		if (null != history) {
 			int minWidth = history.getNoRuns() * (NG_STEP_WIDTH)
 					+ NG_LEFT_OFFSET;
-			if (NG_TRUE_WIDTH < minWidth) {
-				NG_TRUE_WIDTH = minWidth + 100;
-				NG_WIDTH = NG_TRUE_WIDTH + NG_LEFT_OFFSET;
+			if (trueWidth < minWidth) {
+				trueWidth = minWidth + 100;
 			}
 		}
+		ngTrueWidth = trueWidth;
+		ngWidth = trueWidth + NG_LEFT_OFFSET;
 	}
 
 	/**
@@ -84,10 +83,10 @@ public abstract class NumberGraphCreator extends GraphCreator {
 	private void drawDiagramBase(Graphics2D g2, TestItemSummary tis) {
 		// White background
 		g2.setPaint(Color.WHITE);
-		g2.fill(new Rectangle2D.Double(0, 0, NG_WIDTH, NG_HEIGHT));
+		g2.fill(new Rectangle2D.Double(0, 0, ngWidth, NG_HEIGHT));
 
 		int xStartPoint = NG_LEFT_OFFSET - 2;
-		int xEndPoint = NG_TRUE_WIDTH + 2;
+		int xEndPoint = ngTrueWidth + 2;
 		int yL50 = NG_XAXIS_LOCATION - (NG_TRUE_HEIGHT / 2);
 		int yL100 = NG_XAXIS_LOCATION - NG_TRUE_HEIGHT;
 		Line2D.Double tcsHalfLine = new Line2D.Double(xStartPoint, yL50,
@@ -108,7 +107,7 @@ public abstract class NumberGraphCreator extends GraphCreator {
 				NG_HEIGHT - 2));
 		// Place X-axis at the bottom offset, starting at the Y-axis -3pxs
 		g2.draw(new Line2D.Double(NG_YAXIS_LOCATION - 3, NG_XAXIS_LOCATION,
-				NG_TRUE_WIDTH + 3, NG_XAXIS_LOCATION));
+				ngTrueWidth + 3, NG_XAXIS_LOCATION));
 
 		// Labels
 		int scale = determineGraphScale(tis);
@@ -129,13 +128,12 @@ public abstract class NumberGraphCreator extends GraphCreator {
 	 * case numbers graphs for each module.
 	 */
 	public void drawNumbers() {
-		testCaseImg = new BufferedImage(NG_WIDTH, NG_HEIGHT,
+		BufferedImage testCaseImg = new BufferedImage(ngWidth, NG_HEIGHT,
 				BufferedImage.TYPE_INT_BGR);
 		Graphics2D g2 = testCaseImg.createGraphics();
 		drawDiagramBase(g2, null);
 		populateNumbersGraph(g2);
 		saveResultToImage(mainImage, testCaseImg);
-		testCaseImg = null;
 	}
 
 	/**
@@ -147,7 +145,7 @@ public abstract class NumberGraphCreator extends GraphCreator {
 	 * drawing the test case numbers for the overall history.
 	 */
 	public void drawNumbers(TestItemSummary tis) {
-		testCaseImg = new BufferedImage(NG_WIDTH, NG_HEIGHT,
+		BufferedImage testCaseImg = new BufferedImage(ngWidth, NG_HEIGHT,
 				BufferedImage.TYPE_INT_BGR);
 		Graphics2D g2 = testCaseImg.createGraphics();
 
@@ -161,7 +159,6 @@ public abstract class NumberGraphCreator extends GraphCreator {
 		saveResultToImage(
 				filePrefix + tis.getName().replace('.', '-') + ".png",
 				testCaseImg);
-		testCaseImg = null;
 	}
 
 	/**
@@ -181,23 +178,21 @@ public abstract class NumberGraphCreator extends GraphCreator {
 
 		int scale = determineGraphScale(null);
 
-		// This is the first point
+		RunSeries runs = history.getRunSeries();
+		int noRuns = history.getNoRuns();
+
+		// This is the first point, based on the latest run
 		xCords[0] = NG_LEFT_OFFSET + YAXIS_WIDTH;
-		yCords[0] = (NG_TRUE_HEIGHT - (getGraphNumbers(history.getRuns()
-				.first()) / scale)
+		yCords[0] = (NG_TRUE_HEIGHT - (getGraphNumbers(runs, noRuns) / scale)
 				* NG_TRUE_HEIGHT)
 				+ NG_TOP_OFFSET - YAXIS_WIDTH;
 
-		// We want the bars to be printed in reverse order so we create an
-		// array the Java 1.5 style.
-		TestRun[] testModules = history.getRuns().toArray(
-				new TestRun[history.getRuns().size()]);
-
-		// Loop through all the x-cords and spit out the line
+		// Loop through all the x-cords and spit out the line, oldest run
+		// first
 		int j = 1;
-		for (int i = testModules.length - 1; i >= 0; i--, j++) {
+		for (int r = 1; r <= noRuns; r++, j++) {
 			yCords[j] = (NG_TRUE_HEIGHT
-					- (int) (((getGraphNumbers(testModules[i]) / (double) scale)) * (double) NG_TRUE_HEIGHT) + NG_TOP_OFFSET);
+					- (int) (((getGraphNumbers(runs, r) / (double) scale)) * (double) NG_TRUE_HEIGHT) + NG_TOP_OFFSET);
 
 			// Compensate for any miss-calculations
 			int diff = yCords[j] - NG_XAXIS_LOCATION;
@@ -242,36 +237,15 @@ public abstract class NumberGraphCreator extends GraphCreator {
 		xCords[0] = NG_LEFT_OFFSET + YAXIS_WIDTH;
 		yCords[0] = NG_XAXIS_LOCATION - YAXIS_WIDTH;
 
-		// We want the bars to be printed in reverse order so we create an
-		// array the Java 1.5 style.
-		TestRun[] testRuns = history.getRuns().toArray(
-				new TestRun[history.getRuns().size()]);
+		RunSeries series = tis.getRunSeries();
 
-		// Loop through all the x-cords and spit out the line
+		// Loop through all the x-cords and spit out the line, oldest run
+		// first. The module might not be present in every run.
 		int j = 1;
-		for (int i = testRuns.length - 1; i >= 0; i--, j++) {
-			int getNumbers = 0;
-			boolean notInRun = false;
-			if (true == (tis instanceof TestPackageSummary)) {
-				TestPackage tp = testRuns[i].getTestPackage(tis.getName());
-				if (null != tp) {
-					getNumbers = getGraphNumbers(tp);
-				} else {
-					notInRun = true;
-				}
-			} else {
-				TestModule tm = testRuns[i].getTestModule(tis.getPackageName(),
-						tis.getName());
-				if (null != tm) {
-					getNumbers = getGraphNumbers(tm);
-				} else {
-					notInRun = true;
-				}
-			}
-
-			if (false == notInRun) {
+		for (int r = 1; r <= history.getNoRuns(); r++, j++) {
+			if (series.isInRun(r)) {
 				yCords[j] = (NG_TRUE_HEIGHT
-						- (int) (((getNumbers / (double) scale)) * (double) NG_TRUE_HEIGHT) + NG_TOP_OFFSET);
+						- (int) (((getGraphNumbers(series, r) / (double) scale)) * (double) NG_TRUE_HEIGHT) + NG_TOP_OFFSET);
 			} else {
 				yCords[j] = NG_XAXIS_LOCATION - YAXIS_WIDTH;
 			}
@@ -403,38 +377,14 @@ public abstract class NumberGraphCreator extends GraphCreator {
 	 * This method shall be overridden by the subclasses that draw their graphs
 	 * based on integer values. The method shall return a selectable value
 	 * depending on the purpose of the sub class. As an example failure numbers
-	 * graph returns the sum of failing and error test cases for passed test
-	 * run.
-	 * 
-	 * @param tr
-	 *            The test run to get chosen data from.
-	 * @return Returns the selected data.
-	 */
-	protected abstract int getGraphNumbers(TestRun tr);
-
-	/**
-	 * This method shall be overridden by the subclasses that draw their graphs
-	 * based on integer values. The method shall return a selectable value
-	 * depending on the purpose of the sub class. As an example failure numbers
-	 * graph returns the sum of failing and error test cases for passed test
-	 * module.
-	 * 
-	 * @param tr
-	 *            The test package to get chosen data from.
-	 * @return Returns the selected data.
-	 */
-	protected abstract int getGraphNumbers(TestPackage tm);
-
-	/**
-	 * This method shall be overridden by the subclasses that draw their graphs
-	 * based on integer values. The method shall return a selectable value
-	 * depending on the purpose of the sub class. As an example failure numbers
-	 * graph returns the sum of failing and error test cases for passed test
-	 * module.
+	 * graph returns the sum of failing and error test cases in a run of a
+	 * test run, package or module.
 	 * 
-	 * @param tr
-	 *            The test run to get chosen data from.
+	 * @param series
+	 *            The run statistics to get chosen data from.
+	 * @param runIdx
+	 *            The index of the run.
 	 * @return Returns the selected data.
 	 */
-	protected abstract int getGraphNumbers(TestModule tm);
+	protected abstract int getGraphNumbers(RunSeries series, int runIdx);
 }
@@ -30,12 +30,10 @@ import java.awt.geom.Line2D;
 import java.awt.geom.Rectangle2D;
 import java.awt.image.BufferedImage;
 
+import unitth.junit.RunSeries;
 import unitth.junit.TestHistory;
-import unitth.junit.TestModule;
 import unitth.junit.TestModuleSummary;
-import unitth.junit.TestPackage;
 import unitth.junit.TestPackageSummary;
-import unitth.junit.TestRun;
 
 /**
  * This class is responsible for creating graphs representing the pass rates for
@@ -43,10 +41,8 @@ import unitth.junit.TestRun;
  */
 public class PassRateGraphCreator extends GraphCreator {
 
-	private static int RG_TRUE_WIDTH = TRUE_WIDTH;
 	private final static int RG_TRUE_HEIGHT = 160;
 	private final static int RG_LEFT_OFFSET = 30;
-	private static int RG_WIDTH = RG_TRUE_WIDTH + RG_LEFT_OFFSET;
 	private final static int RG_TOP_OFFSET = 10;
 	private final static int RG_BOTTOM_OFFSET = 5;
 	private final static int RG_HEIGHT = RG_TRUE_HEIGHT + RG_TOP_OFFSET
@@ -59,7 +55,9 @@ public class PassRateGraphCreator extends GraphCreator {
 	private static final String MPR_PREFIX = "mpr-";
 	private static final String MAIN_PASS_RATE_IMAGE = "th.png";
 
-	private BufferedImage passRatesImg = null;
+	/* The graph width, depends on the number of runs. */
+	private final int rgTrueWidth;
+	private final int rgWidth;
 
 	/**
 	 * CTOR, takes the test history to generate graphs from as input.
@@ -71,14 +69,16 @@ public class PassRateGraphCreator extends GraphCreator {
 		super(history);
 
 		// Make sure the image width is enough relative to the number of runs
+		int trueWidth = TRUE_WIDTH;
 		if (null != history) {
 			int minWidth = history.getNoRuns()
 					* (RG_BAR_WIDTH + RG_BAR_SPACING) + RG_LEFT_OFFSET;
-			if (RG_TRUE_WIDTH < minWidth) {
-				RG_TRUE_WIDTH = minWidth + 100;
-				RG_WIDTH = RG_TRUE_WIDTH + RG_LEFT_OFFSET;
+			if (trueWidth < minWidth) {
+				trueWidth = minWidth + 100;
 			}
 		}
+		rgTrueWidth = trueWidth;
+		rgWidth = trueWidth + RG_LEFT_OFFSET;
 	}
 
 	/*
@@ -90,14 +90,14 @@ public class PassRateGraphCreator extends GraphCreator {
 	private void drawRGDiagramBase(Graphics2D g2) {
 		// White background
 		g2.setPaint(Color.WHITE);
-		g2.fill(new Rectangle2D.Double(0, 0, RG_WIDTH, RG_HEIGHT));
+		g2.fill(new Rectangle2D.Double(0, 0, rgWidth, RG_HEIGHT));
 
 		// Draw support lines
 		g2.setPaint(Color.LIGHT_GRAY);
 		g2.setStroke(new BasicStroke(0.5f, BasicStroke.CAP_ROUND,
 				BasicStroke.JOIN_ROUND, 10.0f, new float[] { 3.0f }, 0.0f));
 		int xStartPoint = RG_LEFT_OFFSET - 2;
-		int xEndPoint = RG_TRUE_WIDTH + 2;
+		int xEndPoint = rgTrueWidth + 2;
 		int yL25 = RG_XAXIS_LOCATION - (RG_TRUE_HEIGHT / 4);
 		int yL50 = RG_XAXIS_LOCATION - (RG_TRUE_HEIGHT / 2);
 		int yL75 = RG_XAXIS_LOCATION - (RG_TRUE_HEIGHT * 3 / 4);
@@ -126,7 +126,7 @@ public class PassRateGraphCreator extends GraphCreator {
 				RG_HEIGHT - 2));
 		// Place X-axis at the bottom offset, starting at the Y-axis -3pxs
 		g2.draw(new Line2D.Double(RG_YAXIS_LOCATION - 3, RG_XAXIS_LOCATION,
-				RG_TRUE_WIDTH + 3, RG_XAXIS_LOCATION));
+				rgTrueWidth + 3, RG_XAXIS_LOCATION));
 
 		// Labels
 		g2.setPaint(Color.BLACK);
@@ -147,13 +147,12 @@ public class PassRateGraphCreator extends GraphCreator {
 	 */
 	public void drawPassRates() {
 
-		passRatesImg = new BufferedImage(RG_WIDTH, RG_HEIGHT,
+		BufferedImage passRatesImg = new BufferedImage(rgWidth, RG_HEIGHT,
 				BufferedImage.TYPE_INT_BGR);
 		Graphics2D g2 = passRatesImg.createGraphics();
 		drawRGDiagramBase(g2);
 		populateRunGraph(g2);
 		saveResultToImage(MAIN_PASS_RATE_IMAGE, passRatesImg);
-		passRatesImg = null;
 	}
 
 	/**
@@ -166,30 +165,28 @@ public class PassRateGraphCreator extends GraphCreator {
 	 */
 	public void drawPassRates(TestPackageSummary tps) {
 
-		passRatesImg = new BufferedImage(RG_WIDTH, RG_HEIGHT,
+		BufferedImage passRatesImg = new BufferedImage(rgWidth, RG_HEIGHT,
 				BufferedImage.TYPE_INT_BGR);
 		Graphics2D g2 = passRatesImg.createGraphics();
 		drawRGDiagramBase(g2);
 
-		populateRunGraph(g2, "", tps.getName(), true);
+		populateRunGraph(g2, tps.getRunSeries());
 		saveResultToImage(
 				MPR_PREFIX + tps.getName().replace('.', '-') + ".png",
 				passRatesImg);
-		passRatesImg = null;
 	}
 
 	public void drawPassRates(TestModuleSummary tms) {
 
-		passRatesImg = new BufferedImage(RG_WIDTH, RG_HEIGHT,
+		BufferedImage passRatesImg = new BufferedImage(rgWidth, RG_HEIGHT,
 				BufferedImage.TYPE_INT_BGR);
 		Graphics2D g2 = passRatesImg.createGraphics();
 		drawRGDiagramBase(g2);
 
-		populateRunGraph(g2, tms.getName(), tms.getPackageName(), false);
+		populateRunGraph(g2, tms.getRunSeries());
 		saveResultToImage(
 				MPR_PREFIX + tms.getName().replace('.', '-') + ".png",
 				passRatesImg);
-		passRatesImg = null;
 	}
 
 	/**
@@ -214,21 +211,18 @@ public class PassRateGraphCreator extends GraphCreator {
 		int barHeight = 0;
 		int topBar = RG_XAXIS_LOCATION - RG_TRUE_HEIGHT;
 
-		// We want the bars to be printed in reverse order so we create an
-		// array the Java 1.5 style.
-		TestRun[] testRuns = history.getRuns().toArray(
-				new TestRun[history.getRuns().size()]);
-
-		for (int i = testRuns.length - 1; i >= 0; i--) {
+		// The bars are printed oldest run first
+		RunSeries runs = history.getRunSeries();
+		for (int r = 1; r <= history.getNoRuns(); r++) {
 			xStart += (RG_BAR_WIDTH + RG_BAR_SPACING);
 			xWidth = RG_BAR_WIDTH;
-			barHeight = (int) (testRuns[i].getPassPctDouble() / 100.0 * RG_TRUE_HEIGHT);
+			barHeight = (int) (runs.getPassPct(r) / 100.0 * RG_TRUE_HEIGHT);
 			yStart = RG_TRUE_HEIGHT - barHeight + RG_TOP_OFFSET;
 			yHeight = barHeight - 1; // The x-axis width == 2pxs so the
 			// offset needs an extra 1pxs
 
 			// Upper part
-			if (testRuns[i].getPassPctDouble() != 100.0) {
+			if (runs.getPassPct(r) != 100.0) {
 				g2.setPaint(Color.RED.darker());
 				g2.setComposite(makeComposite(2 * 0.1F));
 				g2.fill(new Rectangle2D.Double(xStart, topBar, xWidth,
@@ -248,9 +242,10 @@ public class PassRateGraphCreator extends GraphCreator {
 	 * 
 	 * @param g2
 	 *            The pass rate graphics object to be populated.
+	 * @param series
+	 *            The run statistics of the module or package.
 	 */
-	private void populateRunGraph(Graphics2D g2, String name,
-			String packageName, boolean isPackage) {
+	private void populateRunGraph(Graphics2D g2, RunSeries series) {
 
 		// Draw the pass rate bars, all bars end at RG_XAXIS_LOCATION
 		g2.setPaint(new Color(0x00, 0xdf, 0x00));
@@ -263,33 +258,17 @@ public class PassRateGraphCreator extends GraphCreator {
 		int barHeight = 1;
 		int topBar = RG_XAXIS_LOCATION - RG_TRUE_HEIGHT;
 
-		// We want the bars to be printed in reverse order so we create an
-		// array the Java 1.5 style.
-		TestRun[] testRuns = history.getRuns().toArray(
-				new TestRun[history.getRuns().size()]);
-
-		for (int i = testRuns.length - 1; i >= 0; i--) {
+		// The bars are printed oldest run first
+		RunSeries runs = history.getRunSeries();
+		for (int r = 1; r <= history.getNoRuns(); r++) {
 			xStart += (RG_BAR_WIDTH + RG_BAR_SPACING);
 			xWidth = RG_BAR_WIDTH;
 
-			// Get the pass rate from the specific module. This needs a
-			// check first since the module might not be present in the run.
-
-			// boolean notInRun = false;
-			if (true == isPackage) {
-				TestPackage tp = testRuns[i].getTestPackage(packageName);
-				if (null != tp) {
-					barHeight = (int) (tp.getPassPctDouble() / 100.0 * RG_TRUE_HEIGHT);
-				} else {
-					barHeight = 1;
-				}
+			// The module might not be present in the run.
+			if (series.isInRun(r)) {
+				barHeight = (int) (series.getPassPct(r) / 100.0 * RG_TRUE_HEIGHT);
 			} else {
-				TestModule tm = testRuns[i].getTestModule(packageName, name);
-				if (null != tm) {
-					barHeight = (int) (tm.getPassPctDouble() / 100.0 * RG_TRUE_HEIGHT);
-				} else {
-					barHeight = 1;
-				}
+				barHeight = 1;
 			}
 
 			if (1 != barHeight) {
@@ -298,7 +277,7 @@ public class PassRateGraphCreator extends GraphCreator {
 				// offset needs an extra 1pxs
 
 				// Upper part
-				if (testRuns[i].getPassPctDouble() != 100.0) {
+				if (runs.getPassPct(r) != 100.0) {
 					g2.setPaint(Color.RED.darker());
 					g2.setComposite(makeComposite(2 * 0.1F));
 					g2.fill(new Rectangle2D.Double(xStart, topBar, xWidth,
@@ -24,10 +24,8 @@ package unitth.graphics.junit;
 
 import java.awt.Color;
 
+import unitth.junit.RunSeries;
 import unitth.junit.TestHistory;
-import unitth.junit.TestModule;
-import unitth.junit.TestPackage;
-import unitth.junit.TestRun;
 
 public class TestCaseNumberGraphCreator extends NumberGraphCreator {
 
@@ -39,23 +37,9 @@ public class TestCaseNumberGraphCreator extends NumberGraphCreator {
 	}
 
 	/* (non-Javadoc)
-	 * @see unitth.graphics.NumberGraphCreator#getGraphNumbers(unitth.core.TestRun)
+	 * @see unitth.graphics.NumberGraphCreator#getGraphNumbers(unitth.junit.RunSeries, int)
 	 */
-	protected int getGraphNumbers(TestRun tr) {
-		return tr.getNoTestCases();
-	}
-
-	/* (non-Javadoc)
-	 * @see unitth.graphics.NumberGraphCreator#getGraphNumbers(unitth.core.TestModule)
-	 */
-	protected int getGraphNumbers(TestModule tm) {
-		return tm.getNoTestCases();
-	}
-	
-	/* (non-Javadoc)
-	 * @see unitth.graphics.NumberGraphCreator#getGraphNumbers(unitth.core.TestModule)
-	 */
-	protected int getGraphNumbers(TestPackage tp) {
-		return tp.getNoTestCases();
+	protected int getGraphNumbers(RunSeries series, int runIdx) {
+		return series.getNoTestCases(runIdx);
 	}
 }
@@ -0,0 +1,231 @@
+/*
+ *    This file is part of UnitTH
+ *
+ *   UnitTH is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   UnitTH is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with UnitTH if not, see <http://www.gnu.org/licenses/>.
+ *
+ * =======================================================================
+ * $Id$
+ * -----------------------------------------------------------------------
+ *
+ * =======================================================================
+ */
+package unitth.html;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Writes the rows of a report table as JSON data chunks, to be shown by the
+ * table viewer in <code>datatable.js</code>. Every row is a JSON array and
+ * the rows are split into chunk files of a fixed number of rows. A chunk is
+ * wrapped in a call to <code>UnitTHTable.addChunk</code>, so that the viewer
+ * can load it with a script tag also when the report is opened from disk,
+ * where the browser does not allow it to be fetched as plain JSON.
+ * <p>
+ * A chunk file is named after the table followed by the chunk index, e.g.
+ * <code>th-module-x-testcases-0.js</code>.
+ *
+ * @author andnyb
+ */
+public class DataTableWriter {
+
+	private String dir = null;
+	private String name = null;
+	private int chunkSize = 0;
+
+	private HtmlWriter out = null;
+	private int noRows = 0;
+	private int noChunks = 0;
+	private boolean firstValue = true;
+
+	/**
+	 * CTOR
+	 *
+	 * @param dir
+	 *            The folder to write the chunk files to.
+	 * @param name
+	 *            The name of the table.
+	 * @param chunkSize
+	 *            The number of rows in a chunk.
+	 */
+	public DataTableWriter(String dir, String name, int chunkSize) {
+		this.dir = dir;
+		this.name = name;
+		this.chunkSize = chunkSize;
+	}
+
+	/**
+	 * Starts a new row, a new chunk file is started when the current one is
+	 * full.
+	 *
+	 * @throws IOException
+	 */
+	public void startRow() throws IOException {
+		if (0 == noRows % chunkSize) {
+			endChunk();
+			out = new HtmlWriter(new File(dir, name + "-" + noChunks + ".js"));
+			out.write("UnitTHTable.addChunk(");
+			writeString(name);
+			out.write(',');
+			out.writeNumber(noChunks);
+			out.write(",[\n[");
+			noChunks++;
+		} else {
+			out.write(",\n[");
+		}
+		noRows++;
+		firstValue = true;
+	}
+
+	/**
+	 * Adds a number to the current row.
+	 *
+	 * @param value
+	 *            The number.
+	 * @throws IOException
+	 */
+	public void add(int value) throws IOException {
+		separate();
+		out.writeNumber(value);
+	}
+
+	/**
+	 * Adds a string to the current row.
+	 *
+	 * @param value
+	 *            The string, null is added as JSON null.
+	 * @throws IOException
+	 */
+	public void add(String value) throws IOException {
+		separate();
+		if (null == value) {
+			out.write("null");
+		} else {
+			writeString(value);
+		}
+	}
+
+	/**
+	 * Adds a string to the current row.
+	 *
+	 * @param value
+	 *            The characters of the string.
+	 * @param len
+	 *            The number of characters to add.
+	 * @throws IOException
+	 */
+	public void add(char[] value, int len) throws IOException {
+		separate();
+		out.write('"');
+		for (int i = 0; i < len; i++) {
+			writeChar(value[i]);
+		}
+		out.write('"');
+	}
+
+	/**
+	 * Ends the current row.
+	 *
+	 * @throws IOException
+	 */
+	public void endRow() throws IOException {
+		out.write(']');
+	}
+
+	/**
+	 * Ends the last chunk file.
+	 *
+	 * @throws IOException
+	 */
+	public void close() throws IOException {
+		endChunk();
+	}
+
+	/**
+	 * @return The name of the table.
+	 */
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * @return The number of rows written.
+	 */
+	public int getNoRows() {
+		return noRows;
+	}
+
+	/**
+	 * @return The number of chunk files written.
+	 */
+	public int getNoChunks() {
+		return noChunks;
+	}
+
+	/**
+	 * @return The number of rows in a chunk.
+	 */
+	public int getChunkSize() {
+		return chunkSize;
+	}
+
+	private void endChunk() throws IOException {
+		if (null != out) {
+			try {
+				out.write("\n]);\n");
+			} finally {
+				out.close();
+				out = null;
+			}
+		}
+	}
+
+	private void separate() throws IOException {
+		if (firstValue) {
+			firstValue = false;
+		} else {
+			out.write(',');
+		}
+	}
+
+	private void writeString(String s) throws IOException {
+		out.write('"');
+		for (int i = 0; i < s.length(); i++) {
+			writeChar(s.charAt(i));
+		}
+		out.write('"');
+	}
+
+	/*
+	 * Writes one char of a JSON string. Line separators are escaped as well,
+	 * JavaScript does not allow them in string literals.
+	 */
+	private void writeChar(char c) throws IOException {
+		if ('"' == c || '\\' == c) {
+			out.write('\\');
+			out.write(c);
+		} else if (c < 0x20 || '\u2028' == c || '\u2029' == c) {
+			out.write("\\u");
+			String hex = Integer.toHexString(c);
+			for (int i = hex.length(); i < 4; i++) {
+				out.write('0');
+			}
+			out.write(hex);
+		} else {
+			out.write(c);
+		}
+	}
+}
+
+/* eof */
@@ -19,6 +19,7 @@
  */
 package unitth.html;
 
+import unitth.core.TestItemUtils;
 import unitth.core.UnitTH;
 
 public class HtmlGenUtils {
@@ -32,6 +33,17 @@ public class HtmlGenUtils {
 		ret += "unitth.report.dir=" + UnitTH.rootFolder + "\n";
 		ret += "unitth.xml.report.filter=" + UnitTH.xmlReportFilter + "\n";
 		ret += "unitth.use.absolute.paths=" + UnitTH.useAbsPaths + "\n";
+		ret += "unitth.parser.threads=" + UnitTH.parserThreads + "\n";
+		ret += "unitth.xml.parser=" + UnitTH.xmlParser + "\n";
+		ret += "unitth.parse.cache=" + UnitTH.useParseCache + "\n";
+		ret += "unitth.incremental=" + UnitTH.incremental + "\n";
+		ret += "unitth.render.threads=" + UnitTH.renderThreads + "\n";
+		ret += "unitth.streaming=" + UnitTH.streaming + "\n";
+		ret += "unitth.map.threshold=" + UnitTH.mapThreshold + "\n";
+		ret += "unitth.recursive=" + UnitTH.recursive + "\n";
+		ret += "unitth.spread.mode=" + UnitTH.spreadMode + "\n";
+		ret += "unitth.table.mode=" + UnitTH.tableMode + "\n";
+		ret += "unitth.page.rows=" + UnitTH.pageRows + "\n";
 		ret += "\nInput arguments" + "\n"
 				+ "-+--------------------------------------------------+-\n";
 		
@@ -65,6 +77,24 @@ public class HtmlGenUtils {
 		return retStr + idxStr;
 	}
 	
+	/**
+	 * Formats a time stamp for the report pages, with the spaces of a proper
+	 * time stamp made non breaking.
+	 * 
+	 * @param time
+	 *            The time in milliseconds.
+	 * @param zoneOffset
+	 *            The zone offset in milliseconds to show the time in.
+	 * @return The formatted time stamp.
+	 */
+	public static String timeStampToHtml(long time, int zoneOffset) {
+		String ret = TestItemUtils.timeStampToString(time, zoneOffset);
+		if (TestItemUtils.UNKNOWN_TIME_STAMP == time) {
+			return ret;
+		}
+		return ret.replace(" ", "&nbsp;");
+	}
+
 	public static String getTrendImage(String value, boolean isPositive) {
 		String trendDownImg = UnitTH.IMAGE_DIR + "/" + UnitTH.TREND_DOWN;
 		String trendSameImg = UnitTH.IMAGE_DIR + "/" + UnitTH.TREND_SAME;
@@ -0,0 +1,265 @@
+/*
+ *    This file is part of UnitTH
+ *
+ *   UnitTH is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   UnitTH is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with UnitTH if not, see <http://www.gnu.org/licenses/>.
+ *
+ * =======================================================================
+ * $Id$
+ * -----------------------------------------------------------------------
+ *
+ * =======================================================================
+ */
+package unitth.html;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * A writer for the HTML report pages. The text is encoded to UTF-8 straight
+ * into a reusable byte buffer, which is written to the <code>FileChannel</code>
+ * of the page when it is full. Static markup is compiled into a
+ * <code>Fragment</code> once, the bytes of a fragment are copied into the
+ * buffer as they are. Numbers are written digit by digit without creating a
+ * string. A table row built from fragments, numbers and the names already
+ * held by the history does not create any objects.
+ * <p>
+ * A writer is used by one thread at a time.
+ *
+ * @author andnyb
+ */
+public class HtmlWriter extends Writer {
+
+	private final static int c_BUFFER_SIZE = 32 * 1024;
+	private final static byte c_REPLACEMENT = '?';
+
+	/**
+	 * A piece of markup encoded to UTF-8 bytes.
+	 */
+	public static final class Fragment {
+		private final byte[] bytes;
+
+		private Fragment(byte[] bytes) {
+			this.bytes = bytes;
+		}
+	}
+
+	private FileOutputStream fos = null;
+	private FileChannel channel = null;
+	private byte[] bytes = new byte[c_BUFFER_SIZE];
+	private ByteBuffer buffer = ByteBuffer.wrap(bytes);
+	private int pos = 0;
+	/* A high surrogate waiting for the rest of its pair. */
+	private char highSurrogate = 0;
+
+	/**
+	 * CTOR, creates or truncates the file to write to.
+	 *
+	 * @param file
+	 *            The file to write to.
+	 * @throws IOException
+	 */
+	public HtmlWriter(File file) throws IOException {
+		fos = new FileOutputStream(file);
+		channel = fos.getChannel();
+	}
+
+	/**
+	 * Compiles a piece of static markup.
+	 *
+	 * @param markup
+	 *            The markup.
+	 * @return The markup encoded to UTF-8.
+	 */
+	public static Fragment compile(String markup) {
+		try {
+			return new Fragment(markup.getBytes("UTF-8"));
+		} catch (UnsupportedEncodingException uee) {
+			// UTF-8 is always supported
+			throw new IllegalStateException(uee);
+		}
+	}
+
+	/**
+	 * Writes a compiled piece of markup.
+	 *
+	 * @param f
+	 *            The fragment to write.
+	 * @throws IOException
+	 */
+	public void write(Fragment f) throws IOException {
+		endSurrogate();
+		byte[] b = f.bytes;
+		if (b.length > bytes.length - pos) {
+			flushBuffer();
+			if (b.length > bytes.length) {
+				writeFully(ByteBuffer.wrap(b));
+				return;
+			}
+		}
+		System.arraycopy(b, 0, bytes, pos, b.length);
+		pos += b.length;
+	}
+
+	/**
+	 * Writes an int in decimal form, the same text as
+	 * <code>String.valueOf(int)</code>.
+	 *
+	 * @param n
+	 *            The number to write.
+	 * @throws IOException
+	 */
+	public void writeNumber(int n) throws IOException {
+		endSurrogate();
+		if (Integer.MIN_VALUE == n) {
+			write(String.valueOf(n));
+			return;
+		}
+		// An int has at most ten digits and a sign
+		if (11 > bytes.length - pos) {
+			flushBuffer();
+		}
+		if (n < 0) {
+			bytes[pos++] = '-';
+			n = -n;
+		}
+		int noDigits = 1;
+		for (int i = n; i >= 10; i /= 10) {
+			noDigits++;
+		}
+		pos += noDigits;
+		int i = pos;
+		do {
+			bytes[--i] = (byte) ('0' + n % 10);
+			n /= 10;
+		} while (n > 0);
+	}
+
+	public void write(int c) throws IOException {
+		if (4 > bytes.length - pos) {
+			flushBuffer();
+		}
+		encode((char) c);
+	}
+
+	public void write(String s, int off, int len) throws IOException {
+		for (int i = off; i < off + len; i++) {
+			if (4 > bytes.length - pos) {
+				flushBuffer();
+			}
+			encode(s.charAt(i));
+		}
+	}
+
+	public void write(char[] cbuf, int off, int len) throws IOException {
+		for (int i = off; i < off + len; i++) {
+			if (4 > bytes.length - pos) {
+				flushBuffer();
+			}
+			encode(cbuf[i]);
+		}
+	}
+
+	/**
+	 * Writes the buffered bytes to the file.
+	 */
+	public void flush() throws IOException {
+		flushBuffer();
+	}
+
+	public void close() throws IOException {
+		if (null == channel) {
+			return;
+		}
+		try {
+			endSurrogate();
+			flushBuffer();
+		} finally {
+			channel = null;
+			fos.close();
+		}
+	}
+
+	/*
+	 * Encodes one char into the buffer, which must have room for four bytes.
+	 * A char that is half of a surrogate pair is written as a replacement
+	 * unless it is paired.
+	 */
+	private void encode(char c) {
+		if (0 != highSurrogate) {
+			char high = highSurrogate;
+			highSurrogate = 0;
+			if (Character.isLowSurrogate(c)) {
+				int cp = Character.toCodePoint(high, c);
+				bytes[pos++] = (byte) (0xf0 | (cp >> 18));
+				bytes[pos++] = (byte) (0x80 | ((cp >> 12) & 0x3f));
+				bytes[pos++] = (byte) (0x80 | ((cp >> 6) & 0x3f));
+				bytes[pos++] = (byte) (0x80 | (cp & 0x3f));
+				return;
+			}
+			bytes[pos++] = c_REPLACEMENT;
+		}
+		if (c < 0x80) {
+			bytes[pos++] = (byte) c;
+		} else if (c < 0x800) {
+			bytes[pos++] = (byte) (0xc0 | (c >> 6));
+			bytes[pos++] = (byte) (0x80 | (c & 0x3f));
+		} else if (Character.isHighSurrogate(c)) {
+			highSurrogate = c;
+		} else if (Character.isLowSurrogate(c)) {
+			bytes[pos++] = c_REPLACEMENT;
+		} else {
+			bytes[pos++] = (byte) (0xe0 | (c >> 12));
+			bytes[pos++] = (byte) (0x80 | ((c >> 6) & 0x3f));
+			bytes[pos++] = (byte) (0x80 | (c & 0x3f));
+		}
+	}
+
+	/*
+	 * Writes a replacement for a high surrogate that was never paired.
+	 */
+	private void endSurrogate() throws IOException {
+		if (0 != highSurrogate) {
+			highSurrogate = 0;
+			if (1 > bytes.length - pos) {
+				flushBuffer();
+			}
+			bytes[pos++] = c_REPLACEMENT;
+		}
+	}
+
+	private void flushBuffer() throws IOException {
+		if (null == channel) {
+			throw new IOException("Writer closed");
+		}
+		if (0 < pos) {
+			buffer.clear();
+			buffer.limit(pos);
+			writeFully(buffer);
+			pos = 0;
+		}
+	}
+
+	private void writeFully(ByteBuffer src) throws IOException {
+		while (src.hasRemaining()) {
+			channel.write(src);
+		}
+	}
+}
+
+/* eof */
@@ -20,15 +20,16 @@
  */
 package unitth.html.junit;
 
-import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
 import java.text.DateFormat;
 import java.util.Date;
+import java.util.List;
 
 import unitth.core.UnitTH;
+import unitth.html.DataTableWriter;
 import unitth.html.HtmlGenUtils;
+import unitth.html.HtmlWriter;
 import unitth.junit.TestCaseSummary;
 import unitth.junit.TestCaseVerdict;
 import unitth.junit.TestHistory;
@@ -45,6 +46,126 @@ public class HtmlGen {
 	protected static final String c_LF = "\r\n";
 	protected static final String c_TAB = "  ";
 
+	/* The indents used on the pages, created once. */
+	private static final String[] c_TABS = new String[10];
+	static {
+		c_TABS[0] = "";
+		for (int i = 1; i < c_TABS.length; i++) {
+			c_TABS[i] = c_TABS[i - 1] + c_TAB;
+		}
+	}
+
+	/*
+	 * The static markup of the table rows, compiled once. A cell is written
+	 * as its start fragment, the value and c_CELL_END.
+	 */
+	protected static final HtmlWriter.Fragment c_ROW_START = HtmlWriter
+			.compile(t(3) + "<TR>" + c_LF);
+	protected static final HtmlWriter.Fragment c_NAME_CELL = HtmlWriter
+			.compile(t(4) + "<TD class=\"graphItemLeft\" NOWRAP>");
+	protected static final HtmlWriter.Fragment c_PATH_CELL = HtmlWriter
+			.compile(t(4) + "<TD class=\"graphItem\" NOWRAP>");
+	protected static final HtmlWriter.Fragment c_CELL = HtmlWriter
+			.compile(t(4) + "<TD class=\"graphPercent\" align=\"center\">");
+	protected static final HtmlWriter.Fragment c_NOWRAP_CELL = HtmlWriter
+			.compile(t(4)
+					+ "<TD class=\"graphPercent\" align=\"center\" NOWRAP>");
+	protected static final HtmlWriter.Fragment c_LEFT_CELL = HtmlWriter
+			.compile(t(4) + "<TD class=\"graphPercent\" align=\"left\">");
+	protected static final HtmlWriter.Fragment c_SPREAD_NAME_CELL = HtmlWriter
+			.compile(t(4)
+					+ "<TD class=\"graphItemLeft\" width=\"2*\" NOWRAP>");
+	protected static final HtmlWriter.Fragment c_SPREAD_CELL = HtmlWriter
+			.compile(t(4)
+					+ "<TD class=\"graphPercent\" align=\"center\" width=\"1*\">");
+	protected static final HtmlWriter.Fragment c_PCT_CELL = HtmlWriter
+			.compile(t(4) + "<TD class=\"graphBarLeft\" align=\"right\">");
+	protected static final HtmlWriter.Fragment c_PCT_CELL_END = HtmlWriter
+			.compile("%</TD>" + c_LF);
+	protected static final HtmlWriter.Fragment c_CELL_END = HtmlWriter
+			.compile("</TD>" + c_LF);
+	protected static final HtmlWriter.Fragment c_LINK_START = HtmlWriter
+			.compile("<a href=\"");
+	protected static final HtmlWriter.Fragment c_LINK_MID = HtmlWriter
+			.compile("\">");
+	protected static final HtmlWriter.Fragment c_LINK_END = HtmlWriter
+			.compile("</a>");
+	protected static final HtmlWriter.Fragment c_RUN_NAME = HtmlWriter
+			.compile("Run-");
+
+	/* The bar graph cell closing a row. */
+	protected static final HtmlWriter.Fragment c_BAR_START = HtmlWriter
+			.compile(t(4) + "<TD class=\"graphBar\">" + c_LF + t(5)
+					+ "<TABLE class=\"barGraph\" cellspacing=\"0\">" + c_LF
+					+ t(6) + "<TBODY>" + c_LF + t(7) + "<TR>" + c_LF);
+	protected static final HtmlWriter.Fragment c_CLASSED_BAR_START = HtmlWriter
+			.compile(t(4) + "<TD class=\"graphBar\">" + c_LF + t(5)
+					+ "<TABLE class=\"barGraph\" cellspacing=\"0\">" + c_LF
+					+ t(6) + "<TBODY>" + c_LF + t(7) + "<TR class=\"bar\">"
+					+ c_LF);
+	protected static final HtmlWriter.Fragment c_SPREAD_BAR_START = HtmlWriter
+			.compile(t(4) + "<TD class=\"graphBar\" width=\"40*\">" + c_LF
+					+ t(5) + "<TABLE class=\"barGraph\" cellspacing=\"0\">"
+					+ c_LF + t(6) + "<TBODY>" + c_LF + t(7) + "<TR>" + c_LF);
+	protected static final HtmlWriter.Fragment c_BAR_END = HtmlWriter
+			.compile(t(7) + "</TR>" + c_LF + t(6) + "</TBODY>" + c_LF + t(5)
+					+ "</TABLE>" + c_LF + t(4) + "</TD>" + c_LF + t(3)
+					+ "</TR>" + c_LF);
+
+	/* The parts of the pass rate bars. */
+	private static final HtmlWriter.Fragment c_NAN_BAR = HtmlWriter
+			.compile(t(8) + "<TD class=\"prNan\"><img src=\"images/"
+					+ UnitTH.TRANS_IMAGE + "\" width=\"" + 200
+					+ "\" height=\"12\"/></TD>" + c_LF);
+	private static final HtmlWriter.Fragment c_PASS_BAR = HtmlWriter
+			.compile(t(8) + "<TD class=\"prpass\"><img src=\"images/"
+					+ UnitTH.TRANS_IMAGE + "\" width=\"");
+	private static final HtmlWriter.Fragment c_FAIL_BAR = HtmlWriter
+			.compile(t(8) + "<TD class=\"prfail\"><img src=\"images/"
+					+ UnitTH.TRANS_IMAGE + "\" width=\"");
+	private static final HtmlWriter.Fragment c_BAR_IMG_END = HtmlWriter
+			.compile("\" height=\"12\"/></TD>" + c_LF);
+
+	/* The parts of the spread bars, one cell start per verdict. */
+	private static final HtmlWriter.Fragment c_NORUN_SPREAD = compileSpreadCell("norun");
+	private static final HtmlWriter.Fragment c_PASS_SPREAD = compileSpreadCell("pass");
+	private static final HtmlWriter.Fragment c_FAIL_SPREAD = compileSpreadCell("fail");
+	private static final HtmlWriter.Fragment c_ERROR_SPREAD = compileSpreadCell("error");
+	private static final HtmlWriter.Fragment c_IGNORED_SPREAD = compileSpreadCell("ignored");
+	private static final HtmlWriter.Fragment c_SPREAD_IMG_START = HtmlWriter
+			.compile("<img title=\"Run-");
+
+	/*
+	 * The parts of the spread strips. Runs in a row with the same verdict are
+	 * drawn as one rectangle.
+	 */
+	private static final HtmlWriter.Fragment c_STRIP_START = HtmlWriter
+			.compile(t(8) + "<TD class=\"spreadStrip\"><svg class=\"spread\" width=\"");
+	private static final HtmlWriter.Fragment c_STRIP_END = HtmlWriter
+			.compile("</svg></TD>" + c_LF);
+	private static final HtmlWriter.Fragment c_NORUN_RECT = compileStripRect("norun");
+	private static final HtmlWriter.Fragment c_PASS_RECT = compileStripRect("pass");
+	private static final HtmlWriter.Fragment c_FAIL_RECT = compileStripRect("fail");
+	private static final HtmlWriter.Fragment c_ERROR_RECT = compileStripRect("error");
+	private static final HtmlWriter.Fragment c_IGNORED_RECT = compileStripRect("ignored");
+	private static final HtmlWriter.Fragment c_RECT_WIDTH = HtmlWriter
+			.compile("\" width=\"");
+
+	/* The number of rows in a data chunk of a JSON table. */
+	protected static final int c_CHUNK_SIZE = 1000;
+	/*
+	 * The columns of the JSON tables as given to the table viewer. The kind of
+	 * a column decides how it is shown and sorted: name, link, num, pct
+	 * (spanning the pass rate and the bar) and spread.
+	 */
+	protected static final String c_TEST_CASE_COLUMNS = "[{t:'Test case name',k:'name'},"
+			+ "{t:'Runs',k:'num'},{t:'Pass',k:'num'},{t:'Error',k:'num'},"
+			+ "{t:'Fail',k:'num'},{t:'Ignored',k:'num'},{t:'Ave ET*',k:'num'},"
+			+ "{t:'TOTAL',k:'pct'}]";
+	protected static final String c_SPREAD_COLUMNS = "[{t:'Test case name',k:'name'},"
+			+ "{t:'Runs',k:'num'},{t:'Pass',k:'num'},{t:'Error',k:'num'},"
+			+ "{t:'Fail',k:'num'},{t:'Ignored',k:'num'},{t:'SPREAD',k:'spread'}]";
+
 	protected final String IMGDIR = "img";
 	protected final String CSSDIR = "css";
 	protected final String HTML_MAIN_FRAME_FILE = "main.html";
@@ -66,6 +187,17 @@ public class HtmlGen {
 	protected final int SPREAD_HEIGHT = 6;
 	protected final int SPREAD_WIDTH = 6;
 
+	private final HtmlWriter.Fragment spreadImgEnd = HtmlWriter
+			.compile("\" src=\"images/" + UnitTH.TRANS_IMAGE
+					+ "\" border=\"0\" width=\"" + SPREAD_WIDTH
+					+ "\" height=\"" + SPREAD_HEIGHT + "\">");
+	private final HtmlWriter.Fragment stripMid = HtmlWriter
+			.compile("\" height=\"" + SPREAD_HEIGHT
+					+ "\" onclick=\"openSpreadRun(evt, " + SPREAD_WIDTH
+					+ ")\">");
+	private final HtmlWriter.Fragment rectEnd = HtmlWriter
+			.compile("\" height=\"" + SPREAD_HEIGHT + "\"/>");
+
 	protected TestHistory th = null;
 	protected boolean generateExecTimeGraphs = false;
 
@@ -91,12 +223,24 @@ public class HtmlGen {
 	 * 
 	 * @param noTabs The number of tabs to insert. @return
 	 */
-	protected String t(int noTabs) {
-		String ret = "";
+	protected static String t(int noTabs) {
+		if (noTabs < c_TABS.length) {
+			return c_TABS[noTabs];
+		}
+		StringBuilder ret = new StringBuilder();
 		for (int i = 0; i < noTabs; i++) {
-			ret += c_TAB;
+			ret.append(c_TAB);
 		}
-		return ret;
+		return ret.toString();
+	}
+
+	private static HtmlWriter.Fragment compileSpreadCell(String cssClass) {
+		return HtmlWriter.compile(t(8) + "<TD class=\"" + cssClass
+				+ "\" align=\"center\">");
+	}
+
+	private static HtmlWriter.Fragment compileStripRect(String cssClass) {
+		return HtmlWriter.compile("<rect class=\"" + cssClass + "\" x=\"");
 	}
 
 	/**
@@ -142,7 +286,7 @@ public class HtmlGen {
      */
     public void generateTopPage() {
 	String fileName = destDir + File.separator + HTML_TOP_FRAME_FILE;
-	BufferedWriter bwout = null;
+	HtmlWriter bwout = null;
 	try {
 	    bwout = createFile(fileName);
 	    startPage(bwout, "Test History Top Frame");
@@ -165,15 +309,15 @@ public class HtmlGen {
     }
     
     /**
-     * Convenience method for closing an open buffered writer to a file. If an
+     * Convenience method for closing an open writer to a file. If an
      * error occurs while closing the file, it will be caught and this method
      * shall return <code>false</code>.
      * 
      * @param writer
-     *            The buffered writer to close.
+     *            The writer to close.
      * @return <code>true</code> - only if the buffer was successfully closed
      */
-    protected boolean closeFile(BufferedWriter writer) {
+    protected boolean closeFile(HtmlWriter writer) {
 	try {
 	    writer.flush();
 	    writer.close();
@@ -190,21 +334,21 @@ public class HtmlGen {
 
     /**
      * Creates a new file given by the fileName parameter and returns a
-     * BufferedWriter. If the file exists, it will be overwritten. The file
-     * should be closed by calling {@link #closeFile(BufferedWriter)}.
+     * HtmlWriter. If the file exists, it will be overwritten. The file
+     * should be closed by calling {@link #closeFile(HtmlWriter)}.
      * 
      * @param fileName
      *            The name of the file to create.
-     * @return A buffered writer to the newly-created file or <code>null</code>
+     * @return A writer to the newly-created file or <code>null</code>
      *         if an error occurred.
      */
-    protected BufferedWriter createFile(String fileName) {
+    protected HtmlWriter createFile(String fileName) {
 	File outFile = null;
-	BufferedWriter bwout = null;
+	HtmlWriter bwout = null;
 	try {
 	    outFile = new File(fileName);
 	    outFile.createNewFile();
-	    bwout = new BufferedWriter(new FileWriter(outFile));
+	    bwout = new HtmlWriter(outFile);
 	} catch (NullPointerException e) {
 	    System.out
 		    .println("Could not create the output file: "
@@ -227,7 +371,7 @@ public class HtmlGen {
 	 * @param buf
 	 *            The page buffer to append to.
 	 */
-	public void generateTopContents(BufferedWriter buf) throws IOException {
+	public void generateTopContents(HtmlWriter buf) throws IOException {
 		String backIcon = UnitTH.IMAGE_DIR + "/" + UnitTH.BACK_ICON;
 		String unitthLogo = UnitTH.IMAGE_DIR + "/" + UnitTH.LOGO;
 		buf.write(t(1)
@@ -259,7 +403,7 @@ public class HtmlGen {
      */
     public void generateMainFrames() {
 	String fileName = destDir + File.separator + HTML_MAIN;
-	BufferedWriter bwout = null;
+	HtmlWriter bwout = null;
 	try {
 	    bwout = createFile(fileName);
 	    startPage(bwout, "UnitTH - Test History");
@@ -293,40 +437,116 @@ public class HtmlGen {
      * @param buf The buffer to append to. @param pct The pass rate on which to
      * base the bar dimensions.
      */
-    protected void generatePctBar(BufferedWriter buf, Double pct)
+    protected void generatePctBar(HtmlWriter buf, double pct)
 	    throws IOException {
 	
 	// I we cannot do the match we present a yellow bar.
-	if (pct.toString().equals("NaN")) {
-	    buf.write(t(7) + t(1) + "<TD class=\"prNan\"><img src=\"images/" + UnitTH.TRANS_IMAGE
-		    + "\" width=\"" + 200 + "\" height=\"12\"/></TD>" + c_LF);
+	if (Double.isNaN(pct)) {
+	    buf.write(c_NAN_BAR);
 	    return;
 	} 
 	
 	// Calculate width
-	int redWidth = 200 - pct.intValue() * 2;
+	int redWidth = 200 - (int) pct * 2;
 	int greenWidth = 200 - redWidth;
 		
 	if (200 == greenWidth || 200 == redWidth) {
-	    String color = "prpass";
-	    if (200 == greenWidth) {
-		color = "prpass";
-	    } else if (200 == redWidth) {
-		color = "prfail";
-	    }
-	    buf.write(t(7) + t(1) + "<TD class=\"" + color
-		    + "\"><img src=\"images/" + UnitTH.TRANS_IMAGE
-		    + "\" width=\"" + 200 + "\" height=\"12\"/></TD>" + c_LF);
+	    buf.write(200 == greenWidth ? c_PASS_BAR : c_FAIL_BAR);
+	    buf.writeNumber(200);
+	    buf.write(c_BAR_IMG_END);
 	} else {
-	    buf.write(t(7) + t(1) + "<TD class=\"prpass\"><img src=\"images/"
-		    + UnitTH.TRANS_IMAGE + "\" width=\"" + greenWidth
-		    + "\" height=\"12\"/></TD>" + c_LF);
-	    buf.write(t(7) + t(1) + "<TD class=\"prfail\"><img src=\"images/"
-		    + UnitTH.TRANS_IMAGE + "\" width=\"" + redWidth
-		    + "\" height=\"12\"/></TD>" + c_LF);
+	    buf.write(c_PASS_BAR);
+	    buf.writeNumber(greenWidth);
+	    buf.write(c_BAR_IMG_END);
+	    buf.write(c_FAIL_BAR);
+	    buf.writeNumber(redWidth);
+	    buf.write(c_BAR_IMG_END);
 	}
     }
 
+    /*
+     * Generates a table cell holding a number.
+     * 
+     * @param buf The buffer to append to. @param start The start of the cell.
+     * @param value The number.
+     */
+    protected void generateCell(HtmlWriter buf, HtmlWriter.Fragment start,
+	    int value) throws IOException {
+	buf.write(start);
+	buf.writeNumber(value);
+	buf.write(c_CELL_END);
+    }
+
+    /*
+     * Generates a table cell holding a text.
+     * 
+     * @param buf The buffer to append to. @param start The start of the cell.
+     * @param value The text.
+     */
+    protected void generateCell(HtmlWriter buf, HtmlWriter.Fragment start,
+	    String value) throws IOException {
+	buf.write(start);
+	buf.write(value);
+	buf.write(c_CELL_END);
+    }
+
+    /*
+     * Generates the pass rate cell preceding the pass rate bar.
+     * 
+     * @param buf The buffer to append to. @param passPct The pass rate.
+     */
+    protected void generatePctCell(HtmlWriter buf, String passPct)
+	    throws IOException {
+	buf.write(c_PCT_CELL);
+	buf.write(passPct);
+	buf.write(c_PCT_CELL_END);
+    }
+
+    /*
+     * Generates the name cell of a row linking to the page of a module or a
+     * package.
+     * 
+     * @param buf The buffer to append to. @param prefix The file name prefix
+     * of the page. @param name The module or package name. @param suffix The
+     * file name suffix of the page.
+     */
+    protected void generatePageLinkCell(HtmlWriter buf, String prefix,
+	    String name, String suffix) throws IOException {
+	buf.write(c_NAME_CELL);
+	buf.write(c_LINK_START);
+	buf.write(prefix);
+	buf.write(name);
+	buf.write(suffix);
+	buf.write(c_LINK_MID);
+	buf.write(name);
+	buf.write(c_LINK_END);
+	buf.write(c_CELL_END);
+    }
+
+    /*
+     * Generates the name cell of a row for a test run, linking to the report
+     * of the run if there is one.
+     * 
+     * @param buf The buffer to append to. @param tr The test run. @param
+     * idxStr The run index to display.
+     */
+    protected void generateRunLinkCell(HtmlWriter buf, TestRun tr,
+	    String idxStr) throws IOException {
+	String link = getReportPath(tr);
+	buf.write(c_NAME_CELL);
+	if (0 != link.length()) {
+	    buf.write(c_LINK_START);
+	    buf.write(link);
+	    buf.write(c_LINK_MID);
+	}
+	buf.write(c_RUN_NAME);
+	buf.write(idxStr);
+	if (0 != link.length()) {
+	    buf.write(c_LINK_END);
+	}
+	buf.write(c_CELL_END);
+    }
+
     /*
      * Generates the index.html page where the test history framed layout will
      * be defined.
@@ -334,7 +554,7 @@ public class HtmlGen {
      * @param buf The buffer to append to. @param pageTitle The title name for
      * this page.
      */
-    protected void startPage(BufferedWriter buf, String pageTitle) throws IOException {
+    protected void startPage(HtmlWriter buf, String pageTitle) throws IOException {
 	buf.write("<!DOCTYPE HTML PUBLIC \"-//W3C//DTD HTML 4.01 Transitional//EN\" \"http://www.w3.org/TR/html4/loose.dtd\">"
 		+ c_LF);
 	buf.write("<html>" + c_LF);
@@ -354,7 +574,7 @@ public class HtmlGen {
 	 * 
 	 * @param buf The buffer to append to.
 	 */
-	protected void startBody(BufferedWriter buf) throws IOException {
+	protected void startBody(HtmlWriter buf) throws IOException {
 		buf.write("<body>" + c_LF);
 	}
 
@@ -363,7 +583,7 @@ public class HtmlGen {
 	 * 
 	 * @param buf The buffer to append to.
 	 */
-	protected void endBody(BufferedWriter buf) throws IOException {
+	protected void endBody(HtmlWriter buf) throws IOException {
 		buf.write("</body>" + c_LF);
 	}
 
@@ -372,7 +592,7 @@ public class HtmlGen {
 	 * 
 	 * @param buf The buffer to append to.
 	 */
-	protected void endPage(BufferedWriter buf) throws IOException {
+	protected void endPage(HtmlWriter buf) throws IOException {
 		buf.write("</html>" + c_LF);
 		buf.flush();
 	}
@@ -412,13 +632,7 @@ public class HtmlGen {
 	 * a HTML link.
 	 */
 	protected String getHtmlReportLink(TestRun tr, String linkText) {
-		String link = null;
-		if (UnitTH.useAbsPaths == true) {
-			link = tr.getAbsolutePath();
-		} else {
-			link = tr.getRelativePath();
-		}
-		
+		String link = getReportPath(tr);
 		if (link.equals("")) {
 			return linkText;
 		} else {
@@ -426,6 +640,19 @@ public class HtmlGen {
 		}
 	}
 
+	/*
+	 * Returns the path to the report of a test run, absolute or relative
+	 * depending on the settings.
+	 * 
+	 * @param tr The test run. @return The path, empty if there is no report.
+	 */
+	protected String getReportPath(TestRun tr) {
+		if (UnitTH.useAbsPaths == true) {
+			return tr.getAbsolutePath();
+		}
+		return tr.getRelativePath();
+	}
+
 	/**
 	 * Returns the execution time unit to display on the execution time graph
 	 * header.
@@ -467,7 +694,7 @@ public class HtmlGen {
      * @param buf
      *            The buffer to append to.
      */
-    protected void generateTestCaseHeader(BufferedWriter buf)
+    protected void generateTestCaseHeader(HtmlWriter buf)
 	    throws IOException {
 
 	buf.write(t(3) + "<TR>" + c_LF);
@@ -507,36 +734,31 @@ public class HtmlGen {
      *            The buffer to append to. @param tcs The test case summary
      *            where to get the statistics.
      */
-    protected void generateTestCaseItem(BufferedWriter buf, TestCaseSummary tcs)
+    protected void generateTestCaseItem(HtmlWriter buf, TestCaseSummary tcs)
 	    throws IOException {
-	buf.write(t(3) + "<TR>" + c_LF);
-	buf.write(t(4) + "<TD class=\"graphItemLeft\" NOWRAP>"
-		+ tcs.getTestCaseName() + "</TD>" + c_LF);
-	buf.write(t(4) + "<TD class=\"graphPercent\" align=\"center\">"
-		+ tcs.getNoRuns() + "</TD>" + c_LF);
-	buf.write(t(4) + "<TD class=\"graphPercent\" align=\"center\">"
-		+ tcs.getNoPassed() + "</TD>" + c_LF);
-	buf.write(t(4) + "<TD class=\"graphPercent\" align=\"center\">"
-		+ tcs.getNoErrors() + "</TD>" + c_LF);
-	buf.write(t(4) + "<TD class=\"graphPercent\" align=\"center\">"
-		+ tcs.getNoFailures() + "</TD>" + c_LF);
-	buf.write(t(4) + "<TD class=\"graphPercent\" align=\"center\">"
-		+ tcs.getNoIgnored() + "</TD>" + c_LF);
-	buf.write(t(4) + "<TD class=\"graphPercent\" align=\"center\">"
-		+ tcs.getExecutionTime() + "</TD>" + c_LF);
-	buf.write(t(4) + "<TD class=\"graphBarLeft\" align=\"right\">"
-		+ tcs.getPassPct() + "%</TD>" + c_LF);
-	buf.write(t(4) + "<TD class=\"graphBar\">" + c_LF);
-	buf.write(t(5) + "<TABLE class=\"barGraph\" cellspacing=\"0\">" + c_LF);
-	buf.write(t(6) + "<TBODY>" + c_LF);
-
-	buf.write(t(7) + "<TR>" + c_LF);
+	generateTestCaseItem(buf, tcs, tcs.getTestCaseName());
+    }
+
+    /*
+     * Generates a row in a test case list.
+     * 
+     * @param buf The buffer to append to. @param tcs The test case summary
+     * where to get the statistics. @param name The name to display.
+     */
+    protected void generateTestCaseItem(HtmlWriter buf, TestCaseSummary tcs,
+	    String name) throws IOException {
+	buf.write(c_ROW_START);
+	generateCell(buf, c_NAME_CELL, name);
+	generateCell(buf, c_CELL, tcs.getNoRuns());
+	generateCell(buf, c_CELL, tcs.getNoPassed());
+	generateCell(buf, c_CELL, tcs.getNoErrors());
+	generateCell(buf, c_CELL, tcs.getNoFailures());
+	generateCell(buf, c_CELL, tcs.getNoIgnored());
+	generateCell(buf, c_CELL, tcs.getExecutionTime());
+	generatePctCell(buf, tcs.getPassPct());
+	buf.write(c_BAR_START);
 	generatePctBar(buf, tcs.getPassPctDouble());
-	buf.write(t(7) + "</TR>" + c_LF);
-	buf.write(t(6) + "</TBODY>" + c_LF);
-	buf.write(t(5) + "</TABLE>" + c_LF);
-	buf.write(t(4) + "</TD>" + c_LF);
-	buf.write(t(3) + "</TR>" + c_LF);
+	buf.write(c_BAR_END);
     }
 
     /**
@@ -546,7 +768,7 @@ public class HtmlGen {
      * @param buf
      *            The buffer to append to.
      */
-    protected void generateTestCaseSpreadInfo(BufferedWriter buf,
+    protected void generateTestCaseSpreadInfo(HtmlWriter buf,
 	    boolean isModule) throws IOException {
 	buf.write("<a name=\"spread\"/><H3 class=\"title\">Test case verdict spread in this ");
 	if (isModule) {
@@ -565,7 +787,7 @@ public class HtmlGen {
      * 
      * @param buf The buffer to append to.
      */
-    protected void generateTestCaseSpreadHeader(BufferedWriter buf) throws IOException {
+    protected void generateTestCaseSpreadHeader(HtmlWriter buf) throws IOException {
 
 	buf.write(t(3) + "<TR>" + c_LF);
 	buf.write(t(4)
@@ -599,36 +821,30 @@ public class HtmlGen {
      * @param buf The buffer to append to. @param tcs The test case summary
      * where to get the information and spread.
      */
-    protected void generateTestCaseSpreadItem(BufferedWriter buf,
+    protected void generateTestCaseSpreadItem(HtmlWriter buf,
 	    TestCaseSummary tcs) throws IOException {
-	buf.write(t(3) + "<TR>" + c_LF);
-	buf.write(t(4) + "<TD class=\"graphItemLeft\" width=\"2*\" NOWRAP>"
-		+ tcs.getTestCaseName() + "</TD>" + c_LF);
-	buf.write(t(4)
-		+ "<TD class=\"graphPercent\" align=\"center\" width=\"1*\">"
-		+ tcs.getNoRuns() + "</TD>" + c_LF);
-	buf.write(t(4)
-		+ "<TD class=\"graphPercent\" align=\"center\" width=\"1*\">"
-		+ tcs.getNoPassed() + "</TD>" + c_LF);
-	buf.write(t(4)
-		+ "<TD class=\"graphPercent\" align=\"center\" width=\"1*\">"
-		+ tcs.getNoErrors() + "</TD>" + c_LF);
-	buf.write(t(4)
-		+ "<TD class=\"graphPercent\" align=\"center\" width=\"1*\">"
-		+ tcs.getNoFailures() + "</TD>" + c_LF);
-	buf.write(t(4)
-		+ "<TD class=\"graphPercent\" align=\"center\" width=\"1*\">"
-		+ tcs.getNoIgnored() + "</TD>" + c_LF);
-	buf.write(t(4) + "<TD class=\"graphBar\" width=\"40*\">" + c_LF);
-	buf.write(t(5) + "<TABLE class=\"barGraph\" cellspacing=\"0\">" + c_LF);
-	buf.write(t(6) + "<TBODY>" + c_LF);
-	buf.write(t(7) + "<TR>" + c_LF);
+	generateTestCaseSpreadItem(buf, tcs, tcs.getTestCaseName());
+    }
+
+    /*
+     * Generates a row in a test case spread list.
+     * 
+     * @param buf The buffer to append to. @param tcs The test case summary
+     * where to get the information and spread. @param name The name to
+     * display.
+     */
+    protected void generateTestCaseSpreadItem(HtmlWriter buf,
+	    TestCaseSummary tcs, String name) throws IOException {
+	buf.write(c_ROW_START);
+	generateCell(buf, c_SPREAD_NAME_CELL, name);
+	generateCell(buf, c_SPREAD_CELL, tcs.getNoRuns());
+	generateCell(buf, c_SPREAD_CELL, tcs.getNoPassed());
+	generateCell(buf, c_SPREAD_CELL, tcs.getNoErrors());
+	generateCell(buf, c_SPREAD_CELL, tcs.getNoFailures());
+	generateCell(buf, c_SPREAD_CELL, tcs.getNoIgnored());
+	buf.write(c_SPREAD_BAR_START);
 	generateSpreadBar(buf, tcs);
-	buf.write(t(7) + "</TR>" + c_LF);
-	buf.write(t(6) + "</TBODY>" + c_LF);
-	buf.write(t(5) + "</TABLE>" + c_LF);
-	buf.write(t(4) + "</TD>" + c_LF);
-	buf.write(t(3) + "</TR>" + c_LF);
+	buf.write(c_BAR_END);
     }
 
     /*
@@ -640,36 +856,436 @@ public class HtmlGen {
      * @param buf The buffer to append to. @param tcs The test case summary
      * where to get the spread.
      */
-    protected void generateSpreadBar(BufferedWriter buf, TestCaseSummary tcs)
+    protected void generateSpreadBar(HtmlWriter buf, TestCaseSummary tcs)
 	    throws IOException {
+	if (isSpreadStrip()) {
+	    generateSpreadStrip(buf, tcs);
+	    return;
+	}
 
-	String cssClass = "";
+	HtmlWriter.Fragment cell = c_NORUN_SPREAD;
 	int noRuns = th.getNoRuns();
 	for (int i = 1; i <= noRuns; i++) {
 	    TestCaseVerdict tcv = tcs.getSpreadAt(i);
 	    if (null == tcv) {
-		cssClass = "norun";
+		cell = c_NORUN_SPREAD;
 	    } else if (TestCaseVerdict.e_PASS == tcv) {
-		cssClass = "pass";
+		cell = c_PASS_SPREAD;
 	    } else if (TestCaseVerdict.e_FAIL == tcv) {
-		cssClass = "fail";
+		cell = c_FAIL_SPREAD;
 	    } else if (TestCaseVerdict.e_ERROR == tcv) {
-		cssClass = "error";
+		cell = c_ERROR_SPREAD;
 	    } else if (TestCaseVerdict.e_IGNORED == tcv) {
-		cssClass = "ignored";
+		cell = c_IGNORED_SPREAD;
+	    }
+
+	    String link = getReportPath(th.getTestRunByIdx(i));
+	    buf.write(cell);
+	    if (0 != link.length()) {
+		buf.write(c_LINK_START);
+		buf.write(link);
+		buf.write(c_LINK_MID);
+	    }
+	    buf.write(c_SPREAD_IMG_START);
+	    buf.writeNumber(i);
+	    buf.write(spreadImgEnd);
+	    if (0 != link.length()) {
+		buf.write(c_LINK_END);
+	    }
+	    buf.write(c_CELL_END);
+	}
+    }
+
+    /*
+     * Checks if the spreads are drawn as strips, set by the
+     * unitth.spread.mode property.
+     * 
+     * @return True for strips, false for one table cell per run.
+     */
+    protected boolean isSpreadStrip() {
+	return "strip".equalsIgnoreCase(UnitTH.spreadMode);
+    }
+
+    /*
+     * Generates the spread of a test case as one SVG strip in a single cell.
+     * Runs in a row with the same verdict are drawn as one rectangle, so the
+     * size of the strip depends on the number of verdict changes and not on
+     * the number of runs. A click on the strip is mapped to the report of the
+     * run through the run link table written by
+     * {@link #generateSpreadRunLinks(HtmlWriter)}.
+     * 
+     * @param buf The buffer to append to. @param tcs The test case summary
+     * where to get the spread.
+     */
+    protected void generateSpreadStrip(HtmlWriter buf, TestCaseSummary tcs)
+	    throws IOException {
+	int noRuns = th.getNoRuns();
+	buf.write(c_STRIP_START);
+	buf.writeNumber(noRuns * SPREAD_WIDTH);
+	buf.write(stripMid);
+	int start = 1;
+	HtmlWriter.Fragment rect = getStripRect(tcs.getSpreadAt(1));
+	for (int i = 2; i <= noRuns + 1; i++) {
+	    HtmlWriter.Fragment next = i <= noRuns ? getStripRect(tcs
+		    .getSpreadAt(i)) : null;
+	    if (next != rect) {
+		buf.write(rect);
+		buf.writeNumber((start - 1) * SPREAD_WIDTH);
+		buf.write(c_RECT_WIDTH);
+		buf.writeNumber((i - start) * SPREAD_WIDTH);
+		buf.write(rectEnd);
+		rect = next;
+		start = i;
+	    }
+	}
+	buf.write(c_STRIP_END);
+    }
+
+    private HtmlWriter.Fragment getStripRect(TestCaseVerdict tcv) {
+	if (TestCaseVerdict.e_PASS == tcv) {
+	    return c_PASS_RECT;
+	} else if (TestCaseVerdict.e_FAIL == tcv) {
+	    return c_FAIL_RECT;
+	} else if (TestCaseVerdict.e_ERROR == tcv) {
+	    return c_ERROR_RECT;
+	} else if (TestCaseVerdict.e_IGNORED == tcv) {
+	    return c_IGNORED_RECT;
+	}
+	return c_NORUN_RECT;
+    }
+
+    /*
+     * Generates the run link table used by the spread strips and the JSON
+     * spread tables on a page, one link per run with an empty link for runs
+     * without a report. Nothing is written when it is not used.
+     * 
+     * @param buf The buffer to append to.
+     */
+    protected void generateSpreadRunLinks(HtmlWriter buf) throws IOException {
+	if (!isSpreadStrip() && !isJsonTables()) {
+	    return;
+	}
+	buf.write(t(1) + "<script type=\"text/javascript\">" + c_LF);
+	buf.write(t(2) + "var spreadRunLinks = [");
+	int noRuns = th.getNoRuns();
+	for (int i = 1; i <= noRuns; i++) {
+	    if (1 < i) {
+		buf.write(',');
+	    }
+	    writeJsString(buf, getReportPath(th.getTestRunByIdx(i)));
+	}
+	buf.write("];" + c_LF);
+	buf.write(t(2) + "function openSpreadRun(evt, runWidth) {" + c_LF);
+	buf.write(t(3) + "var box = evt.currentTarget.getBoundingClientRect();" + c_LF);
+	buf.write(t(3) + "var link = spreadRunLinks[Math.floor((evt.clientX - box.left) / runWidth)];" + c_LF);
+	buf.write(t(3) + "if (link) {" + c_LF);
+	buf.write(t(4) + "window.location.href = link;" + c_LF);
+	buf.write(t(3) + "}" + c_LF);
+	buf.write(t(2) + "}" + c_LF);
+	buf.write(t(1) + "</script>" + c_LF);
+    }
+
+    /*
+     * Writes a string as a JavaScript string literal that can be placed in a
+     * script tag.
+     * 
+     * @param buf The buffer to append to. @param s The string.
+     */
+    protected void writeJsString(HtmlWriter buf, String s) throws IOException {
+	buf.write('"');
+	for (int i = 0; i < s.length(); i++) {
+	    char c = s.charAt(i);
+	    if ('"' == c || '\\' == c) {
+		buf.write('\\');
+		buf.write(c);
+	    } else if ('<' == c) {
+		buf.write("\\x3c");
+	    } else if (c < 0x20 || '\u2028' == c || '\u2029' == c) {
+		buf.write(' ');
+	    } else {
+		buf.write(c);
 	    }
+	}
+	buf.write('"');
+    }
+
+    /*
+     * Checks if the large tables are written as JSON data for the table
+     * viewer, set by the unitth.table.mode property.
+     * 
+     * @return True for JSON data, false for HTML tables.
+     */
+    protected boolean isJsonTables() {
+	return "json".equalsIgnoreCase(UnitTH.tableMode);
+    }
 
-	    buf.write(t(4));
-	    buf.write(t(4));
-	    buf.write("<TD class=\""
-		    + cssClass
-		    + "\" align=\"center\">"
-		    + getHtmlReportLink(th.getTestRunByIdx(i),
-			    "<img title=\"Run-" + i + "\" src=\"images/"
-				    + UnitTH.TRANS_IMAGE
-				    + "\" border=\"0\" width=\"" + SPREAD_WIDTH
-				    + "\" height=\"" + SPREAD_HEIGHT + "\">")
-		    + "</TD>" + c_LF);
+    /*
+     * Outputs the script tag of the table viewer in the page head when the
+     * tables are written as JSON data.
+     * 
+     * @param buf The buffer to append to.
+     */
+    protected void generateDataTableScript(HtmlWriter buf) throws IOException {
+	if (isJsonTables()) {
+	    buf.write(t(1) + "<script src=\"" + UnitTH.JS_DIR + "/"
+		    + UnitTH.DATA_TABLE_SCRIPT
+		    + "\" type=\"text/javascript\"></script>" + c_LF);
+	}
+    }
+
+    /*
+     * Creates the writer for the data chunks of a JSON table.
+     * 
+     * @param name The name of the table, unique in the report. @return The
+     * writer.
+     */
+    protected DataTableWriter createDataTable(String name) {
+	return new DataTableWriter(destDir + File.separator + UnitTH.DATA_DIR,
+		name, c_CHUNK_SIZE);
+    }
+
+    /*
+     * Generates the place holder of a JSON table on the page together with
+     * the call that lets the table viewer show it.
+     * 
+     * @param buf The buffer to append to. @param id The id of the table on
+     * the page. @param data The written data of the table. @param columns The
+     * columns of the table.
+     */
+    protected void generateDataTable(HtmlWriter buf, String id,
+	    DataTableWriter data, String columns) throws IOException {
+	buf.write(t(1) + "<div id=\"" + id + "\" class=\"dataTable\"></div>"
+		+ c_LF);
+	buf.write(t(1) + "<script type=\"text/javascript\">" + c_LF);
+	buf.write(t(2) + "UnitTHTable.create(\"" + id + "\", ");
+	writeJsString(buf, data.getName());
+	buf.write(", ");
+	buf.writeNumber(data.getNoRows());
+	buf.write(", ");
+	buf.writeNumber(data.getNoChunks());
+	buf.write(", ");
+	buf.writeNumber(data.getChunkSize());
+	buf.write(", " + columns + ");" + c_LF);
+	buf.write(t(1) + "</script>" + c_LF);
+    }
+
+    /*
+     * Generates a test case list as a JSON table.
+     * 
+     * @param buf The buffer to append to. @param name The name of the table.
+     * @param tcss The test cases. @param packageName The package the test
+     * case names are shown relative to, null for the plain test case names.
+     */
+    protected void generateTestCaseData(HtmlWriter buf, String name,
+	    List<TestCaseSummary> tcss, String packageName) throws IOException {
+	DataTableWriter data = createDataTable(name);
+	try {
+	    for (TestCaseSummary tcs : tcss) {
+		data.startRow();
+		data.add(null == packageName ? tcs.getTestCaseName() : tcs
+			.getClassPlusTestCaseName(packageName));
+		data.add(tcs.getNoRuns());
+		data.add(tcs.getNoPassed());
+		data.add(tcs.getNoErrors());
+		data.add(tcs.getNoFailures());
+		data.add(tcs.getNoIgnored());
+		data.add(tcs.getExecutionTime());
+		data.add(tcs.getPassPct());
+		data.endRow();
+	    }
+	} finally {
+	    data.close();
+	}
+	generateDataTable(buf, "testcase_data", data, c_TEST_CASE_COLUMNS);
+    }
+
+    /*
+     * Generates a test case spread list as a JSON table. The spread of a test
+     * case is one character per run: p, f, e, i or - for no run.
+     * 
+     * @param buf The buffer to append to. @param name The name of the table.
+     * @param tcss The test cases. @param packageName The package the test
+     * case names are shown relative to, null for the plain test case names.
+     */
+    protected void generateTestCaseSpreadData(HtmlWriter buf, String name,
+	    List<TestCaseSummary> tcss, String packageName) throws IOException {
+	int noRuns = th.getNoRuns();
+	char[] spread = new char[noRuns];
+	DataTableWriter data = createDataTable(name);
+	try {
+	    for (TestCaseSummary tcs : tcss) {
+		data.startRow();
+		data.add(null == packageName ? tcs.getTestCaseName() : tcs
+			.getClassPlusTestCaseName(packageName));
+		data.add(tcs.getNoRuns());
+		data.add(tcs.getNoPassed());
+		data.add(tcs.getNoErrors());
+		data.add(tcs.getNoFailures());
+		data.add(tcs.getNoIgnored());
+		for (int i = 1; i <= noRuns; i++) {
+		    spread[i - 1] = getVerdictChar(tcs.getSpreadAt(i));
+		}
+		data.add(spread, noRuns);
+		data.endRow();
+	    }
+	} finally {
+	    data.close();
+	}
+	generateDataTable(buf, "spread_data", data, c_SPREAD_COLUMNS);
+    }
+
+    private char getVerdictChar(TestCaseVerdict tcv) {
+	if (TestCaseVerdict.e_PASS == tcv) {
+	    return 'p';
+	} else if (TestCaseVerdict.e_FAIL == tcv) {
+	    return 'f';
+	} else if (TestCaseVerdict.e_ERROR == tcv) {
+	    return 'e';
+	} else if (TestCaseVerdict.e_IGNORED == tcv) {
+	    return 'i';
+	}
+	return '-';
+    }
+
+    /*
+     * Calculates the number of pages a list of test cases is split over, set
+     * by the unitth.page.rows property. The JSON tables are never split.
+     * 
+     * @param noRows The number of test cases. @return The number of pages.
+     */
+    protected int getNoPages(int noRows) {
+	if (isJsonTables() || 0 >= UnitTH.pageRows || noRows <= UnitTH.pageRows) {
+	    return 1;
+	}
+	return (noRows + UnitTH.pageRows - 1) / UnitTH.pageRows;
+    }
+
+    /*
+     * Gets the test cases listed on a page.
+     * 
+     * @param tcss All test cases. @param page The page, starting at 1.
+     * @param noPages The number of pages. @return The test cases of the page.
+     */
+    protected List<TestCaseSummary> getPageRows(List<TestCaseSummary> tcss,
+	    int page, int noPages) {
+	if (1 == noPages) {
+	    return tcss;
+	}
+	int from = (page - 1) * UnitTH.pageRows;
+	return tcss.subList(from, Math.min(tcss.size(), from
+		+ UnitTH.pageRows));
+    }
+
+    /*
+     * Gets the file name of a page, the first page has the name of the module
+     * or package page and the continuation pages are numbered.
+     * 
+     * @param prefix The file name prefix. @param name The module or package
+     * name. @param suffix The file name suffix. @param page The page, starting
+     * at 1. @return The file name.
+     */
+    protected String getPageFileName(String prefix, String name,
+	    String suffix, int page) {
+	if (1 == page) {
+	    return prefix + name + suffix;
+	}
+	return prefix + name + "-page" + page + suffix;
+    }
+
+    /*
+     * Outputs the title of a continuation page with a link back to the first
+     * page.
+     * 
+     * @param buf The buffer to append to. @param prefix The file name prefix.
+     * @param name The module or package name. @param suffix The file name
+     * suffix. @param page The page. @param noPages The number of pages.
+     */
+    protected void generatePageTitle(HtmlWriter buf, String prefix,
+	    String name, String suffix, int page, int noPages)
+	    throws IOException {
+	buf.write("<H2 class=\"title\"><a href=\"" + prefix + name + suffix
+		+ "\">" + name + "</a> - page " + page + " of " + noPages
+		+ "</H2>" + c_LF);
+    }
+
+    /*
+     * Outputs the links to the other pages of a split test case list. Nothing
+     * is written for a list on one page.
+     * 
+     * @param buf The buffer to append to. @param prefix The file name prefix.
+     * @param name The module or package name. @param suffix The file name
+     * suffix. @param anchor The anchor of the list on the pages. @param page
+     * The current page. @param noPages The number of pages.
+     */
+    protected void generatePageNavigation(HtmlWriter buf, String prefix,
+	    String name, String suffix, String anchor, int page, int noPages)
+	    throws IOException {
+	if (1 == noPages) {
+	    return;
+	}
+	buf.write(t(1) + "<DIV class=\"pageNav\">");
+	if (1 < page) {
+	    generatePageLink(buf, prefix, name, suffix, anchor, page - 1,
+		    "&lt;&nbsp;Previous");
+	    buf.write("&nbsp;&nbsp;");
+	}
+	for (int i = 1; i <= noPages; i++) {
+	    if (i == page) {
+		buf.write("<B>");
+		buf.writeNumber(i);
+		buf.write("</B>");
+	    } else {
+		generatePageLink(buf, prefix, name, suffix, anchor, i,
+			Integer.toString(i));
+	    }
+	    buf.write("&nbsp;");
+	}
+	if (page < noPages) {
+	    buf.write("&nbsp;");
+	    generatePageLink(buf, prefix, name, suffix, anchor, page + 1,
+		    "Next&nbsp;&gt;");
+	}
+	buf.write("</DIV>" + c_LF);
+    }
+
+    private void generatePageLink(HtmlWriter buf, String prefix, String name,
+	    String suffix, String anchor, int page, String text)
+	    throws IOException {
+	buf.write("<a href=\"");
+	buf.write(getPageFileName(prefix, name, suffix, page));
+	buf.write("#" + anchor + "\">" + text + "</a>");
+    }
+
+    /*
+     * Outputs a summary of the test cases listed on a page of a split test case
+     * list. Nothing is written for a list on one page.
+     * 
+     * @param buf The buffer to append to. @param pageRows The test cases of
+     * the page. @param page The page. @param noPages The number of pages.
+     * @param noRows The number of test cases on all pages.
+     */
+    protected void generatePageSummary(HtmlWriter buf,
+	    List<TestCaseSummary> pageRows, int page, int noPages, int noRows)
+	    throws IOException {
+	if (1 == noPages) {
+	    return;
+	}
+	int noPassed = 0;
+	int noErrors = 0;
+	int noFailures = 0;
+	int noIgnored = 0;
+	for (TestCaseSummary tcs : pageRows) {
+	    noPassed += tcs.getNoPassed();
+	    noErrors += tcs.getNoErrors();
+	    noFailures += tcs.getNoFailures();
+	    noIgnored += tcs.getNoIgnored();
 	}
+	int from = (page - 1) * UnitTH.pageRows + 1;
+	buf.write(t(1) + "<DIV class=\"pageSummary\">Page " + page + " of "
+		+ noPages + ", test cases " + from + "-"
+		+ (from + pageRows.size() - 1) + " of " + noRows
+		+ ". On this page: " + noPassed + " pass, " + noErrors
+		+ " error, " + noFailures + " fail, " + noIgnored
+		+ " ignored.</DIV>" + c_LF);
     }
 }
@@ -21,14 +21,15 @@
  */
 package unitth.html.junit;
 
-import java.io.BufferedWriter;
 import java.io.File;
 import java.io.IOException;
 import java.util.Collection;
 import java.util.Iterator;
 
 import unitth.core.UnitTH;
+import unitth.html.DataTableWriter;
 import unitth.html.HtmlGenUtils;
+import unitth.html.HtmlWriter;
 import unitth.junit.TestHistory;
 import unitth.junit.TestModuleSummary;
 import unitth.junit.TestPackageSummary;
@@ -42,6 +43,16 @@ import unitth.junit.TestRun;
  */
 public class HtmlMainGen extends HtmlGen {
 
+    private static final String c_MODULE_COLUMNS = "[{t:'Module name',k:'link',p:'th-module-',s:'.html'},"
+	    + "{t:'Runs',k:'num'},{t:'Unique Tests',k:'num'},{t:'Exec. Tests',k:'num'},"
+	    + "{t:'Pass',k:'num'},{t:'Error',k:'num'},{t:'Fail',k:'num'},"
+	    + "{t:'Ignored',k:'num'},{t:'Exec time',k:'num'},{t:'TOTAL',k:'pct'}]";
+    private static final String c_PACKAGE_COLUMNS = "[{t:'Package name',k:'link',p:'th-package-',s:'.html'},"
+	    + "{t:'Runs',k:'num'},{t:'Unique Test Modules',k:'num'},{t:'Unique Tests',k:'num'},"
+	    + "{t:'Exec. Tests',k:'num'},{t:'Pass',k:'num'},{t:'Error',k:'num'},"
+	    + "{t:'Fail',k:'num'},{t:'Ignored',k:'num'},{t:'Exec time',k:'num'},"
+	    + "{t:'TOTAL',k:'pct'}]";
+
     /**
      * CTOR, sets the history to generate and sets a few of the fixed paths.
      * 
@@ -64,9 +75,10 @@ public class HtmlMainGen extends HtmlGen {
      */
     protected void generateMainPage() {
 	String fileName = destDir + File.separator + HTML_MAIN_FRAME_FILE;
+	HtmlWriter bwout = null;
 	try {
 	    // Create the file to which to write
-	    BufferedWriter bwout = createFile(fileName);
+	    bwout = createFile(fileName);
 	    startPageMain(bwout, "Test History Main Frame");
 	    startBody(bwout);
 	    generateMainAnchors(bwout);
@@ -93,6 +105,10 @@ public class HtmlMainGen extends HtmlGen {
 			    + " Possible fix: check file system permissions."
 			    + " Possible fix: check available disk space.");
 	    e.printStackTrace();
+	} finally {
+	    if (null != bwout) {
+		closeFile(bwout);
+	    }
 	}
     }
 
@@ -103,7 +119,7 @@ public class HtmlMainGen extends HtmlGen {
      * @param out
      *            The buffer to append to.
      */
-    private void generateMainAnchors(BufferedWriter out) throws IOException {
+    private void generateMainAnchors(HtmlWriter out) throws IOException {
 	out.write("<TABLE class=\"mainAnchors\" width=\"100%\">" + c_LF);
 	out.write(t(1) + "<TR>" + c_LF);
 	out.write(t(2) + "<TD>");
@@ -121,7 +137,7 @@ public class HtmlMainGen extends HtmlGen {
      * 
      * @param buf The buffer to append the page contents to.
      */
-    private void generateMainRunSummary(BufferedWriter buf) throws IOException {
+    private void generateMainRunSummary(HtmlWriter buf) throws IOException {
 	buf.write(t(1) + "<TABLE class=\"topcontainer\" cellspacing=\"4\">"
 		+ c_LF);
 	buf.write(t(2) + "<TR>" + c_LF);
@@ -137,7 +153,8 @@ public class HtmlMainGen extends HtmlGen {
 		+ th.getNoRuns() + " </TD></TR>" + c_LF);
 	buf.write(t(5)
 		+ "<TR><TD class=\"summid\">&nbsp;Last&nbsp;run&nbsp;</TD><TD id=\"mainSmryLastRun\" class=\"summid\"> "
-		+ th.getLastRun() + " </TD></TR>" + c_LF);
+		+ HtmlGenUtils.timeStampToHtml(th.getLastRunTime(), th
+				.getLastRunTimeOffset()) + " </TD></TR>" + c_LF);
 	buf.write(t(5)
 		+ "<TR><TD class=\"summid\">&nbsp;Number&nbsp;of&nbsp;packages&nbsp;</TD><TD id=\"mainSmryNoPks\" class=\"summid\"> "
 		+ th.getNoPackages() + " </TD></TR>" + c_LF);
@@ -327,7 +344,7 @@ public class HtmlMainGen extends HtmlGen {
      * 
      * @param buf The buffer to append to.
      */
-    private void generateMainRunInfo(BufferedWriter buf) throws IOException {
+    private void generateMainRunInfo(HtmlWriter buf) throws IOException {
 	buf.write("<a name=\"runs\"/><H3 class=\"title\">Runs</H3>" + c_LF);
 	buf.write("For individual runs and if regular HTML test reports have been generated click on the run for it to open."
 		+ c_LF);
@@ -340,7 +357,7 @@ public class HtmlMainGen extends HtmlGen {
      * 
      * @param buf The buffer to append to.
      */
-    private void generateMainModuleInfo(BufferedWriter buf) throws IOException {
+    private void generateMainModuleInfo(HtmlWriter buf) throws IOException {
 	buf.write("<a name=\"modules\"/><H3 class=\"title\">Test modules</H3>"
 		+ c_LF);
 	buf.write("This list shows the average pass rate for test objects/modules."
@@ -354,7 +371,7 @@ public class HtmlMainGen extends HtmlGen {
      * 
      * @param buf The buffer to append to.
      */
-    private void generateMainPackageInfo(BufferedWriter buf) throws IOException {
+    private void generateMainPackageInfo(HtmlWriter buf) throws IOException {
         buf.write("<a name=\"packages\"/><H3 class=\"title\">Test packages</H3>" + c_LF);
         buf.write("This list shows the statistics and average pass rate for test packages. The stats are recursive including statistics from sub packages."
                 + " For individual package executions click on the package name. Only test cases that have been executed are counted, ignored test cases and classes are not counted.<br/><br/>"
@@ -366,7 +383,7 @@ public class HtmlMainGen extends HtmlGen {
      * 
      * @param buf The buffer to append to.
      */
-    private void generateMainRunList(BufferedWriter buf) throws IOException {
+    private void generateMainRunList(HtmlWriter buf) throws IOException {
 	buf.write(t(1)
 		+ "<TABLE id='run_table' class=\"sortable\" cellspacing=\"0\" cellpadding=\"2\">"
 		+ c_LF);
@@ -384,7 +401,7 @@ public class HtmlMainGen extends HtmlGen {
      * 
      * @param buf The buffer to append to.
      */
-    private void generateMainRunHeader(BufferedWriter buf, boolean isMainRunList)
+    private void generateMainRunHeader(HtmlWriter buf, boolean isMainRunList)
 	    throws IOException {
 
 	buf.write(t(3) + "<TR>" + c_LF);
@@ -432,7 +449,7 @@ public class HtmlMainGen extends HtmlGen {
      * 
      * @param buf The buffer to append to.
      */
-    private void generateMainRunItems(BufferedWriter buf) throws IOException {
+    private void generateMainRunItems(HtmlWriter buf) throws IOException {
 	int idx = th.getNoRuns();
 	for (TestRun tr : th.getRuns()) {
 	    generateMainRunItem(buf, tr, idx--);
@@ -445,46 +462,26 @@ public class HtmlMainGen extends HtmlGen {
      * @param buf The buffer to append to. @param tr The test run to generate
      * information for. @param idx The index of the test run.
      */
-    private void generateMainRunItem(BufferedWriter buf, TestRun tr, int idx)
+    private void generateMainRunItem(HtmlWriter buf, TestRun tr, int idx)
 	    throws IOException {
 
 	String idxStr = HtmlGenUtils.calculateRunIdxString(th.getNoRuns(), idx);
 
-	String runName = getHtmlReportLink(tr, "Run-" + idxStr);
-	buf.write(t(3) + "<TR>" + c_LF);
-	buf.write(t(4) + "<TD class=\"graphItemLeft\" NOWRAP>" + runName
-		+ "</TD>" + c_LF);
-	buf.write(t(4) + "<TD class=\"graphItem\" NOWRAP>" + tr.getChosenPath()
-		+ "</TD>" + c_LF);
-	buf.write(t(4) + "<TD class=\"graphPercent\" align=\"center\">"
-		+ tr.getNoTestCases() + "</TD>" + c_LF);
-	buf.write(t(4) + "<TD class=\"graphPercent\" align=\"center\">"
-		+ tr.getNoPassed() + "</TD>" + c_LF);
-	buf.write(t(4) + "<TD class=\"graphPercent\" align=\"center\">"
-		+ tr.getNoErrors() + "</TD>" + c_LF);
-	buf.write(t(4) + "<TD class=\"graphPercent\" align=\"center\">"
-		+ tr.getNoFailures() + "</TD>" + c_LF);
-	buf.write(t(4) + "<TD class=\"graphPercent\" align=\"center\">"
-		+ tr.getNoIgnored() + "</TD>" + c_LF);
-	buf.write(t(4) + "<TD class=\"graphPercent\" align=\"center\" NOWRAP>"
-		+ tr.getExecutionDate() + "</TD>" + c_LF);
-	buf.write(t(4) + "<TD class=\"graphPercent\" align=\"center\">"
-		+ tr.getExecutionTime() + "</TD>" + c_LF);
-	buf.write(t(4) + "<TD class=\"graphBarLeft\" align=\"right\">"
-		+ tr.getPassPct() + "%</TD>" + c_LF);
-
-	buf.write(t(4) + "<TD class=\"graphBar\">" + c_LF);
-
-	buf.write(t(5) + "<TABLE class=\"barGraph\" cellspacing=\"0\">" + c_LF);
-	buf.write(t(6) + "<TBODY>" + c_LF);
-	buf.write(t(7) + "<TR class=\"bar\">" + c_LF);
+	buf.write(c_ROW_START);
+	generateRunLinkCell(buf, tr, idxStr);
+	generateCell(buf, c_PATH_CELL, tr.getChosenPath());
+	generateCell(buf, c_CELL, tr.getNoTestCases());
+	generateCell(buf, c_CELL, tr.getNoPassed());
+	generateCell(buf, c_CELL, tr.getNoErrors());
+	generateCell(buf, c_CELL, tr.getNoFailures());
+	generateCell(buf, c_CELL, tr.getNoIgnored());
+	generateCell(buf, c_NOWRAP_CELL, HtmlGenUtils.timeStampToHtml(
+		tr.getRunTime(), tr.getRunTimeOffset()));
+	generateCell(buf, c_CELL, tr.getExecutionTime());
+	generatePctCell(buf, tr.getPassPct());
+	buf.write(c_CLASSED_BAR_START);
 	generatePctBar(buf, tr.getPassPctDouble());
-	buf.write(t(7) + "</TR>" + c_LF);
-	buf.write(t(6) + "</TBODY>" + c_LF);
-	buf.write(t(5) + "</TABLE>" + c_LF);
-
-	buf.write(t(4) + "</TD>" + c_LF);
-	buf.write(t(3) + "</TR>" + c_LF);
+	buf.write(c_BAR_END);
     }
 
     /*
@@ -492,7 +489,11 @@ public class HtmlMainGen extends HtmlGen {
      * 
      * @param buf The buffer to append to.
      */
-    private void generateMainModuleList(BufferedWriter buf) throws IOException {
+    private void generateMainModuleList(HtmlWriter buf) throws IOException {
+	if (isJsonTables()) {
+	    generateMainModuleData(buf);
+	    return;
+	}
 	buf.write(t(1)
 		+ "<TABLE id='module_table' class=\"sortable\" cellspacing=\"0\" cellpadding=\"2\">"
 		+ c_LF);
@@ -510,7 +511,11 @@ public class HtmlMainGen extends HtmlGen {
      * 
      * @param buf The buffer to append to.
      */
-    private void generateMainPackageList(BufferedWriter buf) throws IOException {
+    private void generateMainPackageList(HtmlWriter buf) throws IOException {
+	if (isJsonTables()) {
+	    generateMainPackageData(buf);
+	    return;
+	}
 	buf.write(t(1)
 		+ "<TABLE id='package_table' class=\"sortable\" cellspacing=\"0\" cellpadding=\"2\">"
 		+ c_LF);
@@ -528,7 +533,7 @@ public class HtmlMainGen extends HtmlGen {
      * 
      * @param buf The buffer to append to.
      */
-    private void generateMainModuleHeader(BufferedWriter buf)
+    private void generateMainModuleHeader(HtmlWriter buf)
 	    throws IOException {
 
 	buf.write(t(3) + "<TR>" + c_LF);
@@ -570,7 +575,7 @@ public class HtmlMainGen extends HtmlGen {
      * 
      * @param buf The buffer to append to.
      */
-    private void generateMainPackageHeader(BufferedWriter buf)
+    private void generateMainPackageHeader(HtmlWriter buf)
 	    throws IOException {
 
 	buf.write(t(3) + "<TR>" + c_LF);
@@ -615,7 +620,7 @@ public class HtmlMainGen extends HtmlGen {
      * 
      * @param buf The buffer to append to.
      */
-    private void generateMainModuleItems(BufferedWriter buf) throws IOException {
+    private void generateMainModuleItems(HtmlWriter buf) throws IOException {
 	Collection<TestModuleSummary> c = th.getTestModuleSummaries().values();
 	Iterator<TestModuleSummary> iter = c.iterator();
 	while (iter.hasNext()) {
@@ -631,7 +636,7 @@ public class HtmlMainGen extends HtmlGen {
      * 
      * @param buf The buffer to append to.
      */
-    private void generateMainPackageItems(BufferedWriter buf)
+    private void generateMainPackageItems(HtmlWriter buf)
 	    throws IOException {
 
 	Collection<TestPackageSummary> c = th.getTestPackageSummaries()
@@ -652,49 +657,23 @@ public class HtmlMainGen extends HtmlGen {
      * @param buf The buffer to append to. @param tm The test module summary
      * where to retrieve all information.
      */
-    private void generateMainModuleItem(BufferedWriter buf,
+    private void generateMainModuleItem(HtmlWriter buf,
 	    TestModuleSummary tms) throws IOException {
-
-	// Create the link to the module run page
-	String clickableLinkFileName = HTMLMODULEOUTPUTFILE_PREFIX
-		+ tms.getName() + HTMLMODULEOUTPUTFILE_SUFFIX;
-	String link = "<a href=\"" + clickableLinkFileName + "\">"
-		+ tms.getName() + "</a>";
-
-	// String pathToReport
-	buf.write(t(3) + "<TR>" + c_LF);
-	buf.write(t(4) + "<TD class=\"graphItemLeft\" NOWRAP>" + link + "</TD>"
-		+ c_LF);
-	buf.write(t(4) + "<TD class=\"graphPercent\" align=\"center\">"
-		+ tms.getNoRuns() + "</TD>" + c_LF);
-	buf.write(t(4) + "<TD class=\"graphPercent\" align=\"center\">"
-		+ tms.getNoUniqueTestCases() + "</TD>" + c_LF);
-	buf.write(t(4) + "<TD class=\"graphPercent\" align=\"center\">"
-		+ tms.getNoTestCases() + "</TD>" + c_LF);
-	buf.write(t(4) + "<TD class=\"graphPercent\" align=\"center\">"
-		+ tms.getNoPassed() + "</TD>" + c_LF);
-	buf.write(t(4) + "<TD class=\"graphPercent\" align=\"center\">"
-		+ tms.getNoErrors() + "</TD>" + c_LF);
-	buf.write(t(4) + "<TD class=\"graphPercent\" align=\"center\">"
-		+ tms.getNoFailures() + "</TD>" + c_LF);
-	buf.write(t(4) + "<TD class=\"graphPercent\" align=\"center\">"
-		+ tms.getNoIgnored() + "</TD>" + c_LF);
-	buf.write(t(4) + "<TD class=\"graphPercent\" align=\"left\">"
-		+ tms.getExecutionTime() + "</TD>" + c_LF);
-	buf.write(t(4) + "<TD class=\"graphBarLeft\" align=\"right\">"
-		+ tms.getPassPct() + "%</TD>" + c_LF);
-
-	buf.write(t(4) + "<TD class=\"graphBar\">" + c_LF);
-	buf.write(t(5) + "<TABLE class=\"barGraph\" cellspacing=\"0\">" + c_LF);
-	buf.write(t(6) + "<TBODY>" + c_LF);
-
-	buf.write(t(7) + "<TR class=\"bar\">" + c_LF);
+	buf.write(c_ROW_START);
+	generatePageLinkCell(buf, HTMLMODULEOUTPUTFILE_PREFIX, tms.getName(),
+		HTMLMODULEOUTPUTFILE_SUFFIX);
+	generateCell(buf, c_CELL, tms.getNoRuns());
+	generateCell(buf, c_CELL, tms.getNoUniqueTestCases());
+	generateCell(buf, c_CELL, tms.getNoTestCases());
+	generateCell(buf, c_CELL, tms.getNoPassed());
+	generateCell(buf, c_CELL, tms.getNoErrors());
+	generateCell(buf, c_CELL, tms.getNoFailures());
+	generateCell(buf, c_CELL, tms.getNoIgnored());
+	generateCell(buf, c_LEFT_CELL, tms.getExecutionTime());
+	generatePctCell(buf, tms.getPassPct());
+	buf.write(c_CLASSED_BAR_START);
 	generatePctBar(buf, tms.getPassPctDouble());
-	buf.write(t(7) + "</TR>" + c_LF);
-	buf.write(t(6) + "</TBODY>" + c_LF);
-	buf.write(t(5) + "</TABLE>" + c_LF);
-	buf.write(t(4) + "</TD>" + c_LF);
-	buf.write(t(3) + "</TR>" + c_LF);
+	buf.write(c_BAR_END);
     }
 
     /*
@@ -704,7 +683,7 @@ public class HtmlMainGen extends HtmlGen {
      * 
      * @param buf The buffer to append to.
      */
-    private void generateMainModuleTotals(BufferedWriter buf)
+    private void generateMainModuleTotals(HtmlWriter buf)
 	    throws IOException {
 	buf.write("<a name=\"totals\"/><H3 class=\"title\">Test module execution totals</H3>"
 		+ c_LF);
@@ -759,7 +738,7 @@ public class HtmlMainGen extends HtmlGen {
      * @param buf The buffer to append to. @param pageTitle The title name for
      * this page.
      */
-    protected void startPageMain(BufferedWriter buf, String pageTitle)
+    protected void startPageMain(HtmlWriter buf, String pageTitle)
 	    throws IOException {
 	buf.write("<!DOCTYPE html PUBLIC \"-//W3C//DTD XHTML 1.0 Transitional//EN\" \"http://www.w3.org/TR/xhtml1/DTD/xhtml1-transitional.dtd\">"
 		+ c_LF);
@@ -779,6 +758,7 @@ public class HtmlMainGen extends HtmlGen {
 	buf.write(t(1) + "<script src=\"" + UnitTH.JS_DIR + "/"
 		+ UnitTH.SORT_SCRIPT + "\" type=\"text/javascript\"></script>"
 		+ c_LF);
+	generateDataTableScript(buf);
 	buf.write(t(1) + "<script type=\"text/javascript\">" + c_LF);
 	buf.write(t(2) + "function sortTables() {" + c_LF);
 	buf.write(t(3) + "var runTable = new TableSort;" + c_LF);
@@ -794,50 +774,86 @@ public class HtmlMainGen extends HtmlGen {
 	buf.write("</head>" + c_LF);
     }
 
-    private void generateMainPackageItem(BufferedWriter buf,
+    private void generateMainPackageItem(HtmlWriter buf,
 	    TestPackageSummary tps) throws IOException {
+	buf.write(c_ROW_START);
+	generatePageLinkCell(buf, HTMLPACKAGEOUTPUTFILE_PREFIX, tps.getName(),
+		HTMLPACKAGEOUTPUTFILE_SUFFIX);
+	generateCell(buf, c_CELL, tps.getNoRuns());
+	generateCell(buf, c_CELL, tps.getNoUniqueTestModules());
+	generateCell(buf, c_CELL, tps.getNoUniqueTestCases());
+	generateCell(buf, c_CELL, tps.getNoTestCases());
+	generateCell(buf, c_CELL, tps.getNoPassed());
+	generateCell(buf, c_CELL, tps.getNoErrors());
+	generateCell(buf, c_CELL, tps.getNoFailures());
+	generateCell(buf, c_CELL, tps.getNoIgnored());
+	generateCell(buf, c_LEFT_CELL, tps.getExecutionTime());
+	generatePctCell(buf, tps.getPassPct());
+	buf.write(c_CLASSED_BAR_START);
+	generatePctBar(buf, tps.getPassPctDouble());
+	buf.write(c_BAR_END);
+    }
 
-	// Create the link to the module run page
-	String clickableLinkFileName = HTMLPACKAGEOUTPUTFILE_PREFIX
-		+ tps.getName() + HTMLPACKAGEOUTPUTFILE_SUFFIX;
-	String link = "<a href=\"" + clickableLinkFileName + "\">"
-		+ tps.getName() + "</a>";
-
-	// String pathToReport
-	buf.write(t(3) + "<TR>" + c_LF);
-	buf.write(t(4) + "<TD class=\"graphItemLeft\" NOWRAP>" + link + "</TD>"
-		+ c_LF);
-	buf.write(t(4) + "<TD class=\"graphPercent\" align=\"center\">"
-		+ tps.getNoRuns() + "</TD>" + c_LF);
-	buf.write(t(4) + "<TD class=\"graphPercent\" align=\"center\">"
-		+ tps.getNoUniqueTestModules() + "</TD>" + c_LF);
-	buf.write(t(4) + "<TD class=\"graphPercent\" align=\"center\">"
-		+ tps.getNoUniqueTestCases() + "</TD>" + c_LF);
-	buf.write(t(4) + "<TD class=\"graphPercent\" align=\"center\">"
-		+ tps.getNoTestCases() + "</TD>" + c_LF);
-	buf.write(t(4) + "<TD class=\"graphPercent\" align=\"center\">"
-		+ tps.getNoPassed() + "</TD>" + c_LF);
-	buf.write(t(4) + "<TD class=\"graphPercent\" align=\"center\">"
-		+ tps.getNoErrors() + "</TD>" + c_LF);
-	buf.write(t(4) + "<TD class=\"graphPercent\" align=\"center\">"
-		+ tps.getNoFailures() + "</TD>" + c_LF);
-	buf.write(t(4) + "<TD class=\"graphPercent\" align=\"center\">"
-		+ tps.getNoIgnored() + "</TD>" + c_LF);
-	buf.write(t(4) + "<TD class=\"graphPercent\" align=\"left\">"
-		+ tps.getExecutionTime() + "</TD>" + c_LF);
-	buf.write(t(4) + "<TD class=\"graphBarLeft\" align=\"right\">"
-		+ tps.getPassPct() + "%</TD>" + c_LF);
-
-	buf.write(t(4) + "<TD class=\"graphBar\">" + c_LF);
-	buf.write(t(5) + "<TABLE class=\"barGraph\" cellspacing=\"0\">" + c_LF);
-	buf.write(t(6) + "<TBODY>" + c_LF);
+    /*
+     * Generates the list of executed test modules as a JSON table.
+     * 
+     * @param buf The buffer to append to.
+     */
+    private void generateMainModuleData(HtmlWriter buf) throws IOException {
+	DataTableWriter data = createDataTable("main-modules");
+	try {
+	    for (TestModuleSummary tms : th.getTestModuleSummaries().values()) {
+		if (null == tms) {
+		    continue;
+		}
+		data.startRow();
+		data.add(tms.getName());
+		data.add(tms.getNoRuns());
+		data.add(tms.getNoUniqueTestCases());
+		data.add(tms.getNoTestCases());
+		data.add(tms.getNoPassed());
+		data.add(tms.getNoErrors());
+		data.add(tms.getNoFailures());
+		data.add(tms.getNoIgnored());
+		data.add(tms.getExecutionTime());
+		data.add(tms.getPassPct());
+		data.endRow();
+	    }
+	} finally {
+	    data.close();
+	}
+	generateDataTable(buf, "module_data", data, c_MODULE_COLUMNS);
+    }
 
-	buf.write(t(7) + "<TR class=\"bar\">" + c_LF);
-	generatePctBar(buf, tps.getPassPctDouble());
-	buf.write(t(7) + "</TR>" + c_LF);
-	buf.write(t(6) + "</TBODY>" + c_LF);
-	buf.write(t(5) + "</TABLE>" + c_LF);
-	buf.write(t(4) + "</TD>" + c_LF);
-	buf.write(t(3) + "</TR>" + c_LF);
+    /*
+     * Generates the list of executed packages as a JSON table.
+     * 
+     * @param buf The buffer to append to.
+     */
+    private void generateMainPackageData(HtmlWriter buf) throws IOException {
+	DataTableWriter data = createDataTable("main-packages");
+	try {
+	    for (TestPackageSummary tps : th.getTestPackageSummaries().values()) {
+		if (null == tps) {
+		    continue;
+		}
+		data.startRow();
+		data.add(tps.getName());
+		data.add(tps.getNoRuns());
+		data.add(tps.getNoUniqueTestModules());
+		data.add(tps.getNoUniqueTestCases());
+		data.add(tps.getNoTestCases());
+		data.add(tps.getNoPassed());
+		data.add(tps.getNoErrors());
+		data.add(tps.getNoFailures());
+		data.add(tps.getNoIgnored());
+		data.add(tps.getExecutionTime());
+		data.add(tps.getPassPct());
+		data.endRow();
+	    }
+	} finally {
+	    data.close();
+	}
+	generateDataTable(buf, "package_data", data, c_PACKAGE_COLUMNS);
     }
 }
@@ -21,14 +21,15 @@
  */
 package unitth.html.junit;
 
-import java.io.BufferedWriter;
 import java.io.File;
 import java.io.IOException;
-import java.util.Collection;
-import java.util.Iterator;
+import java.util.ArrayList;
+import java.util.List;
 
+import unitth.core.RenderPool;
 import unitth.core.UnitTH;
 import unitth.html.HtmlGenUtils;
+import unitth.html.HtmlWriter;
 import unitth.junit.TestCaseSummary;
 import unitth.junit.TestHistory;
 import unitth.junit.TestModule;
@@ -63,9 +64,16 @@ public class HtmlModuleGen extends HtmlGen {
      */
     protected void generateModuleRunPages() {
 	Object[] moduleNames = th.getUniqueModules();
+	ArrayList<Runnable> pages = new ArrayList<Runnable>();
 	for (Object moduleName : moduleNames) {
-	    generateModuleRunPage((String) moduleName);
+	    final String name = (String) moduleName;
+	    pages.add(new Runnable() {
+		public void run() {
+		    generateModuleRunPage(name);
+		}
+	    });
 	}
+	new RenderPool(UnitTH.renderThreads, "a module page").run(pages);
     }
 
     /**
@@ -75,7 +83,7 @@ public class HtmlModuleGen extends HtmlGen {
      * @param out
      *            The buffer to append to.
      */
-    private void generateModuleAnchors(BufferedWriter out) throws IOException {
+    private void generateModuleAnchors(HtmlWriter out) throws IOException {
 	out.append("<TABLE class=\"mainAnchors\" width=\"100%\">" + c_LF);
 	out.append(t(1) + "<TR>" + c_LF);
 	out.append(t(2) + "<TD>");
@@ -93,12 +101,15 @@ public class HtmlModuleGen extends HtmlGen {
      * @param moduleName The name of the module for the page to be generated.
      */
     private void generateModuleRunPage(String moduleName) {
+	List<TestCaseSummary> tcss = th.getModuleTestCaseSummaries(moduleName);
+	int noPages = getNoPages(tcss.size());
 	String fileName = destDir + File.separator
 		+ HTMLMODULEOUTPUTFILE_PREFIX + moduleName
 		+ HTMLMODULEOUTPUTFILE_SUFFIX;
+	HtmlWriter out = null;
 	try {
 	    // Create the file to which to write
-	    BufferedWriter out = createFile(fileName);
+	    out = createFile(fileName);
 	    startPageModule(out, "UnitTH - " + moduleName);
 	    startBody(out);
 	    generateModuleAnchors(out);
@@ -108,9 +119,9 @@ public class HtmlModuleGen extends HtmlGen {
 	    generateModuleModuleInfo(out);
 	    generateModuleModuleList(out, moduleName);
 	    generateModuleTestCaseInfo(out);
-	    generateModuleTestCaseList(out, moduleName);
+	    generateModuleTestCaseList(out, moduleName, tcss, 1, noPages);
 	    generateModuleTestCaseSpreadInfo(out);
-	    generateModuleTestCaseSpreadList(out, moduleName);
+	    generateModuleTestCaseSpreadList(out, moduleName, tcss, 1, noPages);
 	    out.append("</TD></TR></TABLE>" + c_LF);
 	    endBody(out);
 	    endPage(out);
@@ -121,6 +132,56 @@ public class HtmlModuleGen extends HtmlGen {
 			    + " Possible fix: check file system permissions."
 			    + " Possible fix: check available disk space.");
 	    e.printStackTrace();
+	} finally {
+	    if (null != out) {
+		closeFile(out);
+	    }
+	}
+	for (int page = 2; page <= noPages; page++) {
+	    generateModuleContinuationPage(moduleName, tcss, page, noPages);
+	}
+    }
+
+    /*
+     * Generates a continuation page of a module history page, listing the
+     * test cases and spreads that did not fit on the earlier pages.
+     * 
+     * @param moduleName The name of the module. @param tcss All test cases of
+     * the module. @param page The page. @param noPages The number of pages.
+     */
+    private void generateModuleContinuationPage(String moduleName,
+	    List<TestCaseSummary> tcss, int page, int noPages) {
+	String fileName = destDir
+		+ File.separator
+		+ getPageFileName(HTMLMODULEOUTPUTFILE_PREFIX, moduleName,
+			HTMLMODULEOUTPUTFILE_SUFFIX, page);
+	HtmlWriter out = null;
+	try {
+	    out = createFile(fileName);
+	    startPageModule(out, "UnitTH - " + moduleName + " - page " + page);
+	    startBody(out);
+	    out.append("<TABLE width=\"90%\"><TR><TD>" + c_LF);
+	    generatePageTitle(out, HTMLMODULEOUTPUTFILE_PREFIX, moduleName,
+		    HTMLMODULEOUTPUTFILE_SUFFIX, page, noPages);
+	    generateModuleTestCaseInfo(out);
+	    generateModuleTestCaseList(out, moduleName, tcss, page, noPages);
+	    generateModuleTestCaseSpreadInfo(out);
+	    generateModuleTestCaseSpreadList(out, moduleName, tcss, page,
+		    noPages);
+	    out.append("</TD></TR></TABLE>" + c_LF);
+	    endBody(out);
+	    endPage(out);
+	} catch (IOException e) {
+	    System.out
+		    .println("An error occurred while writing to the output to file: "
+			    + fileName
+			    + " Possible fix: check file system permissions."
+			    + " Possible fix: check available disk space.");
+	    e.printStackTrace();
+	} finally {
+	    if (null != out) {
+		closeFile(out);
+	    }
 	}
     }
 
@@ -131,7 +192,7 @@ public class HtmlModuleGen extends HtmlGen {
      *            The buffer to append to. @param moduleName The name of the
      *            module whose runs to generate a list for.
      */
-    private void generateModuleModuleItems(BufferedWriter buf, String moduleName) throws IOException {
+    private void generateModuleModuleItems(HtmlWriter buf, String moduleName) throws IOException {
         int idx = th.getRuns().size();
         for (TestRun tr : th.getRuns()) {
             TestModule tm = tr.getTestModules().get(moduleName);
@@ -148,7 +209,7 @@ public class HtmlModuleGen extends HtmlGen {
      * @param buf The buffer to append to. @param tms The test module summary to
      * get the statistics from.
      */
-    private void generateModuleModuleSummary(BufferedWriter buf,
+    private void generateModuleModuleSummary(HtmlWriter buf,
 	    TestModuleSummary tms) throws IOException {
 	buf.write("<H1 class=\"title\">TEST MODULE/TEST CLASS</H1>" + c_LF);
 	buf.write("<H2 class=\"title\">" + tms.getName() + "</H2>" + c_LF);
@@ -347,7 +408,7 @@ public class HtmlModuleGen extends HtmlGen {
      *            The buffer to append to. @param moduleName The name of the
      *            module to get the statistics from.
      */
-    private void generateModuleModuleList(BufferedWriter buf, String moduleName) throws IOException {
+    private void generateModuleModuleList(HtmlWriter buf, String moduleName) throws IOException {
 	buf.write(t(1)
 		+ "<TABLE id=\"run_table\" cellspacing=\"0\" cellpadding=\"2\">"
 		+ c_LF);
@@ -366,9 +427,22 @@ public class HtmlModuleGen extends HtmlGen {
      * 
      * @param buf
      *            The buffer to append to. @param moduleName The name of the
-     *            module where all the test cases shall be retrieved.
+     *            module where all the test cases shall be retrieved. @param
+     *            tcss All test cases of the module. @param page The page to
+     *            list the test cases of. @param noPages The number of pages.
      */
-    private void generateModuleTestCaseList(BufferedWriter buf, String moduleName) throws IOException {
+    private void generateModuleTestCaseList(HtmlWriter buf,
+	    String moduleName, List<TestCaseSummary> tcss, int page,
+	    int noPages) throws IOException {
+	if (isJsonTables()) {
+	    generateTestCaseData(buf, HTMLMODULEOUTPUTFILE_PREFIX + moduleName
+		    + "-testcases", tcss, null);
+	    return;
+	}
+	List<TestCaseSummary> pageRows = getPageRows(tcss, page, noPages);
+	generatePageSummary(buf, pageRows, page, noPages, tcss.size());
+	generatePageNavigation(buf, HTMLMODULEOUTPUTFILE_PREFIX, moduleName,
+		HTMLMODULEOUTPUTFILE_SUFFIX, "testcases", page, noPages);
 	buf.write(t(1)
 		+ "<TABLE id=\"testcase_table\" cellspacing=\"0\" cellpadding=\"2\">"
 		+ c_LF);
@@ -376,7 +450,7 @@ public class HtmlModuleGen extends HtmlGen {
 	generateModuleTestCaseHeader(buf);
 	buf.write(t(2) + "</THEAD>" + c_LF);
 	buf.write(t(2) + "<TBODY>" + c_LF);
-	generateModuleTestCaseItems(buf, moduleName);
+	generateModuleTestCaseItems(buf, pageRows);
 	buf.write(t(2) + "</TBODY>" + c_LF);
 	buf.write(t(1) + "</TABLE>" + c_LF);
     }
@@ -387,7 +461,7 @@ public class HtmlModuleGen extends HtmlGen {
      * @param buf
      *            The buffer to append to.
      */
-    private void generateModuleModuleHeader(BufferedWriter buf) throws IOException {
+    private void generateModuleModuleHeader(HtmlWriter buf) throws IOException {
 
 	buf.write(t(3) + "<TR>" + c_LF);
 	buf.write(t(4)
@@ -431,44 +505,25 @@ public class HtmlModuleGen extends HtmlGen {
      * @param runPath
      *            The path to the parsed files for this run.
      */
-    private void generateModuleModuleItem(BufferedWriter buf, TestModule tm,
+    private void generateModuleModuleItem(HtmlWriter buf, TestModule tm,
 	    int idx, TestRun tr) throws IOException {
 
 	String idxStr = HtmlGenUtils.calculateRunIdxString(th.getNoRuns(), idx);
 
-	String runName = getHtmlReportLink(tr, "Run-" + idxStr);
-
-	buf.write(t(3) + "<TR>" + c_LF);
-	buf.write(t(4) + "<TD class=\"graphItemLeft\" NOWRAP>" + runName
-		+ "</TD>" + c_LF);
-	buf.write(t(4) + "<TD class=\"graphPercent\" align=\"center\">"
-		+ tm.getNoTestCases() + "</TD>" + c_LF);
-	buf.write(t(4) + "<TD class=\"graphPercent\" align=\"center\">"
-		+ tm.getNoPassed() + "</TD>" + c_LF);
-	buf.write(t(4) + "<TD class=\"graphPercent\" align=\"center\">"
-		+ tm.getNoErrors() + "</TD>" + c_LF);
-	buf.write(t(4) + "<TD class=\"graphPercent\" align=\"center\">"
-		+ tm.getNoFailures() + "</TD>" + c_LF);
-	buf.write(t(4) + "<TD class=\"graphPercent\" align=\"center\">"
-		+ tm.getNoIgnored() + "</TD>" + c_LF);
-	buf.write(t(4) + "<TD class=\"graphPercent\" align=\"center\" NOWRAP>"
-		+ tm.getExecutionDate() + "</TD>" + c_LF);
-	buf.write(t(4) + "<TD class=\"graphPercent\" align=\"center\">"
-		+ tm.getExecutionTime() + "</TD>" + c_LF);
-	buf.write(t(4) + "<TD class=\"graphBarLeft\" align=\"right\">"
-		+ tm.getPassPct() + "%</TD>" + c_LF);
-
-	buf.write(t(4) + "<TD class=\"graphBar\">" + c_LF);
-	buf.write(t(5) + "<TABLE class=\"barGraph\" cellspacing=\"0\">" + c_LF);
-	buf.write(t(6) + "<TBODY>" + c_LF);
-
-	buf.write(t(7) + "<TR>" + c_LF);
+	buf.write(c_ROW_START);
+	generateRunLinkCell(buf, tr, idxStr);
+	generateCell(buf, c_CELL, tm.getNoTestCases());
+	generateCell(buf, c_CELL, tm.getNoPassed());
+	generateCell(buf, c_CELL, tm.getNoErrors());
+	generateCell(buf, c_CELL, tm.getNoFailures());
+	generateCell(buf, c_CELL, tm.getNoIgnored());
+	generateCell(buf, c_NOWRAP_CELL, HtmlGenUtils.timeStampToHtml(
+		tm.getRunTime(), tm.getRunTimeOffset()));
+	generateCell(buf, c_CELL, tm.getExecutionTime());
+	generatePctCell(buf, tm.getPassPct());
+	buf.write(c_BAR_START);
 	generatePctBar(buf, tm.getPassPctDouble());
-	buf.write(t(7) + "</TR>" + c_LF);
-	buf.write(t(6) + "</TBODY>" + c_LF);
-	buf.write(t(5) + "</TABLE>" + c_LF);
-	buf.write(t(4) + "</TD>" + c_LF);
-	buf.write(t(3) + "</TR>" + c_LF);
+	buf.write(c_BAR_END);
     }
 
     /**
@@ -476,17 +531,13 @@ public class HtmlModuleGen extends HtmlGen {
      * module page.
      * 
      * @param buf
-     *            The buffer to append to. @param moduleName The name of the
-     *            module where all the test cases shall be retrieved.
+     *            The buffer to append to. @param tcss The test cases to
+     *            list.
      */
-    private void generateModuleTestCaseItems(BufferedWriter buf, String moduleName) throws IOException {
-        Collection<TestCaseSummary> c = th.getTestCaseSummaries().values();
-        Iterator<TestCaseSummary> iter = c.iterator();
-        while (iter.hasNext()) {
-            TestCaseSummary tcs = iter.next();
-            if (null != tcs && (tcs.getClassName().equals(moduleName) || tcs.getModuleName().equals(moduleName))) {
-                generateTestCaseItem(buf, tcs);
-            }
+    private void generateModuleTestCaseItems(HtmlWriter buf,
+	    List<TestCaseSummary> tcss) throws IOException {
+        for (TestCaseSummary tcs : tcss) {
+            generateTestCaseItem(buf, tcs);
         }
     }
 
@@ -497,7 +548,7 @@ public class HtmlModuleGen extends HtmlGen {
      * @param buf
      *            The buffer to append to.
      */
-    private void generateModuleTestCaseHeader(BufferedWriter buf) throws IOException {
+    private void generateModuleTestCaseHeader(HtmlWriter buf) throws IOException {
 
 	buf.write(t(3) + "<TR>" + c_LF);
 	buf.write(t(4)
@@ -533,7 +584,7 @@ public class HtmlModuleGen extends HtmlGen {
      * 
      * @param buf The buffer to append to.
      */
-    private void generateModuleModuleInfo(BufferedWriter buf) throws IOException {
+    private void generateModuleModuleInfo(HtmlWriter buf) throws IOException {
 	buf.write("<a name=\"runs\"/><H3 class=\"title\">Module runs</H3>"
 		+ c_LF);
 	buf.write("If regular HTML test reports have been generated click on the run to open the report.<br/><br/>"
@@ -546,7 +597,7 @@ public class HtmlModuleGen extends HtmlGen {
      * @param buf
      *            The buffer to append to.
      */
-    private void generateModuleTestCaseInfo(BufferedWriter buf) throws IOException {
+    private void generateModuleTestCaseInfo(HtmlWriter buf) throws IOException {
 	buf.write("<a name=\"testcases\"/><H3 class=\"title\">Test cases in this module</H3>"
 		+ c_LF);
 	buf.write("This list shows the average pass rate and execution times for all test cases in this test module.<br/><br/>"
@@ -558,10 +609,21 @@ public class HtmlModuleGen extends HtmlGen {
      * cases.
      * 
      * @param buf The buffer to append to. @param moduleName The name of the
-     * module who's test cases to list.
+     * module who's test cases to list. @param tcss All test cases of the
+     * module. @param page The page to list the test cases of. @param noPages
+     * The number of pages.
      */
-    private void generateModuleTestCaseSpreadList(BufferedWriter buf,
-	    String moduleName) throws IOException {
+    private void generateModuleTestCaseSpreadList(HtmlWriter buf,
+	    String moduleName, List<TestCaseSummary> tcss, int page,
+	    int noPages) throws IOException {
+	generateSpreadRunLinks(buf);
+	if (isJsonTables()) {
+	    generateTestCaseSpreadData(buf, HTMLMODULEOUTPUTFILE_PREFIX
+		    + moduleName + "-spread", tcss, null);
+	    return;
+	}
+	generatePageNavigation(buf, HTMLMODULEOUTPUTFILE_PREFIX, moduleName,
+		HTMLMODULEOUTPUTFILE_SUFFIX, "spread", page, noPages);
 	buf.write(t(1)
 		+ "<TABLE id=\"spread_table\" cellspacing=\"0\" cellpadding=\"2\">"
 		+ c_LF);
@@ -569,7 +631,8 @@ public class HtmlModuleGen extends HtmlGen {
 	generateTestCaseSpreadHeader(buf);
 	buf.write(t(2) + "</THEAD>" + c_LF);
 	buf.write(t(2) + "<TBODY>" + c_LF);
-	generateModuleTestCaseSpreadItems(buf, moduleName);
+	generateModuleTestCaseSpreadItems(buf, getPageRows(tcss, page,
+		noPages));
 	buf.write(t(2) + "</TBODY>" + c_LF);
 	buf.write(t(1) + "</TABLE>" + c_LF);
     }
@@ -578,20 +641,12 @@ public class HtmlModuleGen extends HtmlGen {
      * Generates the list of items displaying the test case spread for
      * individual test cases.
      * 
-     * @param buf The buffer to append to. @param moduleName The name of the
-     * module where to get the test cases.
+     * @param buf The buffer to append to. @param tcss The test cases to list.
      */
-    private void generateModuleTestCaseSpreadItems(BufferedWriter buf,
-	    String moduleName) throws IOException {
-	Collection<TestCaseSummary> c = th.getTestCaseSummaries().values();
-	Iterator<TestCaseSummary> iter = c.iterator();
-	while (iter.hasNext()) {
-	    TestCaseSummary tcs = iter.next();
-	    if (null != tcs
-		    && (tcs.getClassName().equals(moduleName) || tcs
-			    .getModuleName().equals(moduleName))) {
-		generateTestCaseSpreadItem(buf, tcs);
-	    }
+    private void generateModuleTestCaseSpreadItems(HtmlWriter buf,
+	    List<TestCaseSummary> tcss) throws IOException {
+	for (TestCaseSummary tcs : tcss) {
+	    generateTestCaseSpreadItem(buf, tcs);
 	}
     }
 
@@ -601,7 +656,7 @@ public class HtmlModuleGen extends HtmlGen {
      * 
      * @param buf The buffer to append to.
      */
-    private void generateModuleTestCaseSpreadInfo(BufferedWriter buf) throws IOException {
+    private void generateModuleTestCaseSpreadInfo(HtmlWriter buf) throws IOException {
 	buf.write("<a name=\"spread\"/><H3 class=\"title\">Test case verdict spread in this module</H3>"
 		+ c_LF);
 	buf.write("This list shows the test case verdicts in the order they occured during the test runs. If a regular HTML report has been generated click on a spread item to jump directly to the test report. Legend: (green=Pass, grey=No-run, red=Fail/Error)<br/><br/>"
@@ -615,7 +670,7 @@ public class HtmlModuleGen extends HtmlGen {
      * @param buf The buffer to append to. @param pageTitle The title name for
      * this page.
      */
-    protected void startPageModule(BufferedWriter buf, String pageTitle) throws IOException {
+    protected void startPageModule(HtmlWriter buf, String pageTitle) throws IOException {
 	buf.write("<!DOCTYPE html PUBLIC \"-//W3C//DTD XHTML 1.0 Transitional//EN\" \"http://www.w3.org/TR/xhtml1/DTD/xhtml1-transitional.dtd\">"
 		+ c_LF);
 	buf.write("<html xmlns=\"http://www.w3.org/1999/xhtml\" >" + c_LF);
@@ -635,6 +690,7 @@ public class HtmlModuleGen extends HtmlGen {
 	buf.write(t(1) + "<script src=\"" + UnitTH.JS_DIR + "/"
 		+ UnitTH.SORT_SCRIPT + "\" type=\"text/javascript\"></script>"
 		+ c_LF);
+	generateDataTableScript(buf);
 	buf.write(t(1) + "<script type=\"text/javascript\">" + c_LF);
 	buf.write(t(2) + "function sortTables() {" + c_LF);
 	buf.write(t(3) + "var runTable = new TableSort;" + c_LF);
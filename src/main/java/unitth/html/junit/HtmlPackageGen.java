@@ -20,14 +20,17 @@
  */
 package unitth.html.junit;
 
-import java.io.BufferedWriter;
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Iterator;
+import java.util.List;
 
+import unitth.core.RenderPool;
 import unitth.core.UnitTH;
 import unitth.html.HtmlGenUtils;
+import unitth.html.HtmlWriter;
 import unitth.junit.TestCaseSummary;
 import unitth.junit.TestHistory;
 import unitth.junit.TestModuleSummary;
@@ -59,10 +62,16 @@ public class HtmlPackageGen extends HtmlGen {
      */
     protected void generatePackageRunPages() {
 	Object[] packageNames = th.getUniquePackages();
-
+	ArrayList<Runnable> pages = new ArrayList<Runnable>();
 	for (Object packageName : packageNames) {
-	    generatePackageRunPage((String) packageName);
+	    final String name = (String) packageName;
+	    pages.add(new Runnable() {
+		public void run() {
+		    generatePackageRunPage(name);
+		}
+	    });
 	}
+	new RenderPool(UnitTH.renderThreads, "a package page").run(pages);
     }
 
     /**
@@ -72,13 +81,16 @@ public class HtmlPackageGen extends HtmlGen {
      *            The name of the package for the page to be generated.
      */
     private void generatePackageRunPage(String packageName) {
+	List<TestCaseSummary> tcss = th.getPackageTestCaseSummaries(packageName);
+	int noPages = getNoPages(tcss.size());
 	// Create the string to write to the file.
 	String fileName = destDir + File.separator
 		+ HTMLPACKAGEOUTPUTFILE_PREFIX + packageName
 		+ HTMLPACKAGEOUTPUTFILE_SUFFIX;
+	HtmlWriter out = null;
 	try {
 	    // Create the file to which to write
-	    BufferedWriter out = createFile(fileName);
+	    out = createFile(fileName);
 	    startPagePackage(out, "UnitTH - " + packageName);
 	    startBody(out);
 
@@ -97,9 +109,10 @@ public class HtmlPackageGen extends HtmlGen {
 	    generatePackageModuleInfo(out);
 	    generatePackageModuleList(out, packageName);
 	    generatePackageTestCaseInfo(out);
-	    generatePackageTestCaseList(out, packageName);
+	    generatePackageTestCaseList(out, packageName, tcss, 1, noPages);
 	    generateTestCaseSpreadInfo(out, false);
-	    generatePackageTestCaseSpreadList(out, packageName);
+	    generatePackageTestCaseSpreadList(out, packageName, tcss, 1,
+		    noPages);
 	    out.append("</TD></TR></TABLE>" + c_LF);
 
 	    endBody(out);
@@ -112,6 +125,60 @@ public class HtmlPackageGen extends HtmlGen {
 			    + " Possible fix: check file system permissions."
 			    + " Possible fix: check available disk space.");
 	    e.printStackTrace();
+	} finally {
+	    if (null != out) {
+		closeFile(out);
+	    }
+	}
+	for (int page = 2; page <= noPages; page++) {
+	    generatePackageContinuationPage(packageName, tcss, page, noPages);
+	}
+    }
+
+    /**
+     * Generates a continuation page of a package history page, listing the
+     * test cases and spreads that did not fit on the earlier pages.
+     * 
+     * @param packageName
+     *            The name of the package. @param tcss All test cases of the
+     *            package and its sub packages. @param page The page. @param
+     *            noPages The number of pages.
+     */
+    private void generatePackageContinuationPage(String packageName,
+	    List<TestCaseSummary> tcss, int page, int noPages) {
+	String fileName = destDir
+		+ File.separator
+		+ getPageFileName(HTMLPACKAGEOUTPUTFILE_PREFIX, packageName,
+			HTMLPACKAGEOUTPUTFILE_SUFFIX, page);
+	HtmlWriter out = null;
+	try {
+	    out = createFile(fileName);
+	    startPagePackage(out, "UnitTH - " + packageName + " - page " + page);
+	    startBody(out);
+	    out.append("<TABLE width=\"90%\"><TR><TD>" + c_LF);
+	    generatePageTitle(out, HTMLPACKAGEOUTPUTFILE_PREFIX, packageName,
+		    HTMLPACKAGEOUTPUTFILE_SUFFIX, page, noPages);
+	    generatePackageTestCaseInfo(out);
+	    generatePackageTestCaseList(out, packageName, tcss, page, noPages);
+	    generateTestCaseSpreadInfo(out, false);
+	    generatePackageTestCaseSpreadList(out, packageName, tcss, page,
+		    noPages);
+	    out.append("</TD></TR></TABLE>" + c_LF);
+
+	    endBody(out);
+	    endPage(out);
+
+	} catch (IOException e) {
+	    System.out
+		    .println("An error occurred while writing to the output to file: "
+			    + fileName
+			    + " Possible fix: check file system permissions."
+			    + " Possible fix: check available disk space.");
+	    e.printStackTrace();
+	} finally {
+	    if (null != out) {
+		closeFile(out);
+	    }
 	}
     }
 
@@ -122,7 +189,7 @@ public class HtmlPackageGen extends HtmlGen {
      * @param buf The buffer to append to. @param pageTitle The title name for
      * this page.
      */
-    protected void startPagePackage(BufferedWriter buf, String pageTitle) throws IOException {
+    protected void startPagePackage(HtmlWriter buf, String pageTitle) throws IOException {
 	buf.write("<!DOCTYPE html PUBLIC \"-//W3C//DTD XHTML 1.0 Transitional//EN\" \"http://www.w3.org/TR/xhtml1/DTD/xhtml1-transitional.dtd\">"
 		+ c_LF);
 	buf.write("<html xmlns=\"http://www.w3.org/1999/xhtml\" >" + c_LF);
@@ -142,6 +209,7 @@ public class HtmlPackageGen extends HtmlGen {
 	buf.write(t(1) + "<script src=\"" + UnitTH.JS_DIR + "/"
 		+ UnitTH.SORT_SCRIPT + "\" type=\"text/javascript\"></script>"
 		+ c_LF);
+	generateDataTableScript(buf);
 	buf.write(t(1) + "<script type=\"text/javascript\">" + c_LF);
 	buf.write(t(2) + "function sortTables() {" + c_LF);
 	buf.write(t(3) + "var runTable = new TableSort;" + c_LF);
@@ -168,7 +236,7 @@ public class HtmlPackageGen extends HtmlGen {
      * @param out
      *            The buffer to append to.
      */
-    private void generatePackageAnchors(BufferedWriter out, String packageName) throws IOException {
+    private void generatePackageAnchors(HtmlWriter out, String packageName) throws IOException {
 	out.append("<TABLE class=\"mainAnchors\" width=\"100%\">" + c_LF);
 	out.append(t(1) + "<TR>" + c_LF);
 	out.append(t(2) + "<TD>");
@@ -191,7 +259,7 @@ public class HtmlPackageGen extends HtmlGen {
      *            The buffer to append to. @param tms The test module summary to
      *            get the statistics from.
      */
-    private void generatePackagePackageSummary(BufferedWriter buf,
+    private void generatePackagePackageSummary(HtmlWriter buf,
 	    TestPackageSummary tps) throws IOException {
 	buf.write("<H1 class=\"title\">PACKAGE</H1>" + c_LF);
 	buf.write("<H2 class=\"title\">" + tps.getName() + "</H2>" + c_LF);
@@ -391,7 +459,7 @@ public class HtmlPackageGen extends HtmlGen {
      * 
      * @param buf The buffer to append to.
      */
-    private void generatePackageRunInfo(BufferedWriter buf) throws IOException {
+    private void generatePackageRunInfo(HtmlWriter buf) throws IOException {
 	buf.write("<a name=\"runs\"/><H3 class=\"title\">Package runs</H3>"
 		+ c_LF);
 	buf.write("If regular HTML test reports have been generated click on the run to open the report.<br/><br/>"
@@ -406,7 +474,7 @@ public class HtmlPackageGen extends HtmlGen {
      *            The buffer to append to. @param moduleName The name of the
      *            module to get the statistics from.
      */
-    private void generatePackageRunList(BufferedWriter buf, String packageName) throws IOException {
+    private void generatePackageRunList(HtmlWriter buf, String packageName) throws IOException {
 	buf.write(t(1)
 		+ "<TABLE id=\"run_table\" cellspacing=\"0\" cellpadding=\"2\">"
 		+ c_LF);
@@ -425,7 +493,7 @@ public class HtmlPackageGen extends HtmlGen {
      * @param buf
      *            The buffer to append to.
      */
-    private void generatePackageRunHeader(BufferedWriter buf) throws IOException {
+    private void generatePackageRunHeader(HtmlWriter buf) throws IOException {
 
 	buf.write(t(3) + "<TR>" + c_LF);
 	buf.write(t(4)
@@ -465,7 +533,7 @@ public class HtmlPackageGen extends HtmlGen {
      *            The buffer to append to. @param moduleName The name of the
      *            module whose runs to generate a list for.
      */
-    private void generatePackageRunItems(BufferedWriter buf, String packageName) throws IOException {
+    private void generatePackageRunItems(HtmlWriter buf, String packageName) throws IOException {
 	int idx = th.getRuns().size();
 	for (TestRun tr : th.getRuns()) {
 	    TestPackage tp = tr.getTestPackages().get(packageName);
@@ -484,44 +552,25 @@ public class HtmlPackageGen extends HtmlGen {
      * 
      * @param runPath The path to the parsed files for this run.
      */
-    private void generatePackageRunItem(BufferedWriter buf, TestPackage tm,
+    private void generatePackageRunItem(HtmlWriter buf, TestPackage tm,
 	    int idx, TestRun tr) throws IOException {
 
 	String idxStr = HtmlGenUtils.calculateRunIdxString(th.getNoRuns(), idx);
 
-	String runName = getHtmlReportLink(tr, "Run-" + idxStr);
-
-	buf.write(t(3) + "<TR>" + c_LF);
-	buf.write(t(4) + "<TD class=\"graphItemLeft\" NOWRAP>" + runName
-		+ "</TD>" + c_LF);
-	buf.write(t(4) + "<TD class=\"graphPercent\" align=\"center\">"
-		+ tm.getNoTestCases() + "</TD>" + c_LF);
-	buf.write(t(4) + "<TD class=\"graphPercent\" align=\"center\">"
-		+ tm.getNoPassed() + "</TD>" + c_LF);
-	buf.write(t(4) + "<TD class=\"graphPercent\" align=\"center\">"
-		+ tm.getNoErrors() + "</TD>" + c_LF);
-	buf.write(t(4) + "<TD class=\"graphPercent\" align=\"center\">"
-		+ tm.getNoFailures() + "</TD>" + c_LF);
-	buf.write(t(4) + "<TD class=\"graphPercent\" align=\"center\">"
-		+ tm.getNoIgnored() + "</TD>" + c_LF);
-	buf.write(t(4) + "<TD class=\"graphPercent\" align=\"center\" NOWRAP>"
-		+ tm.getExecutionDate() + "</TD>" + c_LF);
-	buf.write(t(4) + "<TD class=\"graphPercent\" align=\"center\">"
-		+ tm.getExecutionTime() + "</TD>" + c_LF);
-	buf.write(t(4) + "<TD class=\"graphBarLeft\" align=\"right\">"
-		+ tm.getPassPct() + "%</TD>" + c_LF);
-
-	buf.write(t(4) + "<TD class=\"graphBar\">" + c_LF);
-	buf.write(t(5) + "<TABLE class=\"barGraph\" cellspacing=\"0\">" + c_LF);
-	buf.write(t(6) + "<TBODY>" + c_LF);
-
-	buf.write(t(7) + "<TR>" + c_LF);
+	buf.write(c_ROW_START);
+	generateRunLinkCell(buf, tr, idxStr);
+	generateCell(buf, c_CELL, tm.getNoTestCases());
+	generateCell(buf, c_CELL, tm.getNoPassed());
+	generateCell(buf, c_CELL, tm.getNoErrors());
+	generateCell(buf, c_CELL, tm.getNoFailures());
+	generateCell(buf, c_CELL, tm.getNoIgnored());
+	generateCell(buf, c_NOWRAP_CELL, HtmlGenUtils.timeStampToHtml(
+		tm.getRunTime(), tm.getRunTimeOffset()));
+	generateCell(buf, c_CELL, tm.getExecutionTime());
+	generatePctCell(buf, tm.getPassPct());
+	buf.write(c_BAR_START);
 	generatePctBar(buf, tm.getPassPctDouble());
-	buf.write(t(7) + "</TR>" + c_LF);
-	buf.write(t(6) + "</TBODY>" + c_LF);
-	buf.write(t(5) + "</TABLE>" + c_LF);
-	buf.write(t(4) + "</TD>" + c_LF);
-	buf.write(t(3) + "</TR>" + c_LF);
+	buf.write(c_BAR_END);
     }
 
     /**
@@ -531,7 +580,7 @@ public class HtmlPackageGen extends HtmlGen {
      * @param buf
      *            The buffer to append to.
      */
-    private void generatePackageModuleInfo(BufferedWriter buf) throws IOException {
+    private void generatePackageModuleInfo(HtmlWriter buf) throws IOException {
 	buf.write("<a name=\"testmodules\"/><H3 class=\"title\">Module runs in this package</H3>"
 		+ c_LF);
     }
@@ -543,7 +592,7 @@ public class HtmlPackageGen extends HtmlGen {
      * @param buf
      *            The buffer to append to.
      */
-    private void generatePackagePackageInfo(BufferedWriter buf) throws IOException {
+    private void generatePackagePackageInfo(HtmlWriter buf) throws IOException {
 	buf.write("<a name=\"subpackages\"/><H3 class=\"title\">Sub packages in this package</H3>"
 		+ c_LF);
     }
@@ -556,7 +605,7 @@ public class HtmlPackageGen extends HtmlGen {
      *            The buffer to append to. @param moduleName The name of the
      *            module to get the statistics from.
      */
-    private void generatePackageModuleList(BufferedWriter buf, String packageName) throws IOException {
+    private void generatePackageModuleList(HtmlWriter buf, String packageName) throws IOException {
 	buf.write(t(1)
 		+ "<TABLE id=\"module_table\" cellspacing=\"0\" cellpadding=\"2\">"
 		+ c_LF);
@@ -569,7 +618,7 @@ public class HtmlPackageGen extends HtmlGen {
 	buf.write(t(1) + "</TABLE>" + c_LF);
     }
 
-    private void generatePackagePackageList(BufferedWriter buf, String packageName) throws IOException {
+    private void generatePackagePackageList(HtmlWriter buf, String packageName) throws IOException {
 	buf.write(t(1)
 		+ "<TABLE id=\"package_table\" cellspacing=\"0\" cellpadding=\"2\">"
 		+ c_LF);
@@ -588,7 +637,7 @@ public class HtmlPackageGen extends HtmlGen {
      * @param buf
      *            The buffer to append to.
      */
-    private void generatePackageModuleHeader(BufferedWriter buf) throws IOException {
+    private void generatePackageModuleHeader(HtmlWriter buf) throws IOException {
 
 	buf.write(t(3) + "<TR>" + c_LF);
 	buf.write(t(4)
@@ -624,7 +673,7 @@ public class HtmlPackageGen extends HtmlGen {
 	buf.write(t(3) + "</TR>" + c_LF);
     }
 
-    private void generatePackagePackageHeader(BufferedWriter buf) throws IOException {
+    private void generatePackagePackageHeader(HtmlWriter buf) throws IOException {
 
 	buf.write(t(3) + "<TR>" + c_LF);
 	buf.write(t(4)
@@ -671,96 +720,43 @@ public class HtmlPackageGen extends HtmlGen {
      * 
      * @param runPath The path to the parsed files for this run.
      */
-    private void generatePackageModuleItem(BufferedWriter buf,
+    private void generatePackageModuleItem(HtmlWriter buf,
 	    TestModuleSummary tms) throws IOException {
-
-	// Create the link to the module run page
-	String clickableLinkFileName = HTMLMODULEOUTPUTFILE_PREFIX
-		+ tms.getName() + HTMLMODULEOUTPUTFILE_SUFFIX;
-	String link = "<a href=\"" + clickableLinkFileName + "\">"
-		+ tms.getName() + "</a>";
-
-	// String pathToReport
-	buf.write(t(3) + "<TR>" + c_LF);
-	buf.write(t(4) + "<TD class=\"graphItemLeft\" NOWRAP>" + link
-		+ "</TD>" + c_LF);
-	buf.write(t(4) + "<TD class=\"graphPercent\" align=\"center\">"
-		+ tms.getNoRuns() + "</TD>" + c_LF);
-	buf.write(t(4) + "<TD class=\"graphPercent\" align=\"center\">"
-		+ tms.getNoUniqueTestCases() + "</TD>" + c_LF);
-	buf.write(t(4) + "<TD class=\"graphPercent\" align=\"center\">"
-		+ tms.getNoTestCases() + "</TD>" + c_LF);
-	buf.write(t(4) + "<TD class=\"graphPercent\" align=\"center\">"
-		+ tms.getNoPassed() + "</TD>" + c_LF);
-	buf.write(t(4) + "<TD class=\"graphPercent\" align=\"center\">"
-		+ tms.getNoErrors() + "</TD>" + c_LF);
-	buf.write(t(4) + "<TD class=\"graphPercent\" align=\"center\">"
-		+ tms.getNoFailures() + "</TD>" + c_LF);
-	buf.write(t(4) + "<TD class=\"graphPercent\" align=\"center\">"
-		+ tms.getNoIgnored() + "</TD>" + c_LF);
-	buf.write(t(4) + "<TD class=\"graphPercent\" align=\"left\">"
-		+ tms.getExecutionTime() + "</TD>" + c_LF);
-	buf.write(t(4) + "<TD class=\"graphBarLeft\" align=\"right\">"
-		+ tms.getPassPct() + "%</TD>" + c_LF);
-
-	buf.write(t(4) + "<TD class=\"graphBar\">" + c_LF);
-	buf.write(t(5) + "<TABLE class=\"barGraph\" cellspacing=\"0\">" + c_LF);
-	buf.write(t(6) + "<TBODY>" + c_LF);
-
-	buf.write(t(7) + "<TR class=\"bar\">" + c_LF);
+	buf.write(c_ROW_START);
+	generatePageLinkCell(buf, HTMLMODULEOUTPUTFILE_PREFIX, tms.getName(),
+		HTMLMODULEOUTPUTFILE_SUFFIX);
+	generateCell(buf, c_CELL, tms.getNoRuns());
+	generateCell(buf, c_CELL, tms.getNoUniqueTestCases());
+	generateCell(buf, c_CELL, tms.getNoTestCases());
+	generateCell(buf, c_CELL, tms.getNoPassed());
+	generateCell(buf, c_CELL, tms.getNoErrors());
+	generateCell(buf, c_CELL, tms.getNoFailures());
+	generateCell(buf, c_CELL, tms.getNoIgnored());
+	generateCell(buf, c_LEFT_CELL, tms.getExecutionTime());
+	generatePctCell(buf, tms.getPassPct());
+	buf.write(c_CLASSED_BAR_START);
 	generatePctBar(buf, tms.getPassPctDouble());
-	buf.write(t(7) + "</TR>" + c_LF);
-	buf.write(t(6) + "</TBODY>" + c_LF);
-	buf.write(t(5) + "</TABLE>" + c_LF);
-	buf.write(t(4) + "</TD>" + c_LF);
-	buf.write(t(3) + "</TR>" + c_LF);
+	buf.write(c_BAR_END);
     }
 
-    private void generatePackagePackageItem(BufferedWriter buf,
+    private void generatePackagePackageItem(HtmlWriter buf,
 	    TestPackageSummary tps) throws IOException {
-
-	// Create the link to the module run page
-	String clickableLinkFileName = HTMLPACKAGEOUTPUTFILE_PREFIX
-		+ tps.getName() + HTMLPACKAGEOUTPUTFILE_SUFFIX;
-	String link = "<a href=\"" + clickableLinkFileName + "\">"
-		+ tps.getName() + "</a>";
-
-	// String pathToReport
-	buf.write(t(3) + "<TR>" + c_LF);
-	buf.write(t(4) + "<TD class=\"graphItemLeft\" NOWRAP>" + link
-		+ "</TD>" + c_LF);
-	buf.write(t(4) + "<TD class=\"graphPercent\" align=\"center\">"
-		+ tps.getNoRuns() + "</TD>" + c_LF);
-	buf.write(t(4) + "<TD class=\"graphPercent\" align=\"center\">"
-		+ tps.getNoUniqueTestModules() + "</TD>" + c_LF);
-	buf.write(t(4) + "<TD class=\"graphPercent\" align=\"center\">"
-		+ tps.getNoUniqueTestCases() + "</TD>" + c_LF);
-	buf.write(t(4) + "<TD class=\"graphPercent\" align=\"center\">"
-		+ tps.getNoTestCases() + "</TD>" + c_LF);
-	buf.write(t(4) + "<TD class=\"graphPercent\" align=\"center\">"
-		+ tps.getNoPassed() + "</TD>" + c_LF);
-	buf.write(t(4) + "<TD class=\"graphPercent\" align=\"center\">"
-		+ tps.getNoErrors() + "</TD>" + c_LF);
-	buf.write(t(4) + "<TD class=\"graphPercent\" align=\"center\">"
-		+ tps.getNoFailures() + "</TD>" + c_LF);
-	buf.write(t(4) + "<TD class=\"graphPercent\" align=\"center\">"
-		+ tps.getNoIgnored() + "</TD>" + c_LF);
-	buf.write(t(4) + "<TD class=\"graphPercent\" align=\"left\">"
-		+ tps.getExecutionTime() + "</TD>" + c_LF);
-	buf.write(t(4) + "<TD class=\"graphBarLeft\" align=\"right\">"
-		+ tps.getPassPct() + "%</TD>" + c_LF);
-
-	buf.write(t(4) + "<TD class=\"graphBar\">" + c_LF);
-	buf.write(t(5) + "<TABLE class=\"barGraph\" cellspacing=\"0\">" + c_LF);
-	buf.write(t(6) + "<TBODY>" + c_LF);
-
-	buf.write(t(7) + "<TR class=\"bar\">" + c_LF);
+	buf.write(c_ROW_START);
+	generatePageLinkCell(buf, HTMLPACKAGEOUTPUTFILE_PREFIX, tps.getName(),
+		HTMLPACKAGEOUTPUTFILE_SUFFIX);
+	generateCell(buf, c_CELL, tps.getNoRuns());
+	generateCell(buf, c_CELL, tps.getNoUniqueTestModules());
+	generateCell(buf, c_CELL, tps.getNoUniqueTestCases());
+	generateCell(buf, c_CELL, tps.getNoTestCases());
+	generateCell(buf, c_CELL, tps.getNoPassed());
+	generateCell(buf, c_CELL, tps.getNoErrors());
+	generateCell(buf, c_CELL, tps.getNoFailures());
+	generateCell(buf, c_CELL, tps.getNoIgnored());
+	generateCell(buf, c_LEFT_CELL, tps.getExecutionTime());
+	generatePctCell(buf, tps.getPassPct());
+	buf.write(c_CLASSED_BAR_START);
 	generatePctBar(buf, tps.getPassPctDouble());
-	buf.write(t(7) + "</TR>" + c_LF);
-	buf.write(t(6) + "</TBODY>" + c_LF);
-	buf.write(t(5) + "</TABLE>" + c_LF);
-	buf.write(t(4) + "</TD>" + c_LF);
-	buf.write(t(3) + "</TR>" + c_LF);
+	buf.write(c_BAR_END);
     }
 
     /**
@@ -771,7 +767,7 @@ public class HtmlPackageGen extends HtmlGen {
      * @param moduleName
      *            The name of the module whose runs to generate a list for.
      */
-    private void generatePackageModuleItems(BufferedWriter buf, String packageName) throws IOException {
+    private void generatePackageModuleItems(HtmlWriter buf, String packageName) throws IOException {
 	Collection<TestModuleSummary> c = th.getTestModuleSummaries().values();
 	Iterator<TestModuleSummary> iter = c.iterator();
 	while (iter.hasNext()) {
@@ -782,7 +778,7 @@ public class HtmlPackageGen extends HtmlGen {
 	}
     }
 
-    private void generatePackagePackageItems(BufferedWriter buf,
+    private void generatePackagePackageItems(HtmlWriter buf,
 	    String packageName) throws IOException {
 	Collection<TestPackageSummary> c = th.getTestPackageSummaries()
 		.values();
@@ -804,7 +800,7 @@ public class HtmlPackageGen extends HtmlGen {
      * @param buf
      *            The buffer to append to.
      */
-    private void generatePackageTestCaseInfo(BufferedWriter buf) throws IOException {
+    private void generatePackageTestCaseInfo(HtmlWriter buf) throws IOException {
 	buf.write("<a name=\"testcases\"/><H3 class=\"title\">Test cases in this package</H3>"
 		+ c_LF);
 	buf.write("This list shows the average pass rate and execution times for all test cases in this test module.<br/><br/>"
@@ -817,10 +813,22 @@ public class HtmlPackageGen extends HtmlGen {
      * 
      * @param buf
      *            The buffer to append to. @param moduleName The name of the
-     *            module where all the test cases shall be retrieved.
+     *            module where all the test cases shall be retrieved. @param
+     *            tcss All test cases of the package. @param page The page to
+     *            list the test cases of. @param noPages The number of pages.
      */
-    private void generatePackageTestCaseList(BufferedWriter buf,
-	    String packageName) throws IOException {
+    private void generatePackageTestCaseList(HtmlWriter buf,
+	    String packageName, List<TestCaseSummary> tcss, int page,
+	    int noPages) throws IOException {
+	if (isJsonTables()) {
+	    generateTestCaseData(buf, HTMLPACKAGEOUTPUTFILE_PREFIX
+		    + packageName + "-testcases", tcss, packageName);
+	    return;
+	}
+	List<TestCaseSummary> pageRows = getPageRows(tcss, page, noPages);
+	generatePageSummary(buf, pageRows, page, noPages, tcss.size());
+	generatePageNavigation(buf, HTMLPACKAGEOUTPUTFILE_PREFIX, packageName,
+		HTMLPACKAGEOUTPUTFILE_SUFFIX, "testcases", page, noPages);
 	buf.write(t(1)
 		+ "<TABLE id=\"testcase_table\" cellspacing=\"0\" cellpadding=\"2\">"
 		+ c_LF);
@@ -828,7 +836,7 @@ public class HtmlPackageGen extends HtmlGen {
 	generateTestCaseHeader(buf);
 	buf.write(t(2) + "</THEAD>" + c_LF);
 	buf.write(t(2) + "<TBODY>" + c_LF);
-	generatePackageTestCaseItems(buf, packageName);
+	generatePackageTestCaseItems(buf, pageRows, packageName);
 	buf.write(t(2) + "</TBODY>" + c_LF);
 	buf.write(t(1) + "</TABLE>" + c_LF);
     }
@@ -838,18 +846,14 @@ public class HtmlPackageGen extends HtmlGen {
      * module page.
      * 
      * @param buf
-     *            The buffer to append to. @param moduleName The name of the
-     *            module where all the test cases shall be retrieved.
+     *            The buffer to append to. @param tcss The test cases to list.
+     *            @param packageName The package the names are shown relative
+     *            to.
      */
-    private void generatePackageTestCaseItems(BufferedWriter buf,
-	    String packageName) throws IOException {
-	Collection<TestCaseSummary> c = th.getTestCaseSummaries().values();
-	Iterator<TestCaseSummary> iter = c.iterator();
-	while (iter.hasNext()) {
-	    TestCaseSummary tcs = iter.next();
-	    if (null != tcs && tcs.getPackageName().contains(packageName)) {
-		generatePackageTestCaseItem(buf, tcs, packageName);
-	    }
+    private void generatePackageTestCaseItems(HtmlWriter buf,
+	    List<TestCaseSummary> tcss, String packageName) throws IOException {
+	for (TestCaseSummary tcs : tcss) {
+	    generatePackageTestCaseItem(buf, tcs, packageName);
 	}
     }
 
@@ -858,10 +862,21 @@ public class HtmlPackageGen extends HtmlGen {
      * cases.
      * 
      * @param buf The buffer to append to. @param moduleName The name of the
-     * module who's test cases to list.
+     * module who's test cases to list. @param tcss All test cases of the
+     * package. @param page The page to list the test cases of. @param noPages
+     * The number of pages.
      */
-    private void generatePackageTestCaseSpreadList(BufferedWriter buf,
-	    String packageName) throws IOException {
+    private void generatePackageTestCaseSpreadList(HtmlWriter buf,
+	    String packageName, List<TestCaseSummary> tcss, int page,
+	    int noPages) throws IOException {
+	generateSpreadRunLinks(buf);
+	if (isJsonTables()) {
+	    generateTestCaseSpreadData(buf, HTMLPACKAGEOUTPUTFILE_PREFIX
+		    + packageName + "-spread", tcss, packageName);
+	    return;
+	}
+	generatePageNavigation(buf, HTMLPACKAGEOUTPUTFILE_PREFIX, packageName,
+		HTMLPACKAGEOUTPUTFILE_SUFFIX, "spread", page, noPages);
 	buf.write(t(1)
 		+ "<TABLE id=\"spread_table\" cellspacing=\"0\" cellpadding=\"2\">"
 		+ c_LF);
@@ -869,7 +884,8 @@ public class HtmlPackageGen extends HtmlGen {
 	generateTestCaseSpreadHeader(buf);
 	buf.write(t(2) + "</THEAD>" + c_LF);
 	buf.write(t(2) + "<TBODY>" + c_LF);
-	generatePackageTestCaseSpreadItems(buf, packageName);
+	generatePackageTestCaseSpreadItems(buf, getPageRows(tcss, page,
+		noPages), packageName);
 	buf.write(t(2) + "</TBODY>" + c_LF);
 	buf.write(t(1) + "</TABLE>" + c_LF);
     }
@@ -878,83 +894,25 @@ public class HtmlPackageGen extends HtmlGen {
      * Generates the list of items displaying the test case spread for
      * individual test cases.
      * 
-     * @param buf The buffer to append to. @param moduleName The name of the
-     * module where to get the test cases.
+     * @param buf The buffer to append to. @param tcss The test cases to list.
+     * @param packageName The package the names are shown relative to.
      */
-    private void generatePackageTestCaseSpreadItems(BufferedWriter buf,
-	    String packageName) throws IOException {
-	Collection<TestCaseSummary> c = th.getTestCaseSummaries().values();
-	Iterator<TestCaseSummary> iter = c.iterator();
-	while (iter.hasNext()) {
-	    TestCaseSummary tcs = iter.next();
-	    if (null != tcs && tcs.getPackageName().contains(packageName)) {
-		generatePackageTestCaseSpreadItem(buf, tcs, packageName);
-	    }
+    private void generatePackageTestCaseSpreadItems(HtmlWriter buf,
+	    List<TestCaseSummary> tcss, String packageName) throws IOException {
+	for (TestCaseSummary tcs : tcss) {
+	    generatePackageTestCaseSpreadItem(buf, tcs, packageName);
 	}
     }
 
-    protected void generatePackageTestCaseItem(BufferedWriter buf,
+    protected void generatePackageTestCaseItem(HtmlWriter buf,
 	    TestCaseSummary tcs, String packageName) throws IOException {
-	buf.write(t(3) + "<TR>" + c_LF);
-	buf.write(t(4) + "<TD class=\"graphItemLeft\" NOWRAP>"
-		+ tcs.getClassPlusTestCaseName(packageName) + "</TD>" + c_LF);
-	buf.write(t(4) + "<TD class=\"graphPercent\" align=\"center\">"
-		+ tcs.getNoRuns() + "</TD>" + c_LF);
-	buf.write(t(4) + "<TD class=\"graphPercent\" align=\"center\">"
-		+ tcs.getNoPassed() + "</TD>" + c_LF);
-	buf.write(t(4) + "<TD class=\"graphPercent\" align=\"center\">"
-		+ tcs.getNoErrors() + "</TD>" + c_LF);
-	buf.write(t(4) + "<TD class=\"graphPercent\" align=\"center\">"
-		+ tcs.getNoFailures() + "</TD>" + c_LF);
-	buf.write(t(4) + "<TD class=\"graphPercent\" align=\"center\">"
-		+ tcs.getNoIgnored() + "</TD>" + c_LF);
-	buf.write(t(4) + "<TD class=\"graphPercent\" align=\"center\">"
-		+ tcs.getExecutionTime() + "</TD>" + c_LF);
-	buf.write(t(4) + "<TD class=\"graphBarLeft\" align=\"right\">"
-		+ tcs.getPassPct() + "%</TD>" + c_LF);
-	buf.write(t(4) + "<TD class=\"graphBar\">" + c_LF);
-	buf.write(t(5) + "<TABLE class=\"barGraph\" cellspacing=\"0\">" + c_LF);
-	buf.write(t(6) + "<TBODY>" + c_LF);
-
-	buf.write(t(7) + "<TR>" + c_LF);
-	generatePctBar(buf, tcs.getPassPctDouble());
-	buf.write(t(7) + "</TR>" + c_LF);
-	buf.write(t(6) + "</TBODY>" + c_LF);
-	buf.write(t(5) + "</TABLE>" + c_LF);
-	buf.write(t(4) + "</TD>" + c_LF);
-	buf.write(t(3) + "</TR>" + c_LF);
+	generateTestCaseItem(buf, tcs, tcs.getClassPlusTestCaseName(packageName));
     }
 
-    protected void generatePackageTestCaseSpreadItem(BufferedWriter buf,
+    protected void generatePackageTestCaseSpreadItem(HtmlWriter buf,
 	    TestCaseSummary tcs, String packageName) throws IOException {
-	buf.write(t(3) + "<TR>" + c_LF);
-	buf.write(t(4) + "<TD class=\"graphItemLeft\" width=\"2*\" NOWRAP>"
-		+ tcs.getClassPlusTestCaseName(packageName) + "</TD>" + c_LF);
-	buf.write(t(4)
-		+ "<TD class=\"graphPercent\" align=\"center\" width=\"1*\">"
-		+ tcs.getNoRuns() + "</TD>" + c_LF);
-	buf.write(t(4)
-		+ "<TD class=\"graphPercent\" align=\"center\" width=\"1*\">"
-		+ tcs.getNoPassed() + "</TD>" + c_LF);
-	buf.write(t(4)
-		+ "<TD class=\"graphPercent\" align=\"center\" width=\"1*\">"
-		+ tcs.getNoErrors() + "</TD>" + c_LF);
-	buf.write(t(4)
-		+ "<TD class=\"graphPercent\" align=\"center\" width=\"1*\">"
-		+ tcs.getNoFailures() + "</TD>" + c_LF);
-	buf.write(t(4)
-		+ "<TD class=\"graphPercent\" align=\"center\" width=\"1*\">"
-		+ tcs.getNoIgnored() + "</TD>" + c_LF);
-	buf.write(t(4) + "<TD class=\"graphBar\" width=\"40*\">" + c_LF);
-	buf.write(t(5) + "<TABLE class=\"barGraph\" cellspacing=\"0\">" + c_LF);
-	buf.write(t(6) + "<TBODY>" + c_LF);
-	buf.write(t(7) + "<TR>" + c_LF);
-	generateSpreadBar(buf, tcs);
-	buf.write(t(7) + "</TR>" + c_LF);
-	buf.write(t(6) + "</TBODY>" + c_LF);
-	buf.write(t(5) + "</TABLE>" + c_LF);
-	buf.write(t(4) + "</TD>" + c_LF);
-	buf.write(t(3) + "</TR>" + c_LF);
+	generateTestCaseSpreadItem(buf, tcs,
+		tcs.getClassPlusTestCaseName(packageName));
     }
 }
 
@@ -18,6 +18,7 @@ package unitth.jenkins;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.HashMap;
 
@@ -25,14 +26,18 @@ import javax.xml.parsers.SAXParser;
 import javax.xml.parsers.SAXParserFactory;
 
 import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
 import org.xml.sax.SAXException;
 
+import unitth.core.ReportInput;
 import unitth.core.ReportParser;
+import unitth.core.TextAccumulator;
 import unitth.core.UnitTH;
 import unitth.core.UnitTHException;
 import unitth.junit.TestCase;
 import unitth.junit.TestCaseVerdict;
 import unitth.junit.TestHistory;
+import unitth.junit.TestItem;
 import unitth.junit.TestModule;
 import unitth.junit.TestPackage;
 import unitth.junit.TestRun;
@@ -60,24 +65,36 @@ public class JenkinsReportParser extends ReportParser {
 	private final String c_XML_TAG_DURATION = "duration";
 	private final String c_XML_TAG_LAUNCH_TIMESTAMP = "timestamp";
 
+	/* Ids of the elements handled, set when the element starts. */
+	private final static int c_OTHER = 0;
+	private final static int c_TESTSUITE = 1;
+	private final static int c_TESTSUITE_END = 2;
+	private final static int c_TESTCASE_NAME = 3;
+	private final static int c_TESTCASE = 4;
+	private final static int c_CLASSNAME = 5;
+	private final static int c_VERDICT = 6;
+	private final static int c_DURATION = 7;
+	private final static int c_LAUNCH_TIMESTAMP = 8;
+
+	private HashMap<String, Integer> elementIds = new HashMap<String, Integer>();
+
 	private int currentRunIdx = 0;
 	private boolean inTestCase = false;
 
 	/* Currently parsed element holders. */
-	private String currentElement = "";
+	private int currentElement = c_OTHER;
+	private TextAccumulator text = new TextAccumulator();
 	private TestRun currentTestRun = null;
 	private TestModule currentTestModule = null;
 	private TestCase currentTestCase = null;
 	private TestHistory history = null;
 	private HashMap<String, TestPackage> parsedTestPackages = null;
 
-	private StringBuffer moduleName = null;
-	private StringBuffer moduleDuration = null;
-	private StringBuffer moduleTimestamp = null;
-	private StringBuffer tcName = null;
-	private StringBuffer tcClass = null;
-	private StringBuffer tcVerdict = null;
-	private StringBuffer tcDuration = null;
+	private String moduleName = "";
+	private String moduleTimestamp = "";
+	private String tcName = "";
+	private String tcClass = "";
+	private boolean tcPassed = false;
 	
 	/**
 	 * The ReportParser Ctor, creates a new parser and initializes the test
@@ -87,6 +104,14 @@ public class JenkinsReportParser extends ReportParser {
 		try {
 			saxp = saxFactory.newSAXParser();
 			history = new TestHistory();
+			elementIds.put(c_XML_TAG_TESTSUITE, c_TESTSUITE);
+			elementIds.put(c_XML_TAG_TESTSUITE_END, c_TESTSUITE_END);
+			elementIds.put(c_XML_TAG_TESTCASE_NAME, c_TESTCASE_NAME);
+			elementIds.put(c_XML_TAG_TESTCASE, c_TESTCASE);
+			elementIds.put(c_XML_TAG_CLASSNAME, c_CLASSNAME);
+			elementIds.put(c_XML_TAG_VERDICT, c_VERDICT);
+			elementIds.put(c_XML_TAG_DURATION, c_DURATION);
+			elementIds.put(c_XML_TAG_LAUNCH_TIMESTAMP, c_LAUNCH_TIMESTAMP);
 		} catch (SAXException t) {
 			System.err.println("Could not create SAX parser... "+t.getMessage());
 			return;
@@ -97,25 +122,16 @@ public class JenkinsReportParser extends ReportParser {
 		}
 	}
 
+	/**
+	 * Collects the text of the handled elements. The text is only turned
+	 * into values when the element ends.
+	 * 
+	 * @see org.xml.sax.helpers.DefaultHandler#characters(char[], int, int)
+	 */
 	public void characters(char ch[], int start, int length)
 			throws SAXException {
-		
-		if (currentElement.equals(c_XML_TAG_TESTSUITE)) {
-			moduleName.append(new String(ch, start, length));
-		} else if (currentElement.equals(c_XML_TAG_DURATION)) {
-			if (inTestCase) {
-				tcDuration.append(new String(ch, start, length));
-			} else {
-				moduleDuration.append(new String(ch, start, length));
-			}
-		} else if (currentElement.equals(c_XML_TAG_LAUNCH_TIMESTAMP)) {
-			moduleTimestamp.append(new String(ch, start, length));
-		} else if (currentElement.equals(c_XML_TAG_TESTCASE_NAME)) {
-			tcName.append(new String(ch, start, length));
-		} else if (currentElement.equals(c_XML_TAG_CLASSNAME)) {
-			tcClass.append(new String(ch, start, length));
-		} else if (currentElement.equals(c_XML_TAG_VERDICT)) {
-			tcVerdict.append(new String(ch, start, length));
+		if (c_OTHER != currentElement) {
+			text.append(ch, start, length);
 		}
 	}
 	
@@ -129,29 +145,22 @@ public class JenkinsReportParser extends ReportParser {
 	public void startElement(String namespaceURI, String sName, String qName,
 			Attributes attrs) throws SAXException {
 
-		currentElement = sName; // element name
+		currentElement = getElementId(sName, qName);
+		text.clear();
 
-		// We do not know which name was used, simple or qualified
-		if ("".equals(currentElement)) {
-			currentElement = qName; // not namespace-aware
-		}
-		if (currentElement.equals(c_XML_TAG_TESTCASE)) {
+		switch (currentElement) {
+		case c_TESTCASE:
 			inTestCase = true;
 			currentTestCase = new TestCase();
-			
-			tcName = new StringBuffer();
-			tcClass = new StringBuffer();
-			tcVerdict = new StringBuffer();
-			tcDuration = new StringBuffer();
-		}
-		
-		if (currentElement.equals(c_XML_TAG_TESTSUITE)) {
+			tcName = "";
+			tcClass = "";
+			tcPassed = false;
+			break;
+		case c_TESTSUITE:
 			currentTestModule = new TestModule();
-			
-			// Creating buffers for the characters calls to fill in.
-			moduleName = new StringBuffer();
-			moduleDuration = new StringBuffer();
-			moduleTimestamp = new StringBuffer();
+			moduleName = "";
+			moduleTimestamp = "";
+			break;
 		}
 	}
 
@@ -164,19 +173,37 @@ public class JenkinsReportParser extends ReportParser {
 	public void endElement(String namespaceURI, String sName, String qName)
 			throws SAXException {
 
-		String eName = sName; // element name
+		int eId = getElementId(sName, qName);
+		currentElement = c_OTHER;
 
-		// We do not know which name was used, simple or qualified
-		if ("".equals(eName)) {
-			eName = qName; // not namespace-aware
-		}
-		
-		if (c_XML_TAG_TESTSUITE_END.equals(eName)) {
-			currentTestModule.setName(moduleName.toString().trim());
-			currentTestModule.setDate(moduleTimestamp.toString().trim());
-			currentTestModule.setExecutionTime(moduleDuration.toString().trim());
+		switch (eId) {
+		case c_TESTSUITE:
+			moduleName = text.toTrimmedString();
+			break;
+		case c_LAUNCH_TIMESTAMP:
+			moduleTimestamp = text.toTrimmedString();
+			break;
+		case c_TESTCASE_NAME:
+			tcName = text.toTrimmedString();
+			break;
+		case c_CLASSNAME:
+			tcClass = text.toTrimmedString();
+			break;
+		case c_VERDICT:
+			tcPassed = text.trimmedEquals("0");
+			break;
+		case c_DURATION:
+			if (inTestCase) {
+				setExecutionTime(currentTestCase);
+			} else if (null != currentTestModule) {
+				setExecutionTime(currentTestModule);
+			}
+			break;
+		case c_TESTSUITE_END:
+			currentTestModule.setName(moduleName);
+			currentTestModule.setDate(moduleTimestamp);
 			
-			String packageName = moduleName.toString().trim();
+			String packageName = moduleName;
 			if (packageName.contains(".")) {
 				packageName = packageName.substring(0, packageName.lastIndexOf("."));
 			}
@@ -192,25 +219,42 @@ public class JenkinsReportParser extends ReportParser {
 			//currentTestModule.calcStats();
 			currentTestRun.addTestPackages(parsedTestPackages);
 			currentTestModule = null;
-		} 
-		
-		
-		else if (c_XML_TAG_TESTCASE.equals(eName)) {
-			currentTestCase.setName(tcName.toString().trim());
-			currentTestCase.setClassName(tcClass.toString().trim());
+			break;
+		case c_TESTCASE:
+			currentTestCase.setName(tcName);
+			currentTestCase.setClassName(tcClass);
 			currentTestCase.setModuleName(currentTestModule.getName());
-			currentTestCase.setExecutionTime(tcDuration.toString().trim());
-			if (tcVerdict.toString().trim().equals("0")) {
+			if (tcPassed) {
 				currentTestCase.setVerdict(TestCaseVerdict.e_PASS);
 			} else {
 				currentTestCase.setVerdict(TestCaseVerdict.e_FAIL);
-				int fails = currentTestModule.getNoFailures()+1; 
-				currentTestModule.setNoFailures(Integer.toString(fails));
+				currentTestModule.setNoFailures(currentTestModule.getNoFailures() + 1);
 			}
-			int no = currentTestModule.getNoTestCases()+1;
-			currentTestModule.setNoTestCases(Integer.toString(no));
+			currentTestModule.setNoTestCases(currentTestModule.getNoTestCases() + 1);
 			currentTestModule.addTestCase(currentTestCase);
 			inTestCase = false;
+			break;
+		}
+	}
+
+	/*
+	 * Looks up the id of an element, we do not know which name was used,
+	 * simple or qualified.
+	 */
+	private int getElementId(String sName, String qName) {
+		Integer id = elementIds.get("".equals(sName) ? qName : sName);
+		return null == id ? c_OTHER : id;
+	}
+
+	/*
+	 * Sets the execution time read from the collected text, text that is not
+	 * a plain number is reported the same way as before.
+	 */
+	private void setExecutionTime(TestItem item) {
+		try {
+			item.setExecutionTime(text.toDouble());
+		} catch (NumberFormatException nfe) {
+			item.setExecutionTime(text.toTrimmedString());
 		}
 	}
 
@@ -222,8 +266,11 @@ public class JenkinsReportParser extends ReportParser {
 	 * @throws UnitTHException
 	 */
 	private void parse(File file) throws UnitTHException {
+		InputStream in = null;
 		try {
-			saxp.parse(file, this);
+			InputSource source = ReportInput.openSource(file);
+			in = source.getByteStream();
+			saxp.parse(source, this);
 		} catch (IOException ioe) {
 			// ioe.printStackTrace();
 			System.err.println("IO errors occured...");
@@ -234,6 +281,8 @@ public class JenkinsReportParser extends ReportParser {
 			e.printStackTrace();
 			System.err.println("Unknown exception...");
 			throw new UnitTHException("Unknown exception...");
+		} finally {
+			ReportInput.close(in);
 		}
 	}
 
@@ -303,7 +352,7 @@ public class JenkinsReportParser extends ReportParser {
 			// If there are no time stamps included in the report format the
 			// last modification time of the parsed file will be used.
 			/*
-			if (null == currentTestModule.getExecutionDate()) {
+			if (TestItemUtils.NO_TIME_STAMP == currentTestModule.getRunTime()) {
 				long fileLastModified = file.lastModified();
 				currentTestModule.setDate(fileLastModified);
 			}
@@ -27,16 +27,26 @@ package unitth.junit;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import javax.xml.parsers.SAXParser;
 import javax.xml.parsers.SAXParserFactory;
 
 import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
 import org.xml.sax.SAXException;
 
+import unitth.core.ReportInput;
 import unitth.core.ReportParser;
+import unitth.core.TestItemUtils;
 import unitth.core.UnitTH;
 import unitth.core.UnitTHException;
 import unitth.jenkins.JenkinsReportParser;
@@ -71,6 +81,9 @@ public class JUnitReportParser extends ReportParser {
 	private final String c_XML_TAG_PROPERTY_NAME = "name";
 	private final String c_XML_TAG_IGNORE = "skipped";
 
+	/** The folder inside the report folder where parsed runs are cached. */
+	public final static String c_CACHE_DIR = "cache";
+
 	private int currentRunIdx = 0;
 
 	/* Currently parsed element holders. */
@@ -79,6 +92,8 @@ public class JUnitReportParser extends ReportParser {
 	private TestCase currentTestCase = null;
 	private TestHistory history = null;
 	private HashMap<String, TestPackage> parsedTestPackages = null;
+	/* Cache of already parsed runs, null if not used. */
+	private TestRunCache runCache = null;
 
 	/**
 	 * The ReportParser Ctor, creates a new parser and initializes the test
@@ -86,8 +101,16 @@ public class JUnitReportParser extends ReportParser {
 	 */
 	public JUnitReportParser() {
 		try {
-			saxp = saxFactory.newSAXParser();
+			// The factory is shared by all parser instances, including the
+			// ones created by the parsing worker threads.
+			synchronized (saxFactory) {
+				saxp = saxFactory.newSAXParser();
+			}
 			history = new TestHistory();
+			if (UnitTH.useParseCache) {
+				runCache = new TestRunCache(new File(UnitTH.rootFolder,
+						c_CACHE_DIR));
+			}
 		} catch (SAXException t) {
 			System.err.println("Could not create SAX parser... "+t.getMessage());
 			return;
@@ -144,7 +167,8 @@ public class JUnitReportParser extends ReportParser {
 			String str = attrs.getValue(c_XML_TAG_PROPERTY_NAME);
 			if (null != str) {
 				if (str.equals(c_XML_TAG_LAUNCH_TIMESTAMP)
-						&& null == currentTestModule.getExecutionDate()) {
+						&& TestItemUtils.NO_TIME_STAMP == currentTestModule
+								.getRunTime()) {
 					currentTestModule.setDate(attrs
 							.getValue(c_XML_TAG_PROPERTY_VALUE));
 				}
@@ -205,15 +229,24 @@ public class JUnitReportParser extends ReportParser {
 	}
 
 	/**
-	 * This method calls the SAXParser parse method.
+	 * This method calls the SAXParser parse method. The file is read through
+	 * the <code>ReportInput</code> layer and a
+	 * <code>PayloadSkippingInputStream</code> so that the output and stack
+	 * traces in the report are never decoded.
 	 * 
 	 * @param file
 	 *            The file to be parsed.
+	 * @return The parsed test module or null if the file did not contain any.
 	 * @throws UnitTHException
 	 */
-	private void parse(File file) throws UnitTHException {
+	protected TestModule parse(File file) throws UnitTHException {
+		InputStream in = null;
 		try {
-			saxp.parse(file, this);
+			in = new PayloadSkippingInputStream(ReportInput.open(file));
+			InputSource source = new InputSource(in);
+			source.setSystemId(file.toURI().toString());
+			saxp.parse(source, this);
+			return currentTestModule;
 		} catch (IOException ioe) {
 			// ioe.printStackTrace();
 			System.err.println("IO errors occured...");
@@ -224,12 +257,21 @@ public class JUnitReportParser extends ReportParser {
 			e.printStackTrace();
 			System.err.println("Unknown exception...");
 			throw new UnitTHException("Unknown exception...");
+		} finally {
+			try {
+				if (null != in) {
+					in.close();
+				}
+			} catch (IOException ioe) {
+				// void
+			}
 		}
 	}
 
 	/**
 	 * Initiates the parsing of all runs. The method also sets an index for the
-	 * run.
+	 * run. If more than one parser thread has been configured the runs are
+	 * parsed in parallel.
 	 * 
 	 * @param testRunFiles
 	 *            A list of files to be parsed.
@@ -240,21 +282,15 @@ public class JUnitReportParser extends ReportParser {
 	public TestHistory parseRuns(ArrayList<ArrayList<File>> testRunFiles,
 			ArrayList<String> dirs) {
 
+		if (UnitTH.parserThreads > 1 && testRunFiles.size() > 1) {
+			return parseRunsInParallel(testRunFiles, dirs);
+		}
+
 		currentRunIdx = 1; // Counter for the directories list.
 		for (ArrayList<File> files : testRunFiles) {
 			try {
-				currentTestRun = new TestRun();
-				parsedTestPackages = new HashMap<String, TestPackage>();
-				// Populate the current test run object and return
-				// the relative path to the parsed files
-				parseFiles(files);
 				// -1 since the runs are in an array starting at ZERO
-				currentTestRun.setRunPath(dirs.get(currentRunIdx - 1));
-				currentTestRun.addTestPackages(parsedTestPackages);
-				history.addTestRun(currentTestRun);
-
-				currentTestRun = null;
-				parsedTestPackages = null;
+				history.addTestRun(parseRun(files, dirs.get(currentRunIdx - 1)));
 			} catch (UnitTHException jthe) {
 				jthe.printStackTrace();
 			}
@@ -263,6 +299,127 @@ public class JUnitReportParser extends ReportParser {
 		return history;
 	}
 
+	/**
+	 * Parses the runs using a pool of worker threads. Each worker thread gets
+	 * a parser instance of its own so that no SAX parser or element holders
+	 * are shared between threads. The parsed runs are added to the history in
+	 * the same order as they were provided, making the resulting history
+	 * identical to the one of a sequential parse.
+	 * 
+	 * @param testRunFiles
+	 *            A list of files to be parsed.
+	 * @param dirs
+	 *            A list of folders where the files to e parsed can be found.
+	 * @return The filled <code>RunHistory</code> data structure.
+	 */
+	private TestHistory parseRunsInParallel(
+			ArrayList<ArrayList<File>> testRunFiles, ArrayList<String> dirs) {
+
+		int noThreads = Math.min(UnitTH.parserThreads, testRunFiles.size());
+		ExecutorService executor = Executors.newFixedThreadPool(noThreads);
+		final ThreadLocal<JUnitReportParser> workers = new ThreadLocal<JUnitReportParser>() {
+			protected JUnitReportParser initialValue() {
+				return createWorker();
+			}
+		};
+
+		// Only a few runs more than there are threads are parsed ahead of the
+		// run being added, parsed runs do not pile up waiting to be added.
+		int window = 2 * noThreads;
+		ArrayDeque<Future<TestRun>> parsedRuns = new ArrayDeque<Future<TestRun>>();
+		int next = 0;
+		try {
+			while (next < testRunFiles.size() || !parsedRuns.isEmpty()) {
+				while (next < testRunFiles.size() && parsedRuns.size() < window) {
+					final ArrayList<File> files = testRunFiles.get(next);
+					final String dir = dirs.get(next);
+					parsedRuns.add(executor.submit(new Callable<TestRun>() {
+						public TestRun call() {
+							return workers.get().parseRun(files, dir);
+						}
+					}));
+					next++;
+				}
+				Future<TestRun> parsedRun = parsedRuns.removeFirst();
+				try {
+					history.addTestRun(parsedRun.get());
+				} catch (UnitTHException jthe) {
+					jthe.printStackTrace();
+				} catch (ExecutionException ee) {
+					System.err.println("Failed to parse a test run... "
+							+ ee.getCause().getMessage());
+					ee.getCause().printStackTrace();
+				}
+			}
+		} catch (InterruptedException ie) {
+			System.err.println("Interrupted while parsing the test runs.");
+			Thread.currentThread().interrupt();
+		} finally {
+			executor.shutdownNow();
+		}
+		return history;
+	}
+
+	/**
+	 * Sets the history to fold every run into the statistics as soon as it
+	 * has been parsed, see <code>TestHistory.setStreaming</code>.
+	 * 
+	 * @param streaming
+	 *            True to fold the runs in while parsing.
+	 */
+	public void setStreaming(boolean streaming) {
+		history.setStreaming(streaming);
+	}
+
+	/**
+	 * Creates the parser instance to be used by one parsing worker thread.
+	 * Sub classes reading the reports in another way override this method so
+	 * that the workers read the reports the same way.
+	 * 
+	 * @return A new parser instance with no state shared with this one.
+	 */
+	protected JUnitReportParser createWorker() {
+		return new JUnitReportParser();
+	}
+
+	/**
+	 * Parses all the files of one run into a new <code>TestRun</code>. If the
+	 * parse cache is used and the files of the run have not changed since they
+	 * were cached the run is read from the cache instead.
+	 * 
+	 * @param files
+	 *            The files to be parsed.
+	 * @param dir
+	 *            The folder where the files to be parsed can be found.
+	 * @return The parsed test run.
+	 */
+	private TestRun parseRun(ArrayList<File> files, String dir) {
+		if (null != runCache) {
+			TestRun cachedRun = runCache.load(files, dir);
+			if (null != cachedRun) {
+				cachedRun.setRunPath(dir);
+				return cachedRun;
+			}
+		}
+
+		currentTestRun = new TestRun();
+		parsedTestPackages = new HashMap<String, TestPackage>();
+		// Populate the current test run object and return
+		// the relative path to the parsed files
+		parseFiles(files);
+		currentTestRun.setRunPath(dir);
+		currentTestRun.addTestPackages(parsedTestPackages);
+
+		TestRun parsedRun = currentTestRun;
+		currentTestRun = null;
+		parsedTestPackages = null;
+
+		if (null != runCache) {
+			runCache.store(files, dir, parsedRun);
+		}
+		return parsedRun;
+	}
+
 	/**
 	 * Calls parseFile for each of the files in a run.
 	 * 
@@ -289,25 +446,25 @@ public class JUnitReportParser extends ReportParser {
 			System.out.println("Parsing file: " + file.getName());
 		}
 		try {
-			parse(file);
+			TestModule parsedTestModule = parse(file);
 
 			// Check if anything has been parsed at all.
-			if (currentTestModule==null) {
+			if (parsedTestModule==null) {
 				System.err.println("The file '"+file.getAbsolutePath()+"' did not get parsed sucessfully. Expected a JUnit report XML-file.");
 				return;
 			}
 			
 			// If there are no time stamps included in the report format the
 			// last modification time of the parsed file will be used.
-			if (null == currentTestModule.getExecutionDate()) {
+			if (TestItemUtils.NO_TIME_STAMP == parsedTestModule.getRunTime()) {
 				long fileLastModified = file.lastModified();
-				currentTestModule.setDate(fileLastModified);
+				parsedTestModule.setDate(fileLastModified);
 			}
 
-			addToPackage(currentTestModule);
+			addToPackage(parsedTestModule);
 			if (UnitTH.c_DBG) {
-				System.out.println("Module: " + currentTestModule.getName()
-						+ " added to run: " + currentTestModule.toString());
+				System.out.println("Module: " + parsedTestModule.getName()
+						+ " added to run: " + parsedTestModule.toString());
 			}
 
 			// currentTestRun.addTestPackage(parsedTestPackages);
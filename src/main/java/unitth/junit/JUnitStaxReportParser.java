@@ -0,0 +1,321 @@
+/*
+ *    This file is part of UnitTH
+ *
+ *   UnitTH is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   UnitTH is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with UnitTH if not, see <http://www.gnu.org/licenses/>.
+ *
+ * =======================================================================
+ * $Id$
+ * -----------------------------------------------------------------------
+ *
+ * =======================================================================
+ */
+package unitth.junit;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import unitth.core.ReportInput;
+import unitth.core.TestItemUtils;
+import unitth.core.UnitTH;
+import unitth.core.UnitTHException;
+
+/**
+ * This class reads the JUnit report files using a StAX pull parser instead of
+ * the SAX parser used by the <code>JUnitReportParser</code>. Element names are
+ * resolved to an element id with one look up per element and the attributes
+ * of an element are read in one single pass. Everything else, like the
+ * handling of runs, packages and parsing threads, is inherited, so the
+ * produced <code>TestModule</code> and <code>TestCase</code> objects are the
+ * same as the ones from the SAX based parser.
+ *
+ * @author andnyb
+ */
+public class JUnitStaxReportParser extends JUnitReportParser {
+
+	/** The StAX factory used for creating the stream readers. */
+	private static XMLInputFactory staxFactory = XMLInputFactory.newInstance();
+
+	static {
+		// Same as the SAX parser, element names are used as is
+		staxFactory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE,
+				Boolean.FALSE);
+	}
+
+	private final static int c_ELEMENT_TESTSUITE = 1;
+	private final static int c_ELEMENT_PROPERTY = 2;
+	private final static int c_ELEMENT_TESTCASE = 3;
+	private final static int c_ELEMENT_FAILURE = 4;
+	private final static int c_ELEMENT_ERROR = 5;
+	private final static int c_ELEMENT_SKIPPED = 6;
+
+	/*
+	 * Element name to element id. The readers hand out the same interned name
+	 * instances over and over so the look ups mostly end at an identity
+	 * comparison.
+	 */
+	private final static HashMap<String, Integer> c_ELEMENT_IDS = new HashMap<String, Integer>();
+
+	static {
+		c_ELEMENT_IDS.put("testsuite", c_ELEMENT_TESTSUITE);
+		c_ELEMENT_IDS.put("property", c_ELEMENT_PROPERTY);
+		c_ELEMENT_IDS.put("testcase", c_ELEMENT_TESTCASE);
+		c_ELEMENT_IDS.put("failure", c_ELEMENT_FAILURE);
+		c_ELEMENT_IDS.put("error", c_ELEMENT_ERROR);
+		c_ELEMENT_IDS.put("skipped", c_ELEMENT_SKIPPED);
+	}
+
+	private final String c_LAUNCH_TIMESTAMP = "launch.timestamp";
+	private final String c_INITIALIZATION_ERROR = "initializationError";
+
+	/* Currently parsed element holders. */
+	private TestModule currentTestModule = null;
+	private TestCase currentTestCase = null;
+
+	/**
+	 * Creates the parser that will be used by a parsing worker thread.
+	 *
+	 * @see unitth.junit.JUnitReportParser#createWorker()
+	 */
+	protected JUnitReportParser createWorker() {
+		return new JUnitStaxReportParser();
+	}
+
+	/**
+	 * Reads a JUnit report file with a StAX stream reader.
+	 *
+	 * @param file
+	 *            The file to be parsed.
+	 * @return The parsed test module or null if the file did not contain any.
+	 * @throws UnitTHException
+	 */
+	protected TestModule parse(File file) throws UnitTHException {
+		InputStream in = null;
+		XMLStreamReader reader = null;
+		currentTestModule = null;
+		try {
+			in = new PayloadSkippingInputStream(ReportInput.open(file));
+			synchronized (staxFactory) {
+				reader = staxFactory.createXMLStreamReader(in);
+			}
+			while (reader.hasNext()) {
+				int event = reader.next();
+				if (XMLStreamConstants.START_ELEMENT == event) {
+					startElement(reader);
+				} else if (XMLStreamConstants.END_ELEMENT == event) {
+					endElement(reader);
+				}
+			}
+			return currentTestModule;
+		} catch (IOException ioe) {
+			System.err.println("IO errors occured...");
+			throw new UnitTHException("IO errors occured...");
+		} catch (XMLStreamException xmle) {
+			throw new UnitTHException("XMLStreamException ..."
+					+ xmle.getMessage());
+		} catch (Exception e) {
+			e.printStackTrace();
+			System.err.println("Unknown exception...");
+			throw new UnitTHException("Unknown exception...");
+		} finally {
+			close(reader, in);
+		}
+	}
+
+	/*
+	 * Returns the element id of the element the reader is positioned at, zero
+	 * if the element is of no interest.
+	 */
+	private int getElementId(XMLStreamReader reader) {
+		Integer id = c_ELEMENT_IDS.get(reader.getLocalName());
+		return null == id ? 0 : id.intValue();
+	}
+
+	/*
+	 * Handles the start element events, the counter part of the SAX parser
+	 * startElement method.
+	 */
+	private void startElement(XMLStreamReader reader) {
+		switch (getElementId(reader)) {
+		case c_ELEMENT_TESTSUITE:
+			startTestSuite(reader);
+			break;
+		case c_ELEMENT_PROPERTY:
+			startProperty(reader);
+			break;
+		case c_ELEMENT_TESTCASE:
+			startTestCase(reader);
+			break;
+		case c_ELEMENT_FAILURE:
+			currentTestCase.setVerdict(TestCaseVerdict.e_FAIL);
+			break;
+		case c_ELEMENT_ERROR:
+			currentTestCase.setVerdict(TestCaseVerdict.e_ERROR);
+			break;
+		default:
+			// void
+		}
+	}
+
+	/*
+	 * Handles the end element events, the counter part of the SAX parser
+	 * endElement method.
+	 */
+	private void endElement(XMLStreamReader reader) {
+		switch (getElementId(reader)) {
+		case c_ELEMENT_TESTCASE:
+			if (null != currentTestCase) {
+				currentTestModule.addTestCase(currentTestCase);
+			}
+			break;
+		case c_ELEMENT_SKIPPED:
+			if (null != currentTestCase) {
+				currentTestCase.setVerdict(TestCaseVerdict.e_IGNORED);
+			}
+
+			// Entire class has been ignored
+			if (currentTestCase.getName().equals(currentTestModule.getName())) {
+				currentTestModule.setAsIgnored();
+				currentTestModule.setNoTestCases("0");
+			}
+			break;
+		default:
+			// void
+		}
+	}
+
+	private void startTestSuite(XMLStreamReader reader) {
+		String errors = null;
+		String failures = null;
+		String skipped = null;
+		String tests = null;
+		String time = null;
+		String name = null;
+		String timestamp = null;
+
+		for (int i = 0; i < reader.getAttributeCount(); i++) {
+			String attr = reader.getAttributeLocalName(i);
+			if ("name".equals(attr)) {
+				name = reader.getAttributeValue(i);
+			} else if ("tests".equals(attr)) {
+				tests = reader.getAttributeValue(i);
+			} else if ("failures".equals(attr)) {
+				failures = reader.getAttributeValue(i);
+			} else if ("errors".equals(attr)) {
+				errors = reader.getAttributeValue(i);
+			} else if ("skipped".equals(attr)) {
+				skipped = reader.getAttributeValue(i);
+			} else if ("time".equals(attr)) {
+				time = reader.getAttributeValue(i);
+			} else if ("timestamp".equals(attr)) {
+				timestamp = reader.getAttributeValue(i);
+			}
+		}
+
+		currentTestModule = new TestModule();
+		if (null != timestamp) {
+			currentTestModule.setDate(timestamp);
+		}
+		currentTestModule.setNoErrors(errors);
+		currentTestModule.setNoFailures(failures);
+		currentTestModule.setNoIgnored(skipped);
+		currentTestModule.setNoTestCases(tests); // Will be overwritten if the class has been ignored
+		currentTestModule.setExecutionTime(time);
+		currentTestModule.setName(name);
+
+		if (UnitTH.c_DBG) {
+			System.out.println("The attributes of the testsuite element.");
+			System.out.println("errors: " + errors);
+			System.out.println("failures: " + failures);
+			System.out.println("name: " + name);
+			System.out.println("tests: " + tests);
+			System.out.println("time: " + time);
+			System.out.println("timestamp: " + timestamp + "\n");
+		}
+	}
+
+	private void startProperty(XMLStreamReader reader) {
+		String name = null;
+		String value = null;
+		for (int i = 0; i < reader.getAttributeCount(); i++) {
+			String attr = reader.getAttributeLocalName(i);
+			if ("name".equals(attr)) {
+				name = reader.getAttributeValue(i);
+			} else if ("value".equals(attr)) {
+				value = reader.getAttributeValue(i);
+			}
+		}
+		if (c_LAUNCH_TIMESTAMP.equals(name)
+				&& TestItemUtils.NO_TIME_STAMP == currentTestModule
+						.getRunTime()) {
+			currentTestModule.setDate(value);
+		}
+	}
+
+	private void startTestCase(XMLStreamReader reader) {
+		String name = null;
+		String className = null;
+		String time = null;
+		for (int i = 0; i < reader.getAttributeCount(); i++) {
+			String attr = reader.getAttributeLocalName(i);
+			if ("name".equals(attr)) {
+				name = reader.getAttributeValue(i);
+			} else if ("classname".equals(attr)) {
+				className = reader.getAttributeValue(i);
+			} else if ("time".equals(attr)) {
+				time = reader.getAttributeValue(i);
+			}
+		}
+
+		if (!name.equalsIgnoreCase(c_INITIALIZATION_ERROR)) {
+			currentTestCase = new TestCase();
+			currentTestCase.setName(name);
+			// If a class name has not been provided for the test case the
+			// test module name can be used instead.
+			currentTestCase.setClassName(className != null ? className
+					: currentTestModule.getName());
+			currentTestCase.setModuleName(currentTestModule.getName());
+			currentTestCase.setExecutionTime(time);
+		}
+	}
+
+	/*
+	 * Closes the reader and the underlying stream, the reader does not close
+	 * the stream by itself.
+	 */
+	private void close(XMLStreamReader reader, InputStream in) {
+		try {
+			if (null != reader) {
+				reader.close();
+			}
+		} catch (XMLStreamException xmle) {
+			// void
+		}
+		try {
+			if (null != in) {
+				in.close();
+			}
+		} catch (IOException ioe) {
+			// void
+		}
+	}
+}
+
+/* eof */
@@ -0,0 +1,168 @@
+/*
+ *    This file is part of UnitTH
+ *
+ *   UnitTH is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   UnitTH is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with UnitTH if not, see <http://www.gnu.org/licenses/>.
+ *
+ * =======================================================================
+ * $Id$
+ * -----------------------------------------------------------------------
+ *
+ * =======================================================================
+ */
+package unitth.junit;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.HashMap;
+
+/**
+ * This class is the name dictionary of a test history. Every distinct package,
+ * module, class and test case name is stored once and given an integer id,
+ * and every distinct test case, a module, class and test case name triple,
+ * is given a test case id of its own. Test case ids are handed out from 0 and
+ * up without gaps so they can be used as indexes.
+ * <p>
+ * The names of the parsed runs are replaced by the stored instances when the
+ * runs are added to the history, so that a name repeated in every run is only
+ * kept once.
+ *
+ * @author andnyb
+ */
+public class NameTable implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	/** The id of a name that is not set. */
+	public static final int NO_NAME = -1;
+
+	private ArrayList<String> names = new ArrayList<String>();
+	private HashMap<String, Integer> nameIds = new HashMap<String, Integer>();
+	/* Module and class name id pair to class id. */
+	private HashMap<Long, Integer> classIds = new HashMap<Long, Integer>();
+	/* Class id and test case name id pair to test case id. */
+	private HashMap<Long, Integer> testCaseIds = new HashMap<Long, Integer>();
+
+	/**
+	 * Returns the id of a name, the name is added if it is not already in the
+	 * table.
+	 *
+	 * @param name
+	 *            The name to get the id for.
+	 * @return The id of the name or <code>NO_NAME</code> for null.
+	 */
+	public int getId(String name) {
+		if (null == name) {
+			return NO_NAME;
+		}
+		Integer id = nameIds.get(name);
+		if (null == id) {
+			id = names.size();
+			names.add(name);
+			nameIds.put(name, id);
+		}
+		return id;
+	}
+
+	/**
+	 * Returns the name with a given id.
+	 *
+	 * @param id
+	 *            The name id.
+	 * @return The name or null for <code>NO_NAME</code>.
+	 */
+	public String getName(int id) {
+		if (NO_NAME == id) {
+			return null;
+		}
+		return names.get(id);
+	}
+
+	/**
+	 * Returns the stored instance of a name, the name is added if it is not
+	 * already in the table.
+	 *
+	 * @param name
+	 *            The name to look up.
+	 * @return The stored name equal to the given name.
+	 */
+	public String intern(String name) {
+		return getName(getId(name));
+	}
+
+	/**
+	 * Returns the id of a test case, a new id is handed out for a test case
+	 * that is not already in the table.
+	 *
+	 * @param moduleId
+	 *            The name id of the module name of the test case.
+	 * @param classId
+	 *            The name id of the class name of the test case.
+	 * @param nameId
+	 *            The name id of the test case name.
+	 * @return The test case id.
+	 */
+	public int getTestCaseId(int moduleId, int classId, int nameId) {
+		return getPairId(testCaseIds, getPairId(classIds, moduleId, classId),
+				nameId);
+	}
+
+	/**
+	 * Looks up the id of a test case without adding it to the table.
+	 *
+	 * @param moduleName
+	 *            The module name of the test case.
+	 * @param className
+	 *            The class name of the test case.
+	 * @param name
+	 *            The test case name.
+	 * @return The test case id or <code>NO_NAME</code> if the test case is not
+	 *         in the table.
+	 */
+	public int findTestCaseId(String moduleName, String className, String name) {
+		Integer moduleId = nameIds.get(moduleName);
+		Integer classId = nameIds.get(className);
+		Integer nameId = nameIds.get(name);
+		if (null == moduleId || null == classId || null == nameId) {
+			return NO_NAME;
+		}
+		Integer id = classIds.get(getPairKey(moduleId, classId));
+		if (null != id) {
+			id = testCaseIds.get(getPairKey(id, nameId));
+		}
+		return null == id ? NO_NAME : id;
+	}
+
+	/**
+	 * @return The number of distinct test cases, also the next test case id.
+	 */
+	public int getNoTestCases() {
+		return testCaseIds.size();
+	}
+
+	private int getPairId(HashMap<Long, Integer> ids, int first, int second) {
+		Long key = getPairKey(first, second);
+		Integer id = ids.get(key);
+		if (null == id) {
+			id = ids.size();
+			ids.put(key, id);
+		}
+		return id;
+	}
+
+	private Long getPairKey(int first, int second) {
+		return ((long) first << 32) | (second & 0xffffffffL);
+	}
+}
+
+/* eof */
@@ -0,0 +1,458 @@
+/*
+ *    This file is part of UnitTH
+ *
+ *   UnitTH is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   UnitTH is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with UnitTH if not, see <http://www.gnu.org/licenses/>.
+ *
+ * =======================================================================
+ * $Id$
+ * -----------------------------------------------------------------------
+ *
+ * =======================================================================
+ */
+package unitth.junit;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * This stream sits between a JUnit report file and the XML parser and drops
+ * the parts of the report that are never used, before they are decoded into
+ * characters. The content of the system-out, system-err, failure and error
+ * elements, the captured output and the stack traces, is left out while the
+ * start and end tags are kept, so the parser still sees every element that
+ * the statistics are made from. Of a properties element only the
+ * launch.timestamp property is kept.
+ * <p>
+ * The report is scanned byte by byte, comments and CDATA sections are
+ * recognized so that markup inside them is not mistaken for tags. Only
+ * encodings where the markup characters are single ASCII bytes, like UTF-8
+ * and ISO-8859-1, are filtered. UTF-16 reports are passed on as they are.
+ *
+ * @author andnyb
+ */
+public class PayloadSkippingInputStream extends FilterInputStream {
+
+	/* The elements whose content is left out. */
+	private static final byte[][] c_SKIPPED = { bytes("system-out"),
+			bytes("system-err"), bytes("failure"), bytes("error") };
+	private static final byte[] c_PROPERTIES = bytes("properties");
+	private static final byte[] c_PROPERTY = bytes("property");
+	private static final byte[] c_NAME = bytes("name");
+	private static final byte[] c_LAUNCH_TIMESTAMP = bytes("launch.timestamp");
+	private static final byte[] c_COMMENT = bytes("--");
+	private static final byte[] c_CDATA = bytes("[CDATA[");
+
+	/* What is done with the bytes read. */
+	private static final int c_PASS = 0; // Passed on
+	private static final int c_SKIP = 1; // Left out, inside a skipped element
+	private static final int c_PROPS = 2; // Left out, inside properties
+	private static final int c_OFF = 3; // Passed on, filtering not possible
+
+	/* Where in the markup the scan is. */
+	private static final int c_TEXT = 0;
+	private static final int c_LT = 1; // After a '<'
+	private static final int c_NAME_STATE = 2; // In the name of a tag
+	private static final int c_TAG = 3; // In a tag after its name
+	private static final int c_BANG = 4; // After a "<!"
+	private static final int c_IN_COMMENT = 5;
+	private static final int c_IN_CDATA = 6;
+
+	private static final int c_MAX_NAME = 32;
+
+	private int mode = c_PASS;
+	private int state = c_TEXT;
+	private boolean first = true;
+
+	/* The name of the current tag, including the '/' of an end tag. */
+	private byte[] name = new byte[c_MAX_NAME];
+	private int nameLen = 0;
+	private byte[] bang = new byte[c_CDATA.length];
+	private int bangLen = 0;
+	private int quote = 0;
+	private int lastNonSpace = 0;
+	private int endChars = 0; // Dashes or brackets seen in a row
+
+	/* The element whose content is left out and how deep in it the scan is. */
+	private byte[] target = null;
+	private int depth = 0;
+	private boolean launchTimestampKept = false;
+	/* The current tag, only kept inside properties. */
+	private byte[] tag = new byte[256];
+	private int tagLen = 0;
+
+	private byte[] inBuf = new byte[64 * 1024];
+	private byte[] outBuf = new byte[64 * 1024];
+	private int outPos = 0;
+	private int outEnd = 0;
+	private byte[] single = new byte[1];
+
+	/**
+	 * CTOR
+	 *
+	 * @param in
+	 *            The report to read.
+	 */
+	public PayloadSkippingInputStream(InputStream in) {
+		super(in);
+	}
+
+	public int read() throws IOException {
+		return -1 == read(single, 0, 1) ? -1 : single[0] & 0xff;
+	}
+
+	public int read(byte[] b, int off, int len) throws IOException {
+		if (0 == len) {
+			return 0;
+		}
+		while (outPos == outEnd) {
+			if (!fill()) {
+				return -1;
+			}
+		}
+		int n = Math.min(len, outEnd - outPos);
+		System.arraycopy(outBuf, outPos, b, off, n);
+		outPos += n;
+		return n;
+	}
+
+	public long skip(long n) throws IOException {
+		byte[] b = new byte[4096];
+		long skipped = 0;
+		while (skipped < n) {
+			int read = read(b, 0, (int) Math.min(b.length, n - skipped));
+			if (-1 == read) {
+				break;
+			}
+			skipped += read;
+		}
+		return skipped;
+	}
+
+	public int available() throws IOException {
+		return outEnd - outPos;
+	}
+
+	public boolean markSupported() {
+		return false;
+	}
+
+	public void mark(int readlimit) {
+		// void
+	}
+
+	public void reset() throws IOException {
+		throw new IOException("mark/reset not supported");
+	}
+
+	/*
+	 * Reads the next chunk of the report and filters it. Returns false at
+	 * the end of the report.
+	 */
+	private boolean fill() throws IOException {
+		int n = in.read(inBuf, 0, inBuf.length);
+		if (-1 == n) {
+			return false;
+		}
+		outPos = 0;
+		outEnd = 0;
+		if (first && 0 < n) {
+			first = false;
+			if (1 < n && isUtf16(inBuf[0] & 0xff, inBuf[1] & 0xff)) {
+				mode = c_OFF;
+			}
+		}
+		if (c_OFF == mode) {
+			System.arraycopy(inBuf, 0, outBuf, 0, n);
+			outEnd = n;
+			return true;
+		}
+		for (int i = 0; i < n; i++) {
+			scan(inBuf[i] & 0xff);
+		}
+		return true;
+	}
+
+	/*
+	 * Moves the scan one byte forward.
+	 */
+	private void scan(int c) {
+		if (c_PASS == mode) {
+			emit(c);
+		}
+		switch (state) {
+		case c_TEXT:
+			if ('<' == c) {
+				state = c_LT;
+				tagLen = 0;
+				keep(c);
+			}
+			break;
+		case c_LT:
+			keep(c);
+			if ('!' == c) {
+				state = c_BANG;
+				bangLen = 0;
+			} else if ('?' == c) {
+				nameLen = 0;
+				startTag();
+			} else {
+				nameLen = 0;
+				name[nameLen++] = (byte) c;
+				state = c_NAME_STATE;
+			}
+			break;
+		case c_NAME_STATE:
+			keep(c);
+			if (c <= ' ' || '/' == c || '>' == c) {
+				startTag();
+				tagByte(c);
+			} else if (nameLen < c_MAX_NAME) {
+				name[nameLen++] = (byte) c;
+			} else {
+				nameLen = c_MAX_NAME + 1; // Too long to be of interest
+			}
+			break;
+		case c_TAG:
+			keep(c);
+			tagByte(c);
+			break;
+		case c_BANG:
+			keep(c);
+			bang[bangLen++] = (byte) c;
+			if (isPrefix(bang, bangLen, c_COMMENT)) {
+				if (bangLen == c_COMMENT.length) {
+					state = c_IN_COMMENT;
+					endChars = 0;
+				}
+			} else if (isPrefix(bang, bangLen, c_CDATA)) {
+				if (bangLen == c_CDATA.length) {
+					state = c_IN_CDATA;
+					endChars = 0;
+				}
+			} else {
+				// Some other declaration
+				nameLen = 0;
+				startTag();
+				tagByte(c);
+			}
+			break;
+		case c_IN_COMMENT:
+			if ('>' == c && 2 <= endChars) {
+				state = c_TEXT;
+			}
+			endChars = '-' == c ? endChars + 1 : 0;
+			break;
+		case c_IN_CDATA:
+			if ('>' == c && 2 <= endChars) {
+				state = c_TEXT;
+			}
+			endChars = ']' == c ? endChars + 1 : 0;
+			break;
+		}
+	}
+
+	private void startTag() {
+		state = c_TAG;
+		quote = 0;
+		lastNonSpace = 0;
+	}
+
+	/*
+	 * Scans a byte of a tag after its name. Attribute values may contain a
+	 * '>' so quotes are followed.
+	 */
+	private void tagByte(int c) {
+		if (0 != quote) {
+			if (quote == c) {
+				quote = 0;
+			}
+			lastNonSpace = c;
+		} else if ('"' == c || '\'' == c) {
+			quote = c;
+			lastNonSpace = c;
+		} else if ('>' == c) {
+			state = c_TEXT;
+			endOfTag('/' == lastNonSpace);
+		} else if (' ' < c) {
+			lastNonSpace = c;
+		}
+	}
+
+	/*
+	 * Decides what to do with the following bytes once a tag is complete.
+	 */
+	private void endOfTag(boolean emptyElement) {
+		boolean endTag = 0 < nameLen && '/' == name[0];
+		if (c_PASS == mode) {
+			if (endTag || emptyElement) {
+				return;
+			}
+			for (byte[] skipped : c_SKIPPED) {
+				if (isName(skipped, 0)) {
+					enter(c_SKIP, skipped);
+					return;
+				}
+			}
+			if (isName(c_PROPERTIES, 0)) {
+				enter(c_PROPS, c_PROPERTIES);
+				launchTimestampKept = false;
+			}
+		} else if (endTag && isName(target, 1)) {
+			if (0 < depth) {
+				depth--;
+			} else {
+				emit('<');
+				emit('/');
+				for (byte b : target) {
+					emit(b);
+				}
+				emit('>');
+				mode = c_PASS;
+			}
+		} else if (!endTag && isName(target, 0)) {
+			if (!emptyElement) {
+				depth++;
+			}
+		} else if (c_PROPS == mode && !endTag && !launchTimestampKept
+				&& isName(c_PROPERTY, 0) && isLaunchTimestamp()) {
+			// Kept as an empty element, its end tag is left out
+			int len = emptyElement ? tagLen : tagLen - 1;
+			for (int i = 0; i < len; i++) {
+				emit(tag[i]);
+			}
+			if (!emptyElement) {
+				emit('/');
+				emit('>');
+			}
+			launchTimestampKept = true;
+		}
+	}
+
+	private void enter(int newMode, byte[] element) {
+		mode = newMode;
+		target = element;
+		depth = 0;
+	}
+
+	/*
+	 * Checks if the current tag has a name attribute that is
+	 * launch.timestamp.
+	 */
+	private boolean isLaunchTimestamp() {
+		for (int i = 1; i + c_NAME.length < tagLen; i++) {
+			if (tag[i - 1] > ' ' || !startsWith(tag, i, c_NAME)) {
+				continue;
+			}
+			int j = skipSpace(i + c_NAME.length);
+			if (j >= tagLen || '=' != tag[j]) {
+				continue;
+			}
+			j = skipSpace(j + 1);
+			if (j >= tagLen || ('"' != tag[j] && '\'' != tag[j])) {
+				continue;
+			}
+			int k = j + 1 + c_LAUNCH_TIMESTAMP.length;
+			if (k < tagLen && tag[k] == tag[j]
+					&& startsWith(tag, j + 1, c_LAUNCH_TIMESTAMP)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private int skipSpace(int i) {
+		while (i < tagLen && tag[i] <= ' ') {
+			i++;
+		}
+		return i;
+	}
+
+	private boolean isName(byte[] element, int offset) {
+		return nameLen - offset == element.length
+				&& startsWith(name, offset, element);
+	}
+
+	/*
+	 * Keeps the bytes of a tag inside properties, they are only known to be
+	 * needed once the whole tag has been read.
+	 */
+	private void keep(int c) {
+		if (c_PROPS != mode) {
+			return;
+		}
+		if (tagLen == tag.length) {
+			byte[] newTag = new byte[tag.length * 2];
+			System.arraycopy(tag, 0, newTag, 0, tagLen);
+			tag = newTag;
+		}
+		tag[tagLen++] = (byte) c;
+	}
+
+	private void emit(int c) {
+		if (outEnd == outBuf.length) {
+			byte[] newOutBuf = new byte[outBuf.length * 2];
+			System.arraycopy(outBuf, 0, newOutBuf, 0, outEnd);
+			outBuf = newOutBuf;
+		}
+		outBuf[outEnd++] = (byte) c;
+	}
+
+	/*
+	 * Checks if the bytes from an offset start with a prefix, the caller
+	 * makes sure there are enough bytes.
+	 */
+	private static boolean startsWith(byte[] b, int offset, byte[] prefix) {
+		for (int i = 0; i < prefix.length; i++) {
+			if (b[offset + i] != prefix[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/*
+	 * Checks if the first bytes are the start of a longer sequence.
+	 */
+	private static boolean isPrefix(byte[] b, int len, byte[] of) {
+		if (len > of.length) {
+			return false;
+		}
+		for (int i = 0; i < len; i++) {
+			if (b[i] != of[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/*
+	 * A report starting with a byte order mark or a '<' in two bytes is
+	 * UTF-16.
+	 */
+	private static boolean isUtf16(int b0, int b1) {
+		return (0xfe == b0 && 0xff == b1) || (0xff == b0 && 0xfe == b1)
+				|| (0 == b0 && '<' == b1) || ('<' == b0 && 0 == b1);
+	}
+
+	private static byte[] bytes(String s) {
+		byte[] b = new byte[s.length()];
+		for (int i = 0; i < b.length; i++) {
+			b[i] = (byte) s.charAt(i);
+		}
+		return b;
+	}
+}
+
+/* eof */
@@ -0,0 +1,153 @@
+/*
+ *    This file is part of UnitTH
+ *
+ *   UnitTH is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   UnitTH is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with UnitTH if not, see <http://www.gnu.org/licenses/>.
+ *
+ * =======================================================================
+ * $Id$
+ * -----------------------------------------------------------------------
+ *
+ * =======================================================================
+ */
+package unitth.junit;
+
+import java.io.Serializable;
+import java.util.BitSet;
+
+/**
+ * This class holds the per run statistics of a test run, package or module
+ * as one primitive array per statistic, indexed by the run index. The arrays
+ * are filled in when the history is calculated so that the graphs can be
+ * drawn without looking up the package or module in every single run.
+ *
+ * @author andnyb
+ */
+public class RunSeries implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	/* Run index n is stored at n - 1. */
+	private BitSet inRun = new BitSet();
+	private double[] passPct = new double[0];
+	private int[] noTestCases = new int[0];
+	private int[] noNonPass = new int[0];
+	private double[] executionTime = new double[0];
+
+	/**
+	 * Sets the statistics for one run.
+	 *
+	 * @param runIdx
+	 *            The run index, 1 for the oldest run.
+	 * @param pct
+	 *            The pass rate.
+	 * @param tcs
+	 *            The number of test cases.
+	 * @param nonPass
+	 *            The number of failed and error test cases.
+	 * @param time
+	 *            The execution time.
+	 */
+	public void set(int runIdx, double pct, int tcs, int nonPass, double time) {
+		int i = runIdx - 1;
+		if (i >= passPct.length) {
+			int size = Math.max(runIdx, passPct.length * 2);
+			double[] newPassPct = new double[size];
+			int[] newNoTestCases = new int[size];
+			int[] newNoNonPass = new int[size];
+			double[] newExecutionTime = new double[size];
+			System.arraycopy(passPct, 0, newPassPct, 0, passPct.length);
+			System.arraycopy(noTestCases, 0, newNoTestCases, 0,
+					noTestCases.length);
+			System.arraycopy(noNonPass, 0, newNoNonPass, 0, noNonPass.length);
+			System.arraycopy(executionTime, 0, newExecutionTime, 0,
+					executionTime.length);
+			passPct = newPassPct;
+			noTestCases = newNoTestCases;
+			noNonPass = newNoNonPass;
+			executionTime = newExecutionTime;
+		}
+		inRun.set(i);
+		passPct[i] = pct;
+		noTestCases[i] = tcs;
+		noNonPass[i] = nonPass;
+		executionTime[i] = time;
+	}
+
+	/**
+	 * Moves the statistics of every run to a new run index.
+	 *
+	 * @param newIdxs
+	 *            The new run index of every current run index.
+	 */
+	public void reindex(int[] newIdxs) {
+		RunSeries moved = new RunSeries();
+		for (int i = inRun.nextSetBit(0); i >= 0; i = inRun.nextSetBit(i + 1)) {
+			moved.set(newIdxs[i + 1], passPct[i], noTestCases[i],
+					noNonPass[i], executionTime[i]);
+		}
+		inRun = moved.inRun;
+		passPct = moved.passPct;
+		noTestCases = moved.noTestCases;
+		noNonPass = moved.noNonPass;
+		executionTime = moved.executionTime;
+	}
+
+	/**
+	 * @param runIdx
+	 *            The run index.
+	 * @return True if there are statistics for the run.
+	 */
+	public boolean isInRun(int runIdx) {
+		return 0 < runIdx && inRun.get(runIdx - 1);
+	}
+
+	/**
+	 * @param runIdx
+	 *            The run index.
+	 * @return The pass rate in the run, 0.0 if not in the run.
+	 */
+	public double getPassPct(int runIdx) {
+		return isInRun(runIdx) ? passPct[runIdx - 1] : 0.0;
+	}
+
+	/**
+	 * @param runIdx
+	 *            The run index.
+	 * @return The number of test cases in the run, 0 if not in the run.
+	 */
+	public int getNoTestCases(int runIdx) {
+		return isInRun(runIdx) ? noTestCases[runIdx - 1] : 0;
+	}
+
+	/**
+	 * @param runIdx
+	 *            The run index.
+	 * @return The number of failed and error test cases in the run, 0 if not
+	 *         in the run.
+	 */
+	public int getNoNonPass(int runIdx) {
+		return isInRun(runIdx) ? noNonPass[runIdx - 1] : 0;
+	}
+
+	/**
+	 * @param runIdx
+	 *            The run index.
+	 * @return The execution time in the run, 0.0 if not in the run.
+	 */
+	public double getExecutionTime(int runIdx) {
+		return isInRun(runIdx) ? executionTime[runIdx - 1] : 0.0;
+	}
+}
+
+/* eof */
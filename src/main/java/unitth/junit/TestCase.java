@@ -33,9 +33,13 @@ package unitth.junit;
  */
 public class TestCase extends TestItem {
 
+	private static final long serialVersionUID = 1L;
+
 	private TestCaseVerdict verdict;
 	private String className;
 	private String moduleName;
+	/* The test case id in the name table of the history. */
+	private int id = NameTable.NO_NAME;
 
 	/**
 	 * Ctor, sets the initial verdict to pass
@@ -72,6 +76,30 @@ public class TestCase extends TestItem {
 		return moduleName + "::" + className + "::" + name;
 	}
 	
+	/**
+	 * Returns the test case id, set when the test case is added to a history.
+	 * Test cases with the same full name have the same id.
+	 * 
+	 * @return The test case id.
+	 */
+	public int getId() {
+		return id;
+	}
+
+	/*
+	 * Replaces the names with the ones stored in the name table and sets the
+	 * test case id.
+	 */
+	void internNames(NameTable names) {
+		int nameId = names.getId(name);
+		int classId = names.getId(className);
+		int moduleId = names.getId(moduleName);
+		name = names.getName(nameId);
+		className = names.getName(classId);
+		moduleName = names.getName(moduleId);
+		id = names.getTestCaseId(moduleId, classId, nameId);
+	}
+
 	/**
 	 * Returns the verdict of the test case.
 	 * 
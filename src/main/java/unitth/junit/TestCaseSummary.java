@@ -28,25 +28,29 @@ import unitth.core.UnitTHException;
 
 /**
  * This class represents a summary for a <code>TestCase</code> objects execution
- * in all runs. The class contains a <code>HashMap</code> where the test case
- * execution spread is stored. The key is the run id integer.
+ * in all runs. The test case execution spread is stored in a packed
+ * <code>VerdictSpread</code> indexed by the run id integer.
  * 
  * @author andnyb
  */
 public class TestCaseSummary extends TestItemSummary {
 
+	private static final long serialVersionUID = 1L;
+
 	private String storedModuleName = "UNDEF";
 	private String className = "UNDEF";
 	private String tcName = "UNDEF";
+	/* The test case id in the name table of the history. */
+	private int id = NameTable.NO_NAME;
 
 	/**
-	 * Container for the test case spread. The key is the test run id and the
+	 * Container for the test case spread. The index is the test run id and the
 	 * verdict can be any of the following.
 	 * 
 	 * <code>TestCaseVerdict.e_PASS</code> <code>TestCaseVerdict.e_FAIL</code>
 	 * <code>TestCaseVerdict.e_ERROR</code> <code>TestCaseVerdict.e_NORUN</code>
 	 */
-	private HashMap<Integer, TestCaseVerdict> spread = null;
+	private VerdictSpread spread = null;
 
     /**
      * Ctor, takes test case as inparameter and starts calculating stats for the
@@ -60,6 +64,7 @@ public class TestCaseSummary extends TestItemSummary {
      */
     public TestCaseSummary(TestCase tc, int idx) {
 	name = tc.getFullName();
+	id = tc.getId();
 	tcName = tc.getName();
 	className = tc.getClassName();
 	storedModuleName = tc.getModuleName();
@@ -74,7 +79,7 @@ public class TestCaseSummary extends TestItemSummary {
 	    noIgnored = 1;
 	}
 	sumExecutionTime = tc.getExecutionTimeDouble();
-	spread = new HashMap<Integer, TestCaseVerdict>();
+	spread = new VerdictSpread();
 	addRunIdx(idx, tc.getVerdict());
     }
 
@@ -89,7 +94,7 @@ public class TestCaseSummary extends TestItemSummary {
 	 * @throws UnitTHException
 	 */
     public void increment(TestCase tc, int idx) throws UnitTHException {
-	if (name.equals(tc.getFullName())) {
+	if (id == tc.getId()) {
 	    noRuns++;
 	    if (tc.getVerdict() == TestCaseVerdict.e_PASS) {
 		noPassed++;
@@ -109,6 +114,22 @@ public class TestCaseSummary extends TestItemSummary {
 	}
     }
 
+	/**
+	 * Returns the test case id.
+	 * 
+	 * @return The test case id.
+	 */
+	public int getId() {
+		return id;
+	}
+
+	/*
+	 * Moves the verdicts to new run indexes.
+	 */
+	void reindex(int[] newIdxs) {
+		spread.reindex(newIdxs);
+	}
+
 	/**
 	 * This method adds a verdict to specific index in the spread collection.
 	 * 
@@ -118,7 +139,7 @@ public class TestCaseSummary extends TestItemSummary {
 	 *            The verdict to set.
 	 */
 	private void addRunIdx(int idx, TestCaseVerdict verdict) {
-		spread.put(idx, verdict);
+		spread.set(idx, verdict);
 	}
 
 	/**
@@ -149,13 +170,14 @@ public class TestCaseSummary extends TestItemSummary {
 	}
 
 	/**
-	 * Returns the <code>HashMap</code> object representing the test case
-	 * verdict spread.
+	 * Returns a <code>HashMap</code> object representing the test case
+	 * verdict spread. The map is built from the packed spread on each call,
+	 * use <code>getSpreadAt</code> when looking at single runs.
 	 * 
 	 * @return The test case verdict spread.
 	 */
 	public HashMap<Integer, TestCaseVerdict> getSpread() {
-		return spread;
+		return spread.toMap();
 	}
 
 	/**
@@ -189,19 +211,19 @@ public class TestCaseSummary extends TestItemSummary {
 	//
 	// TODO, VX.XNever used. Find a better for inheritance here.
 	//
-	protected String getFnTrend(long trendInterval) {
+	protected String getFnTrend(int window) {
 		return "";
 	}
 
-	protected String getTcTrend(long trendInterval) {
+	protected String getTcTrend(int window) {
 		return "";
 	}
 
-	protected String getPrTrend(long trendInterval) {
+	protected String getPrTrend(int window) {
 		return "";
 	}
 
-	protected String getPrDiff(int runs, int idx) {
+	protected String getPrDiff(int window) {
 		return "";
 	}
 
@@ -24,13 +24,20 @@
 
 package unitth.junit;
 
+import java.io.Serializable;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
 import java.util.TreeMap;
 import java.util.TreeSet;
 
-import unitth.core.CustomStringLengthComparator;
+import unitth.core.PackageTree;
 import unitth.core.RunHistory;
 import unitth.core.TestItemUtils;
 import unitth.core.UnitTH;
@@ -47,7 +54,9 @@ import unitth.core.UnitTHException;
  * 
  * @author andnyb
  */
-public class TestHistory extends RunHistory {
+public class TestHistory extends RunHistory implements Serializable {
+
+	private static final long serialVersionUID = 1L;
 
 	private TreeSet<TestRun> history = null;
 	private TreeSet<TestRun> sortedHistory = null;
@@ -61,6 +70,48 @@ public class TestHistory extends RunHistory {
 	private int largestNumberOfErrors = 0; // In a test run
 	private int largestNumberOfNonPass = 0; // In a test run
 	private double largestExecutionTime = 0.0;
+	private double sumOfPassRates = 0.0;
+
+	/*
+	 * The runs in the history by run index, the run with index n is stored at
+	 * n - 1. Built when the statistics are calculated and extended when runs
+	 * are appended, this is what run lookups by index use instead of
+	 * searching the history.
+	 */
+	private TestRun[] runIndex = null;
+
+	/*
+	 * The statistics of every run by run index, what the main graphs are
+	 * drawn from.
+	 */
+	private RunSeries runSeries = new RunSeries();
+
+	/*
+	 * The trends of the history. The trends of the history, packages and
+	 * modules are calculated together each time the history has been
+	 * calculated or read back, the time trends counted from that point in
+	 * time.
+	 */
+	private transient Trends trends = null;
+
+	/*
+	 * The test case summaries of each module and package, in the same order
+	 * as in the test case summary collection. A test case is listed under
+	 * both its class name and its module name, and under its package and
+	 * all parent packages. Stored with the history, appended runs only add
+	 * their new test cases.
+	 */
+	private HashMap<String, ArrayList<TestCaseSummary>> moduleTestCases = null;
+	private HashMap<String, ArrayList<TestCaseSummary>> packageTestCases = null;
+
+	/*
+	 * The order of the test case summary collection, on the full name.
+	 */
+	private static final Comparator<TestCaseSummary> c_NAME_ORDER = new Comparator<TestCaseSummary>() {
+		public int compare(TestCaseSummary tcs1, TestCaseSummary tcs2) {
+			return tcs1.getName().compareTo(tcs2.getName());
+		}
+	};
 
 	/*
 	 * This <code>TreeMap</code> stores a number of summaries for all the test
@@ -72,13 +123,18 @@ public class TestHistory extends RunHistory {
 	private TreeMap<String, TestModuleSummary> testModuleSummaries = new TreeMap<String, TestModuleSummary>();
 
 	/*
-	 * This <code>TreeMap</code> stores a number of summaries for all the test
-	 * modules found in the JUnit reports. These summaries are created while
-	 * running through all the saved statistics. The reason for using a summary
-	 * object is to avoid having to parse all the stored statistics every time
-	 * some statistics regarding a module needs to be fetched.
+	 * The names of all packages, modules and test cases in the history. The
+	 * runs added to the history share the names stored here.
 	 */
-	private TreeMap<String, TestCaseSummary> testCaseSummaries = new TreeMap<String, TestCaseSummary>();
+	private NameTable names = new NameTable();
+
+	/*
+	 * This list stores the summaries for all the test cases found in the
+	 * JUnit reports, indexed by test case id. These summaries are created
+	 * while running through all the saved statistics. The summaries sorted by
+	 * name are only put together when asked for.
+	 */
+	private ArrayList<TestCaseSummary> testCaseSummaries = new ArrayList<TestCaseSummary>();
 
 	/*
 	 * This <code>TreeMap</code> stores a number of summaries for all the test
@@ -93,7 +149,8 @@ public class TestHistory extends RunHistory {
 	 * This is the attribute that stores the time stamp for the last parsed
 	 * module.
 	 */
-	private String lastRunStr = "0";
+	private long lastRunTime = TestItemUtils.NO_TIME_STAMP;
+	private int lastRunTimeOffset = 0;
 
 	/*
 	 * Simple counters for some of the test history statistics.
@@ -104,6 +161,12 @@ public class TestHistory extends RunHistory {
 	private int noErrorTestCases = 0;
 	private double execTimeSum = 0.0;
 
+	/*
+	 * In streaming mode every run is folded into the statistics when it is
+	 * added, and its test cases are dropped.
+	 */
+	private transient boolean streaming = false;
+
 	/**
 	 * Constructor that creates the empty history.
 	 */
@@ -111,6 +174,27 @@ public class TestHistory extends RunHistory {
 		history = new TreeSet<TestRun>();
 	}
 
+	/**
+	 * Sets the history in streaming mode, must be done before the first run
+	 * is added. In streaming mode every added run is calculated and folded
+	 * into the summaries right away, after which the test cases of the run
+	 * are dropped. Only the statistics of the packages and modules of each
+	 * run are kept, so the memory needed grows with the number of unique
+	 * test cases rather than with the number of runs times the number of
+	 * test cases.
+	 * <p>
+	 * The runs are given their final run indexes when the statistics are
+	 * calculated, once all runs have been added. Since the runs are summed
+	 * up in the order they were added, averages may differ in the last
+	 * digits from a history calculated the usual way.
+	 * 
+	 * @param streaming
+	 *            True for streaming mode.
+	 */
+	public void setStreaming(boolean streaming) {
+		this.streaming = streaming;
+	}
+
 	/**
 	 * Adds a parsed test run to the history
 	 * 
@@ -119,11 +203,97 @@ public class TestHistory extends RunHistory {
 	 * @throws UnitTHException
 	 */
 	public void addTestRun(TestRun run) throws UnitTHException {
-		if (null != history) {
-			history.add(run);
-		} else {
+		if (null == history) {
 			throw new UnitTHException("The history TreeSet was null!");
 		}
+		if (streaming) {
+			foldTestRun(run);
+		} else {
+			history.add(run);
+		}
+	}
+
+	/*
+	 * Calculates a run and adds it to the summaries in streaming mode. Until
+	 * all runs have been added the run index is the order the run was added
+	 * in.
+	 */
+	private void foldTestRun(TestRun tr) {
+		tr.calcStats();
+		if (!addRunTotals(tr) || !history.add(tr)) {
+			return;
+		}
+		addRunSummaries(tr, history.size());
+		tr.releaseTestCases();
+	}
+
+	/*
+	 * Ends streaming mode. Gives all folded runs their final run index, the
+	 * oldest run 1, and moves everything indexed by run to the final indexes
+	 * before the statistics are completed the same way as in calcStats.
+	 */
+	private void calcStreamedStats() {
+		int[] newIdxs = new int[history.size() + 1];
+		int index = history.size();
+		for (TestRun tr : history) {
+			newIdxs[tr.getRunIdx()] = index;
+			index--;
+		}
+
+		for (TestRun tr : history) {
+			int idx = newIdxs[tr.getRunIdx()];
+			tr.setRunIdx(idx);
+			for (TestPackage tp : tr.getTestPackages().values()) {
+				tp.setRunIdx(idx);
+				for (TestModule tm : tp.getTestModules().values()) {
+					tm.setRunIdx(idx);
+				}
+			}
+		}
+		runSeries.reindex(newIdxs);
+		for (TestPackageSummary tps : testPackageSummaries.values()) {
+			tps.reindex(newIdxs);
+		}
+		for (TestModuleSummary tms : testModuleSummaries.values()) {
+			tms.reindex(newIdxs);
+		}
+		for (TestCaseSummary tcs : testCaseSummaries) {
+			if (null != tcs) {
+				tcs.reindex(newIdxs);
+			}
+		}
+
+		// The number of total test runs is set for the items in the latest
+		// run, as in addRunSummaries. While folding every run was the latest
+		// one, so the numbers set then are fold positions and are cleared.
+		for (TestPackageSummary tps : testPackageSummaries.values()) {
+			tps.setTotalNumberOfTestRuns(0);
+		}
+		for (TestModuleSummary tms : testModuleSummaries.values()) {
+			tms.setTotalNumberOfTestRuns(0);
+		}
+		if (!history.isEmpty()) {
+			for (TestPackage tp : history.first().getTestPackages().values()) {
+				testPackageSummaries.get(tp.getName())
+						.setTotalNumberOfTestRuns(history.size());
+				for (TestModule tm : tp.getTestModules().values()) {
+					testModuleSummaries.get(tm.getName())
+							.setTotalNumberOfTestRuns(history.size());
+				}
+			}
+		}
+
+		noUniqueTestCases = names.getNoTestCases();
+		averagePassRate = sumOfPassRates / (history.size());
+
+		new PackageTree(testPackageSummaries.keySet())
+				.rollUp(new PackageSummaryRollUp());
+
+		sortedHistory = history;
+		streaming = false;
+		buildRunIndex();
+		buildTestCaseIndexes();
+		calcTrends();
 	}
 
 	/**
@@ -136,22 +306,64 @@ public class TestHistory extends RunHistory {
 	}
 
 	/**
-	 * Returns the <code>TestCaseSummary</code> collection.
+	 * Returns the statistics of all runs by run index.
+	 * 
+	 * @return The run statistics.
+	 */
+	public RunSeries getRunSeries() {
+		return runSeries;
+	}
+
+	/**
+	 * Returns the <code>TestCaseSummary</code> collection sorted on the full
+	 * test case name. The collection is put together on every call.
 	 * 
 	 * @return The <code>TreeMap<String, TestCaseSummary</code> collection.
 	 */
 	public TreeMap<String, TestCaseSummary> getTestCaseSummaries() {
-		return testCaseSummaries;
+		TreeMap<String, TestCaseSummary> sorted = new TreeMap<String, TestCaseSummary>();
+		for (TestCaseSummary tcs : testCaseSummaries) {
+			if (null != tcs) {
+				sorted.put(tcs.getName(), tcs);
+			}
+		}
+		return sorted;
 	}
 
 	/**
-	 * @param moduleName
-	 *            The name of the module which is used as a key in the list of
-	 *            test case summaries.
+	 * @param testCaseName
+	 *            The full name of the test case,
+	 *            <module name>::<class name>::<test case name>.
 	 * @return The looked for test case summary or NULL.
 	 */
 	public TestCaseSummary getTestCaseSummary(String testCaseName) {
-		return testCaseSummaries.get(testCaseName);
+		String[] parts = testCaseName.split("::", 3);
+		if (parts.length < 3) {
+			return null;
+		}
+		return getTestCaseSummary(names.findTestCaseId(parts[0], parts[1],
+				parts[2]));
+	}
+
+	/**
+	 * @param id
+	 *            The test case id.
+	 * @return The looked for test case summary or NULL.
+	 */
+	public TestCaseSummary getTestCaseSummary(int id) {
+		if (0 <= id && id < testCaseSummaries.size()) {
+			return testCaseSummaries.get(id);
+		}
+		return null;
+	}
+
+	/**
+	 * Returns the name table of the history.
+	 * 
+	 * @return The name table.
+	 */
+	public NameTable getNameTable() {
+		return names;
 	}
 
 	/**
@@ -166,11 +378,14 @@ public class TestHistory extends RunHistory {
 	/**
 	 * Sets a time stamp for the lastly executed run.
 	 * 
-	 * @param s
-	 *            The stringified time stamp of the run that was executed last.
+	 * @param time
+	 *            The time stamp of the run that was executed last.
+	 * @param zoneOffset
+	 *            The zone offset the time stamp was given in.
 	 */
-	public void setLastRunStr(String s) {
-		lastRunStr = s;
+	public void setLastRun(long time, int zoneOffset) {
+		lastRunTime = time;
+		lastRunTimeOffset = zoneOffset;
 	}
 
 	/**
@@ -194,10 +409,19 @@ public class TestHistory extends RunHistory {
 	/**
 	 * Returns the time stamp of the last executed run.
 	 * 
-	 * @return The time stamp of the last executed run.
+	 * @return The time stamp of the last executed run in milliseconds.
 	 */
-	public String getLastRun() {
-		return lastRunStr;
+	public long getLastRunTime() {
+		return lastRunTime;
+	}
+
+	/**
+	 * Returns the zone offset of the time stamp of the last executed run.
+	 * 
+	 * @return The zone offset in milliseconds.
+	 */
+	public int getLastRunTimeOffset() {
+		return lastRunTimeOffset;
 	}
 
 	/**
@@ -237,7 +461,7 @@ public class TestHistory extends RunHistory {
 	 * @return An array of all the keys in the test case summary collection.
 	 */
 	public String[] getUniqueTestCases() {
-		return (String[]) testCaseSummaries.keySet().toArray();
+		return getTestCaseSummaries().keySet().toArray(new String[0]);
 	}
 
 	/**
@@ -354,214 +578,519 @@ public class TestHistory extends RunHistory {
 	 * method in the <code>TestRun</code> objects.
 	 */
 	public void calcStats() {
+		if (streaming) {
+			calcStreamedStats();
+			return;
+		}
 
 		// First count the number of unique test cases
 		// they have been executed.
-		double sumOfPassRates = 0.0;
+		sumOfPassRates = 0.0;
 		sortedHistory = new TreeSet<TestRun>();
 
 		for (TestRun tr : history) {
 			tr.calcStats();
+			if (addRunTotals(tr)) {
+				sortedHistory.add(tr);
+			}
+		}
 
-			double passRateHolder = tr.getPassPctDouble();
+		// Second loop starts here. This time we'll put the test runs
+		// back into a new collection sorted by run date. This time
+		// also setting the run index for all modules in the run.
+		int index = sortedHistory.size();
+		for (TestRun tr : sortedHistory) {
+			addRunSummaries(tr, index);
+			index--;
+		}
+		noUniqueTestCases = names.getNoTestCases();
+		averagePassRate = sumOfPassRates / (sortedHistory.size());
 
-			// Get worst and best pass rates
-			if (passRateHolder > bestRun) {
-				bestRun = passRateHolder;
-			}
-			if (passRateHolder < worstRun) {
-				worstRun = passRateHolder;
-			}
-			sumOfPassRates += passRateHolder;
+		//
+		// Test packages are stored flat - lets fake a tree structure
+		//
+		new PackageTree(testPackageSummaries.keySet())
+				.rollUp(new PackageSummaryRollUp());
 
-			// Largest number of test cases
-			int noTestCasesHolder = tr.getNoTestCases();
-			if (noTestCasesHolder > largestNumberOfTcs) {
-				largestNumberOfTcs = noTestCasesHolder;
-			}
+		history = null;
+		history = sortedHistory;
+		buildRunIndex();
+		buildTestCaseIndexes();
+		calcTrends();
+	}
+
+	/**
+	 * Folds new test runs into an already calculated history without
+	 * recalculating the runs that are already in it. Since runs are indexed
+	 * in time order, oldest first, runs that are newer than all runs in the
+	 * history simply get the next free indexes and no existing index, spread
+	 * or summary needs to be touched apart from the ones the new runs belong
+	 * to. The run index and the test case indexes are extended with the new
+	 * runs and their new test cases, and the test cases of the new runs are
+	 * dropped once they have been added to the summaries.
+	 * <p>
+	 * Apart from that, the work done is proportional to the number of
+	 * packages and modules, not to the number of runs: the new packages are
+	 * rolled up through a tree of all package names, and the trends of all
+	 * packages and modules are calculated again, since the time trends count
+	 * from the current time.
+	 * <p>
+	 * The trends are not stored with a history, so a history that has been
+	 * read back is only ready to use after this has been called, also when
+	 * there are no new runs. If any of the new runs is older than the latest
+	 * run in the history, or lacks a time stamp, nothing is appended and
+	 * false is returned. The history then has to be rebuilt from scratch, the
+	 * new runs can be part of the rebuild.
+	 * 
+	 * @param newRuns
+	 *            The parsed runs to add.
+	 * @return True if the runs were appended, false if not.
+	 */
+	public boolean appendTestRuns(Collection<TestRun> newRuns) {
+		if (null == sortedHistory) {
+			return false; // Not calculated yet
+		}
 
-			int noFailuresHolder = tr.getNoFailures();
-			if (noFailuresHolder > largestNumberOfFailures) {
-				largestNumberOfFailures = noFailuresHolder;
+		TreeSet<TestRun> runsToAdd = new TreeSet<TestRun>();
+		for (TestRun tr : newRuns) {
+			tr.calcStats();
+			if (TestItemUtils.NO_TIME_STAMP == tr.getRunTime()) {
+				return false;
 			}
+			runsToAdd.add(tr);
+		}
+		if (!runsToAdd.isEmpty() && !history.isEmpty()
+				&& 0 <= runsToAdd.last().compareTo(history.first())) {
+			return false;
+		}
 
-			int noErrorsHolder = tr.getNoErrors();
-			if (noErrorsHolder > largestNumberOfErrors) {
-				largestNumberOfErrors = noErrorsHolder;
+		// Oldest first, the runs are sorted on time stamp, latest first.
+		int firstNewTestCase = names.getNoTestCases();
+		HashSet<String> newPackages = new HashSet<String>();
+		for (TestRun tr : runsToAdd.descendingSet()) {
+			appendTestRun(tr);
+			newPackages.addAll(tr.getTestPackages().keySet());
+			tr.releaseTestCases();
+		}
+
+		// Roll up the packages of the new runs to their parent packages,
+		// children first. Merging a summary into its parent once more
+		// changes nothing but what the new runs added.
+		if (!newPackages.isEmpty()) {
+			new PackageTree(testPackageSummaries.keySet()).rollUp(
+					newPackages, new PackageSummaryRollUp());
+		}
+
+		addToRunIndex();
+		addToTestCaseIndexes(firstNewTestCase);
+		calcTrends();
+		return true;
+	}
+
+	/**
+	 * Drops the test cases of all runs, the summaries and the statistics of
+	 * the runs, packages and modules are kept. The report is generated from
+	 * the summaries, this is done before a history is stored.
+	 */
+	public void releaseTestCases() {
+		for (TestRun tr : history) {
+			tr.releaseTestCases();
+		}
+	}
+
+	/*
+	 * Builds the run index from the calculated history. The history is
+	 * sorted latest run first and the latest run has the highest index.
+	 */
+	private void buildRunIndex() {
+		TestRun[] runs = new TestRun[history.size()];
+		for (TestRun tr : history) {
+			int idx = tr.getRunIdx();
+			if (0 < idx && idx <= runs.length) {
+				runs[idx - 1] = tr;
 			}
+		}
+		runIndex = runs;
+	}
 
-			// Needed for the calculation of the negative graph.
-			if (noFailuresHolder + noErrorsHolder > largestNumberOfNonPass) {
-				largestNumberOfNonPass = noFailuresHolder + noErrorsHolder;
+	/*
+	 * Adds the runs that have been appended to the run index. The appended
+	 * runs are the latest ones and come first in the history.
+	 */
+	private void addToRunIndex() {
+		if (null == runIndex) {
+			buildRunIndex();
+			return;
+		}
+		TestRun[] runs = Arrays.copyOf(runIndex, history.size());
+		for (TestRun tr : history) {
+			int idx = tr.getRunIdx();
+			if (idx <= runIndex.length) {
+				break;
 			}
+			runs[idx - 1] = tr;
+		}
+		runIndex = runs;
+	}
 
-			// Get the last run date, the formats are in YYYY-MM-DD
-			String timeStampHolder = tr.getExecutionDate();
-			if (timeStampHolder==null) {
-				System.err
-				.println("The test run execution date is 'null', this can be an indication that there were no results to be parsed for this run.");
-				continue;
+	/*
+	 * Calculates the trends of the history and of all package and module
+	 * summaries in one go.
+	 */
+	private void calcTrends() {
+		TrendEngine engine = new TrendEngine(System.currentTimeMillis());
+
+		long[] runDates = new long[runIndex.length];
+		double[] passPcts = new double[runIndex.length];
+		int[] noTestCases = new int[runIndex.length];
+		int[] noNonPass = new int[runIndex.length];
+		for (int i = 0; i < runIndex.length; i++) {
+			TestRun tr = runIndex[i];
+			runDates[i] = tr.getRunDateAsLong();
+			passPcts[i] = tr.getPassPctDouble();
+			noTestCases[i] = tr.getNoTestCases();
+			noNonPass[i] = tr.getNoNonPassing();
+		}
+		trends = engine.calcHistoryTrends(runDates, passPcts, noTestCases,
+				noNonPass);
+
+		for (TestPackageSummary tps : testPackageSummaries.values()) {
+			tps.calcTrends(engine);
+		}
+		for (TestModuleSummary tms : testModuleSummaries.values()) {
+			tms.calcTrends(engine);
+		}
+	}
+
+	/*
+	 * Builds the module and package to test case summary indexes.
+	 */
+	private void buildTestCaseIndexes() {
+		HashMap<String, ArrayList<TestCaseSummary>> modules = new HashMap<String, ArrayList<TestCaseSummary>>();
+		HashMap<String, ArrayList<TestCaseSummary>> packages = new HashMap<String, ArrayList<TestCaseSummary>>();
+		for (TestCaseSummary tcs : getTestCaseSummaries().values()) {
+			addToIndexes(modules, packages, tcs);
+		}
+		moduleTestCases = modules;
+		packageTestCases = packages;
+	}
+
+	/*
+	 * Adds the test cases that have been added since the given test case id
+	 * to the module and package to test case summary indexes.
+	 */
+	private void addToTestCaseIndexes(int firstNewTestCase) {
+		if (null == moduleTestCases || null == packageTestCases) {
+			buildTestCaseIndexes();
+			return;
+		}
+		for (int id = firstNewTestCase; id < testCaseSummaries.size(); id++) {
+			TestCaseSummary tcs = testCaseSummaries.get(id);
+			if (null != tcs) {
+				addToIndexes(moduleTestCases, packageTestCases, tcs);
 			}
-			if (0 > lastRunStr.compareToIgnoreCase(timeStampHolder)) {
-				setLastRunStr(timeStampHolder);
+		}
+	}
+
+	private void addToIndexes(
+			HashMap<String, ArrayList<TestCaseSummary>> modules,
+			HashMap<String, ArrayList<TestCaseSummary>> packages,
+			TestCaseSummary tcs) {
+		addToIndex(modules, tcs.getClassName(), tcs);
+		if (!tcs.getModuleName().equals(tcs.getClassName())) {
+			addToIndex(modules, tcs.getModuleName(), tcs);
+		}
+
+		String packageName = tcs.getPackageName();
+		addToIndex(packages, packageName, tcs);
+		int liof = packageName.lastIndexOf(".");
+		while (-1 != liof) {
+			packageName = packageName.substring(0, liof);
+			addToIndex(packages, packageName, tcs);
+			liof = packageName.lastIndexOf(".");
+		}
+	}
+
+	/*
+	 * Inserts a test case summary in a list of the index, in name order.
+	 */
+	private void addToIndex(HashMap<String, ArrayList<TestCaseSummary>> index,
+			String key, TestCaseSummary tcs) {
+		ArrayList<TestCaseSummary> list = index.get(key);
+		if (null == list) {
+			list = new ArrayList<TestCaseSummary>();
+			index.put(key, list);
+		}
+		int pos = Collections.binarySearch(list, tcs, c_NAME_ORDER);
+		if (0 > pos) {
+			list.add(-pos - 1, tcs);
+		}
+	}
+
+	/**
+	 * Returns the summaries of all test cases in a test module. A test case
+	 * belongs to a module if either its class name or its module name is the
+	 * module name.
+	 * 
+	 * @param moduleName
+	 *            The name of the test module.
+	 * @return The test case summaries, sorted as the test case summary
+	 *         collection.
+	 */
+	public List<TestCaseSummary> getModuleTestCaseSummaries(String moduleName) {
+		if (null == moduleTestCases) {
+			buildTestCaseIndexes();
+		}
+		List<TestCaseSummary> list = moduleTestCases.get(moduleName);
+		if (null == list) {
+			return Collections.emptyList();
+		}
+		return Collections.unmodifiableList(list);
+	}
+
+	/**
+	 * Returns the summaries of all test cases in a test package and its sub
+	 * packages.
+	 * 
+	 * @param packageName
+	 *            The name of the test package.
+	 * @return The test case summaries, sorted as the test case summary
+	 *         collection.
+	 */
+	public List<TestCaseSummary> getPackageTestCaseSummaries(String packageName) {
+		if (null == packageTestCases) {
+			buildTestCaseIndexes();
+		}
+		List<TestCaseSummary> list = packageTestCases.get(packageName);
+		if (null == list) {
+			return Collections.emptyList();
+		}
+		return Collections.unmodifiableList(list);
+	}
+
+	/*
+	 * Adds a calculated test run that is newer than all other runs in the
+	 * history.
+	 */
+	private void appendTestRun(TestRun tr) {
+
+		// The number of total test runs is only set for the items in the
+		// latest run, this is no longer the latest run.
+		if (!history.isEmpty()) {
+			for (TestPackage tp : history.first().getTestPackages().values()) {
+				testPackageSummaries.get(tp.getName())
+						.setTotalNumberOfTestRuns(0);
+				for (TestModule tm : tp.getTestModules().values()) {
+					testModuleSummaries.get(tm.getName())
+							.setTotalNumberOfTestRuns(0);
+				}
 			}
+		}
+
+		addRunTotals(tr);
+		history.add(tr);
+		addRunSummaries(tr, history.size());
+		noUniqueTestCases = names.getNoTestCases();
+		averagePassRate = sumOfPassRates / (history.size());
+	}
 
-			// Overall summary
-			noExecutedTestCases += tr.getNoTestCases();
-			noPassedTestCases += tr.getNoPassed();
-			noFailedTestCases += tr.getNoFailures();
-			noErrorTestCases += tr.getNoErrors();
-			noIgnoredTestCases += tr.getNoIgnored();
-			execTimeSum += tr.getExecutionTimeDouble();
-			sortedHistory.add(tr);
+	/*
+	 * Adds the summary of a package to the summary of its parent package.
+	 */
+	private class PackageSummaryRollUp implements PackageTree.RollUp {
+		public void addFrom(String parentName, String childName) {
+			testPackageSummaries.get(parentName).addFrom(
+					testPackageSummaries.get(childName));
 		}
+	}
 
-		// Second loop starts here. This time we'll put the test runs
-		// back into a new collection sorted by run date. This time
-		// also setting the run index for all modules in the run.
-		int index = sortedHistory.size();
-		for (TestRun tr : sortedHistory) {
+	/*
+	 * Adds the statistics of a calculated test run to the history totals.
+	 * 
+	 * @return False if the run has no time stamp and shall not be part of the
+	 * history.
+	 */
+	private boolean addRunTotals(TestRun tr) {
+
+		double passRateHolder = tr.getPassPctDouble();
+
+		// Get worst and best pass rates
+		if (passRateHolder > bestRun) {
+			bestRun = passRateHolder;
+		}
+		if (passRateHolder < worstRun) {
+			worstRun = passRateHolder;
+		}
+		sumOfPassRates += passRateHolder;
+
+		// Largest number of test cases
+		int noTestCasesHolder = tr.getNoTestCases();
+		if (noTestCasesHolder > largestNumberOfTcs) {
+			largestNumberOfTcs = noTestCasesHolder;
+		}
+
+		int noFailuresHolder = tr.getNoFailures();
+		if (noFailuresHolder > largestNumberOfFailures) {
+			largestNumberOfFailures = noFailuresHolder;
+		}
+
+		int noErrorsHolder = tr.getNoErrors();
+		if (noErrorsHolder > largestNumberOfErrors) {
+			largestNumberOfErrors = noErrorsHolder;
+		}
+
+		// Needed for the calculation of the negative graph.
+		if (noFailuresHolder + noErrorsHolder > largestNumberOfNonPass) {
+			largestNumberOfNonPass = noFailuresHolder + noErrorsHolder;
+		}
+
+		// Get the last run date
+		if (TestItemUtils.NO_TIME_STAMP == tr.getRunTime()) {
+			System.err
+			.println("The test run execution date is 'null', this can be an indication that there were no results to be parsed for this run.");
+			return false;
+		}
+		if (lastRunTime < tr.getRunTime()) {
+			setLastRun(tr.getRunTime(), tr.getRunTimeOffset());
+		}
+
+		// Overall summary
+		noExecutedTestCases += tr.getNoTestCases();
+		noPassedTestCases += tr.getNoPassed();
+		noFailedTestCases += tr.getNoFailures();
+		noErrorTestCases += tr.getNoErrors();
+		noIgnoredTestCases += tr.getNoIgnored();
+		execTimeSum += tr.getExecutionTimeDouble();
+		return true;
+	}
+
+	/*
+	 * Sets the run index of a test run and adds its packages, modules and
+	 * test cases to the summaries.
+	 */
+	private void addRunSummaries(TestRun tr, int index) {
+
+		tr.setRunIdx(index);
+		tr.internNames(names);
+		runSeries.set(index, tr.getPassPctDouble(), tr.getNoTestCases(), tr
+				.getNoFailures()
+				+ tr.getNoErrors(), tr.getExecutionTimeDouble());
+
+		//
+		// PACKAGES
+		//
+		Collection<TestPackage> c0 = tr.getTestPackages().values();
+		Iterator<TestPackage> iter0 = c0.iterator();
 
-			tr.setRunIdx(index);
+		while (iter0.hasNext()) {
+
+			TestPackage tp = iter0.next();
+			tp.setRunIdx(index);
+
+			try {
+				if (testPackageSummaries.containsKey(tp.getName())) {
+					testPackageSummaries.get(tp.getName()).increment(tp);
+				} else {
+					testPackageSummaries.put(tp.getName(),
+							new TestPackageSummary(tp));
+				}
+				// We need to set the number of total test runs here since
+				// it is needed when
+				// calculating test module and test case trends.
+				if (history.size() == index) {
+					testPackageSummaries.get(tp.getName())
+							.setTotalNumberOfTestRuns(index);
+				}
+			} catch (UnitTHException jthe) {
+				System.err
+						.print("Trying to add, package stats to a list created for another package name.");
+				jthe.printStackTrace(System.err);
+			}
+			testPackageSummaries.get(tp.getName()).getRunSeries().set(index,
+					tp.getPassPctDouble(), tp.getNoTestCases(),
+					tp.getNoFailures() + tp.getNoErrors(),
+					tp.getExecutionTimeDouble());
 
 			//
-			// PACKAGES
+			// MODULES
 			//
-			Collection<TestPackage> c0 = tr.getTestPackages().values();
-			Iterator<TestPackage> iter0 = c0.iterator();
+			Collection<TestModule> c1 = tp.getTestModules().values();
+			Iterator<TestModule> iter1 = c1.iterator();
+			while (iter1.hasNext()) {
 
-			while (iter0.hasNext()) {
+				TestModule tm = iter1.next();
 
-				TestPackage tp = iter0.next();
-				tp.setRunIdx(index);
+				// Before we are adding the test module to the test summary
+				tm.setRunIdx(index);
 
 				try {
-					if (testPackageSummaries.containsKey(tp.getName())) {
-						testPackageSummaries.get(tp.getName()).increment(tp);
+					if (testModuleSummaries.containsKey(tm.getName())) {
+						testModuleSummaries.get(tm.getName()).increment(tm);
 					} else {
-						testPackageSummaries.put(tp.getName(),
-								new TestPackageSummary(tp));
+						testModuleSummaries.put(tm.getName(),
+								new TestModuleSummary(tm));
 					}
-					// We need to set the number of total test runs here since
-					// it is needed when
+					// We need to set the number of total test runs here
+					// since it is needed when
 					// calculating test module and test case trends.
 					if (history.size() == index) {
-						testPackageSummaries.get(tp.getName())
+						testModuleSummaries.get(tm.getName())
 								.setTotalNumberOfTestRuns(index);
 					}
 				} catch (UnitTHException jthe) {
 					System.err
-							.print("Trying to add, package stats to a list created for another package name.");
+							.print("Trying to add, module stats to a list created for another module name.");
 					jthe.printStackTrace(System.err);
 				}
+				testModuleSummaries.get(tm.getName()).getRunSeries().set(index,
+						tm.getPassPctDouble(), tm.getNoTestCases(),
+						tm.getNoFailures() + tm.getNoErrors(),
+						tm.getExecutionTimeDouble());
 
 				//
-				// MODULES
+				// TEST CASES
 				//
-				Collection<TestModule> c1 = tp.getTestModules().values();
-				Iterator<TestModule> iter1 = c1.iterator();
-				while (iter1.hasNext()) {
-
-					TestModule tm = iter1.next();
-
-					// Before we are adding the test module to the test summary
-					tm.setRunIdx(index);
-
+				Collection<TestCase> c2 = tm.getTestCases().values();
+				Iterator<TestCase> iter2 = c2.iterator();
+				while (iter2.hasNext()) {
+					TestCase tc = iter2.next();
 					try {
-						if (testModuleSummaries.containsKey(tm.getName())) {
-							testModuleSummaries.get(tm.getName()).increment(tm);
+						TestCaseSummary tcs = getTestCaseSummary(tc.getId());
+						if (null != tcs) {
+							tcs.increment(tc, tr.getRunIdx());
 						} else {
-							testModuleSummaries.put(tm.getName(),
-									new TestModuleSummary(tm));
-						}
-						// We need to set the number of total test runs here
-						// since it is needed when
-						// calculating test module and test case trends.
-						if (history.size() == index) {
-							testModuleSummaries.get(tm.getName())
-									.setTotalNumberOfTestRuns(index);
+							while (testCaseSummaries.size() <= tc.getId()) {
+								testCaseSummaries.add(null);
+							}
+							testCaseSummaries.set(tc.getId(),
+									new TestCaseSummary(tc, tr.getRunIdx()));
 						}
 					} catch (UnitTHException jthe) {
 						System.err
-								.print("Trying to add, module stats to a list created for another module name.");
+								.print("Trying to add, test case stats to a list created for another test case name.");
 						jthe.printStackTrace(System.err);
 					}
-
-					//
-					// TEST CASES
-					//
-					Collection<TestCase> c2 = tm.getTestCases().values();
-					Iterator<TestCase> iter2 = c2.iterator();
-					while (iter2.hasNext()) {
-						TestCase tc = iter2.next();
-						try {
-							if (testCaseSummaries.containsKey(tc.getFullName())) {
-								testCaseSummaries.get(tc.getFullName())
-										.increment(tc, tr.getRunIdx());
-							} else {
-								TestCaseSummary tcs = new TestCaseSummary(tc,
-										tr.getRunIdx());
-								testCaseSummaries.put(tc.getFullName(), tcs);
-							}
-						} catch (UnitTHException jthe) {
-							System.err
-									.print("Trying to add, test case stats to a list created for another test case name.");
-							jthe.printStackTrace(System.err);
-						}
-					}
 				}
 			}
-
-			// Largest execution time, we need to get the full test run
-			// execution time.
-			double largestExecutionTimeHolder = tr.getExecutionTimeDouble();
-			if (largestExecutionTimeHolder > largestExecutionTime) {
-				largestExecutionTime = largestExecutionTimeHolder;
-			}
-
-			// Create the relative part for this test run here to avoid
-			// having to generate it in all places where it is used. But only
-			// if the flag use absolute paths are set to false which is the
-			// default.
-			if (UnitTH.useAbsPaths == false) {
-				tr.setRelativePathFromOutputDir(UnitTH.rootFolder,
-					UnitTH.reportPath);
-			} else {
-				tr.setAbsolutePath(UnitTH.rootFolder, UnitTH.reportPath);
-			}
-			index--;
 		}
-		noUniqueTestCases = testCaseSummaries.size();
-		averagePassRate = sumOfPassRates / (sortedHistory.size());
 
-		//
-		// Test packages are stored flat - lets fake a tree structure
-		//
-		// 1) Get a list of sorted keys.
-		// 2) For every package where there is a sub match in name we increment.
-		//
-		String[] packageNames = testPackageSummaries.keySet().toArray(
-				new String[0]);
-		Arrays.sort(packageNames, new CustomStringLengthComparator());
-
-		for (String s1 : packageNames) {
-			for (String s2 : packageNames) {
-				// We do not want to increment the same
-				if (!s1.equalsIgnoreCase(s2)) {
-					// Trim s1 one level!
-					if (s1.contains(".")) {
-						String parent = s1.substring(0, s1.lastIndexOf("."));
-						if (parent.equalsIgnoreCase(s2)) {
-							testPackageSummaries.get(s2).addFrom(
-									testPackageSummaries.get(s1));
-						}
-					}
-				}
-			}
+		// Largest execution time, we need to get the full test run
+		// execution time.
+		double largestExecutionTimeHolder = tr.getExecutionTimeDouble();
+		if (largestExecutionTimeHolder > largestExecutionTime) {
+			largestExecutionTime = largestExecutionTimeHolder;
 		}
 
-		history = null;
-		history = sortedHistory;
+		// Create the relative part for this test run here to avoid
+		// having to generate it in all places where it is used. But only
+		// if the flag use absolute paths are set to false which is the
+		// default.
+		if (UnitTH.useAbsPaths == false) {
+			tr.setRelativePathFromOutputDir(UnitTH.rootFolder,
+				UnitTH.reportPath);
+		} else {
+			tr.setAbsolutePath(UnitTH.rootFolder, UnitTH.reportPath);
+		}
 	}
 
 	/**
@@ -626,10 +1155,12 @@ public class TestHistory extends RunHistory {
 	 * @return The looked for test run.
 	 */
 	public TestRun getTestRunByIdx(int idx) {
-		for (TestRun tr : history) {
-			if (tr.getRunIdx() == idx) {
-				return tr;
-			}
+		if (null == runIndex || runIndex.length != history.size()) {
+			// Not calculated yet or read from a stored history
+			buildRunIndex();
+		}
+		if (0 < idx && idx <= runIndex.length) {
+			return runIndex[idx - 1];
 		}
 		return null;
 	}
@@ -641,12 +1172,7 @@ public class TestHistory extends RunHistory {
 	 * @return Returns the pass rate difference.
 	 */
 	public String getPrTrendLastRun() {
-		int runs = history.size();
-		if (runs < 2) {
-			return "NA";
-		} else {
-			return getPrDiff(runs, 1);
-		}
+		return null == trends ? "NA" : trends.getPrRunTrend(Trends.LAST_RUN);
 	}
 
 	/**
@@ -655,12 +1181,7 @@ public class TestHistory extends RunHistory {
 	 * @return Returns the pass rate difference.
 	 */
 	public String getPrTrendLast5Runs() {
-		int runs = history.size();
-		if (runs < 5) {
-			return "NA";
-		} else {
-			return getPrDiff(runs, 4);
-		}
+		return null == trends ? "NA" : trends.getPrRunTrend(Trends.LAST_5_RUNS);
 	}
 
 	/**
@@ -670,84 +1191,7 @@ public class TestHistory extends RunHistory {
 	 * @return Returns the pass rate difference.
 	 */
 	public String getPrTrendLast10Runs() {
-		int runs = history.size();
-		if (runs < 10) {
-			return "NA";
-		} else {
-			return getPrDiff(runs, 9);
-		}
-	}
-
-	/*
-	 * @param runs The number of runs in the history since we need an offset to
-	 * count from.
-	 * 
-	 * @param idx The index of the run to match with.
-	 * 
-	 * @return The pass rate difference as string.
-	 */
-	private String getPrDiff(int runs, int idx) {
-		double diff = Double.parseDouble(getTestRunByIdx(runs).getPassPct())
-				- Double.parseDouble(getTestRunByIdx(runs - idx).getPassPct());
-		String ret = TestItemUtils.passPctToString(diff) + "%";
-		if (0 < diff) {
-			ret = "+" + ret;
-		}
-		return ret;
-	}
-
-	/*
-	 * This method calculates from which test run the trend shall be counted
-	 * for. The calculation is based on a time stamp taken at the point of
-	 * report generation.
-	 * 
-	 * @param trendInterval The interval in milliseconds. The interval is the
-	 * point in time from where to calculate the trend.
-	 * 
-	 * @return The test run to calculate the trend from.
-	 */
-	private TestRun getTrendTestRun(long trendInterval) {
-		long currentTime = System.currentTimeMillis();
-		long breakPoint = currentTime - trendInterval;
-		TestRun matchingTr = null;
-		long matchingTrTimeStamp = 0;
-		for (TestRun tr : history) {
-			long runTimeStamp = tr.getRunDateAsLong();
-			if (breakPoint > runTimeStamp) {
-				if ((breakPoint - matchingTrTimeStamp) > (breakPoint - runTimeStamp)) {
-					matchingTr = tr;
-					matchingTrTimeStamp = runTimeStamp;
-				}
-			}
-		}
-		return matchingTr;
-	}
-
-	/*
-	 * This method calculates the pass rate trend based on a time stamp taken at
-	 * the point of report generation.
-	 * 
-	 * @param trendInterval The interval in milliseconds. The interval is the
-	 * point in time from where to calculate the trend.
-	 * 
-	 * @return The change in pass rate.
-	 */
-	private String getPrTrend(long trendInterval) {
-		TestRun matchingTr = getTrendTestRun(trendInterval);
-		if (null != matchingTr) {
-			int runs = history.size();
-			double diff = Double
-					.parseDouble(getTestRunByIdx(runs).getPassPct())
-					- Double.parseDouble(matchingTr.getPassPct());
-
-			String ret = TestItemUtils.passPctToString(diff) + "%";
-			if (0 < diff) {
-				ret = "+" + ret;
-			}
-			return ret;
-		} else {
-			return "NA";
-		}
+		return null == trends ? "NA" : trends.getPrRunTrend(Trends.LAST_10_RUNS);
 	}
 
 	/**
@@ -756,7 +1200,7 @@ public class TestHistory extends RunHistory {
 	 * @return The pass rate trend as a formatted String.
 	 */
 	public String getPrTrendLast3Days() {
-		return getPrTrend(3 * 24 * 60 * 60 * 1000);
+		return null == trends ? "NA" : trends.getPrTimeTrend(Trends.LAST_3_DAYS);
 	}
 
 	/**
@@ -765,59 +1209,7 @@ public class TestHistory extends RunHistory {
 	 * @return The pass rate trend as a formatted String.
 	 */
 	public String getPrTrendLast7Days() {
-		return getPrTrend(7 * 24 * 60 * 60 * 1000);
-	}
-
-	/*
-	 * This method calculates the test case trend based on a time stamp taken at
-	 * the point of report generation.
-	 * 
-	 * @param trendInterval The interval in milliseconds. The interval is the
-	 * point in time from where to calculate the trend.
-	 * 
-	 * @return The change in number of test cases.
-	 */
-	private String getTcTrend(long trendInterval) {
-		TestRun matchingTr = getTrendTestRun(trendInterval);
-		if (null != matchingTr) {
-			int runs = history.size();
-			int diff = getTestRunByIdx(runs).getNoTestCases()
-					- matchingTr.getNoTestCases();
-
-			String ret = Integer.toString(diff);
-			if (0 < diff) {
-				ret = "+" + ret;
-			}
-			return ret;
-		} else {
-			return "NA";
-		}
-	}
-
-	/*
-	 * This method calculates the test case trend based on a time stamp taken at
-	 * the point of report generation.
-	 * 
-	 * @param trendInterval The interval in milliseconds. The interval is the
-	 * point in time from where to calculate the trend.
-	 * 
-	 * @return The change in number of test cases.
-	 */
-	private String getFnTrend(long trendInterval) {
-		TestRun matchingTr = getTrendTestRun(trendInterval);
-		if (null != matchingTr) {
-			int runs = history.size();
-			int diff = getTestRunByIdx(runs).getNoNonPassing()
-					+ -matchingTr.getNoNonPassing();
-
-			String ret = Integer.toString(diff);
-			if (0 < diff) {
-				ret = "+" + ret;
-			}
-			return ret;
-		} else {
-			return "NA";
-		}
+		return null == trends ? "NA" : trends.getPrTimeTrend(Trends.LAST_7_DAYS);
 	}
 
 	/**
@@ -826,7 +1218,7 @@ public class TestHistory extends RunHistory {
 	 * @return The change in number of test cases.
 	 */
 	public String getTcTrendLastDay() {
-		return getTcTrend(1 * 24 * 60 * 60 * 1000);
+		return null == trends ? "NA" : trends.getTcTimeTrend(Trends.LAST_DAY);
 	}
 
 	/**
@@ -835,7 +1227,7 @@ public class TestHistory extends RunHistory {
 	 * @return The change in number of test cases.
 	 */
 	public String getTcTrendLast3Days() {
-		return getTcTrend(3 * 24 * 60 * 60 * 1000);
+		return null == trends ? "NA" : trends.getTcTimeTrend(Trends.LAST_3_DAYS);
 	}
 
 	/**
@@ -844,7 +1236,7 @@ public class TestHistory extends RunHistory {
 	 * @return The change in number of test cases.
 	 */
 	public String getTcTrendLast7Days() {
-		return getTcTrend(7 * 24 * 60 * 60 * 1000);
+		return null == trends ? "NA" : trends.getTcTimeTrend(Trends.LAST_7_DAYS);
 	}
 
 	/**
@@ -853,7 +1245,7 @@ public class TestHistory extends RunHistory {
 	 * @return The change in number of failures.
 	 */
 	public String getFnTrendLastDay() {
-		return getFnTrend(1 * 24 * 60 * 60 * 1000);
+		return null == trends ? "NA" : trends.getFnTimeTrend(Trends.LAST_DAY);
 	}
 
 	/**
@@ -862,7 +1254,7 @@ public class TestHistory extends RunHistory {
 	 * @return The change in number of failures.
 	 */
 	public String getFnTrendLast3Days() {
-		return getFnTrend(3 * 24 * 60 * 60 * 1000);
+		return null == trends ? "NA" : trends.getFnTimeTrend(Trends.LAST_3_DAYS);
 	}
 
 	/**
@@ -871,7 +1263,7 @@ public class TestHistory extends RunHistory {
 	 * @return The change in number of failures.
 	 */
 	public String getFnTrendLast7Days() {
-		return getFnTrend(7 * 24 * 60 * 60 * 1000);
+		return null == trends ? "NA" : trends.getFnTimeTrend(Trends.LAST_7_DAYS);
 	}
 
 	/**
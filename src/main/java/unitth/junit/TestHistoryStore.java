@@ -0,0 +1,202 @@
+/*
+ *    This file is part of UnitTH
+ *
+ *   UnitTH is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   UnitTH is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with UnitTH if not, see <http://www.gnu.org/licenses/>.
+ *
+ * =======================================================================
+ * $Id$
+ * -----------------------------------------------------------------------
+ *
+ * =======================================================================
+ */
+package unitth.junit;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+
+import unitth.core.UnitTH;
+
+/**
+ * This class stores a calculated <code>TestHistory</code>, including all its
+ * summaries, between executions. The test cases of the runs are not stored,
+ * only the summaries and the statistics of each run and its packages and
+ * modules. Together with the history a finger print of the files of every
+ * run is stored. The stored history is only handed out
+ * again if none of the runs in it have changed or been removed and if the
+ * report is generated with the same path settings, the relative paths of the
+ * runs depend on them.
+ *
+ * @author andnyb
+ */
+public class TestHistoryStore {
+
+	private final static int c_VERSION = 5;
+	private final static String c_HISTORY_FILE = "history.ser";
+
+	private File storeFile = null;
+	/* The finger prints of the runs in the last loaded history. */
+	private HashMap<String, Long> fingerPrints = new HashMap<String, Long>();
+
+	/**
+	 * CTOR, sets the folder where the history is stored.
+	 *
+	 * @param cacheDir
+	 *            The cache folder, created on the first store.
+	 */
+	public TestHistoryStore(File cacheDir) {
+		storeFile = new File(cacheDir, c_HISTORY_FILE);
+	}
+
+	/**
+	 * Loads the stored history.
+	 *
+	 * @param testRuns
+	 *            The files of all runs given as input.
+	 * @param dirs
+	 *            The folders of all runs given as input.
+	 * @return The stored history or null if there is none that can be used.
+	 */
+	@SuppressWarnings("unchecked")
+	public TestHistory load(ArrayList<ArrayList<File>> testRuns,
+			ArrayList<String> dirs) {
+		if (!storeFile.isFile()) {
+			return null;
+		}
+
+		ObjectInputStream in = null;
+		try {
+			in = new ObjectInputStream(new BufferedInputStream(
+					new FileInputStream(storeFile)));
+			if (c_VERSION != in.readInt()
+					|| !getSettings().equals(in.readUTF())) {
+				return null;
+			}
+
+			HashMap<String, Integer> dirIdxs = new HashMap<String, Integer>();
+			for (int i = 0; i < dirs.size(); i++) {
+				dirIdxs.put(dirs.get(i), i);
+			}
+			HashMap<String, Long> storedFingerPrints = (HashMap<String, Long>) in
+					.readObject();
+			for (Map.Entry<String, Long> e : storedFingerPrints.entrySet()) {
+				Integer idx = dirIdxs.get(e.getKey());
+				if (null == idx
+						|| e.getValue().longValue() != TestRunCache
+								.getFingerPrint(testRuns.get(idx))) {
+					if (UnitTH.c_DBG) {
+						System.out.println("Run removed or changed: "
+								+ e.getKey());
+					}
+					return null;
+				}
+			}
+			TestHistory th = (TestHistory) in.readObject();
+			fingerPrints = storedFingerPrints;
+			return th;
+		} catch (Exception e) {
+			System.err.println("Could not read the stored history '"
+					+ storeFile.getAbsolutePath() + "', "
+					+ e.getMessage());
+			return null;
+		} finally {
+			try {
+				if (null != in) {
+					in.close();
+				}
+			} catch (IOException ioe) {
+				// void
+			}
+		}
+	}
+
+	/**
+	 * Checks if a run folder was part of the last loaded history.
+	 *
+	 * @param dir
+	 *            The run folder.
+	 * @return True if the run folder has already been added to the history.
+	 */
+	public boolean contains(String dir) {
+		return fingerPrints.containsKey(dir);
+	}
+
+	/**
+	 * Stores a calculated history.
+	 *
+	 * @param th
+	 *            The history to store, with the test cases of its runs
+	 *            released.
+	 * @param testRuns
+	 *            The files of all runs in the history.
+	 * @param dirs
+	 *            The folders of all runs in the history.
+	 */
+	public void store(TestHistory th, ArrayList<ArrayList<File>> testRuns,
+			ArrayList<String> dirs) {
+		fingerPrints = new HashMap<String, Long>();
+		for (int i = 0; i < dirs.size(); i++) {
+			fingerPrints.put(dirs.get(i), TestRunCache.getFingerPrint(testRuns
+					.get(i)));
+		}
+
+		storeFile.getParentFile().mkdirs();
+		File tmpFile = new File(storeFile.getPath() + ".tmp");
+		ObjectOutputStream out = null;
+		try {
+			out = new ObjectOutputStream(new BufferedOutputStream(
+					new FileOutputStream(tmpFile)));
+			out.writeInt(c_VERSION);
+			out.writeUTF(getSettings());
+			out.writeObject(fingerPrints);
+			out.writeObject(th);
+			out.close();
+			out = null;
+
+			storeFile.delete();
+			if (!tmpFile.renameTo(storeFile)) {
+				tmpFile.delete();
+			}
+		} catch (IOException ioe) {
+			System.err.println("Could not store the history '"
+					+ storeFile.getAbsolutePath() + "', " + ioe.getMessage());
+			try {
+				if (null != out) {
+					out.close();
+				}
+			} catch (IOException ioe2) {
+				// void
+			}
+			tmpFile.delete();
+		}
+	}
+
+	/*
+	 * The settings the calculated history depends on.
+	 */
+	private String getSettings() {
+		return UnitTH.rootFolder + "|" + UnitTH.reportPath + "|"
+				+ UnitTH.useAbsPaths;
+	}
+}
+
+/* eof */
@@ -23,6 +23,8 @@
 
 package unitth.junit;
 
+import java.io.Serializable;
+
 import unitth.core.TestItemUtils;
 
 /**
@@ -31,13 +33,15 @@ import unitth.core.TestItemUtils;
  * 
  * @author andnyb
  */
-public class TestItem {
+public class TestItem implements Serializable {
+
+	private static final long serialVersionUID = 1L;
 
-	protected static final String UNKNOWN_TIME_STAMP = "unknown, broken run";
-	
 	protected String name = "";
 	protected double executionTime = 0.000;
-	protected String runDate = null;
+	/* The run date in milliseconds and the zone offset it was given in. */
+	protected long runTime = TestItemUtils.NO_TIME_STAMP;
+	protected int runTimeOffset = 0;
 	protected double passPct = 0.0;
 
 	/**
@@ -56,6 +60,16 @@ public class TestItem {
 		}
 	}
 
+	/**
+	 * This method sets an already parsed execution time.
+	 * 
+	 * @param time
+	 *            The execution time.
+	 */
+	public void setExecutionTime(double time) {
+		executionTime = time;
+	}
+
 	/**
 	 * This method returns the execution time as a string.
 	 * 
@@ -115,13 +129,82 @@ public class TestItem {
 	}
 	
 	/**
-	 * This method calculates a long value from a stringified date. The method
-	 * is primarily used for calculating trends based on time stamps.
+	 * This method sets the execution run date from a long time stamp, in
+	 * local time. Run dates are kept to the second.
+	 * 
+	 * @param timeStamp
+	 */
+	public void setDate(long timeStamp) {
+		runTime = timeStamp - timeStamp % 1000;
+		runTimeOffset = TestItemUtils.getZoneOffset(runTime);
+	}
+
+	/**
+	 * This method sets the execution run date from the parsed string. A time
+	 * stamp that can not be parsed makes the run date unknown.
+	 * 
+	 * @see unitth.core.TestItemUtils#parseWallClock
+	 * @param timeStamp
+	 */
+	public void setDate(String timeStamp) {
+		long wallClock = TestItemUtils.parseWallClock(timeStamp);
+		if (TestItemUtils.NO_TIME_STAMP == wallClock) {
+			runTime = TestItemUtils.UNKNOWN_TIME_STAMP;
+			runTimeOffset = 0;
+		} else {
+			runTimeOffset = TestItemUtils.getZoneOffset(timeStamp, wallClock);
+			runTime = wallClock - runTimeOffset;
+		}
+	}
+
+	/**
+	 * Returns the run date, <code>TestItemUtils.NO_TIME_STAMP</code> if not
+	 * set and <code>TestItemUtils.UNKNOWN_TIME_STAMP</code> for a broken run.
 	 * 
-	 * @return The run date converted to long.
+	 * @return The run date in milliseconds.
+	 */
+	public long getRunTime() {
+		return runTime;
+	}
+
+	/**
+	 * Returns the zone offset the run date was given in.
+	 * 
+	 * @return The zone offset in milliseconds.
+	 */
+	public int getRunTimeOffset() {
+		return runTimeOffset;
+	}
+
+	/**
+	 * This method returns the run date as a long value. The method is
+	 * primarily used for calculating trends based on time stamps.
+	 * 
+	 * @return The run date in milliseconds, 0 if there is no proper run date.
 	 */
 	public long getRunDateAsLong() {
-		return TestItemUtils.runDateToLong(runDate);
+		if (TestItemUtils.NO_TIME_STAMP == runTime
+				|| TestItemUtils.UNKNOWN_TIME_STAMP == runTime) {
+			return 0;
+		}
+		return runTime;
+	}
+
+	/**
+	 * Sets the run date to the earliest of its own and an other item's run
+	 * date. An item without run date takes the other item's run date.
+	 * 
+	 * @param ti
+	 *            The item to take the run date from.
+	 */
+	protected void setEarliestRunTime(TestItem ti) {
+		if (TestItemUtils.NO_TIME_STAMP == ti.runTime) {
+			return;
+		}
+		if (TestItemUtils.NO_TIME_STAMP == runTime || runTime > ti.runTime) {
+			runTime = ti.runTime;
+			runTimeOffset = ti.runTimeOffset;
+		}
 	}
 	
 	/**
@@ -23,6 +23,8 @@
 
 package unitth.junit;
 
+import java.io.Serializable;
+
 import unitth.core.TestItemUtils;
 
 /**
@@ -35,7 +37,9 @@ import unitth.core.TestItemUtils;
  */
 // TODO, VX.X Find a better solution than using an abstract class here since all
 // classes inheriting from TestItemSummary does not need all methods.
-public abstract class TestItemSummary {
+public abstract class TestItemSummary implements Serializable {
+
+	private static final long serialVersionUID = 1L;
 
 	protected int noPassed = 0;
 	protected int noFailed = 0;
@@ -48,6 +52,10 @@ public abstract class TestItemSummary {
 	protected int totalNumberOfTestRuns = 0;
 	protected double worstRun = 100.0;
 	protected double bestRun = 0.0;
+	/* Per run statistics, only kept for modules and packages. */
+	protected RunSeries runSeries = null;
+	/* The trends, calculated again whenever the history is calculated. */
+	protected transient Trends trends = null;
 
 	/**
 	 * CTOR
@@ -182,6 +190,15 @@ public abstract class TestItemSummary {
 		return this.totalNumberOfTestRuns;
 	}
 
+	/**
+	 * Returns the statistics of the test item in every run it was part of.
+	 * 
+	 * @return The run statistics, null for test cases.
+	 */
+	public RunSeries getRunSeries() {
+		return runSeries;
+	}
+
 	public abstract double getLargestExecutionTime();
 
 	public abstract int getLargestNumberOfTcs();
@@ -227,7 +244,7 @@ public abstract class TestItemSummary {
 	 * @return The change in number of test cases.
 	 */
 	public String getTcTrendLastDay() {
-		return getTcTrend(1 * 24 * 60 * 60 * 1000);
+		return getTcTrend(Trends.LAST_DAY);
 	}
 
 	/**
@@ -236,7 +253,7 @@ public abstract class TestItemSummary {
 	 * @return The change in number of test cases.
 	 */
 	public String getTcTrendLast3Days() {
-		return getTcTrend(3 * 24 * 60 * 60 * 1000);
+		return getTcTrend(Trends.LAST_3_DAYS);
 	}
 
 	/**
@@ -245,7 +262,7 @@ public abstract class TestItemSummary {
 	 * @return The change in number of test cases.
 	 */
 	public String getTcTrendLast7Days() {
-		return getTcTrend(7 * 24 * 60 * 60 * 1000);
+		return getTcTrend(Trends.LAST_7_DAYS);
 	}
 
 	/**
@@ -254,7 +271,7 @@ public abstract class TestItemSummary {
 	 * @return The change in number of failure.
 	 */
 	public String getFnTrendLastDay() {
-		return getFnTrend(1 * 24 * 60 * 60 * 1000);
+		return getFnTrend(Trends.LAST_DAY);
 	}
 
 	/**
@@ -263,7 +280,7 @@ public abstract class TestItemSummary {
 	 * @return The change in number of failures.
 	 */
 	public String getFnTrendLast3Days() {
-		return getFnTrend(3 * 24 * 60 * 60 * 1000);
+		return getFnTrend(Trends.LAST_3_DAYS);
 	}
 
 	/**
@@ -272,7 +289,7 @@ public abstract class TestItemSummary {
 	 * @return The change in number of failures.
 	 */
 	public String getFnTrendLast7Days() {
-		return getFnTrend(7 * 24 * 60 * 60 * 1000);
+		return getFnTrend(Trends.LAST_7_DAYS);
 	}
 
 	/**
@@ -281,7 +298,7 @@ public abstract class TestItemSummary {
 	 * @return The pass rate trend as a formatted String.
 	 */
 	public String getPrTrendLast3Days() {
-		return getPrTrend(3 * 24 * 60 * 60 * 1000);
+		return getPrTrend(Trends.LAST_3_DAYS);
 	}
 
 	/**
@@ -290,7 +307,7 @@ public abstract class TestItemSummary {
 	 * @return The pass rate trend as a formatted String.
 	 */
 	public String getPrTrendLast7Days() {
-		return getPrTrend(7 * 24 * 60 * 60 * 1000);
+		return getPrTrend(Trends.LAST_7_DAYS);
 	}
 
 	/**
@@ -300,11 +317,7 @@ public abstract class TestItemSummary {
 	 * @return Returns the pass rate difference.
 	 */
 	public String getPrTrendLastRun() {
-		if (totalNumberOfTestRuns < 2) {
-			return "NA";
-		} else {
-			return getPrDiff(totalNumberOfTestRuns, 1);
-		}
+		return getPrDiff(Trends.LAST_RUN);
 	}
 
 	/**
@@ -313,11 +326,7 @@ public abstract class TestItemSummary {
 	 * @return Returns the pass rate difference.
 	 */
 	public String getPrTrendLast5Runs() {
-		if (totalNumberOfTestRuns < 5) {
-			return "NA";
-		} else {
-			return getPrDiff(totalNumberOfTestRuns, 4);
-		}
+		return getPrDiff(Trends.LAST_5_RUNS);
 	}
 
 	/**
@@ -327,21 +336,25 @@ public abstract class TestItemSummary {
 	 * @return Returns the pass rate difference.
 	 */
 	public String getPrTrendLast10Runs() {
-		if (totalNumberOfTestRuns < 10) {
-			return "NA";
-		} else {
-			return getPrDiff(totalNumberOfTestRuns, 9);// FIXME, bug here, gets stucked in a loop.
-		}
+		return getPrDiff(Trends.LAST_10_RUNS);
 	}
 
 	// Good solution?
-	protected abstract String getFnTrend(long trendInterval);
+	protected String getFnTrend(int window) {
+		return null == trends ? "NA" : trends.getFnTimeTrend(window);
+	}
 
-	protected abstract String getTcTrend(long trendInterval);
+	protected String getTcTrend(int window) {
+		return null == trends ? "NA" : trends.getTcTimeTrend(window);
+	}
 
-	protected abstract String getPrTrend(long trendInterval);
+	protected String getPrTrend(int window) {
+		return null == trends ? "NA" : trends.getPrTimeTrend(window);
+	}
 
-	protected abstract String getPrDiff(int runs, int idx);
+	protected String getPrDiff(int window) {
+		return null == trends ? "NA" : trends.getPrRunTrend(window);
+	}
 }
 
 /* eof */
@@ -41,6 +41,8 @@ import unitth.core.TestItemUtils;
  */
 public class TestModule extends TestItem implements Comparable<TestModule> {
 
+	private static final long serialVersionUID = 1L;
+
 	private HashMap<String, TestCase> testCases = null;
 	private int noTestCases = 0;
 	private int noFailures = 0;
@@ -49,6 +51,8 @@ public class TestModule extends TestItem implements Comparable<TestModule> {
 	private int noIgnored = 0;
 	private int runIdx = 0;
 	private boolean isIgnored = false; // If the whole class is @Ignore
+	/* The id of the module name in the name table of the history. */
+	private int id = NameTable.NO_NAME;
 
 	/**
 	 * CTOR, initializes the container holding all the test cases.
@@ -68,7 +72,7 @@ public class TestModule extends TestItem implements Comparable<TestModule> {
 			return false;
 		}
 		TestModule tm = (TestModule) obj;
-		if (runDate.equals(tm.getExecutionDate()) && name.equals(tm.name)
+		if (runTime == tm.runTime && name.equals(tm.name)
 				&& executionTime == tm.getExecutionTimeDouble()
 				&& passPct == tm.getPassPctDouble()) {
 			return true;
@@ -81,7 +85,7 @@ public class TestModule extends TestItem implements Comparable<TestModule> {
 	 * @see java.lang.Object#hashCode()
 	 */
 	public int hashCode() {
-		return name.hashCode() + runDate.hashCode()
+		return name.hashCode() + (int) (runTime ^ (runTime >>> 32))
 				+ (int) (executionTime * 10000);
 	}
 
@@ -95,28 +99,6 @@ public class TestModule extends TestItem implements Comparable<TestModule> {
 		return -1;
 	}
 
-	/**
-	 * This method sets the execution run date from a long time stamp.
-	 * 
-	 * @see unitth.core.TestItemUtils#fixDateFormat
-	 * @param timeStamp
-	 */
-	public void setDate(long timeStamp) {
-		runDate = TestItemUtils.fixDateFormat(timeStamp);
-	}
-
-	/**
-	 * This method sets the execution run date from the parsed string. The time
-	 * stamp is first formatted to remove some special characters like CEST, CET
-	 * or T.
-	 * 
-	 * @see unitth.core.TestItemUtils#fixDateFormat
-	 * @param timeStamp
-	 */
-	public void setDate(String timeStamp) {
-		runDate = TestItemUtils.fixDateFormat(timeStamp);
-	}
-
 	/**
 	 * Sets the number of test cases after first converting the string to an
 	 * integer.
@@ -132,6 +114,16 @@ public class TestModule extends TestItem implements Comparable<TestModule> {
 		}
 	}
 
+	/**
+	 * Sets the number of test cases.
+	 * 
+	 * @param no
+	 *            The number of test cases
+	 */
+	public void setNoTestCases(int no) {
+		noTestCases = no;
+	}
+
 	/**
 	 * Sets the number of failed test cases after first converting the string to
 	 * an integer.
@@ -147,6 +139,16 @@ public class TestModule extends TestItem implements Comparable<TestModule> {
 		}
 	}
 
+	/**
+	 * Sets the number of failed test cases.
+	 * 
+	 * @param no
+	 *            The number of failed test cases
+	 */
+	public void setNoFailures(int no) {
+		noFailures = no;
+	}
+
 	/**
 	 * Sets the number of error test cases after first converting the string to
 	 * an integer.
@@ -162,6 +164,16 @@ public class TestModule extends TestItem implements Comparable<TestModule> {
 		}
 	}
 
+	/**
+	 * Sets the number of error test cases.
+	 * 
+	 * @param no
+	 *            The number of error test cases
+	 */
+	public void setNoErrors(int no) {
+		noErrors = no;
+	}
+
 	/**
 	 * Adds a test case to the list of test cases.
 	 * 
@@ -208,15 +220,6 @@ public class TestModule extends TestItem implements Comparable<TestModule> {
 		return noErrors+noFailures;
 	}
 	
-	/**
-	 * Returns the formatted date execution stamp.
-	 * 
-	 * @return The date of execution stamp.
-	 */
-	public String getExecutionDate() {
-		return runDate;
-	}
-
 	/**
 	 * Returns the collection of test cases.
 	 * 
@@ -267,7 +270,9 @@ public class TestModule extends TestItem implements Comparable<TestModule> {
 	 */
 	public String toString() {
 		String ret = "\n--+-- Test module --+--\n";
-		ret += name + "\n" + "Run date: " + runDate + "\n" + "Execution time: "
+		ret += name + "\n" + "Run date: "
+				+ TestItemUtils.timeStampToString(runTime, runTimeOffset)
+				+ "\n" + "Execution time: "
 				+ executionTime + "\n" + "Test cases: " + noTestCases + "\n"
 				+ "Errors: " + noErrors + "\n" + "Failures: " + noFailures
 				+ "\n" + "Pass: " + getNoPassed();
@@ -302,14 +307,48 @@ public class TestModule extends TestItem implements Comparable<TestModule> {
 			passPct = ((double) noPassed / (double) noTestCases) * 100;
 		}
 	    */		
-		if (runDate == null || runDate.isEmpty()) { 
+		if (TestItemUtils.NO_TIME_STAMP == runTime) { 
 			// FIXME, is this really the correct approach. How can
 			// we properly handle the case where test runs are broken
 			// and there are no time stamps in the results.
-			runDate = UNKNOWN_TIME_STAMP;
+			runTime = TestItemUtils.UNKNOWN_TIME_STAMP;
 		}
 	}
 	
+	/**
+	 * Returns the id of the module name, set when the module is added to a
+	 * history.
+	 * 
+	 * @return The module name id.
+	 */
+	public int getId() {
+		return id;
+	}
+
+	/*
+	 * Replaces the names of the module and its test cases with the ones
+	 * stored in the name table.
+	 */
+	void internNames(NameTable names) {
+		name = names.intern(name);
+		id = names.getId(getName());
+		HashMap<String, TestCase> interned = new HashMap<String, TestCase>(
+				testCases.size() * 4 / 3 + 1);
+		for (TestCase tc : testCases.values()) {
+			tc.internNames(names);
+			interned.put(tc.getName(), tc);
+		}
+		testCases = interned;
+	}
+
+	/*
+	 * Drops the test cases of the module, the statistics of the module are
+	 * kept.
+	 */
+	void releaseTestCases() {
+		testCases = new HashMap<String, TestCase>(0);
+	}
+
 	/**
 	 * Sets the run index for this module.
 	 * 
@@ -328,16 +367,6 @@ public class TestModule extends TestItem implements Comparable<TestModule> {
 		return runIdx;
 	}
 	
-	/**
-	 * This method calculates a long value from a stringified date. The method
-	 * is primarily used for calculating trends based on time stamps.
-	 * 
-	 * @return The run date converted to long.
-	 */
-	public long getRunDateAsLong() {
-		return TestItemUtils.runDateToLong(runDate);
-	}
-
 	/**
 	 * Sets the fact that the entire test class has been ignored using the @Ignore annotation.
 	 */
@@ -364,6 +393,10 @@ public class TestModule extends TestItem implements Comparable<TestModule> {
             noIgnored = 0;
         }
     }
+
+    public void setNoIgnored(int no) {
+        noIgnored = no;
+    }
 }
 
 /* eof */
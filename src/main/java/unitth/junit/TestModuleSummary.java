@@ -22,12 +22,12 @@
  */
 package unitth.junit;
 
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.TreeSet;
 
-import unitth.core.TestItemUtils;
 import unitth.core.UnitTHException;
 
 /**
@@ -42,6 +42,8 @@ import unitth.core.UnitTHException;
  */
 public class TestModuleSummary extends TestItemSummary {
 
+	private static final long serialVersionUID = 1L;
+
 	private TreeSet<String> noUniqueTestCases = null;
 	private int noExecuted = 0;
 
@@ -67,6 +69,7 @@ public class TestModuleSummary extends TestItemSummary {
 	 */
 	public TestModuleSummary(TestModule tm) {
 		name = tm.getName();
+		runSeries = new RunSeries();
 		if (!tm.getIsIgnored()) {
             noExecuted = tm.getNoTestCases();
         }
@@ -160,6 +163,18 @@ public class TestModuleSummary extends TestItemSummary {
 		}
 	}
 
+	/*
+	 * Moves the spread and the run statistics to new run indexes.
+	 */
+	void reindex(int[] newIdxs) {
+		HashMap<Integer, TestModule> moved = new HashMap<Integer, TestModule>();
+		for (Integer idx : spread.keySet()) {
+			moved.put(newIdxs[idx], spread.get(idx));
+		}
+		spread = moved;
+		runSeries.reindex(newIdxs);
+	}
+
 	/*
 	 * Adds unique test case names to a list.
 	 * 
@@ -235,164 +250,29 @@ public class TestModuleSummary extends TestItemSummary {
 	}
 
 	/*
-	 * Returns the diff in pass rate between the last module run and the last
-	 * executed module run before that.
-	 * 
-	 * @param runs The number of runs in the history since we need an offset to
-	 * count from.
-	 * 
-	 * @param idx The index of the run to match with.
-	 * 
-	 * @return The pass rate difference as string.
+	 * Calculates the trends of the module from its spread.
 	 */
-	protected String getPrDiff(int runs, int idx) {
-		TestModule tmLast = spread.get(runs);
-		TestModule tmFirst = null;
-
-		// Do not return any diff if this module was not part of the last run.
-		if (null == tmLast) {
-			return "NA";
-		}
-
-		// Loop from the start until a run is found and then increase
-		// the counter
-		int ctr = 0;
-		for (int i=1; ctr<=spread.size(); i++) {
-			if ((runs-i)<0) {
-				break;
-			}
-			tmFirst = spread.get(runs - i);
-			if (null != tmFirst) {
-				ctr++;
-				if (ctr==idx) {
-					break;
-				}
-			}
-		}
-		if (null == tmFirst) {
-			return "NA";
-		}
-		
-		double diff = Double.parseDouble(tmLast.getPassPct())
-				- Double.parseDouble(tmFirst.getPassPct());
-		String ret = TestItemUtils.passPctToString(diff) + "%";
-		if (0 < diff) {
-			ret = "+" + ret;
-		}
-		return ret;
-	}
-
-	/*
-	 * This method calculates from which test run the trend shall be counted
-	 * for. The calculation is based on a time stamp taken at the point of
-	 * report generation.
-	 * 
-	 * @param trendInterval The interval in milliseconds. The interval is the
-	 * point in time from where to calculate the trend.
-	 * 
-	 * @return The test run to calculate the trend from.
-	 */
-	private TestModule getTrendTestRun(long trendInterval) {
-		long currentTime = System.currentTimeMillis();
-		long breakPoint = currentTime - trendInterval;
-
-		// It might be necessary to run through all runs in case there might be
-		// an
-		// occasion where the modules are not sorted.
-
-		for (int i = totalNumberOfTestRuns - 1; i > 0; i--) {
-			TestModule tm = spread.get(i);
-
-			if (tm != null) {
-				long runTimeStamp = tm.getRunDateAsLong();
-
-				if (breakPoint > runTimeStamp) {
-					return tm;
-				}
-			}
+	void calcTrends(TrendEngine engine) {
+		int[] runIdxs = new int[spread.size()];
+		int i = 0;
+		for (Integer idx : spread.keySet()) {
+			runIdxs[i++] = idx;
 		}
-		return null;
-	}
-
-	/*
-	 * This method calculates the pass rate trend based on a time stamp taken at
-	 * the point of report generation.
-	 * 
-	 * @param trendInterval The interval in milliseconds. The interval is the
-	 * point in time from where to calculate the trend.
-	 * 
-	 * @return The change in pass rate.
-	 */
-	protected String getPrTrend(long trendInterval) {
-		TestModule matchingTm = getTrendTestRun(trendInterval);
-
-		if (null != matchingTm) {
-			double diff = Double.parseDouble(spread.get(totalNumberOfTestRuns)
-					.getPassPct())
-					- Double.parseDouble(matchingTm.getPassPct());
-
-			String ret = TestItemUtils.passPctToString(diff) + "%";
-			if (0 < diff) {
-				ret = "+" + ret;
-			}
-			return ret;
-		} else {
-			return "NA";
-		}
-	}
-
-	/*
-	 * This method calculates the test case trend based on a time stamp taken at
-	 * the point of report generation.
-	 * 
-	 * @param trendInterval The interval in milliseconds. The interval is the
-	 * point in time from where to calculate the trend.
-	 * 
-	 * @return The change in number of test cases.
-	 */
-	protected String getTcTrend(long trendInterval) {
-		TestModule matchingTm = getTrendTestRun(trendInterval);
-		if (null != matchingTm) {
-			TestModule tmAtEnd = spread.get(totalNumberOfTestRuns);
-			if (null != tmAtEnd) {
-				int diff = spread.get(totalNumberOfTestRuns).getNoTestCases()
-						- matchingTm.getNoTestCases();
-
-				String ret = Integer.toString(diff);
-				if (0 < diff) {
-					ret = "+" + ret;
-				}
-				return ret;
-			}
-		}
-		return "NA";
-	}
-
-	/*
-	 * This method calculates the test case trend based on a time stamp taken at
-	 * the point of report generation.
-	 * 
-	 * @param trendInterval The interval in milliseconds. The interval is the
-	 * point in time from where to calculate the trend.
-	 * 
-	 * @return The change in number of test cases.
-	 */
-	protected String getFnTrend(long trendInterval) {
-		TestModule matchingTm = getTrendTestRun(trendInterval);
-		if (null != matchingTm) {
-			TestModule tmAtEnd = spread.get(totalNumberOfTestRuns);
-			if (null != tmAtEnd) {
-				int diff = spread.get(totalNumberOfTestRuns).getNoNonPassing()
-						- matchingTm.getNoNonPassing();
-
-				String ret = Integer.toString(diff);
-				if (0 < diff) {
-					ret = "+" + ret;
-				}
-				return ret;
-			}
+		Arrays.sort(runIdxs);
+
+		long[] runDates = new long[runIdxs.length];
+		double[] passPcts = new double[runIdxs.length];
+		int[] noTestCases = new int[runIdxs.length];
+		int[] noNonPass = new int[runIdxs.length];
+		for (i = 0; i < runIdxs.length; i++) {
+			TestModule tm = spread.get(runIdxs[i]);
+			runDates[i] = tm.getRunDateAsLong();
+			passPcts[i] = tm.getPassPctDouble();
+			noTestCases[i] = tm.getNoTestCases();
+			noNonPass[i] = tm.getNoNonPassing();
 		}
-		return "NA";
+		trends = engine.calcSpreadTrends(totalNumberOfTestRuns, runIdxs,
+				runDates, passPcts, noTestCases, noNonPass);
 	}
 }
 
@@ -30,6 +30,8 @@ import unitth.core.TestItemUtils;
 
 public class TestPackage extends TestItem {
 
+	private static final long serialVersionUID = 1L;
+
 	/** All unique tests modules in this package. */
 	private int noTestModulesRec = 0;
 	/** All unique tests with error verdict in all sub packages and test classes. */
@@ -46,15 +48,15 @@ public class TestPackage extends TestItem {
 	private int noTestCases = 0;
 	/** The run index for this instance of <code>TestPackage</code>. */
 	private int runIdx = 0;
-	/** The first time stamp where this run was included. */
-	private String runDate = "";
 
 	/** This is a container for all test classes part of this package. */
 	private HashMap<String, TestModule> testModules = null;
 	
 	public String toString() {
 		String ret = "\n--+-- Test package --+--\n";
-		ret += name + "\n" + "Run date: " + runDate + "\n" + "Execution time: "
+		ret += name + "\n" + "Run date: "
+				+ TestItemUtils.timeStampToString(runTime, runTimeOffset)
+				+ "\n" + "Execution time: "
 				+ executionTime + "\n" + "Test cases: " + noTestCases + "\n"
 				+ "Errors: " + noErrors + "\n" 
 				+ "Failures: " + noFailures + "\n"
@@ -166,14 +168,6 @@ public class TestPackage extends TestItem {
 		this.passPct = passPct;
 	}
 	
-	public String getRunDate() {
-		return runDate;
-	}
-	
-	public void setRunDate(String runDate) {
-		this.runDate = TestItemUtils.fixDateFormat(runDate);
-	}
-	
 	/**
 	 * This method runs through all the test cases and packages for this 
 	 * package. All the stats are calculated once and only once.
@@ -196,10 +190,7 @@ public class TestPackage extends TestItem {
 			noTestCases += tm.getNoTestCases();
 			this.executionTime += tm.getExecutionTimeDouble();
 			
-			String timeStampHolder = tm.getExecutionDate();
-			if (runDate == null || runDate.isEmpty() || 0 < runDate.compareToIgnoreCase(timeStampHolder)) {
-				runDate = timeStampHolder;
-			}
+			setEarliestRunTime(tm);
 		}
 		
 		// Final calculations
@@ -214,10 +205,6 @@ public class TestPackage extends TestItem {
 		}
 	}
 	
-	public String getExecutionDate() {
-		return runDate;
-	}
-	
 	public HashMap<String, TestModule> getTestModules() {
 		return testModules;
 	}
@@ -225,6 +212,21 @@ public class TestPackage extends TestItem {
 	public TestModule getTestModule(String name) {
 		return testModules.get(name);
 	}
+
+	/*
+	 * Replaces the names of the package and everything in it with the ones
+	 * stored in the name table.
+	 */
+	void internNames(NameTable names) {
+		name = names.intern(name);
+		HashMap<String, TestModule> interned = new HashMap<String, TestModule>(
+				testModules.size() * 4 / 3 + 1);
+		for (TestModule tm : testModules.values()) {
+			tm.internNames(names);
+			interned.put(tm.getName(), tm);
+		}
+		testModules = interned;
+	}
 	
 	/**
 	 * Returns the number of non passing test cases in a test module.
@@ -22,12 +22,12 @@
  */
 package unitth.junit;
 
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.Iterator;
-import java.util.TreeSet;
 
-import unitth.core.TestItemUtils;
 import unitth.core.UnitTHException;
 
 /**
@@ -45,8 +45,11 @@ import unitth.core.UnitTHException;
  */
 public class TestPackageSummary extends TestItemSummary {
 
-	private TreeSet<String> noUniqueTestModules = null;
-	private TreeSet<String> noUniqueTestCases = null;
+	private static final long serialVersionUID = 1L;
+
+	/* The ids of the module names and test cases seen in the package. */
+	private BitSet noUniqueTestModules = null;
+	private BitSet noUniqueTestCases = null;
 	
 	protected int noExecuted = 0;
 	protected int largestNoOfTestCases = 0;
@@ -65,11 +68,12 @@ public class TestPackageSummary extends TestItemSummary {
 	
 	public TestPackageSummary(TestPackage tp) {
 		
-		noUniqueTestModules = new  TreeSet<String>();
-		noUniqueTestCases = new  TreeSet<String>();
+		noUniqueTestModules = new BitSet();
+		noUniqueTestCases = new BitSet();
 		
 		noRuns = 1;
 		name = tp.getName();
+		runSeries = new RunSeries();
 		noPassed = tp.getNoPassed();
 		noFailed = tp.getNoFailures();
 		noErrors = tp.getNoErrors();
@@ -97,6 +101,7 @@ public class TestPackageSummary extends TestItemSummary {
 		spread = new HashMap<Integer, TestPackage>();
 		spread.put(tp.getRunIdx(), tp);
 		addTestModuleNames(tp);
+		addTestCaseNames(tp);
 	}
 	
 	/**
@@ -163,6 +168,18 @@ public class TestPackageSummary extends TestItemSummary {
 					"This module has a different class name than expected, "+tp.getName()+" !");
 		}
 	}
+
+	/*
+	 * Moves the spread and the run statistics to new run indexes.
+	 */
+	void reindex(int[] newIdxs) {
+		HashMap<Integer, TestPackage> moved = new HashMap<Integer, TestPackage>();
+		for (Integer idx : spread.keySet()) {
+			moved.put(newIdxs[idx], spread.get(idx));
+		}
+		spread = moved;
+		runSeries.reindex(newIdxs);
+	}
 	
 	/**
 	 * Returns the number of executed test cases in this class.
@@ -193,11 +210,11 @@ public class TestPackageSummary extends TestItemSummary {
 	}
 	
 	public int getNoUniqueTestCases() {
-		return noUniqueTestCases.size();
+		return noUniqueTestCases.cardinality();
 	}
 	
 	public int getNoUniqueTestModules() {
-		return noUniqueTestModules.size();
+		return noUniqueTestModules.cardinality();
 	}
 	
 	/*
@@ -210,7 +227,7 @@ public class TestPackageSummary extends TestItemSummary {
 		Iterator<TestModule> iter = c.iterator();
 		while (iter.hasNext()) {
 			TestModule tm = iter.next();
-			noUniqueTestModules.add(tm.getName());
+			noUniqueTestModules.set(tm.getId());
 		}
 	}
 	
@@ -224,169 +241,37 @@ public class TestPackageSummary extends TestItemSummary {
 			Iterator<TestCase> iter2 = c2.iterator();
 			while (iter2.hasNext()) {
 				TestCase tc = iter2.next();
-				noUniqueTestCases.add(tc.getFullName());
+				noUniqueTestCases.set(tc.getId());
 			}
 		}
 	}
 	
 	/*
-	 * This method calculates the pass rate trend based on a time stamp taken at
-	 * the point of report generation.
-	 * 
-	 * @param trendInterval The interval in milliseconds. The interval is the
-	 * point in time from where to calculate the trend.
-	 * 
-	 * @return The change in pass rate.
+	 * Calculates the trends of the package from its spread.
 	 */
-	protected String getPrTrend(long trendInterval) {
-		TestPackage matchingTp = getTrendTestRun(trendInterval);
-
-		if (null != matchingTp) {
-			double diff = Double.parseDouble(spread.get(totalNumberOfTestRuns)
-					.getPassPct())
-					- Double.parseDouble(matchingTp.getPassPct());
-
-			String ret = TestItemUtils.passPctToString(diff) + "%";
-			if (0 < diff) {
-				ret = "+" + ret;
-			}
-			return ret;
-		} else {
-			return "NA";
+	void calcTrends(TrendEngine engine) {
+		int[] runIdxs = new int[spread.size()];
+		int i = 0;
+		for (Integer idx : spread.keySet()) {
+			runIdxs[i++] = idx;
 		}
-	}
+		Arrays.sort(runIdxs);
 
-	/*
-	 * This method calculates the test case trend based on a time stamp taken at
-	 * the point of report generation.
-	 * 
-	 * @param trendInterval The interval in milliseconds. The interval is the
-	 * point in time from where to calculate the trend.
-	 * 
-	 * @return The change in number of test cases.
-	 */
-	protected String getTcTrend(long trendInterval) {
-		TestPackage matchingTp = getTrendTestRun(trendInterval);
-		if (null != matchingTp) {
-			TestPackage tpAtEnd = spread.get(totalNumberOfTestRuns);
-			if (null != tpAtEnd) {
-				int diff = spread.get(totalNumberOfTestRuns).getNoTestCases()
-						- matchingTp.getNoTestCases();
-
-				String ret = Integer.toString(diff);
-				if (0 < diff) {
-					ret = "+" + ret;
-				}
-				return ret;
-			}
+		long[] runDates = new long[runIdxs.length];
+		double[] passPcts = new double[runIdxs.length];
+		int[] noTestCases = new int[runIdxs.length];
+		int[] noNonPass = new int[runIdxs.length];
+		for (i = 0; i < runIdxs.length; i++) {
+			TestPackage tp = spread.get(runIdxs[i]);
+			runDates[i] = tp.getRunDateAsLong();
+			passPcts[i] = tp.getPassPctDouble();
+			noTestCases[i] = tp.getNoTestCases();
+			noNonPass[i] = tp.getNoNonPassing();
 		}
-		return "NA";
+		trends = engine.calcSpreadTrends(totalNumberOfTestRuns, runIdxs,
+				runDates, passPcts, noTestCases, noNonPass);
 	}
 
-	/*
-	 * This method calculates the test case trend based on a time stamp taken at
-	 * the point of report generation.
-	 * 
-	 * @param trendInterval The interval in milliseconds. The interval is the
-	 * point in time from where to calculate the trend.
-	 * 
-	 * @return The change in number of test cases.
-	 */
-	protected String getFnTrend(long trendInterval) {
-		TestPackage matchingTp = getTrendTestRun(trendInterval);
-		if (null != matchingTp) {
-			TestPackage tpAtEnd = spread.get(totalNumberOfTestRuns);
-			if (null != tpAtEnd) {
-				int diff = spread.get(totalNumberOfTestRuns).getNoNonPassing()
-						- matchingTp.getNoNonPassing();
-
-				String ret = Integer.toString(diff);
-				if (0 < diff) {
-					ret = "+" + ret;
-				}
-				return ret;
-			}
-		}
-		return "NA";
-	}
-
-	/*
-	 * This method calculates from which test run the trend shall be counted
-	 * for. The calculation is based on a time stamp taken at the point of
-	 * report generation.
-	 * 
-	 * @param trendInterval The interval in milliseconds. The interval is the
-	 * point in time from where to calculate the trend.
-	 * 
-	 * @return The test run to calculate the trend from.
-	 */
-	private TestPackage getTrendTestRun(long trendInterval) {
-		long currentTime = System.currentTimeMillis();
-		long breakPoint = currentTime - trendInterval;
-
-		// It might be necessary to run through all runs in case there might be
-		// an
-		// occasion where the modules are not sorted.
-
-		for (int i = totalNumberOfTestRuns - 1; i > 0; i--) {
-			TestPackage tp = spread.get(i);
-
-			if (tp != null) {
-				long runTimeStamp = tp.getRunDateAsLong();
-
-				if (breakPoint > runTimeStamp) {
-					return tp;
-				}
-			}
-		}
-		return null;
-	}
-	
-	/*
-	 * Returns the diff in pass rate between the last module run and the last
-	 * executed module run before that.
-	 * 
-	 * @param runs The number of runs in the history since we need an offset to
-	 * count from.
-	 * @param idx The index of the run to match with.
-	 * @return The pass rate difference as string.
-	 */
-	protected String getPrDiff(int runs, int idx) {
-		TestPackage tpLast = spread.get(runs); // Latest
-		TestPackage tpFirst = null;
-		
-		if (null == tpLast) {
-			return "NA";
-		}
-		
-		// Loop from the start until a run is found and then increase
-		// the counter
-		int ctr = 0;
-		for (int i=1; ctr<=spread.size(); i++) {
-			if ((runs-i)<0) {
-				break;
-			}
-			tpFirst = spread.get(runs - i);
-			if (null != tpFirst) {
-				ctr++;
-				if (ctr==idx) {
-					break;
-				}
-			}
-		}
-		if (null == tpFirst) {
-			return "NA";
-		}
-
-		double diff = Double.parseDouble(tpLast.getPassPct())
-				- Double.parseDouble(tpFirst.getPassPct());
-		String ret = TestItemUtils.passPctToString(diff) + "%";
-		if (0 < diff) {
-			ret = "+" + ret;
-		}
-		return ret;
-	}
-	
 	/**
 	 * Used for incrementing the flat summary structure so that it look s like a tree.
 	 * @param tp TestPackage to get the contents from.
@@ -428,10 +313,10 @@ public class TestPackageSummary extends TestItemSummary {
 	}
 	
 	private void addTestModuleNames(TestPackageSummary tps) {
-		noUniqueTestModules.addAll(tps.noUniqueTestModules);
+		noUniqueTestModules.or(tps.noUniqueTestModules);
 	}
 	
 	private void addTestCaseNames(TestPackageSummary tps) {
-		noUniqueTestCases.addAll(tps.noUniqueTestCases);
+		noUniqueTestCases.or(tps.noUniqueTestCases);
 	}
 }
@@ -26,12 +26,11 @@ package unitth.junit;
 
 import java.io.File;
 import java.net.URI;
-import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.Iterator;
 
-import unitth.core.CustomStringLengthComparator;
+import unitth.core.PackageTree;
 import unitth.core.TestItemUtils;
 import unitth.core.UnitTH;
 
@@ -43,11 +42,14 @@ import unitth.core.UnitTH;
  */
 public class TestRun extends TestItem implements Comparable<TestRun> {
 
-	/* The The lowest time stamp in all modules. */
-	private String runDate = null;
+	private static final long serialVersionUID = 1L;
+
 	/* The <code>HashMap</code> holding all the test packages in this test run. */
 	private HashMap<String, TestPackage> testPackages;
 
+	/* Set once the statistics of the run have been calculated. */
+	private boolean calculated = false;
+
 	private int noTestModules = 0;
 	/*
 	 * The number of test cases in this test run. This is the sum of all
@@ -114,8 +116,8 @@ public class TestRun extends TestItem implements Comparable<TestRun> {
 	 * @see java.lang.Comparable#compareTo(java.lang.Object)
 	 */
 	public int compareTo(TestRun tr) {
-		if (tr != null && tr.runDate != null) {
-			int v1 = tr.runDate.compareTo(runDate);
+		if (tr != null && TestItemUtils.NO_TIME_STAMP != tr.runTime) {
+			int v1 = tr.runTime < runTime ? -1 : (tr.runTime == runTime ? 0 : 1);
 			int v2 = 0;
 
 			if (!runPath.equalsIgnoreCase("")
@@ -133,15 +135,6 @@ public class TestRun extends TestItem implements Comparable<TestRun> {
 		return -1;
 	}
 
-	/**
-	 * Returns the run date for this test run.
-	 * 
-	 * @return The run date of this test run.
-	 */
-	public String getExecutionDate() {
-		return runDate;
-	}
-
 	/**
 	 * Returns the list of test modules in this test run.
 	 * 
@@ -196,6 +189,34 @@ public class TestRun extends TestItem implements Comparable<TestRun> {
 		return testPackages.get(name);
 	}
 
+	/*
+	 * Drops all test cases in this run, the statistics of the packages and
+	 * modules are kept. Done when a run has been folded into a history that
+	 * does not keep the test cases of every run.
+	 */
+	void releaseTestCases() {
+		for (TestPackage tp : testPackages.values()) {
+			for (TestModule tm : tp.getTestModules().values()) {
+				tm.releaseTestCases();
+			}
+		}
+	}
+
+	/*
+	 * Replaces the names of all packages, modules and test cases in this run
+	 * with the ones stored in the name table and sets their ids. Done when the
+	 * run is added to a history.
+	 */
+	void internNames(NameTable names) {
+		HashMap<String, TestPackage> interned = new HashMap<String, TestPackage>(
+				testPackages.size() * 4 / 3 + 1);
+		for (TestPackage tp : testPackages.values()) {
+			tp.internNames(names);
+			interned.put(tp.getName(), tp);
+		}
+		testPackages = interned;
+	}
+
 	/**
 	 * Returns the number of test cases executed in this test run.
 	 * 
@@ -288,23 +309,18 @@ public class TestRun extends TestItem implements Comparable<TestRun> {
 		return runIdx;
 	}
 
-	/**
-	 * This method calculates a long value from a stringified date. The method
-	 * is primarily used for calculating trends based on time stamps.
-	 * 
-	 * @return The run date converted to long.
-	 */
-	public long getRunDateAsLong() {
-		return TestItemUtils.runDateToLong(runDate);
-	}
-
 	/**
 	 * This method does all the statistics calculations for this run. It calls
 	 * the corresponding method for each of the test modules in this test run.
+	 * A run is only calculated once, calling this again changes nothing.
 	 * 
 	 * @see unitth.core.TestModule#calcStats()
 	 */
 	public void calcStats() {
+		if (calculated) {
+			return;
+		}
+		calculated = true;
 		Collection<TestPackage> c = testPackages.values();
 		Iterator<TestPackage> iter = c.iterator();
 
@@ -319,13 +335,8 @@ public class TestRun extends TestItem implements Comparable<TestRun> {
 			noTestModules += tp.getNoTestModulesThis();
 			executionTime += tp.getExecutionTimeDouble();
 
-			// If null or the new string is less than the set time stamp
-			// Get the last run date, the formats are in YYYY-MM-DD
-			String timeStampHolder = tp.getExecutionDate();
-			if (null == runDate || runDate.isEmpty()
-					|| 0 < runDate.compareToIgnoreCase(timeStampHolder)) {
-				runDate = timeStampHolder;
-			}
+			// The run date is the earliest module time stamp
+			setEarliestRunTime(tp);
 
 			// Largest execution time
 			double largestExecutionTimeHolder = tp.getExecutionTimeDouble();
@@ -347,30 +358,18 @@ public class TestRun extends TestItem implements Comparable<TestRun> {
 		// 1) Get a list of sorted keys.
 		// 2) For every package where there is a sub match in name we increment.
 		//
-		String[] packageNames = testPackages.keySet().toArray(new String[0]);
-		Arrays.sort(packageNames, new CustomStringLengthComparator());
-		
-		for (String s1 : packageNames) {
-			for (String s2 : packageNames) {
-				// We do not want to increment the same
-				if (!s1.equalsIgnoreCase(s2)) {
-					
-					// Trim s1 one level!
-					if (s1.contains(".")) {
-						String parent = s1.substring(0, s1.lastIndexOf("."));
-						if (parent.equalsIgnoreCase(s2)) {
-							testPackages.get(s2).addFrom(testPackages.get(s1));
-						}
-					}
-				}
+		new PackageTree(testPackages.keySet()).rollUp(new PackageTree.RollUp() {
+			public void addFrom(String parentName, String childName) {
+				testPackages.get(parentName).addFrom(
+						testPackages.get(childName));
 			}
-		}
+		});
 		
 		// All set, what has been parsed...
 		if (UnitTH.c_DBG) {
 			System.out.println("Parsed: tcs " + noTestCases + " e " + noErrors
 					+ " f " + noFailures + " et " + executionTime + " rd "
-					+ runDate);
+					+ TestItemUtils.timeStampToString(runTime, runTimeOffset));
 		}
 	}
 
@@ -559,22 +558,13 @@ public class TestRun extends TestItem implements Comparable<TestRun> {
 		}
 	}
 
-	/**
-	 * Sets the run time stamp after formatting for this test run.
-	 * 
-	 * @param timeStamp
-	 *            The time stamp string to format and set.
-	 */
-	public void setDate(String timeStamp) {
-		runDate = TestItemUtils.fixDateFormat(timeStamp);
-	}
-
 	/**
 	 * @see java.lang.Object#toString()
 	 */
 	public String toString() {
 		String buf = "-+- Test run -+-\n";
-		buf += "Execution timestamp: " + runDate + "\n";
+		buf += "Execution timestamp: "
+				+ TestItemUtils.timeStampToString(runTime, runTimeOffset) + "\n";
 		buf += "No test packages: " + testPackages.size() + "\n";
 		buf += "No test modules: " + noTestModules + "\n";
 		buf += "No test cases: " + noTestCases + "\n";
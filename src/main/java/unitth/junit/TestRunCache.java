@@ -0,0 +1,345 @@
+/*
+ *    This file is part of UnitTH
+ *
+ *   UnitTH is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   UnitTH is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with UnitTH if not, see <http://www.gnu.org/licenses/>.
+ *
+ * =======================================================================
+ * $Id$
+ * -----------------------------------------------------------------------
+ *
+ * =======================================================================
+ */
+package unitth.junit;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+
+import unitth.core.UnitTH;
+
+/**
+ * This class stores parsed test runs on disk so that report files that have
+ * not changed since the last time UnitTH was executed do not need to be parsed
+ * again. There is one cache file per run folder. Each cache file starts with
+ * a finger print of the parsed files, name, size and last modification time,
+ * followed by the parsed test packages, test modules and test cases in a
+ * compact binary form. A cached run is only used if the finger print matches
+ * the files found in the run folder, in all other cases the run is parsed as
+ * usual and the cache file is replaced.
+ *
+ * @author andnyb
+ */
+public class TestRunCache {
+
+	/** Identifies a cache file, the last digits are the format version. */
+	private final static int c_MAGIC = 0x554e5402;
+	private final static String c_CACHE_FILE_SUFFIX = ".run";
+
+	/* String table markers. */
+	private final static int c_NULL_STRING = -1;
+	private final static int c_NEW_STRING = -2;
+
+	private File cacheDir = null;
+
+	/**
+	 * CTOR, sets the folder where the cache files are stored.
+	 *
+	 * @param cacheDir
+	 *            The cache folder, created on the first store.
+	 */
+	public TestRunCache(File cacheDir) {
+		this.cacheDir = cacheDir;
+	}
+
+	/**
+	 * Loads a cached test run.
+	 *
+	 * @param files
+	 *            The report files of the run.
+	 * @param dir
+	 *            The run folder.
+	 * @return The cached run or null if there is no valid cache entry.
+	 */
+	public TestRun load(ArrayList<File> files, String dir) {
+		File cacheFile = getCacheFile(dir);
+		if (!cacheFile.isFile()) {
+			return null;
+		}
+
+		DataInputStream in = null;
+		try {
+			in = new DataInputStream(new BufferedInputStream(
+					new FileInputStream(cacheFile)));
+			if (c_MAGIC != in.readInt() || !dir.equals(in.readUTF())
+					|| !readFingerPrint(in, files)) {
+				if (UnitTH.c_DBG) {
+					System.out.println("Stale cache entry for run: " + dir);
+				}
+				return null;
+			}
+			TestRun run = readTestRun(in);
+			if (UnitTH.c_DBG) {
+				System.out.println("Run loaded from cache: " + dir);
+			}
+			return run;
+		} catch (Exception e) {
+			// Whatever the problem the run is parsed again and a new entry
+			// is stored.
+			System.err.println("Could not read the cache file '"
+					+ cacheFile.getAbsolutePath()
+					+ "', parsing the run instead. " + e.getMessage());
+			return null;
+		} finally {
+			close(in);
+		}
+	}
+
+	/**
+	 * Stores a parsed test run. This must be done before the statistics for
+	 * the run are calculated.
+	 *
+	 * @param files
+	 *            The report files of the run.
+	 * @param dir
+	 *            The run folder.
+	 * @param run
+	 *            The parsed run.
+	 */
+	public void store(ArrayList<File> files, String dir, TestRun run) {
+		cacheDir.mkdirs();
+		File cacheFile = getCacheFile(dir);
+		File tmpFile = new File(cacheFile.getPath() + ".tmp");
+
+		DataOutputStream out = null;
+		try {
+			out = new DataOutputStream(new BufferedOutputStream(
+					new FileOutputStream(tmpFile)));
+			out.writeInt(c_MAGIC);
+			out.writeUTF(dir);
+			writeFingerPrint(out, files);
+			writeTestRun(out, run);
+			out.close();
+			out = null;
+
+			// Replace the old entry only when the new one is complete
+			cacheFile.delete();
+			if (!tmpFile.renameTo(cacheFile)) {
+				tmpFile.delete();
+			}
+		} catch (IOException ioe) {
+			System.err.println("Could not write the cache file '"
+					+ cacheFile.getAbsolutePath() + "'. " + ioe.getMessage());
+			close(out);
+			tmpFile.delete();
+		}
+	}
+
+	/*
+	 * The cache file name is a digest of the run folder name so that runs
+	 * with the same folder name in different locations do not clash.
+	 */
+	private File getCacheFile(String dir) {
+		String name;
+		try {
+			MessageDigest md = MessageDigest.getInstance("MD5");
+			byte[] digest = md.digest(dir.getBytes("UTF-8"));
+			StringBuilder sb = new StringBuilder();
+			for (byte b : digest) {
+				sb.append(Integer.toHexString((b & 0xff) | 0x100).substring(1));
+			}
+			name = sb.toString();
+		} catch (NoSuchAlgorithmException nsae) {
+			name = Integer.toHexString(dir.hashCode());
+		} catch (IOException ioe) {
+			name = Integer.toHexString(dir.hashCode());
+		}
+		return new File(cacheDir, name + c_CACHE_FILE_SUFFIX);
+	}
+
+	/**
+	 * Calculates a finger print from the names, sizes and last modification
+	 * times of a set of files. Used where a full list of the files is not
+	 * needed.
+	 *
+	 * @param files
+	 *            The files to calculate the finger print for.
+	 * @return The finger print.
+	 */
+	public static long getFingerPrint(ArrayList<File> files) {
+		long fp = files.size();
+		for (File f : files) {
+			fp = 31 * fp + f.getName().hashCode();
+			fp = 31 * fp + f.length();
+			fp = 31 * fp + f.lastModified();
+		}
+		return fp;
+	}
+
+	private void writeFingerPrint(DataOutputStream out, ArrayList<File> files)
+			throws IOException {
+		out.writeInt(files.size());
+		for (File f : files) {
+			out.writeUTF(f.getName());
+			out.writeLong(f.length());
+			out.writeLong(f.lastModified());
+		}
+	}
+
+	private boolean readFingerPrint(DataInputStream in, ArrayList<File> files)
+			throws IOException {
+		if (files.size() != in.readInt()) {
+			return false;
+		}
+		for (File f : files) {
+			if (!f.getName().equals(in.readUTF())
+					|| f.length() != in.readLong()
+					|| f.lastModified() != in.readLong()) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/*
+	 * Writes the parsed contents of a run. Only the values set while parsing
+	 * are stored, everything else is calculated later on.
+	 */
+	private void writeTestRun(DataOutputStream out, TestRun run)
+			throws IOException {
+		HashMap<String, Integer> strings = new HashMap<String, Integer>();
+		HashMap<String, TestPackage> packages = run.getTestPackages();
+		out.writeInt(packages.size());
+		for (TestPackage tp : packages.values()) {
+			writeString(out, tp.getName(), strings);
+			out.writeInt(tp.getTestModules().size());
+			for (TestModule tm : tp.getTestModules().values()) {
+				writeString(out, tm.getName(), strings);
+				out.writeLong(tm.runTime);
+				out.writeInt(tm.runTimeOffset);
+				out.writeDouble(tm.executionTime);
+				out.writeInt(tm.getNoTestCases());
+				out.writeInt(tm.getNoFailures());
+				out.writeInt(tm.getNoErrors());
+				out.writeInt(tm.getNoIgnored());
+				out.writeBoolean(tm.getIsIgnored());
+				out.writeInt(tm.getTestCases().size());
+				for (TestCase tc : tm.getTestCases().values()) {
+					writeString(out, tc.getName(), strings);
+					writeString(out, tc.getClassName(), strings);
+					writeString(out, tc.getModuleName(), strings);
+					out.writeDouble(tc.executionTime);
+					out.writeByte(tc.getVerdict().ordinal());
+				}
+			}
+		}
+	}
+
+	private TestRun readTestRun(DataInputStream in) throws IOException {
+		ArrayList<String> strings = new ArrayList<String>();
+		TestCaseVerdict[] verdicts = TestCaseVerdict.values();
+		HashMap<String, TestPackage> packages = new HashMap<String, TestPackage>();
+		int noPackages = in.readInt();
+		for (int i = 0; i < noPackages; i++) {
+			TestPackage tp = new TestPackage();
+			tp.setName(readString(in, strings));
+			int noModules = in.readInt();
+			for (int j = 0; j < noModules; j++) {
+				TestModule tm = new TestModule();
+				tm.setName(readString(in, strings));
+				tm.runTime = in.readLong();
+				tm.runTimeOffset = in.readInt();
+				tm.executionTime = in.readDouble();
+				tm.setNoTestCases(in.readInt());
+				tm.setNoFailures(in.readInt());
+				tm.setNoErrors(in.readInt());
+				tm.setNoIgnored(in.readInt());
+				if (in.readBoolean()) {
+					tm.setAsIgnored();
+				}
+				int noTestCases = in.readInt();
+				for (int k = 0; k < noTestCases; k++) {
+					TestCase tc = new TestCase();
+					tc.setName(readString(in, strings));
+					tc.setClassName(readString(in, strings));
+					tc.setModuleName(readString(in, strings));
+					tc.executionTime = in.readDouble();
+					tc.setVerdict(verdicts[in.readByte()]);
+					tm.addTestCase(tc);
+				}
+				tp.addTestModule(tm);
+			}
+			packages.put(tp.getName(), tp);
+		}
+
+		TestRun run = new TestRun();
+		run.addTestPackages(packages);
+		return run;
+	}
+
+	/*
+	 * Strings are written once per cache file, any repetition is written as
+	 * an index to the first occurrence. Class and module names are repeated
+	 * for every single test case.
+	 */
+	private void writeString(DataOutputStream out, String s,
+			HashMap<String, Integer> strings) throws IOException {
+		if (null == s) {
+			out.writeInt(c_NULL_STRING);
+			return;
+		}
+		Integer idx = strings.get(s);
+		if (null != idx) {
+			out.writeInt(idx);
+		} else {
+			strings.put(s, strings.size());
+			out.writeInt(c_NEW_STRING);
+			out.writeUTF(s);
+		}
+	}
+
+	private String readString(DataInputStream in, ArrayList<String> strings)
+			throws IOException {
+		int idx = in.readInt();
+		if (c_NULL_STRING == idx) {
+			return null;
+		} else if (c_NEW_STRING == idx) {
+			String s = in.readUTF();
+			strings.add(s);
+			return s;
+		}
+		return strings.get(idx);
+	}
+
+	private void close(Closeable c) {
+		try {
+			if (null != c) {
+				c.close();
+			}
+		} catch (IOException ioe) {
+			// void
+		}
+	}
+}
+
+/* eof */
@@ -0,0 +1,216 @@
+/*
+ *    This file is part of UnitTH
+ *
+ *   UnitTH is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   UnitTH is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with UnitTH if not, see <http://www.gnu.org/licenses/>.
+ *
+ * =======================================================================
+ * $Id$
+ * -----------------------------------------------------------------------
+ *
+ * =======================================================================
+ */
+package unitth.junit;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Locale;
+
+/**
+ * This class calculates the trends of a whole history in one go, the trends
+ * of the test run history and of every package and module summary. All time
+ * trends are taken from the same point in time, when the engine is created.
+ * <p>
+ * The statistics of a summary are handed over as arrays ordered by run index,
+ * the run dates as milliseconds. The run matching a point in time is found by
+ * binary search. The pass rates are rounded to two decimals before they are
+ * subtracted, as when they are shown in the report.
+ *
+ * @author andnyb
+ */
+public class TrendEngine {
+
+	private static final long c_DAY = 24 * 60 * 60 * 1000;
+	/* The time trend intervals, by time trend window. */
+	private static final long[] c_INTERVALS = { 1 * c_DAY, 3 * c_DAY,
+			7 * c_DAY };
+	/* The number of runs back of the run trends, by run trend window. */
+	private static final int[] c_RUNS_BACK = { 1, 4, 9 };
+
+	private long[] breakPoints = new long[Trends.NO_WINDOWS];
+
+	/**
+	 * CTOR
+	 *
+	 * @param currentTime
+	 *            The time to calculate the time trends from.
+	 */
+	public TrendEngine(long currentTime) {
+		for (int w = 0; w < Trends.NO_WINDOWS; w++) {
+			breakPoints[w] = currentTime - c_INTERVALS[w];
+		}
+	}
+
+	/**
+	 * Calculates the trends of a package or module summary. The latest run
+	 * is the run with the total number of runs as index, the runs matching a
+	 * point in time are only looked for among the runs before it.
+	 *
+	 * @param totalNoRuns
+	 *            The total number of runs, 0 if the item was not part of the
+	 *            latest run.
+	 * @param runIdxs
+	 *            The indexes of the runs the item was part of, in ascending
+	 *            order.
+	 * @param runDates
+	 *            The run date of the item in every run.
+	 * @param passPcts
+	 *            The pass rate of the item in every run.
+	 * @param noTestCases
+	 *            The number of test cases of the item in every run.
+	 * @param noNonPass
+	 *            The number of failed and error test cases of the item in
+	 *            every run.
+	 * @return The trends.
+	 */
+	public Trends calcSpreadTrends(int totalNoRuns, int[] runIdxs,
+			long[] runDates, double[] passPcts, int[] noTestCases,
+			int[] noNonPass) {
+		Trends trends = new Trends();
+		int last = Arrays.binarySearch(runIdxs, totalNoRuns);
+		if (last < 0) {
+			return trends;
+		}
+
+		// Runs before the latest one are counted backwards from it, whatever
+		// their index.
+		for (int w = 0; w < Trends.NO_WINDOWS; w++) {
+			int first = last - c_RUNS_BACK[w];
+			if (c_RUNS_BACK[w] < totalNoRuns && 0 <= first) {
+				trends.setPrRunDiff(w, roundPct(passPcts[last])
+						- roundPct(passPcts[first]));
+			}
+		}
+
+		// The run dates may not be in run order, the latest run before the
+		// point in time is found with the smallest date from each run on.
+		int from = 0;
+		while (from < last && runIdxs[from] < 1) {
+			from++;
+		}
+		int n = last - from;
+		long[] minFrom = new long[n];
+		for (int i = n - 1; i >= 0; i--) {
+			long runDate = runDates[from + i];
+			minFrom[i] = i == n - 1 ? runDate : Math.min(runDate,
+					minFrom[i + 1]);
+		}
+		for (int w = 0; w < Trends.NO_WINDOWS; w++) {
+			int i = lowerBound(minFrom, breakPoints[w]) - 1;
+			if (0 <= i) {
+				setTimeDiffs(trends, w, last, from + i, passPcts,
+						noTestCases, noNonPass);
+			}
+		}
+		return trends;
+	}
+
+	/**
+	 * Calculates the trends of a test run history. The runs matching a point
+	 * in time are the latest runs before it, looked for among all runs.
+	 *
+	 * @param runDates
+	 *            The run date of every run, indexed by run index - 1.
+	 * @param passPcts
+	 *            The pass rate of every run.
+	 * @param noTestCases
+	 *            The number of test cases of every run.
+	 * @param noNonPass
+	 *            The number of failed and error test cases of every run.
+	 * @return The trends.
+	 */
+	public Trends calcHistoryTrends(final long[] runDates, double[] passPcts,
+			int[] noTestCases, int[] noNonPass) {
+		Trends trends = new Trends();
+		int last = runDates.length - 1;
+		for (int w = 0; w < Trends.NO_WINDOWS; w++) {
+			if (c_RUNS_BACK[w] <= last) {
+				trends.setPrRunDiff(w, roundPct(passPcts[last])
+						- roundPct(passPcts[last - c_RUNS_BACK[w]]));
+			}
+		}
+
+		// Runs by date and for the same date by index, of the runs with the
+		// latest date before the point in time the one with the highest index
+		// is used.
+		Integer[] byDate = new Integer[runDates.length];
+		for (int i = 0; i < byDate.length; i++) {
+			byDate[i] = i;
+		}
+		Arrays.sort(byDate, new Comparator<Integer>() {
+			public int compare(Integer i1, Integer i2) {
+				if (runDates[i1] != runDates[i2]) {
+					return runDates[i1] < runDates[i2] ? -1 : 1;
+				}
+				return i1.compareTo(i2);
+			}
+		});
+		long[] sortedDates = new long[byDate.length];
+		for (int i = 0; i < byDate.length; i++) {
+			sortedDates[i] = runDates[byDate[i]];
+		}
+		for (int w = 0; w < Trends.NO_WINDOWS; w++) {
+			int i = lowerBound(sortedDates, breakPoints[w]) - 1;
+			// Runs without a proper run date are never matched
+			if (0 <= i && 0 < sortedDates[i]) {
+				setTimeDiffs(trends, w, last, byDate[i], passPcts,
+						noTestCases, noNonPass);
+			}
+		}
+		return trends;
+	}
+
+	private void setTimeDiffs(Trends trends, int window, int last, int match,
+			double[] passPcts, int[] noTestCases, int[] noNonPass) {
+		trends.setPrTimeDiff(window, roundPct(passPcts[last])
+				- roundPct(passPcts[match]));
+		trends.setTcTimeDiff(window, noTestCases[last] - noTestCases[match]);
+		trends.setFnTimeDiff(window, noNonPass[last] - noNonPass[match]);
+	}
+
+	/*
+	 * Returns the number of values smaller than the key in a sorted array.
+	 */
+	private static int lowerBound(long[] sorted, long key) {
+		int low = 0;
+		int high = sorted.length;
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			if (sorted[middle] < key) {
+				low = middle + 1;
+			} else {
+				high = middle;
+			}
+		}
+		return low;
+	}
+
+	/*
+	 * Rounds a pass rate the same way as it is shown in the report.
+	 */
+	private static double roundPct(double passPct) {
+		return Double.parseDouble(String.format(Locale.US, "%1.2f", passPct));
+	}
+}
+
+/* eof */
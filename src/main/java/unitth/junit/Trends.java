@@ -0,0 +1,177 @@
+/*
+ *    This file is part of UnitTH
+ *
+ *   UnitTH is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   UnitTH is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with UnitTH if not, see <http://www.gnu.org/licenses/>.
+ *
+ * =======================================================================
+ * $Id$
+ * -----------------------------------------------------------------------
+ *
+ * =======================================================================
+ */
+package unitth.junit;
+
+import unitth.core.TestItemUtils;
+
+/**
+ * This class holds the calculated trends of a test run history, package or
+ * module in numeric form. The trends are calculated once for every summary by
+ * the <code>TrendEngine</code> and only formatted when the report asks for
+ * them.
+ * <p>
+ * There are three run trends, the pass rate difference to the run before the
+ * latest run and to the fifth and tenth last runs, and three time trends, the
+ * pass rate, test case and failure differences to the run matching a point in
+ * time one, three and seven days back.
+ *
+ * @author andnyb
+ */
+public class Trends {
+
+	/** Run trend window, the difference to the run before the latest run. */
+	public static final int LAST_RUN = 0;
+	/** Run trend window, the difference to the fifth last run. */
+	public static final int LAST_5_RUNS = 1;
+	/** Run trend window, the difference to the tenth last run. */
+	public static final int LAST_10_RUNS = 2;
+	/** Time trend window, the difference to the run matching one day back. */
+	public static final int LAST_DAY = 0;
+	/** Time trend window, the difference to the run matching 3 days back. */
+	public static final int LAST_3_DAYS = 1;
+	/** Time trend window, the difference to the run matching 7 days back. */
+	public static final int LAST_7_DAYS = 2;
+
+	static final int NO_WINDOWS = 3;
+
+	/* Marks a count difference that could not be calculated. */
+	private static final int c_NA = Integer.MIN_VALUE;
+
+	/* A pass rate difference that could not be calculated is NaN. */
+	private double[] prRunDiffs = new double[NO_WINDOWS];
+	private double[] prTimeDiffs = new double[NO_WINDOWS];
+	private int[] tcTimeDiffs = new int[NO_WINDOWS];
+	private int[] fnTimeDiffs = new int[NO_WINDOWS];
+
+	/**
+	 * CTOR, no trend can be calculated until set.
+	 */
+	Trends() {
+		for (int w = 0; w < NO_WINDOWS; w++) {
+			prRunDiffs[w] = Double.NaN;
+			prTimeDiffs[w] = Double.NaN;
+			tcTimeDiffs[w] = c_NA;
+			fnTimeDiffs[w] = c_NA;
+		}
+	}
+
+	void setPrRunDiff(int window, double diff) {
+		prRunDiffs[window] = diff;
+	}
+
+	void setPrTimeDiff(int window, double diff) {
+		prTimeDiffs[window] = diff;
+	}
+
+	void setTcTimeDiff(int window, int diff) {
+		tcTimeDiffs[window] = diff;
+	}
+
+	void setFnTimeDiff(int window, int diff) {
+		fnTimeDiffs[window] = diff;
+	}
+
+	/**
+	 * @param window
+	 *            <code>LAST_RUN</code>, <code>LAST_5_RUNS</code> or
+	 *            <code>LAST_10_RUNS</code>.
+	 * @return The pass rate difference, NaN if there is none.
+	 */
+	public double getPrRunDiff(int window) {
+		return prRunDiffs[window];
+	}
+
+	/**
+	 * @param window
+	 *            <code>LAST_DAY</code>, <code>LAST_3_DAYS</code> or
+	 *            <code>LAST_7_DAYS</code>.
+	 * @return The pass rate difference, NaN if there is none.
+	 */
+	public double getPrTimeDiff(int window) {
+		return prTimeDiffs[window];
+	}
+
+	/**
+	 * @param window
+	 *            <code>LAST_RUN</code>, <code>LAST_5_RUNS</code> or
+	 *            <code>LAST_10_RUNS</code>.
+	 * @return The pass rate trend as a formatted String.
+	 */
+	public String getPrRunTrend(int window) {
+		return pctToString(prRunDiffs[window]);
+	}
+
+	/**
+	 * @param window
+	 *            <code>LAST_DAY</code>, <code>LAST_3_DAYS</code> or
+	 *            <code>LAST_7_DAYS</code>.
+	 * @return The pass rate trend as a formatted String.
+	 */
+	public String getPrTimeTrend(int window) {
+		return pctToString(prTimeDiffs[window]);
+	}
+
+	/**
+	 * @param window
+	 *            <code>LAST_DAY</code>, <code>LAST_3_DAYS</code> or
+	 *            <code>LAST_7_DAYS</code>.
+	 * @return The change in number of test cases.
+	 */
+	public String getTcTimeTrend(int window) {
+		return countToString(tcTimeDiffs[window]);
+	}
+
+	/**
+	 * @param window
+	 *            <code>LAST_DAY</code>, <code>LAST_3_DAYS</code> or
+	 *            <code>LAST_7_DAYS</code>.
+	 * @return The change in number of failures.
+	 */
+	public String getFnTimeTrend(int window) {
+		return countToString(fnTimeDiffs[window]);
+	}
+
+	private static String pctToString(double diff) {
+		if (Double.isNaN(diff)) {
+			return "NA";
+		}
+		String ret = TestItemUtils.passPctToString(diff) + "%";
+		if (0 < diff) {
+			ret = "+" + ret;
+		}
+		return ret;
+	}
+
+	private static String countToString(int diff) {
+		if (c_NA == diff) {
+			return "NA";
+		}
+		String ret = Integer.toString(diff);
+		if (0 < diff) {
+			ret = "+" + ret;
+		}
+		return ret;
+	}
+}
+
+/* eof */
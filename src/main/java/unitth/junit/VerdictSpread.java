@@ -0,0 +1,136 @@
+/*
+ *    This file is part of UnitTH
+ *
+ *   UnitTH is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   UnitTH is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with UnitTH if not, see <http://www.gnu.org/licenses/>.
+ *
+ * =======================================================================
+ * $Id$
+ * -----------------------------------------------------------------------
+ *
+ * =======================================================================
+ */
+package unitth.junit;
+
+import java.io.Serializable;
+import java.util.HashMap;
+
+/**
+ * This class holds the verdicts of one test case in all runs, indexed by the
+ * run index. Each verdict is packed into three bits of a <code>long</code>
+ * array, a cell that has never been set means that the test case was not part
+ * of that run. Compared to a map with one boxed key and one entry per run this
+ * brings the memory used for a test case down to a few bytes per hundred runs.
+ *
+ * @author andnyb
+ */
+public class VerdictSpread implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	private final static int c_BITS_PER_CELL = 3;
+	private final static int c_CELLS_PER_WORD = 64 / c_BITS_PER_CELL;
+	private final static long c_CELL_MASK = (1L << c_BITS_PER_CELL) - 1;
+
+	/* Cell value to verdict, zero is a run where the test case was not run. */
+	private final static TestCaseVerdict[] c_VERDICTS = TestCaseVerdict
+			.values();
+
+	private long[] cells = new long[1];
+	private int noCells = 0;
+
+	/**
+	 * Sets the verdict for a run.
+	 *
+	 * @param idx
+	 *            The run index, zero or larger.
+	 * @param verdict
+	 *            The verdict, null clears the cell.
+	 */
+	public void set(int idx, TestCaseVerdict verdict) {
+		int word = idx / c_CELLS_PER_WORD;
+		if (word >= cells.length) {
+			long[] grown = new long[Math.max(word + 1, cells.length * 2)];
+			System.arraycopy(cells, 0, grown, 0, cells.length);
+			cells = grown;
+		}
+		int shift = (idx % c_CELLS_PER_WORD) * c_BITS_PER_CELL;
+		long value = null == verdict ? 0 : verdict.ordinal() + 1;
+		cells[word] = (cells[word] & ~(c_CELL_MASK << shift))
+				| (value << shift);
+		if (idx >= noCells) {
+			noCells = idx + 1;
+		}
+	}
+
+	/**
+	 * Returns the verdict for a run.
+	 *
+	 * @param idx
+	 *            The run index.
+	 * @return The verdict or null if the test case was not part of the run.
+	 */
+	public TestCaseVerdict get(int idx) {
+		if (idx < 0 || idx >= noCells) {
+			return null;
+		}
+		int shift = (idx % c_CELLS_PER_WORD) * c_BITS_PER_CELL;
+		int cell = (int) ((cells[idx / c_CELLS_PER_WORD] >>> shift) & c_CELL_MASK);
+		return 0 == cell ? null : c_VERDICTS[cell - 1];
+	}
+
+	/**
+	 * Returns one more than the largest run index that has been set.
+	 *
+	 * @return The number of cells in use.
+	 */
+	public int size() {
+		return noCells;
+	}
+
+	/**
+	 * Moves every verdict to a new run index.
+	 *
+	 * @param newIdxs
+	 *            The new run index of every current run index.
+	 */
+	public void reindex(int[] newIdxs) {
+		VerdictSpread moved = new VerdictSpread();
+		for (int i = 0; i < noCells; i++) {
+			TestCaseVerdict verdict = get(i);
+			if (null != verdict) {
+				moved.set(newIdxs[i], verdict);
+			}
+		}
+		cells = moved.cells;
+		noCells = moved.noCells;
+	}
+
+	/**
+	 * Returns all set verdicts in a map where the key is the run index.
+	 *
+	 * @return A new map, changes to it are not reflected in the spread.
+	 */
+	public HashMap<Integer, TestCaseVerdict> toMap() {
+		HashMap<Integer, TestCaseVerdict> map = new HashMap<Integer, TestCaseVerdict>();
+		for (int i = 0; i < noCells; i++) {
+			TestCaseVerdict verdict = get(i);
+			if (null != verdict) {
+				map.put(i, verdict);
+			}
+		}
+		return map;
+	}
+}
+
+/* eof */
@@ -0,0 +1,367 @@
+/*
+ *    This file is part of UnitTH
+ *
+ *   UnitTH is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   UnitTH is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with UnitTH if not, see <http://www.gnu.org/licenses/>.
+ *
+ * =======================================================================
+ * $Id$
+ * =======================================================================
+ */
+
+/*
+ * Shows the tables that are written as JSON data chunks when the report is
+ * generated with unitth.table.mode=json. The chunks are loaded with script
+ * tags when their rows are scrolled into view, and only the rows that are
+ * visible are put in the page. A click on a column header loads all chunks
+ * and sorts the table on that column.
+ */
+var UnitTHTable = (function() {
+
+	var DATA_DIR = "data/";
+	var VIEW_ROWS = 30; // Number of rows shown without scrolling
+	var EXTRA_ROWS = 10; // Rows rendered above and below the visible ones
+	var BAR_WIDTH = 200;
+
+	var tables = new Object(); // The tables by data name
+
+	function Table(id, name, noRows, noChunks, chunkSize, columns) {
+		var rows = new Array(noRows);
+		var order = new Array(noRows); // Row indexes in the shown order
+		var chunks = new Array(noChunks); // 0 = not loaded, 1 = loading, 2 = loaded
+		var waiting = new Array; // Called when all chunks are loaded
+		var rowHeight = 20;
+		var sortColumn = -1;
+		var ascending = true;
+		var first = -1;
+		var last = -1;
+
+		var view = document.createElement("div");
+		var table = document.createElement("table");
+		var tbody = document.createElement("tbody");
+
+		for (var i = 0; i < noRows; i++) {
+			order[i] = i;
+		}
+		for (var c = 0; c < noChunks; c++) {
+			chunks[c] = 0;
+		}
+
+		/**
+		 * Stores the rows of a loaded chunk and shows them if visible.
+		 */
+		this.addChunk = function(idx, data) {
+			for (var i = 0; i < data.length; i++) {
+				rows[idx * chunkSize + i] = data[i];
+			}
+			chunks[idx] = 2;
+			if (isLoaded()) {
+				var w = waiting;
+				waiting = new Array;
+				for (var j = 0; j < w.length; j++) {
+					w[j]();
+				}
+			}
+			render(true);
+		};
+
+		function isLoaded() {
+			for (var c = 0; c < noChunks; c++) {
+				if (2 != chunks[c]) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		function loadChunk(idx) {
+			if (0 != chunks[idx]) {
+				return;
+			}
+			chunks[idx] = 1;
+			var script = document.createElement("script");
+			script.type = "text/javascript";
+			script.src = DATA_DIR + encodeURIComponent(name) + "-" + idx + ".js";
+			document.getElementsByTagName("head")[0].appendChild(script);
+		}
+
+		function loadAll(callback) {
+			if (isLoaded()) {
+				callback();
+				return;
+			}
+			waiting.push(callback);
+			for (var c = 0; c < noChunks; c++) {
+				loadChunk(c);
+			}
+		}
+
+		function createHeader() {
+			var thead = document.createElement("thead");
+			var tr = document.createElement("tr");
+			for (var i = 0; i < columns.length; i++) {
+				var th = document.createElement("th");
+				th.className = 0 == i ? "graphHeaderLeft" : "graphHeader";
+				th.appendChild(document.createTextNode(columns[i].t));
+				if ("pct" == columns[i].k) {
+					th.colSpan = 2;
+					th.align = "left";
+				}
+				th.onclick = createSorter(i);
+				tr.appendChild(th);
+			}
+			thead.appendChild(tr);
+			return thead;
+		}
+
+		function createSorter(column) {
+			return function() {
+				loadAll(function() {
+					sort(column);
+				});
+			};
+		}
+
+		function sortValue(row, column) {
+			var v = row[column];
+			var k = columns[column].k;
+			if ("num" == k || "pct" == k) {
+				var n = parseFloat(String(v).replace(",", "."));
+				return isNaN(n) ? -1 : n;
+			}
+			return null == v ? "" : String(v).toLowerCase();
+		}
+
+		function sort(column) {
+			ascending = column == sortColumn ? !ascending : true;
+			sortColumn = column;
+			var keys = new Array(noRows);
+			for (var i = 0; i < noRows; i++) {
+				keys[i] = sortValue(rows[i], column);
+			}
+			order.sort(function(a, b) {
+				var r = keys[a] < keys[b] ? -1 : keys[a] > keys[b] ? 1 : a - b;
+				return ascending ? r : -r;
+			});
+			var ths = table.tHead.rows[0].cells;
+			for (var j = 0; j < ths.length; j++) {
+				var cls = 0 == j ? "graphHeaderLeft" : "graphHeader";
+				if (j == column) {
+					cls += ascending ? "Asc" : "Desc";
+				}
+				ths[j].className = cls;
+			}
+			render(true);
+		}
+
+		function createSpacer(height) {
+			var tr = document.createElement("tr");
+			var td = document.createElement("td");
+			td.colSpan = columns.length + 1;
+			td.style.height = height + "px";
+			td.style.padding = "0";
+			tr.appendChild(td);
+			return tr;
+		}
+
+		function addText(td, text) {
+			td.appendChild(document.createTextNode(null == text ? "" : text));
+		}
+
+		function addBar(td, value) {
+			var pct = parseFloat(String(value).replace(",", "."));
+			if (isNaN(pct)) {
+				addBarPart(td, "prNan", BAR_WIDTH);
+				return;
+			}
+			var greenWidth = 2 * Math.floor(pct);
+			if (0 < greenWidth) {
+				addBarPart(td, "prpass", greenWidth);
+			}
+			if (BAR_WIDTH > greenWidth) {
+				addBarPart(td, "prfail", BAR_WIDTH - greenWidth);
+			}
+		}
+
+		function addBarPart(td, cls, width) {
+			var span = document.createElement("span");
+			span.className = "dataBar " + cls;
+			span.style.width = width + "px";
+			td.appendChild(span);
+		}
+
+		function addSpread(td, spread) {
+			for (var i = 0; i < spread.length; i++) {
+				var span = document.createElement("span");
+				span.className = "dataSpread " + spreadClass(spread.charAt(i));
+				span.title = "Run-" + (i + 1);
+				span.onclick = createRunOpener(i);
+				td.appendChild(span);
+			}
+		}
+
+		function spreadClass(verdict) {
+			switch (verdict) {
+			case "p":
+				return "pass";
+			case "f":
+				return "fail";
+			case "e":
+				return "error";
+			case "i":
+				return "ignored";
+			}
+			return "norun";
+		}
+
+		function createRunOpener(run) {
+			return function() {
+				if ("undefined" != typeof spreadRunLinks && spreadRunLinks[run]) {
+					window.location.href = spreadRunLinks[run];
+				}
+			};
+		}
+
+		function createRow(row) {
+			var tr = document.createElement("tr");
+			for (var i = 0; i < columns.length; i++) {
+				var col = columns[i];
+				var td = document.createElement("td");
+				if (null == row) {
+					td.className = 0 == i ? "graphItemLeft" : "graphPercent";
+					if ("pct" == col.k) {
+						td.colSpan = 2;
+					}
+					addText(td, 0 == i ? "..." : "");
+				} else if ("name" == col.k) {
+					td.className = "graphItemLeft";
+					addText(td, row[i]);
+				} else if ("link" == col.k) {
+					var a = document.createElement("a");
+					td.className = "graphItemLeft";
+					a.href = col.p + row[i] + col.s;
+					addText(a, row[i]);
+					td.appendChild(a);
+				} else if ("num" == col.k) {
+					td.className = "graphPercent";
+					td.align = "center";
+					addText(td, row[i]);
+				} else if ("pct" == col.k) {
+					var b = document.createElement("b");
+					td.className = "graphBarLeft";
+					td.align = "right";
+					addText(b, row[i] + "%");
+					td.appendChild(b);
+					tr.appendChild(td);
+					td = document.createElement("td");
+					td.className = "graphBar";
+					addBar(td, row[i]);
+				} else if ("spread" == col.k) {
+					td.className = "graphBar";
+					addSpread(td, row[i]);
+				}
+				tr.appendChild(td);
+			}
+			return tr;
+		}
+
+		/*
+		 * Puts the visible rows in the table, with spacer rows taking the
+		 * place of the rows above and below them.
+		 */
+		function render(force) {
+			var from = Math.max(0, Math.floor(view.scrollTop / rowHeight)
+					- EXTRA_ROWS);
+			var to = Math.min(noRows, from + VIEW_ROWS + 2 * EXTRA_ROWS);
+			if (!force && from == first && to == last) {
+				return;
+			}
+			first = from;
+			last = to;
+			while (tbody.firstChild) {
+				tbody.removeChild(tbody.firstChild);
+			}
+			tbody.appendChild(createSpacer(from * rowHeight));
+			for (var i = from; i < to; i++) {
+				var idx = order[i];
+				var row = rows[idx];
+				if (undefined == row) {
+					loadChunk(Math.floor(idx / chunkSize));
+					row = null;
+				}
+				tbody.appendChild(createRow(row));
+			}
+			tbody.appendChild(createSpacer((noRows - to) * rowHeight));
+			measure();
+		}
+
+		/*
+		 * Measures the height of a rendered row once, the spacers are sized
+		 * from it.
+		 */
+		function measure() {
+			if (first < last && 2 < tbody.rows.length) {
+				var h = tbody.rows[1].offsetHeight;
+				if (0 < h && h != rowHeight) {
+					rowHeight = h;
+					view.style.maxHeight = (VIEW_ROWS * rowHeight) + "px";
+					render(true);
+				}
+			}
+		}
+
+		table.cellSpacing = 0;
+		table.cellPadding = 2;
+		table.appendChild(createHeader());
+		table.appendChild(tbody);
+		view.className = "dataTableView";
+		view.style.maxHeight = (VIEW_ROWS * rowHeight) + "px";
+		view.appendChild(table);
+		view.onscroll = function() {
+			render(false);
+		};
+		document.getElementById(id).appendChild(view);
+		render(true);
+	}
+
+	return {
+		/**
+		 * Shows a table in the element with the given id.
+		 *
+		 * @param id The id of the element to show the table in.
+		 * @param name The name of the data chunks.
+		 * @param noRows The number of rows in the table.
+		 * @param noChunks The number of data chunks.
+		 * @param chunkSize The number of rows in a chunk.
+		 * @param columns The column titles and kinds.
+		 */
+		create : function(id, name, noRows, noChunks, chunkSize, columns) {
+			tables[name] = new Table(id, name, noRows, noChunks, chunkSize,
+					columns);
+		},
+
+		/**
+		 * Called by a loaded data chunk.
+		 *
+		 * @param name The name of the data chunks.
+		 * @param idx The index of the chunk.
+		 * @param rows The rows of the chunk.
+		 */
+		addChunk : function(name, idx, rows) {
+			var t = tables[name];
+			if (t) {
+				t.addChunk(idx, rows);
+			}
+		}
+	};
+})();